@@ -20,6 +20,7 @@ package app.nzyme.core;
 import app.nzyme.core.configuration.node.NodeConfiguration;
 import com.beust.jcommander.JCommander;
 import com.typesafe.config.ConfigException;
+import com.zaxxer.hikari.pool.HikariPool;
 import app.nzyme.core.configuration.CLIArguments;
 import app.nzyme.core.configuration.IncompleteConfigurationException;
 import app.nzyme.core.configuration.InvalidConfigurationException;
@@ -96,6 +97,9 @@ public class Main {
         } catch (LiquibaseException e) {
             LOG.fatal("Error during database initialization and migration.", e);
             System.exit(FAILURE);
+        } catch (HikariPool.PoolInitializationException e) {
+            LOG.fatal("Could not connect to database.", e);
+            System.exit(FAILURE);
         }
 
         NzymeNode nzyme = new NzymeNodeImpl(baseConfiguration, nodeConfiguration, database);
@@ -99,6 +99,7 @@ public class MockNzyme implements NzymeNode {
     private final Registry registry;
     private final RegistryChangeMonitor registryChangeMonitor;
     private final EventEngine eventEngine;
+    private final TapManager tapManager;
 
     public MockNzyme() {
         this(Integer.MAX_VALUE, TimeUnit.DAYS);
@@ -167,6 +168,7 @@ public class MockNzyme implements NzymeNode {
         ((PostgresTasksQueueImpl) this.tasksQueue).initialize(taskAndMessagePollInterval, taskAndMessagePollIntervalUnit);
 
         this.authenticationService = new AuthenticationService(this);
+        this.tapManager = new TapManager(this);
 
 
         this.database.useHandle(handle -> handle.execute("TRUNCATE sentry_ssids"));
@@ -278,7 +280,7 @@ public class MockNzyme implements NzymeNode {
 
     @Override
     public TapManager getTapManager() {
-        return null;
+        return tapManager;
     }
 
     @Override
@@ -27,11 +27,14 @@ import app.nzyme.core.distributed.tasksqueue.postgres.PostgresTasksQueueImpl;
 import app.nzyme.core.dot11.Dot11;
 import app.nzyme.core.dot11.monitoring.Dot11SignalTrackMonitor;
 import app.nzyme.core.dot11.monitoring.disco.Dot11DiscoMonitor;
+import app.nzyme.core.dot11.rollups.Dot11HistogramRollupAggregator;
 import app.nzyme.core.events.EventEngine;
 import app.nzyme.core.events.EventEngineImpl;
 import app.nzyme.core.integrations.geoip.GeoIpService;
 import app.nzyme.core.monitoring.health.HealthMonitor;
+import app.nzyme.core.periodicals.database.PartitionCreator;
 import app.nzyme.core.periodicals.distributed.NodeUpdater;
+import app.nzyme.core.registry.RegistryCache;
 import app.nzyme.core.registry.RegistryChangeMonitorImpl;
 import app.nzyme.core.rest.server.NzymeHttpServer;
 import app.nzyme.core.security.authentication.AuthenticationService;
@@ -88,6 +91,7 @@ public class NzymeNodeImpl implements NzymeNode {
     private final DatabaseImpl database;
     private final AuthenticationService authenticationService;
 
+    private final RegistryCache registryCache;
     private final RegistryImpl registry;
     private final RegistryChangeMonitor registryChangeMonitor;
 
@@ -133,8 +137,9 @@ public class NzymeNodeImpl implements NzymeNode {
         this.database = database;
         this.configuration = configuration;
 
-        this.registry = new RegistryImpl(this, "core");
-        this.registryChangeMonitor = new RegistryChangeMonitorImpl(this);
+        this.registryCache = new RegistryCache();
+        this.registry = new RegistryImpl(this, "core", registryCache);
+        this.registryChangeMonitor = new RegistryChangeMonitorImpl(this, registryCache);
 
         this.authenticationService = new AuthenticationService(this);
 
@@ -224,13 +229,16 @@ public class NzymeNodeImpl implements NzymeNode {
 
         // Database metrics.
         metrics.register(MetricNames.DATABASE_SIZE, (Gauge<Long>) database::getTotalSize);
+        database.registerMetrics(metrics);
 
         // Periodicals. (TODO: Replace with scheduler service)
         PeriodicalManager periodicalManager = new PeriodicalManager();
         periodicalManager.scheduleAtFixedRate(new NodeUpdater(this), 0, 5, TimeUnit.SECONDS);
+        periodicalManager.scheduleAtFixedRate(new PartitionCreator(this), 1, 1, TimeUnit.HOURS);
         periodicalManager.scheduleAtFixedRate(new OUIUpdater(this), 12, 12, TimeUnit.HOURS);
         periodicalManager.scheduleAtFixedRate(new Dot11SignalTrackMonitor(this), 1, 1, TimeUnit.MINUTES);
         periodicalManager.scheduleAtFixedRate(new Dot11DiscoMonitor(this), 1, 1, TimeUnit.MINUTES);
+        periodicalManager.scheduleAtFixedRate(new Dot11HistogramRollupAggregator(this), 1, 5, TimeUnit.MINUTES);
         if(configuration.versionchecksEnabled()) {
             periodicalManager.scheduleAtFixedRate(new VersioncheckThread(version, this), 0, 60, TimeUnit.MINUTES);
         } else {
@@ -238,6 +246,7 @@ public class NzymeNodeImpl implements NzymeNode {
         }
 
         healthMonitor.initialize();
+        tapManager.initialize();
 
         // Load plugins.
         PluginLoader pl = new PluginLoader(new File(configuration.pluginDirectory())); // TODO make path configurable
@@ -273,6 +282,15 @@ public class NzymeNodeImpl implements NzymeNode {
             httpServer.shutdownNow();
         }
 
+        // Write out already accepted tap reports.
+        LOG.info("Processing queued tap table reports.");
+        tablesService.shutdown();
+
+        // Write out recorded user activity that was not written yet.
+        authenticationService.flushUserActivity();
+
+        database.close();
+
         LOG.info("Shutdown complete.");
     }
 
@@ -423,7 +441,7 @@ public class NzymeNodeImpl implements NzymeNode {
     }
 
     public Registry getDatabaseRegistry(String namespace) {
-        return new RegistryImpl(this, namespace);
+        return new RegistryImpl(this, namespace, registryCache);
     }
 
     @Override
@@ -36,6 +36,25 @@ public class CacheManager {
                                     message.sender());
                             nzyme.getContextService().invalidateMacAddressCache();
                             break;
+                        case "dot11_monitored_networks":
+                            LOG.info("Invalidating 802.11 monitored network cache on request by node [{}].",
+                                    message.sender());
+                            nzyme.getDot11().invalidateLocalMonitoredNetworkSnapshots();
+                            break;
+                        case "tap_secrets":
+                            LOG.info("Invalidating tap secret cache on request by node [{}].",
+                                    message.sender());
+                            nzyme.getAuthenticationService().invalidateTapSecretCache();
+                            break;
+                        case "auth_sessions":
+                            LOG.info("Invalidating authenticated session cache on request by node [{}].",
+                                    message.sender());
+                            nzyme.getAuthenticationService().invalidateSessionCache();
+                            break;
+                        case "taps":
+                            LOG.info("Invalidating tap cache on request by node [{}].", message.sender());
+                            nzyme.getTapManager().invalidateTaps();
+                            break;
                         default:
                             LOG.error("Could not handle [{}] message: Unknown cache type.",
                                     MessageType.INVALIDATE_CACHE);
@@ -33,5 +33,19 @@ public class ConfigurationKeys {
     public static final String REST_LISTEN_URI = "rest_listen_uri";
     public static final String HTTP_EXTERNAL_URI = "http_external_uri";
     public static final String SLOW_QUERY_LOG_THRESHOLD = "slow_query_log_threshold";
+    public static final String DOT11_WRITE_MODE = "dot11_write_mode";
+    public static final String DOT11_INGEST_WORKERS = "dot11_ingest_workers";
+    public static final String DOT11_INGEST_QUEUE_SIZE = "dot11_ingest_queue_size";
+    public static final String DNS_INGEST_WORKERS = "dns_ingest_workers";
+    public static final String DNS_INGEST_QUEUE_SIZE = "dns_ingest_queue_size";
+    public static final String TAP_REPORT_MAX_SIZE_MB = "tap_report_max_size_mb";
+    public static final String DNS_PREAGGREGATE = "dns_preaggregate";
+    public static final String DATABASE_POOL_SIZE = "database_pool_size";
+    public static final String DATABASE_CONNECTION_TIMEOUT_MS = "database_connection_timeout_ms";
+    public static final String DATABASE_IDLE_TIMEOUT_MS = "database_idle_timeout_ms";
+    public static final String DATABASE_MAX_LIFETIME_MS = "database_max_lifetime_ms";
+    public static final String DATABASE_REPLICA_PATH = "database_replica_path";
+    public static final String DATABASE_REPLICA_MAX_LAG_SECONDS = "database_replica_max_lag_seconds";
+    public static final String DATABASE_REST_STATEMENT_TIMEOUT_SECONDS = "database_rest_statement_timeout_seconds";
 
 }
\ No newline at end of file
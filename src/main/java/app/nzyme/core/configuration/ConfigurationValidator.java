@@ -52,6 +52,10 @@ public class ConfigurationValidator {
             if (clazz.equals(Integer.class)) {
                 c.getInt(key);
             }
+
+            if (clazz.equals(Long.class)) {
+                c.getLong(key);
+            }
         } catch(ConfigException.Missing e) {
             LOG.error(e);
             incomplete = true;
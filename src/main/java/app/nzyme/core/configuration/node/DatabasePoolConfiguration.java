@@ -0,0 +1,38 @@
+package app.nzyme.core.configuration.node;
+
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class DatabasePoolConfiguration {
+
+    public abstract int maximumPoolSize();
+    public abstract long connectionTimeoutMs();
+    public abstract long idleTimeoutMs();
+    public abstract long maxLifetimeMs();
+
+    public static DatabasePoolConfiguration create(int maximumPoolSize, long connectionTimeoutMs, long idleTimeoutMs, long maxLifetimeMs) {
+        return builder()
+                .maximumPoolSize(maximumPoolSize)
+                .connectionTimeoutMs(connectionTimeoutMs)
+                .idleTimeoutMs(idleTimeoutMs)
+                .maxLifetimeMs(maxLifetimeMs)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_DatabasePoolConfiguration.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder maximumPoolSize(int maximumPoolSize);
+
+        public abstract Builder connectionTimeoutMs(long connectionTimeoutMs);
+
+        public abstract Builder idleTimeoutMs(long idleTimeoutMs);
+
+        public abstract Builder maxLifetimeMs(long maxLifetimeMs);
+
+        public abstract DatabasePoolConfiguration build();
+    }
+}
@@ -0,0 +1,30 @@
+package app.nzyme.core.configuration.node;
+
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class DatabaseReplicaConfiguration {
+
+    public abstract String path();
+    public abstract int maxLagSeconds();
+
+    public static DatabaseReplicaConfiguration create(String path, int maxLagSeconds) {
+        return builder()
+                .path(path)
+                .maxLagSeconds(maxLagSeconds)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_DatabaseReplicaConfiguration.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder path(String path);
+
+        public abstract Builder maxLagSeconds(int maxLagSeconds);
+
+        public abstract DatabaseReplicaConfiguration build();
+    }
+}
@@ -1,5 +1,6 @@
 package app.nzyme.core.configuration.node;
 
+import app.nzyme.core.tables.dot11.Dot11WriteMode;
 import com.google.auto.value.AutoValue;
 
 import java.net.URI;
@@ -13,6 +14,8 @@ public abstract class NodeConfiguration {
     public abstract boolean fetchOuis();
 
     public abstract String databasePath();
+    public abstract DatabasePoolConfiguration databasePool();
+    public abstract Optional<DatabaseReplicaConfiguration> databaseReplica();
 
     public abstract URI restListenUri();
     public abstract URI httpExternalUri();
@@ -25,17 +28,36 @@ public abstract class NodeConfiguration {
 
     public abstract String ntpServer();
 
-    public static NodeConfiguration create(boolean versionchecksEnabled, boolean fetchOuis, String databasePath, URI restListenUri, URI httpExternalUri, String pluginDirectory, String cryptoDirectory, Optional<Integer> slowQueryLogThreshold, String ntpServer) {
+    public abstract Dot11WriteMode dot11WriteMode();
+
+    public abstract TableIngestConfiguration dot11Ingest();
+    public abstract TableIngestConfiguration dnsIngest();
+
+    public abstract int tapReportMaxSizeMb();
+
+    public abstract boolean dnsPreaggregate();
+
+    public abstract int databaseRestStatementTimeoutSeconds();
+
+    public static NodeConfiguration create(boolean versionchecksEnabled, boolean fetchOuis, String databasePath, DatabasePoolConfiguration databasePool, Optional<DatabaseReplicaConfiguration> databaseReplica, URI restListenUri, URI httpExternalUri, String pluginDirectory, String cryptoDirectory, Optional<Integer> slowQueryLogThreshold, String ntpServer, Dot11WriteMode dot11WriteMode, TableIngestConfiguration dot11Ingest, TableIngestConfiguration dnsIngest, int tapReportMaxSizeMb, boolean dnsPreaggregate, int databaseRestStatementTimeoutSeconds) {
         return builder()
                 .versionchecksEnabled(versionchecksEnabled)
                 .fetchOuis(fetchOuis)
                 .databasePath(databasePath)
+                .databasePool(databasePool)
+                .databaseReplica(databaseReplica)
                 .restListenUri(restListenUri)
                 .httpExternalUri(httpExternalUri)
                 .pluginDirectory(pluginDirectory)
                 .cryptoDirectory(cryptoDirectory)
                 .slowQueryLogThreshold(slowQueryLogThreshold)
                 .ntpServer(ntpServer)
+                .dot11WriteMode(dot11WriteMode)
+                .dot11Ingest(dot11Ingest)
+                .dnsIngest(dnsIngest)
+                .tapReportMaxSizeMb(tapReportMaxSizeMb)
+                .dnsPreaggregate(dnsPreaggregate)
+                .databaseRestStatementTimeoutSeconds(databaseRestStatementTimeoutSeconds)
                 .build();
     }
 
@@ -43,6 +65,8 @@ public abstract class NodeConfiguration {
         return new AutoValue_NodeConfiguration.Builder();
     }
 
+    public abstract Builder toBuilder();
+
     @AutoValue.Builder
     public abstract static class Builder {
         public abstract Builder versionchecksEnabled(boolean versionchecksEnabled);
@@ -51,6 +75,10 @@ public abstract class NodeConfiguration {
 
         public abstract Builder databasePath(String databasePath);
 
+        public abstract Builder databasePool(DatabasePoolConfiguration databasePool);
+
+        public abstract Builder databaseReplica(Optional<DatabaseReplicaConfiguration> databaseReplica);
+
         public abstract Builder restListenUri(URI restListenUri);
 
         public abstract Builder httpExternalUri(URI httpExternalUri);
@@ -63,6 +91,18 @@ public abstract class NodeConfiguration {
 
         public abstract Builder ntpServer(String ntpServer);
 
+        public abstract Builder dot11WriteMode(Dot11WriteMode dot11WriteMode);
+
+        public abstract Builder dot11Ingest(TableIngestConfiguration dot11Ingest);
+
+        public abstract Builder dnsIngest(TableIngestConfiguration dnsIngest);
+
+        public abstract Builder tapReportMaxSizeMb(int tapReportMaxSizeMb);
+
+        public abstract Builder dnsPreaggregate(boolean dnsPreaggregate);
+
+        public abstract Builder databaseRestStatementTimeoutSeconds(int databaseRestStatementTimeoutSeconds);
+
         public abstract NodeConfiguration build();
     }
 }
\ No newline at end of file
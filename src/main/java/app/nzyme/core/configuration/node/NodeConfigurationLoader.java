@@ -21,6 +21,7 @@ import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import com.typesafe.config.ConfigFactory;
 import app.nzyme.core.configuration.*;
+import app.nzyme.core.tables.dot11.Dot11WriteMode;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -62,12 +63,20 @@ public class NodeConfigurationLoader {
                 parseVersionchecksEnabled(),
                 parseFetchOUIsEnabled(),
                 parseDatabasePath(),
+                parseDatabasePool(),
+                parseDatabaseReplica(),
                 parseRestListenUri(),
                 parseHttpExternalUri(),
                 parsePluginDirectory(),
                 parseCryptoDirectory(),
                 parseSlowQueryLogThreshold(),
-                parseNtpServer()
+                parseNtpServer(),
+                parseDot11WriteMode(),
+                parseTableIngest(ConfigurationKeys.DOT11_INGEST_WORKERS, ConfigurationKeys.DOT11_INGEST_QUEUE_SIZE, 2),
+                parseTableIngest(ConfigurationKeys.DNS_INGEST_WORKERS, ConfigurationKeys.DNS_INGEST_QUEUE_SIZE, 1),
+                parseTapReportMaxSizeMb(),
+                parseDnsPreaggregate(),
+                parseDatabaseRestStatementTimeoutSeconds()
         );
     }
 
@@ -79,10 +88,72 @@ public class NodeConfigurationLoader {
         }
     }
 
+    private Dot11WriteMode parseDot11WriteMode() {
+        try {
+            return Dot11WriteMode.valueOf(general.getString(ConfigurationKeys.DOT11_WRITE_MODE).toUpperCase());
+        } catch(ConfigException.Missing ignored) {
+            return Dot11WriteMode.BATCH;
+        }
+    }
+
+    private TableIngestConfiguration parseTableIngest(String workersKey, String queueSizeKey, int defaultWorkers) {
+        int workers = general.hasPath(workersKey) ? general.getInt(workersKey) : defaultWorkers;
+        int queueSize = general.hasPath(queueSizeKey) ? general.getInt(queueSizeKey) : 250;
+
+        return TableIngestConfiguration.create(workers, queueSize);
+    }
+
+    private int parseTapReportMaxSizeMb() {
+        if (general.hasPath(ConfigurationKeys.TAP_REPORT_MAX_SIZE_MB)) {
+            return general.getInt(ConfigurationKeys.TAP_REPORT_MAX_SIZE_MB);
+        }
+
+        return 64;
+    }
+
+    private boolean parseDnsPreaggregate() {
+        return general.hasPath(ConfigurationKeys.DNS_PREAGGREGATE) && general.getBoolean(ConfigurationKeys.DNS_PREAGGREGATE);
+    }
+
+    private int parseDatabaseRestStatementTimeoutSeconds() {
+        if (general.hasPath(ConfigurationKeys.DATABASE_REST_STATEMENT_TIMEOUT_SECONDS)) {
+            return general.getInt(ConfigurationKeys.DATABASE_REST_STATEMENT_TIMEOUT_SECONDS);
+        }
+
+        return 60;
+    }
+
     private String parseDatabasePath() {
         return general.getString(ConfigurationKeys.DATABASE_PATH);
     }
 
+    private DatabasePoolConfiguration parseDatabasePool() {
+        int poolSize = general.hasPath(ConfigurationKeys.DATABASE_POOL_SIZE)
+                ? general.getInt(ConfigurationKeys.DATABASE_POOL_SIZE) : 20;
+        long connectionTimeout = general.hasPath(ConfigurationKeys.DATABASE_CONNECTION_TIMEOUT_MS)
+                ? general.getLong(ConfigurationKeys.DATABASE_CONNECTION_TIMEOUT_MS) : 30000;
+        long idleTimeout = general.hasPath(ConfigurationKeys.DATABASE_IDLE_TIMEOUT_MS)
+                ? general.getLong(ConfigurationKeys.DATABASE_IDLE_TIMEOUT_MS) : 600000;
+        long maxLifetime = general.hasPath(ConfigurationKeys.DATABASE_MAX_LIFETIME_MS)
+                ? general.getLong(ConfigurationKeys.DATABASE_MAX_LIFETIME_MS) : 1800000;
+
+        return DatabasePoolConfiguration.create(poolSize, connectionTimeout, idleTimeout, maxLifetime);
+    }
+
+    private Optional<DatabaseReplicaConfiguration> parseDatabaseReplica() {
+        if (!general.hasPath(ConfigurationKeys.DATABASE_REPLICA_PATH)) {
+            return Optional.empty();
+        }
+
+        int maxLagSeconds = general.hasPath(ConfigurationKeys.DATABASE_REPLICA_MAX_LAG_SECONDS)
+                ? general.getInt(ConfigurationKeys.DATABASE_REPLICA_MAX_LAG_SECONDS) : 5;
+
+        return Optional.of(DatabaseReplicaConfiguration.create(
+                general.getString(ConfigurationKeys.DATABASE_REPLICA_PATH),
+                maxLagSeconds
+        ));
+    }
+
     private boolean parseVersionchecksEnabled() {
         return general.getBoolean(ConfigurationKeys.VERSIONCHECKS);
     }
@@ -152,6 +223,65 @@ public class NodeConfigurationLoader {
             throw new InvalidConfigurationException("Crypto directory [" + parseCryptoDirectory() + "] is not writable.");
         }
 
+        // 802.11 write mode is known, if set.
+        if (general.hasPath(ConfigurationKeys.DOT11_WRITE_MODE)) {
+            try {
+                parseDot11WriteMode();
+            } catch(IllegalArgumentException e) {
+                throw new InvalidConfigurationException("Parameter [general." + ConfigurationKeys.DOT11_WRITE_MODE + "] must be one of [batch, copy].");
+            }
+        }
+
+        // Table ingest workers, queue sizes and report size limit are positive, if set.
+        for (String key : new String[]{ConfigurationKeys.DOT11_INGEST_WORKERS, ConfigurationKeys.DOT11_INGEST_QUEUE_SIZE,
+                ConfigurationKeys.DNS_INGEST_WORKERS, ConfigurationKeys.DNS_INGEST_QUEUE_SIZE,
+                ConfigurationKeys.TAP_REPORT_MAX_SIZE_MB}) {
+            if (general.hasPath(key)) {
+                ConfigurationValidator.expect(general, key, ConfigurationKeys.GENERAL, Integer.class);
+                if (general.getInt(key) < 1) {
+                    throw new InvalidConfigurationException("Parameter [general." + key + "] must be at least 1.");
+                }
+            }
+        }
+
+        // Database pool size is positive, if set.
+        if (general.hasPath(ConfigurationKeys.DATABASE_POOL_SIZE)) {
+            ConfigurationValidator.expect(general, ConfigurationKeys.DATABASE_POOL_SIZE, ConfigurationKeys.GENERAL, Integer.class);
+            if (general.getInt(ConfigurationKeys.DATABASE_POOL_SIZE) < 1) {
+                throw new InvalidConfigurationException("Parameter [general." + ConfigurationKeys.DATABASE_POOL_SIZE + "] must be at least 1.");
+            }
+        }
+
+        // Database pool timeouts are above the minimums the pool accepts, if set. (Idle timeout and max lifetime can be 0 to disable them.)
+        validateDatabasePoolTimeout(ConfigurationKeys.DATABASE_CONNECTION_TIMEOUT_MS, 250, false);
+        validateDatabasePoolTimeout(ConfigurationKeys.DATABASE_IDLE_TIMEOUT_MS, 10000, true);
+        validateDatabasePoolTimeout(ConfigurationKeys.DATABASE_MAX_LIFETIME_MS, 30000, true);
+
+        // Database replica path is not empty and maximum replica lag is positive, if set.
+        if (general.hasPath(ConfigurationKeys.DATABASE_REPLICA_PATH)) {
+            ConfigurationValidator.expect(general, ConfigurationKeys.DATABASE_REPLICA_PATH, ConfigurationKeys.GENERAL, String.class);
+        }
+
+        if (general.hasPath(ConfigurationKeys.DATABASE_REPLICA_MAX_LAG_SECONDS)) {
+            ConfigurationValidator.expect(general, ConfigurationKeys.DATABASE_REPLICA_MAX_LAG_SECONDS, ConfigurationKeys.GENERAL, Integer.class);
+            if (general.getInt(ConfigurationKeys.DATABASE_REPLICA_MAX_LAG_SECONDS) < 1) {
+                throw new InvalidConfigurationException("Parameter [general." + ConfigurationKeys.DATABASE_REPLICA_MAX_LAG_SECONDS + "] must be at least 1.");
+            }
+        }
+
+        // REST statement timeout is not negative, if set. (0 disables it.)
+        if (general.hasPath(ConfigurationKeys.DATABASE_REST_STATEMENT_TIMEOUT_SECONDS)) {
+            ConfigurationValidator.expect(general, ConfigurationKeys.DATABASE_REST_STATEMENT_TIMEOUT_SECONDS, ConfigurationKeys.GENERAL, Integer.class);
+            if (general.getInt(ConfigurationKeys.DATABASE_REST_STATEMENT_TIMEOUT_SECONDS) < 0) {
+                throw new InvalidConfigurationException("Parameter [general." + ConfigurationKeys.DATABASE_REST_STATEMENT_TIMEOUT_SECONDS + "] must be at least 0.");
+            }
+        }
+
+        // DNS pre-aggregation is a boolean, if set.
+        if (general.hasPath(ConfigurationKeys.DNS_PREAGGREGATE)) {
+            ConfigurationValidator.expect(general, ConfigurationKeys.DNS_PREAGGREGATE, ConfigurationKeys.GENERAL, Boolean.class);
+        }
+
         // REST listen URI can be parsed into a URI and is TLS.
         try {
             URI uri = parseRestListenUri();
@@ -175,4 +305,21 @@ public class NodeConfigurationLoader {
         }
     }
 
+    private void validateDatabasePoolTimeout(String key, long minimum, boolean allowDisabled) throws IncompleteConfigurationException, InvalidConfigurationException {
+        if (!general.hasPath(key)) {
+            return;
+        }
+
+        ConfigurationValidator.expect(general, key, ConfigurationKeys.GENERAL, Long.class);
+        long value = general.getLong(key);
+        if (allowDisabled && value == 0) {
+            return;
+        }
+
+        if (value < minimum) {
+            throw new InvalidConfigurationException("Parameter [general." + key + "] must be at least " + minimum
+                    + (allowDisabled ? " or 0." : "."));
+        }
+    }
+
 }
@@ -39,6 +39,7 @@ import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.util.io.Streams;
 import org.joda.time.DateTime;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.math.BigInteger;
 import java.nio.file.Paths;
@@ -107,6 +108,9 @@ public class Crypto {
 
     private PGPKeys nodeLocalPGPKeys = null;
 
+    // Parsed cluster PGP keys. Loaded from disk on first use and again after the key files changed.
+    private volatile ClusterPGPKeys clusterPGPKeys = null;
+
     public Crypto(NzymeNode nzyme) {
         this.nzyme = nzyme;
 
@@ -130,6 +134,9 @@ public class Crypto {
         File privateKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PRIVATE_KEY_FILE_NAME).toFile();
         File publicKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PUBLIC_KEY_FILE_NAME).toFile();
 
+        // The key files might be replaced below.
+        invalidateClusterPGPKeys();
+
         // Create node-local PGP key.
         try {
             nodeLocalPGPKeys = generatePGPKeys();
@@ -384,12 +391,14 @@ public class Crypto {
     }
 
     public byte[] encryptWithClusterKey(byte[] value) throws CryptoOperationException {
-        File publicKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PUBLIC_KEY_FILE_NAME).toFile();
+        ClusterPGPKeys keys;
         try {
-            return encrypt(value, readPublicKey(publicKeyLocation));
-        } catch (IOException | PGPException e) {
+            keys = getClusterPGPKeys();
+        } catch (CryptoOperationException e) {
             throw new CryptoOperationException("Cannot encrypt value.", e);
         }
+
+        return encrypt(value, keys.publicKey);
     }
 
     public byte[] encrypt(byte[] value, PGPPublicKey publicKey) throws CryptoOperationException {
@@ -424,16 +433,34 @@ public class Crypto {
     }
 
     public byte[] decryptWithClusterKey(byte[] value) throws CryptoOperationException {
-        File privateKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PRIVATE_KEY_FILE_NAME).toFile();
-
-        try(InputStream keyIn = new FileInputStream(privateKeyLocation)) {
-            return decrypt(value, keyIn);
-        } catch (CryptoOperationException | IOException e) {
+        ClusterPGPKeys keys;
+        try {
+            keys = getClusterPGPKeys();
+        } catch (CryptoOperationException e) {
             throw new CryptoOperationException("Cannot decrypt value.", e);
         }
+
+        return decrypt(value, keys.privateKeys::get);
     }
 
     public byte[] decrypt(byte[] value, InputStream keyInput) throws CryptoOperationException {
+        return decrypt(value, new PrivateKeyLookup() {
+            private PGPSecretKeyRingCollection pgpSec = null;
+
+            @Override
+            public PGPPrivateKey find(long keyId) throws IOException, PGPException {
+                if (pgpSec == null) {
+                    pgpSec = new PGPSecretKeyRingCollection(
+                            PGPUtil.getDecoderStream(keyInput), new JcaKeyFingerprintCalculator()
+                    );
+                }
+
+                return findSecretKey(pgpSec, keyId);
+            }
+        });
+    }
+
+    private byte[] decrypt(byte[] value, PrivateKeyLookup privateKeys) throws CryptoOperationException {
         try(InputStream dataIn = PGPUtil.getDecoderStream(new ByteArrayInputStream(value))) {
             Timer.Context timer = decryptionTimer.time();
 
@@ -452,13 +479,10 @@ public class Crypto {
             Iterator<PGPEncryptedData> it = enc.getEncryptedDataObjects();
             PGPPrivateKey sKey = null;
             PGPPublicKeyEncryptedData pbe = null;
-            PGPSecretKeyRingCollection pgpSec = new PGPSecretKeyRingCollection(
-                    PGPUtil.getDecoderStream(keyInput), new JcaKeyFingerprintCalculator()
-            );
 
             while (sKey == null && it.hasNext()) {
                 pbe = (PGPPublicKeyEncryptedData) it.next();
-                sKey = findSecretKey(pgpSec, pbe.getKeyID());
+                sKey = privateKeys.find(pbe.getKeyID());
             }
 
             if (sKey == null) {
@@ -843,6 +867,59 @@ public class Crypto {
         return nodeLocalPGPKeys;
     }
 
+    /**
+     * Makes the next cluster key operation load the PGP keys from disk again. Must be called after the key files
+     * were replaced.
+     */
+    public void invalidateClusterPGPKeys() {
+        clusterPGPKeys = null;
+    }
+
+    private ClusterPGPKeys getClusterPGPKeys() throws CryptoOperationException {
+        ClusterPGPKeys keys = clusterPGPKeys;
+        if (keys == null) {
+            synchronized (this) {
+                keys = clusterPGPKeys;
+                if (keys == null) {
+                    keys = loadClusterPGPKeys();
+                    clusterPGPKeys = keys;
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    private ClusterPGPKeys loadClusterPGPKeys() throws CryptoOperationException {
+        File privateKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PRIVATE_KEY_FILE_NAME).toFile();
+        File publicKeyLocation = Paths.get(cryptoDirectoryConfig.toString(), PGP_PUBLIC_KEY_FILE_NAME).toFile();
+
+        try(InputStream keyIn = new BufferedInputStream(new FileInputStream(privateKeyLocation))) {
+            PGPSecretKeyRingCollection pgpSec = new PGPSecretKeyRingCollection(
+                    PGPUtil.getDecoderStream(keyIn), new JcaKeyFingerprintCalculator()
+            );
+
+            // Extracting a private key is expensive. Do it once for all keys of the ring.
+            Map<Long, PGPPrivateKey> privateKeys = new HashMap<>();
+            Iterator<PGPSecretKeyRing> keyRingIter = pgpSec.getKeyRings();
+            while (keyRingIter.hasNext()) {
+                Iterator<PGPSecretKey> keyIter = keyRingIter.next().getSecretKeys();
+                while (keyIter.hasNext()) {
+                    PGPSecretKey key = keyIter.next();
+                    if (!key.isPrivateKeyEmpty()) {
+                        privateKeys.put(key.getKeyID(), findSecretKey(pgpSec, key.getKeyID()));
+                    }
+                }
+            }
+
+            LOG.debug("Loaded cluster PGP keys from disk.");
+
+            return new ClusterPGPKeys(readPublicKey(publicKeyLocation), privateKeys);
+        } catch (IOException | PGPException | IllegalArgumentException e) {
+            throw new CryptoOperationException("Cannot load cluster PGP keys.", e);
+        }
+    }
+
     public static PGPPublicKey readPublicKey(File file) throws IOException, PGPException {
         try(InputStream keyIn = new BufferedInputStream(new FileInputStream(file))) {
             return readPublicKey(keyIn);
@@ -1047,6 +1124,21 @@ public class Crypto {
         }
     }
 
+    private interface PrivateKeyLookup {
+        @Nullable
+        PGPPrivateKey find(long keyId) throws IOException, PGPException;
+    }
+
+    private static final class ClusterPGPKeys {
+        private final PGPPublicKey publicKey;
+        private final Map<Long, PGPPrivateKey> privateKeys;
+
+        private ClusterPGPKeys(PGPPublicKey publicKey, Map<Long, PGPPrivateKey> privateKeys) {
+            this.publicKey = publicKey;
+            this.privateKeys = privateKeys;
+        }
+    }
+
     public static final class CryptoInitializationException extends Throwable {
         public CryptoInitializationException(String msg) {
             super(msg);
@@ -0,0 +1,54 @@
+package app.nzyme.core.database;
+
+import org.jdbi.v3.core.Handle;
+
+/**
+ * Positional multi-row insert into a single table. Rows are collected in memory and written in one go by
+ * {@link #execute()}, either as a JDBC prepared batch, as multi-row INSERT statements or streamed through PostgreSQL
+ * COPY.
+ */
+public abstract class BulkInsert {
+
+    protected final String table;
+    protected final String[] columns;
+
+    protected BulkInsert(String table, String... columns) {
+        this.table = table;
+        this.columns = columns;
+    }
+
+    public static BulkInsert preparedBatch(Handle handle, String table, String... columns) {
+        return new PreparedBatchBulkInsert(handle, table, columns);
+    }
+
+    public static BulkInsert multiRow(Handle handle, String table, String... columns) {
+        return new MultiRowBulkInsert(handle, table, columns);
+    }
+
+    public static BulkInsert copy(Handle handle, String table, String... columns) {
+        return new CopyBulkInsert(handle, table, columns);
+    }
+
+    public abstract BulkInsert add(Object... values);
+
+    public abstract int size();
+
+    /**
+     * Writes all collected rows.
+     *
+     * @return the number of rows written
+     */
+    public abstract int execute();
+
+    public String getTable() {
+        return table;
+    }
+
+    protected void checkArity(Object[] values) {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("Expected <" + columns.length + "> values for table [" + table + "] " +
+                    "but got <" + values.length + ">.");
+        }
+    }
+
+}
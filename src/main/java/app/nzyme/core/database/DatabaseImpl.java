@@ -1,5 +1,6 @@
 package app.nzyme.core.database;
 
+import app.nzyme.core.configuration.node.DatabaseReplicaConfiguration;
 import app.nzyme.core.configuration.node.NodeConfiguration;
 import app.nzyme.core.context.db.MacAddressContextEntryMapper;
 import app.nzyme.core.crypto.database.TLSKeyAndCertificateEntryMapper;
@@ -37,6 +38,13 @@ import app.nzyme.core.ethernet.dns.db.DNSTrafficSummaryMapper;
 import app.nzyme.core.taps.db.*;
 import app.nzyme.core.taps.db.metrics.TapMetricsAggregationMapper;
 import app.nzyme.core.taps.db.metrics.TapMetricsGaugeMapper;
+import app.nzyme.core.util.MetricNames;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import liquibase.Contexts;
 import liquibase.LabelExpression;
 import liquibase.Liquibase;
@@ -49,30 +57,121 @@ import org.apache.logging.log4j.Logger;
 import org.jdbi.v3.core.HandleCallback;
 import org.jdbi.v3.core.HandleConsumer;
 import org.jdbi.v3.core.Jdbi;
-import org.jdbi.v3.core.statement.SqlLogger;
-import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
 import org.jdbi.v3.jodatime2.JodaTimePlugin;
 import org.jdbi.v3.postgres.PostgresPlugin;
 import org.joda.time.DateTime;
 
 import java.sql.Timestamp;
-import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseImpl implements Database {
 
     private static final Logger LOG = LogManager.getLogger(DatabaseImpl.class);
 
+    /*
+     * Tables partitioned by the UTC hour of their created_at column. Rows outside of all hourly partitions go into a
+     * DEFAULT partition.
+     */
+    public static final List<String> HOURLY_PARTITIONED_TABLES = ImmutableList.of(
+            "dns_statistics",
+            "dns_pairs",
+            "dns_nxdomains_log",
+            "tap_metrics_gauges",
+            "tap_metrics_timers"
+    );
+
+    private static final int PARTITION_HOURS_AHEAD = 24;
+
     private final NodeConfiguration configuration;
+    private final QueryMetrics queryMetrics;
 
+    private HikariDataSource dataSource;
     private Jdbi jdbi;
 
+    private HikariDataSource replicaDataSource;
+    private Jdbi replicaJdbi;
+    private ScheduledExecutorService replicaLagChecker;
+
+    // Last measured replication lag of the read replica. Empty if no replica is configured or it could not be checked.
+    private volatile Optional<Long> replicaLagSeconds = Optional.empty();
+
     public DatabaseImpl(NodeConfiguration configuration) {
         this.configuration = configuration;
+        this.queryMetrics = new QueryMetrics(configuration.slowQueryLogThreshold());
+
+        if (configuration.slowQueryLogThreshold().isPresent()) {
+            LOG.info("Slow query log enabled with threshold <{}ms>.", configuration.slowQueryLogThreshold().get());
+        }
     }
 
     public void initializeAndMigrate() throws LiquibaseException {
+        this.dataSource = buildDataSource(MetricNames.DATABASE_POOL, configuration.databasePath(), true);
+        this.jdbi = buildJdbi(dataSource);
+
+        if (configuration.databaseReplica().isPresent()) {
+            DatabaseReplicaConfiguration replica = configuration.databaseReplica().get();
+            LOG.info("Read replica configured. Maximum replication lag: <{}s>.", replica.maxLagSeconds());
+
+            /*
+             * Don't fail startup if the replica is down. Read queries go to the primary until the lag checker reached
+             * the replica once.
+             */
+            this.replicaDataSource = buildDataSource(MetricNames.DATABASE_REPLICA_POOL, replica.path(), false);
+            this.replicaJdbi = buildJdbi(replicaDataSource);
+
+            this.replicaLagChecker = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("database-replica-lag-%d")
+                            .setDaemon(true)
+                            .build()
+            );
+            replicaLagChecker.scheduleAtFixedRate(this::checkReplicaLag, 0, 5, TimeUnit.SECONDS);
+        }
+
+        // Run migrations against underlying JDBC connection.
+        JdbcConnection connection = new JdbcConnection(jdbi.open().getConnection());
+        Liquibase liquibase = null;
+        try {
+            liquibase.database.Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(connection);
+            liquibase = new liquibase.Liquibase("db/migrations.xml", new ClassLoaderResourceAccessor(), database);
+            liquibase.update(new Contexts(), new LabelExpression());
+        } finally {
+            if (liquibase != null) {
+                liquibase.close();
+            }
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        }
+
+        // Make sure partitions exist before the first tap reports are written.
+        createPartitions();
+    }
+
+    private HikariDataSource buildDataSource(String poolName, String path, boolean failFast) {
+        HikariConfig poolConfig = new HikariConfig();
+        poolConfig.setPoolName(poolName);
+        poolConfig.setJdbcUrl("jdbc:" + path);
+        poolConfig.setMaximumPoolSize(configuration.databasePool().maximumPoolSize());
+        poolConfig.setConnectionTimeout(configuration.databasePool().connectionTimeoutMs());
+        poolConfig.setIdleTimeout(configuration.databasePool().idleTimeoutMs());
+        poolConfig.setMaxLifetime(configuration.databasePool().maxLifetimeMs());
+
+        if (!failFast) {
+            poolConfig.setInitializationFailTimeout(-1);
+        }
+
+        return new HikariDataSource(poolConfig);
+    }
+
+    private Jdbi buildJdbi(HikariDataSource dataSource) {
         // TODO use reflection here at some point.
-        this.jdbi = Jdbi.create("jdbc:" + configuration.databasePath())
+        Jdbi jdbi = Jdbi.create(dataSource)
                 .installPlugin(new PostgresPlugin())
                 .installPlugin(new JodaTimePlugin())
                 .registerRowMapper(new TapMapper())
@@ -139,34 +238,124 @@ public class DatabaseImpl implements Database {
                 .registerRowMapper(new TapBasedSignalStrengthResultHistogramEntryMapper())
                 .registerRowMapper(new TapMetricsTimerMapper());
 
-        if (configuration.slowQueryLogThreshold().isPresent()) {
-            LOG.info("Slow query log enabled with threshold <{}ms>.", configuration.slowQueryLogThreshold().get());
+        jdbi.setSqlLogger(queryMetrics);
+        jdbi.addCustomizer(new RequestStatementTimeout());
+
+        return jdbi;
+    }
+
+    /**
+     * Creates any missing hourly partitions of all partitioned tables, from the current hour on.
+     */
+    public void createPartitions() {
+        for (String table : HOURLY_PARTITIONED_TABLES) {
+            int created = withHandle(handle ->
+                    handle.createQuery("SELECT nzyme_create_hourly_partitions(:table, NOW(), :hours)")
+                            .bind("table", table)
+                            .bind("hours", PARTITION_HOURS_AHEAD + 1)
+                            .mapTo(Integer.class)
+                            .one()
+            );
 
-            this.jdbi.setSqlLogger(new SqlLogger() {
-                @Override
-                public void logAfterExecution(StatementContext context) {
-                    if (context.getElapsedTime(ChronoUnit.MILLIS) > configuration.slowQueryLogThreshold().get()) {
-                        LOG.info("Slow query: <{}ms> [{}]",
-                                context.getElapsedTime(ChronoUnit.MILLIS), context.getParsedSql().getSql());
-                    }
-                }
-            });
+            if (created > 0) {
+                LOG.debug("Created <{}> partitions of table [{}].", created, table);
+            }
         }
+    }
 
-        // Run migrations against underlying JDBC connection.
-        JdbcConnection connection = new JdbcConnection(jdbi.open().getConnection());
-        Liquibase liquibase = null;
+    /**
+     * Drops all partitions of an hourly partitioned table that only hold rows created before the cutoff. Rows of the
+     * hour the cutoff falls into are kept until that whole hour has passed the cutoff.
+     */
+    public int dropPartitionsBefore(String table, DateTime cutoff) {
+        if (!HOURLY_PARTITIONED_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Table [" + table + "] is not partitioned.");
+        }
+
+        return withHandle(handle ->
+                handle.createQuery("SELECT nzyme_drop_hourly_partitions_before(:table, :cutoff)")
+                        .bind("table", table)
+                        .bind("cutoff", cutoff)
+                        .mapTo(Integer.class)
+                        .one()
+        );
+    }
+
+    /**
+     * Exports active, idle and pending connection gauges and the connection acquisition timer of the pool, as well
+     * as the per-statement timers. The registry does not exist yet when the database is initialized, so this is
+     * called once the node has one.
+     */
+    public void registerMetrics(MetricRegistry metrics) {
+        dataSource.setMetricRegistry(metrics);
+        queryMetrics.registerMetrics(metrics);
+
+        if (replicaDataSource != null) {
+            replicaDataSource.setMetricRegistry(metrics);
+            metrics.register(MetricNames.DATABASE_REPLICA_LAG, (Gauge<Long>) () -> replicaLagSeconds.orElse(-1L));
+        }
+    }
+
+    public void close() {
+        if (replicaLagChecker != null) {
+            replicaLagChecker.shutdownNow();
+        }
+
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Applies a customizer to all statements executed from now on, on the primary and, if configured, the read replica.
+     */
+    public void addStatementCustomizer(StatementCustomizer customizer) {
+        jdbi.addCustomizer(customizer);
+
+        if (replicaJdbi != null) {
+            replicaJdbi.addCustomizer(customizer);
+        }
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    public boolean isReplicaConfigured() {
+        return replicaJdbi != null;
+    }
+
+    public Optional<Long> getReplicaLagSeconds() {
+        return replicaLagSeconds;
+    }
+
+    private boolean isReplicaUsable() {
+        return replicaJdbi != null && replicaLagSeconds.isPresent()
+                && replicaLagSeconds.get() <= configuration.databaseReplica().get().maxLagSeconds();
+    }
+
+    private void checkReplicaLag() {
         try {
-            liquibase.database.Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(connection);
-            liquibase = new liquibase.Liquibase("db/migrations.xml", new ClassLoaderResourceAccessor(), database);
-            liquibase.update(new Contexts(), new LabelExpression());
-        } finally {
-            if (liquibase != null) {
-                liquibase.close();
-            }
-            if (!connection.isClosed()) {
-                connection.close();
+            // A replica that has replayed everything it received is not lagging, even if the primary was idle for a while.
+            long lag = replicaJdbi.withHandle(handle ->
+                    handle.createQuery("SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                                    "ELSE CAST(COALESCE(EXTRACT(EPOCH FROM NOW() - pg_last_xact_replay_timestamp()), 0) AS bigint) END")
+                            .mapTo(Long.class)
+                            .one()
+            );
+
+            if (lag > configuration.databaseReplica().get().maxLagSeconds() && isReplicaUsable()) {
+                LOG.warn("Read replica is lagging <{}s> behind. Sending read queries to primary database.", lag);
             }
+
+            this.replicaLagSeconds = Optional.of(lag);
+        } catch (Exception e) {
+            LOG.error("Could not check replication lag of read replica. Sending read queries to primary database.", e);
+            this.replicaLagSeconds = Optional.empty();
         }
     }
 
@@ -179,7 +368,8 @@ public class DatabaseImpl implements Database {
 
     public long getTableSize(String tableName) {
         return withHandle(handle ->
-                handle.createQuery("SELECT pg_total_relation_size(:table)")
+                handle.createQuery("SELECT COALESCE(SUM(pg_total_relation_size(relid)), 0) " +
+                                "FROM pg_partition_tree(CAST(:table AS regclass))")
                         .bind("table", tableName)
                         .mapTo(Long.class)
                         .one());
@@ -204,4 +394,16 @@ public class DatabaseImpl implements Database {
         jdbi.useHandle(callback);
     }
 
+    /**
+     * Runs read-only queries on the read replica if one is configured and not lagging behind more than configured.
+     * Otherwise, runs them on the primary database. Results can be behind recent writes by up to the configured lag.
+     */
+    public <R, X extends Exception> R withReadHandle(HandleCallback<R, X> callback) throws X {
+        if (isReplicaUsable()) {
+            return replicaJdbi.withHandle(callback);
+        }
+
+        return jdbi.withHandle(callback);
+    }
+
 }
@@ -0,0 +1,80 @@
+package app.nzyme.core.database;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.Update;
+
+import java.util.List;
+
+/**
+ * Writes all rows with as few single INSERT statements as possible, each carrying many rows in its VALUES list.
+ * Unlike a prepared batch, this does not rely on the JDBC driver to rewrite the batch into multi-row statements.
+ */
+public class MultiRowBulkInsert extends BulkInsert {
+
+    // PostgreSQL accepts at most this many bind parameters in a single statement.
+    private static final int MAX_PARAMETERS = 65535;
+
+    private final Handle handle;
+    private final List<Object[]> rows;
+    private final int rowsPerStatement;
+
+    public MultiRowBulkInsert(Handle handle, String table, String... columns) {
+        super(table, columns);
+
+        this.handle = handle;
+        this.rows = Lists.newArrayList();
+        this.rowsPerStatement = MAX_PARAMETERS / columns.length;
+    }
+
+    @Override
+    public BulkInsert add(Object... values) {
+        checkArity(values);
+        rows.add(values);
+
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public int execute() {
+        for (List<Object[]> chunk : Lists.partition(rows, rowsPerStatement)) {
+            Update insert = handle.createUpdate(buildStatement(chunk.size()));
+
+            int position = 0;
+            for (Object[] row : chunk) {
+                for (Object value : row) {
+                    insert.bind(position++, value);
+                }
+            }
+
+            insert.execute();
+        }
+
+        return rows.size();
+    }
+
+    String buildStatement(int rowCount) {
+        String placeholders = Strings.repeat("?, ", columns.length);
+        String row = "(" + placeholders.substring(0, placeholders.length() - 2) + ")";
+
+        StringBuilder sb = new StringBuilder("INSERT INTO ")
+                .append(table)
+                .append("(")
+                .append(Joiner.on(", ").join(columns))
+                .append(") VALUES");
+
+        for (int i = 0; i < rowCount; i++) {
+            sb.append(i == 0 ? " " : ", ").append(row);
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,138 @@
+package app.nzyme.core.database;
+
+import app.nzyme.plugin.Database;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Splitter;
+import com.google.common.io.BaseEncoding;
+import org.jdbi.v3.core.statement.Query;
+import org.joda.time.DateTime;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Position in a list that is ordered by a timestamp and ID, both descending. Passed to clients as an opaque
+ * continuation token to fetch the next page without an OFFSET, which gets slower the deeper a client pages.
+ */
+@AutoValue
+public abstract class PageCursor {
+
+    // Microseconds since epoch, the precision PostgreSQL stores timestamps with.
+    public abstract long timestampMicros();
+    public abstract long id();
+
+    /**
+     * Returns a condition that only matches rows after this cursor. Compares against the timestamp of the token only,
+     * so rows that change their timestamp while a client is paging can't move the position of the cursor.
+     */
+    public static String condition(String timestampColumn) {
+        return "(" + timestampColumn + ", id) < (TIMESTAMP WITH TIME ZONE 'epoch' "
+                + "+ :cursor_timestamp_micros * INTERVAL '1 microsecond', :cursor_id)";
+    }
+
+    public Query bind(Query query) {
+        return query
+                .bind("cursor_id", id())
+                .bind("cursor_timestamp_micros", timestampMicros());
+    }
+
+    /**
+     * Returns the continuation token of the page after the given one or null if this was the last page. Rows only
+     * carry millisecond timestamps, so the full timestamp of the last row is read from the table.
+     */
+    @Nullable
+    public static <T> String nextToken(Database database,
+                                       String table,
+                                       String timestampColumn,
+                                       List<T> page,
+                                       int limit,
+                                       Function<T, PageCursor> cursorOfRow) {
+        if (page.isEmpty() || page.size() < limit) {
+            return null;
+        }
+
+        return cursorOfRow.apply(page.get(page.size() - 1))
+                .withStoredTimestamp(database, table, timestampColumn)
+                .encode();
+    }
+
+    /**
+     * Returns this cursor with the timestamp of its row as stored in the table. Keeps the millisecond timestamp if the
+     * row no longer exists or its timestamp changed since the page was read.
+     */
+    PageCursor withStoredTimestamp(Database database, String table, String timestampColumn) {
+        Optional<Timestamp> stored = database.withHandle(handle ->
+                handle.createQuery("SELECT " + timestampColumn + " FROM " + table + " WHERE id = :id")
+                        .bind("id", id())
+                        .mapTo(Timestamp.class)
+                        .findOne()
+        );
+
+        if (stored.isEmpty()) {
+            return this;
+        }
+
+        long micros = toMicros(stored.get());
+        if (Math.floorDiv(micros, 1000) != Math.floorDiv(timestampMicros(), 1000)) {
+            return this;
+        }
+
+        return create(micros, id());
+    }
+
+    static long toMicros(Timestamp timestamp) {
+        return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+    }
+
+    public String encode() {
+        String cursor = timestampMicros() + ":" + id();
+        return BaseEncoding.base64Url().omitPadding().encode(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a continuation token. Throws IllegalArgumentException, which results in a HTTP 400, if it is invalid.
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String cursor = new String(BaseEncoding.base64Url().omitPadding().decode(token), StandardCharsets.UTF_8);
+            List<String> parts = Splitter.on(":").splitToList(cursor);
+            if (parts.size() != 2) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+
+            return create(Long.parseLong(parts.get(0)), Long.parseLong(parts.get(1)));
+        } catch (IllegalArgumentException e) {
+            // Includes NumberFormatException and invalid Base64.
+            throw new IllegalArgumentException("Invalid cursor [" + token + "].", e);
+        }
+    }
+
+    public static PageCursor create(DateTime timestamp, long id) {
+        return create(timestamp.getMillis() * 1000, id);
+    }
+
+    public static PageCursor create(long timestampMicros, long id) {
+        return builder()
+                .timestampMicros(timestampMicros)
+                .id(id)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_PageCursor.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder timestampMicros(long timestampMicros);
+
+        public abstract Builder id(long id);
+
+        public abstract PageCursor build();
+    }
+
+}
@@ -0,0 +1,60 @@
+package app.nzyme.core.database;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
+
+import java.util.Collections;
+import java.util.List;
+
+public class PreparedBatchBulkInsert extends BulkInsert {
+
+    private final PreparedBatch batch;
+
+    public PreparedBatchBulkInsert(Handle handle, String table, String... columns) {
+        super(table, columns);
+
+        String placeholders = Strings.repeat("?, ", columns.length);
+        this.batch = handle.prepareBatch("INSERT INTO " + table + "(" + Joiner.on(", ").join(columns) + ") " +
+                "VALUES(" + placeholders.substring(0, placeholders.length() - 2) + ")");
+    }
+
+    @Override
+    public BulkInsert add(Object... values) {
+        checkArity(values);
+        batch.add(values);
+
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return batch.size();
+    }
+
+    @Override
+    public int execute() {
+        int rows = batch.size();
+        if (rows > 0) {
+            batch.execute();
+        }
+
+        return rows;
+    }
+
+    /**
+     * Writes all collected rows and returns the generated values of the given column, in the order the rows were
+     * added.
+     */
+    public List<Long> executeReturningIds(String idColumn) {
+        if (batch.size() == 0) {
+            return Collections.emptyList();
+        }
+
+        return batch.executePreparedBatch(idColumn)
+                .mapTo(Long.class)
+                .list();
+    }
+
+}
@@ -0,0 +1,197 @@
+package app.nzyme.core.database;
+
+import app.nzyme.core.util.MetricNames;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.statement.SqlLogger;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Records the execution time of every statement into a timer per normalized statement. Statements that only differ
+ * in whitespace or in the length of their bind parameter lists, like multi-row inserts, share one timer. Also writes
+ * the slow query log, because Jdbi only supports one SQL logger.
+ */
+public class QueryMetrics implements SqlLogger {
+
+    private static final Logger LOG = LogManager.getLogger(QueryMetrics.class);
+
+    // Maximum number of distinct statements to track. All further statements are recorded as one.
+    private static final int MAX_STATEMENTS = 250;
+    private static final String OTHER_KEY = "other";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern VALUES_LIST = Pattern.compile("\\(\\?\\)(\\s*,\\s*\\(\\?\\))+");
+
+    private final Optional<Integer> slowQueryLogThreshold;
+
+    private final Map<String, StatementMetrics> statements;
+
+    // Normalizing is comparatively expensive. Remember which statement raw SQL belongs to.
+    private final Cache<String, StatementMetrics> statementsBySql;
+
+    private MetricRegistry metrics;
+
+    public QueryMetrics(Optional<Integer> slowQueryLogThreshold) {
+        this.slowQueryLogThreshold = slowQueryLogThreshold;
+        this.statements = new ConcurrentHashMap<>();
+        this.statementsBySql = CacheBuilder.newBuilder()
+                .maximumSize(MAX_STATEMENTS * 8)
+                .build();
+    }
+
+    @Override
+    public void logAfterExecution(StatementContext context) {
+        record(context);
+
+        if (slowQueryLogThreshold.isPresent()
+                && context.getElapsedTime(ChronoUnit.MILLIS) > slowQueryLogThreshold.get()) {
+            LOG.info("Slow query: <{}ms> [{}]",
+                    context.getElapsedTime(ChronoUnit.MILLIS), context.getParsedSql().getSql());
+        }
+    }
+
+    @Override
+    public void logException(StatementContext context, SQLException ex) {
+        // Failed and cancelled statements are recorded, too. Statements cancelled by a timeout are the interesting ones.
+        record(context);
+    }
+
+    private void record(StatementContext context) {
+        if (context.getParsedSql() == null) {
+            return;
+        }
+
+        long elapsed = context.getElapsedTime(ChronoUnit.NANOS);
+        if (elapsed < 0) {
+            return;
+        }
+
+        try {
+            StatementMetrics statement = statementsBySql.get(
+                    context.getParsedSql().getSql(),
+                    () -> findOrCreateStatement(normalize(context.getParsedSql().getSql()))
+            );
+
+            statement.timer.update(elapsed, TimeUnit.NANOSECONDS);
+            statement.totalTime.inc(elapsed);
+        } catch (ExecutionException e) {
+            LOG.error("Could not record query metrics.", e);
+        }
+    }
+
+    private synchronized StatementMetrics findOrCreateStatement(String sql) {
+        String key = Hashing.murmur3_32_fixed().hashString(sql, StandardCharsets.UTF_8).toString();
+
+        StatementMetrics existing = statements.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (statements.size() >= MAX_STATEMENTS) {
+            key = OTHER_KEY;
+            sql = "(Other statements)";
+
+            existing = statements.get(key);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        StatementMetrics statement = new StatementMetrics(key, sql);
+        statements.put(key, statement);
+
+        if (metrics != null) {
+            statement.register(metrics);
+        }
+
+        return statement;
+    }
+
+    /**
+     * Exports the timers of all statements seen so far and of all future statements. The registry does not exist
+     * yet when the first statements, like the database migrations, are run.
+     */
+    public synchronized void registerMetrics(MetricRegistry metrics) {
+        this.metrics = metrics;
+
+        for (StatementMetrics statement : statements.values()) {
+            statement.register(metrics);
+        }
+    }
+
+    /**
+     * Returns the statements with the highest total execution time since the node started.
+     */
+    public List<QueryStatistics> findTopStatements(int limit) {
+        return statements.values().stream()
+                .sorted(Comparator.comparingLong((StatementMetrics s) -> s.totalTime.getCount()).reversed())
+                .limit(limit)
+                .map(StatementMetrics::toStatistics)
+                .collect(Collectors.toList());
+    }
+
+    static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("?");
+        return VALUES_LIST.matcher(normalized).replaceAll("(?)");
+    }
+
+    private static final class StatementMetrics {
+
+        private final String key;
+        private final String sql;
+        private final Timer timer;
+        private final Counter totalTime;
+
+        private StatementMetrics(String key, String sql) {
+            this.key = key;
+            this.sql = sql;
+            this.timer = new Timer();
+            this.totalTime = new Counter();
+        }
+
+        private void register(MetricRegistry metrics) {
+            metrics.register(name(MetricNames.DATABASE_QUERIES, key), timer);
+            metrics.register(name(MetricNames.DATABASE_QUERIES, key, "total-nanos"), totalTime);
+        }
+
+        private QueryStatistics toStatistics() {
+            Snapshot snapshot = timer.getSnapshot();
+
+            return QueryStatistics.create(
+                    key,
+                    sql,
+                    timer.getCount(),
+                    totalTime.getCount(),
+                    snapshot.getMean(),
+                    snapshot.get99thPercentile(),
+                    snapshot.getMax()
+            );
+        }
+
+    }
+
+}
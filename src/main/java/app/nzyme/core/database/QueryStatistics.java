@@ -0,0 +1,54 @@
+package app.nzyme.core.database;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * Execution statistics of one normalized statement. All times are in nanoseconds.
+ */
+@AutoValue
+public abstract class QueryStatistics {
+
+    public abstract String key();
+    public abstract String statement();
+    public abstract long count();
+    public abstract long totalTime();
+    public abstract double meanTime();
+    public abstract double p99Time();
+    public abstract long maxTime();
+
+    public static QueryStatistics create(String key, String statement, long count, long totalTime, double meanTime, double p99Time, long maxTime) {
+        return builder()
+                .key(key)
+                .statement(statement)
+                .count(count)
+                .totalTime(totalTime)
+                .meanTime(meanTime)
+                .p99Time(p99Time)
+                .maxTime(maxTime)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_QueryStatistics.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder key(String key);
+
+        public abstract Builder statement(String statement);
+
+        public abstract Builder count(long count);
+
+        public abstract Builder totalTime(long totalTime);
+
+        public abstract Builder meanTime(double meanTime);
+
+        public abstract Builder p99Time(double p99Time);
+
+        public abstract Builder maxTime(long maxTime);
+
+        public abstract QueryStatistics build();
+    }
+
+}
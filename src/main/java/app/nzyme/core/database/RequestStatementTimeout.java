@@ -0,0 +1,33 @@
+package app.nzyme.core.database;
+
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Applies a statement timeout to all statements executed by a thread while it handles a REST request. Statements of
+ * all other threads, like periodicals and tap report writers, are not limited.
+ */
+public class RequestStatementTimeout implements StatementCustomizer {
+
+    private static final ThreadLocal<Integer> TIMEOUT_SECONDS = new ThreadLocal<>();
+
+    public static void begin(int timeoutSeconds) {
+        TIMEOUT_SECONDS.set(timeoutSeconds);
+    }
+
+    public static void end() {
+        TIMEOUT_SECONDS.remove();
+    }
+
+    @Override
+    public void beforeExecution(PreparedStatement stmt, StatementContext ctx) throws SQLException {
+        Integer timeout = TIMEOUT_SECONDS.get();
+        if (timeout != null && timeout > 0) {
+            stmt.setQueryTimeout(timeout);
+        }
+    }
+
+}
@@ -2,6 +2,8 @@ package app.nzyme.core.detection.alerts;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.Subsystem;
+import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.database.PageCursor;
 import app.nzyme.core.detection.alerts.db.DetectionAlertAttributeEntry;
 import app.nzyme.core.detection.alerts.db.DetectionAlertEntry;
 import app.nzyme.core.detection.alerts.db.DetectionAlertTimelineEntry;
@@ -13,6 +15,7 @@ import com.google.common.hash.Hashing;
 import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.HandleCallback;
 import org.jdbi.v3.core.statement.Query;
 import org.joda.time.DateTime;
 
@@ -32,6 +35,11 @@ public class DetectionAlertService {
         this.nzyme = nzyme;
     }
 
+    // Alert list queries. Served by the read replica, if configured.
+    private <R, X extends Exception> R withReadHandle(HandleCallback<R, X> callback) throws X {
+        return ((DatabaseImpl) nzyme.getDatabase()).withReadHandle(callback);
+    }
+
     public int countAllDetectionTypes(@Nullable Subsystem subsystem) {
         int count = 0;
         for (DetectionType t : DetectionType.values()) {
@@ -199,11 +207,11 @@ public class DetectionAlertService {
                                                    @Nullable UUID tenantId,
                                                    int limit,
                                                    int offset) {
-        return nzyme.getDatabase().withHandle(handle -> {
+        return withReadHandle(handle -> {
             Query query;
             if (organizationId == null && tenantId == null) {
                 // Super Admin.
-                query = handle.createQuery("SELECT * FROM detection_alerts ORDER BY last_seen DESC " +
+                query = handle.createQuery("SELECT * FROM detection_alerts ORDER BY last_seen DESC, id DESC " +
                                 "LIMIT :limit OFFSET :offset")
                         .bind("limit", limit)
                         .bind("offset", offset);
@@ -211,7 +219,7 @@ public class DetectionAlertService {
                 // Organization Admin.
                 query = handle.createQuery("SELECT * FROM detection_alerts " +
                                 "WHERE organization_id = :organization_id " +
-                                "ORDER BY last_seen DESC LIMIT :limit OFFSET :offset")
+                                "ORDER BY last_seen DESC, id DESC LIMIT :limit OFFSET :offset")
                         .bind("organization_id", organizationId)
                         .bind("limit", limit)
                         .bind("offset", offset);
@@ -219,7 +227,7 @@ public class DetectionAlertService {
                 // Tenant User.
                 query = handle.createQuery("SELECT * FROM detection_alerts " +
                                 "WHERE organization_id = :organization_id AND tenant_id = :tenant_id " +
-                                "ORDER BY last_seen DESC LIMIT :limit OFFSET :offset")
+                                "ORDER BY last_seen DESC, id DESC LIMIT :limit OFFSET :offset")
                         .bind("organization_id", organizationId)
                         .bind("tenant_id", tenantId)
                         .bind("limit", limit)
@@ -230,6 +238,41 @@ public class DetectionAlertService {
         });
     }
 
+    public List<DetectionAlertEntry> findAllAlerts(@Nullable UUID organizationId,
+                                                   @Nullable UUID tenantId,
+                                                   int limit,
+                                                   PageCursor cursor) {
+        String after = PageCursor.condition("last_seen");
+
+        return withReadHandle(handle -> {
+            Query query;
+            if (organizationId == null && tenantId == null) {
+                // Super Admin.
+                query = handle.createQuery("SELECT * FROM detection_alerts WHERE " + after + " " +
+                                "ORDER BY last_seen DESC, id DESC LIMIT :limit")
+                        .bind("limit", limit);
+            } else if (organizationId != null && tenantId == null) {
+                // Organization Admin.
+                query = handle.createQuery("SELECT * FROM detection_alerts " +
+                                "WHERE organization_id = :organization_id AND " + after + " " +
+                                "ORDER BY last_seen DESC, id DESC LIMIT :limit")
+                        .bind("organization_id", organizationId)
+                        .bind("limit", limit);
+            } else {
+                // Tenant User.
+                query = handle.createQuery("SELECT * FROM detection_alerts " +
+                                "WHERE organization_id = :organization_id AND tenant_id = :tenant_id " +
+                                "AND " + after + " " +
+                                "ORDER BY last_seen DESC, id DESC LIMIT :limit")
+                        .bind("organization_id", organizationId)
+                        .bind("tenant_id", tenantId)
+                        .bind("limit", limit);
+            }
+
+            return cursor.bind(query).mapTo(DetectionAlertEntry.class).list();
+        });
+    }
+
     public List<DetectionAlertEntry> findAllActiveAlertsOfMonitoredNetwork(UUID monitoredNetworkId) {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT * FROM detection_alerts " +
@@ -243,7 +286,7 @@ public class DetectionAlertService {
     }
 
     public long countAlerts(UUID organizationId, UUID tenantId) {
-        return nzyme.getDatabase().withHandle(handle -> {
+        return withReadHandle(handle -> {
             Query query;
             if (organizationId == null && tenantId == null) {
                 // Super Admin.
@@ -323,7 +366,7 @@ public class DetectionAlertService {
     public List<DetectionAlertTimelineEntry> findAlertTimeline(long alertId,
                                                                int limit,
                                                                int offset) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT * FROM detection_alert_timeline " +
                                 "WHERE detection_alert_id = :detection_alert_id " +
                                 "ORDER BY seen_to DESC " +
@@ -337,7 +380,7 @@ public class DetectionAlertService {
     }
 
     public long countAlertTimelineEntries(long alertId) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT COUNT(*) FROM detection_alert_timeline " +
                                 "WHERE detection_alert_id = :detection_alert_id")
                         .bind("detection_alert_id", alertId)
@@ -11,6 +11,7 @@ public enum MetricExternalName {
     CPU_SYSTEM_LOAD("cpu_system_load"),
     PROCESS_VIRTUAL_SIZE("process_virtual_size"),
     TAP_REPORT_SIZE("tap_report_size"),
+    TAP_REPORT_SIZE_COMPRESSED("tap_report_size_compressed"),
     PGP_ENCRYPTION_TIMER("pgp_encryption_timer"),
     PGP_DECRYPTION_TIMER("pgp_decryption_timer");
 
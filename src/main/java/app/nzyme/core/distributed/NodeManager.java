@@ -49,6 +49,7 @@ public class NodeManager {
     private long localCycle;
 
     private final AtomicLong tapReportSize;
+    private final AtomicLong tapReportCompressedSize;
 
     private final LoadingCache<UUID, String> nodeNameCache;
 
@@ -56,6 +57,7 @@ public class NodeManager {
         this.nzyme = nzyme;
 
         this.tapReportSize = new AtomicLong(0);
+        this.tapReportCompressedSize = new AtomicLong(0);
         this.nodeNameCache = CacheBuilder.newBuilder().
                 expireAfterAccess(10, TimeUnit.SECONDS)
                 .build(new CacheLoader<>() {
@@ -291,6 +293,7 @@ public class NodeManager {
         try {
             MetricRegistry metrics = nzyme.getMetrics();
             long tapReportSize = this.tapReportSize.getAndSet(0);
+            long tapReportCompressedSize = this.tapReportCompressedSize.getAndSet(0);
             NodeInformation.Info ni = new NodeInformation().collect();
 
             writeGauge(MetricExternalName.MEMORY_BYTES_TOTAL.database_label, ni.memoryTotal());
@@ -302,6 +305,7 @@ public class NodeManager {
             writeGauge(MetricExternalName.CPU_SYSTEM_LOAD.database_label, ni.cpuSystemLoad());
             writeGauge(MetricExternalName.PROCESS_VIRTUAL_SIZE.database_label, ni.processVirtualSize());
             writeGauge(MetricExternalName.TAP_REPORT_SIZE.database_label, tapReportSize);
+            writeGauge(MetricExternalName.TAP_REPORT_SIZE_COMPRESSED.database_label, tapReportCompressedSize);
 
             writeTimer(MetricExternalName.PGP_ENCRYPTION_TIMER.database_label,
                     metrics.getTimers().get(MetricNames.PGP_ENCRYPTION_TIMING));
@@ -404,7 +408,12 @@ public class NodeManager {
         return localNodeId;
     }
 
-    public void recordTapReportSize(long size) {
+    /**
+     * @param compressedSize bytes received over the wire
+     * @param size bytes after decompression. The same as compressedSize for uncompressed reports.
+     */
+    public void recordTapReportSize(long compressedSize, long size) {
+        this.tapReportCompressedSize.addAndGet(compressedSize);
         this.tapReportSize.addAndGet(size);
     }
 
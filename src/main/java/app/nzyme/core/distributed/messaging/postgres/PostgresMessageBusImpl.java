@@ -1,6 +1,7 @@
 package app.nzyme.core.distributed.messaging.postgres;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.PageCursor;
 import app.nzyme.core.distributed.Node;
 import app.nzyme.plugin.distributed.messaging.*;
 import com.beust.jcommander.internal.Lists;
@@ -255,7 +256,7 @@ public class PostgresMessageBusImpl implements MessageBus {
     @Override
     public List<StoredMessage> getAllMessages(int limit, int offset) {
         List<PostgresMessageEntry> entries = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM message_bus_messages ORDER BY created_at DESC " +
+                handle.createQuery("SELECT * FROM message_bus_messages ORDER BY created_at DESC, id DESC " +
                                 "LIMIT :limit OFFSET :offset")
                         .bind("limit", limit)
                         .bind("offset", offset)
@@ -266,6 +267,19 @@ public class PostgresMessageBusImpl implements MessageBus {
         return entriesToStoredMessages(entries);
     }
 
+    public List<StoredMessage> getAllMessages(int limit, PageCursor cursor) {
+        List<PostgresMessageEntry> entries = nzyme.getDatabase().withHandle(handle ->
+                cursor.bind(handle.createQuery("SELECT * FROM message_bus_messages " +
+                                "WHERE " + PageCursor.condition("created_at") + " " +
+                                "ORDER BY created_at DESC, id DESC LIMIT :limit"))
+                        .bind("limit", limit)
+                        .mapTo(PostgresMessageEntry.class)
+                        .list()
+        );
+
+        return entriesToStoredMessages(entries);
+    }
+
     @Override
     public long getTotalMessageCount() {
         return nzyme.getDatabase().withHandle(handle ->
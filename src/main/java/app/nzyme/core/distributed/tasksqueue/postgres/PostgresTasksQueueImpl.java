@@ -1,6 +1,7 @@
 package app.nzyme.core.distributed.tasksqueue.postgres;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.PageCursor;
 import app.nzyme.plugin.distributed.tasksqueue.*;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -284,7 +285,7 @@ public class PostgresTasksQueueImpl implements TasksQueue {
     @Override
     public List<StoredTask> getAllTasks(int limit, int offset) {
         List<PostgresTasksQueueEntry> entries = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM tasks_queue ORDER BY created_at DESC " +
+                handle.createQuery("SELECT * FROM tasks_queue ORDER BY created_at DESC, id DESC " +
                                 "LIMIT :limit OFFSET :offset ")
                         .bind("limit", limit)
                         .bind("offset", offset)
@@ -295,6 +296,19 @@ public class PostgresTasksQueueImpl implements TasksQueue {
         return entriesToStoredTasks(entries);
     }
 
+    public List<StoredTask> getAllTasks(int limit, PageCursor cursor) {
+        List<PostgresTasksQueueEntry> entries = nzyme.getDatabase().withHandle(handle ->
+                cursor.bind(handle.createQuery("SELECT * FROM tasks_queue " +
+                                "WHERE " + PageCursor.condition("created_at") + " " +
+                                "ORDER BY created_at DESC, id DESC LIMIT :limit"))
+                        .bind("limit", limit)
+                        .mapTo(PostgresTasksQueueEntry.class)
+                        .list()
+        );
+
+        return entriesToStoredTasks(entries);
+    }
+
     @Override
     public void onMessageReceived(TaskType type, TaskHandler taskHandler) {
         LOG.debug("Registering task queue handler [{}] for type [{}]", taskHandler.getName(), type);
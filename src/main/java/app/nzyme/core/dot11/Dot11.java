@@ -2,20 +2,30 @@ package app.nzyme.core.dot11;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.context.db.MacAddressContextEntry;
+import app.nzyme.core.database.DatabaseImpl;
 import app.nzyme.core.database.OrderDirection;
+import app.nzyme.core.dot11.bandits.Dot11BanditDescription;
+import app.nzyme.core.dot11.bandits.Dot11Bandits;
 import app.nzyme.core.dot11.db.*;
 import app.nzyme.core.dot11.db.monitoring.*;
 import app.nzyme.core.dot11.monitoring.disco.db.Dot11DiscoMonitorMethodConfiguration;
+import app.nzyme.core.dot11.rollups.Dot11HistogramRollups;
 import app.nzyme.core.dot11.tracks.db.TrackDetectorConfig;
 import app.nzyme.core.rest.authentication.AuthenticatedUser;
 import app.nzyme.core.rest.resources.taps.reports.tables.dot11.Dot11SecurityInformationReport;
 import app.nzyme.core.rest.responses.dot11.Dot11MacAddressContextResponse;
 import app.nzyme.core.rest.responses.dot11.Dot11MacAddressResponse;
 import app.nzyme.core.rest.responses.dot11.clients.ConnectedBSSID;
+import app.nzyme.core.tables.dot11.monitoring.MonitoredNetworkSnapshot;
+import app.nzyme.core.tables.dot11.monitoring.MonitoredNetworkSnapshotCacheKey;
+import app.nzyme.core.tables.dot11.monitoring.PreLoadedMonitoredBSSID;
+import app.nzyme.core.tables.dot11.monitoring.PreLoadedMonitoredSSID;
 import app.nzyme.core.util.Bucketing;
 import app.nzyme.core.util.TimeRange;
 import app.nzyme.core.util.TimeRangeFactory;
 import app.nzyme.core.util.Tools;
+import app.nzyme.plugin.distributed.messaging.ClusterMessage;
+import app.nzyme.plugin.distributed.messaging.MessageType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,8 +34,12 @@ import com.google.common.base.Strings;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.jdbi.v3.core.HandleCallback;
 import org.jdbi.v3.core.statement.Query;
 import org.joda.time.DateTime;
 
@@ -44,6 +58,25 @@ public class Dot11 {
         add("GYGzDTnSDLgJs9rMY8ZXj0EVwDBw2lZl");
     }};
 
+    /*
+     * How far back the BSSID state table (dot11_bssid_state) remembers SSIDs, clients and other attributes. Time
+     * ranges that start within this horizon and end now are answered from the state table instead of the history.
+     */
+    public static final int BSSID_STATE_HORIZON_HOURS = 24;
+
+    /*
+     * Signal strength, first/last seen and hidden SSID frames of every BSSID in a time range. Both ways of finding
+     * BSSIDs take these from the history, aggregated before anything is joined, so that they mean the same no matter
+     * which way answered.
+     */
+    private static final String BSSID_TOTALS_QUERY = "SELECT bssid, " +
+            "AVG(signal_strength_average) AS signal_strength_average, " +
+            "MIN(created_at) AS first_seen, MAX(created_at) AS last_seen, " +
+            "SUM(hidden_ssid_frames) AS hidden_ssid_frames " +
+            "FROM dot11_bssids " +
+            "WHERE created_at >= :tr_from AND created_at <= :tr_to AND tap_uuid IN (<taps>) " +
+            "GROUP BY bssid";
+
     private final NzymeNode nzyme;
 
     public enum ClientOrderColumn {
@@ -113,8 +146,147 @@ public class Dot11 {
                 }
             });
 
+    /*
+     * Compiled monitored networks and bandits per tenant. Invalidated on every node through the message bus when
+     * monitored networks or custom bandits are changed. The short expiry only limits how long a node can miss such a
+     * message, for example while it is starting up.
+     */
+    private final LoadingCache<MonitoredNetworkSnapshotCacheKey, MonitoredNetworkSnapshot> monitoredNetworkSnapshots
+            = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build(new CacheLoader<>() {
+                @Override
+                public MonitoredNetworkSnapshot load(MonitoredNetworkSnapshotCacheKey key) {
+                    return buildMonitoredNetworkSnapshot(key.organizationId(), key.tenantId());
+                }
+            });
+
+    private final Dot11HistogramRollups histogramRollups;
+
     public Dot11(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.histogramRollups = new Dot11HistogramRollups(nzyme);
+    }
+
+    public Dot11HistogramRollups getHistogramRollups() {
+        return histogramRollups;
+    }
+
+    // Queries on tap report data. Served by the read replica, if configured.
+    private <R, X extends Exception> R withReadHandle(HandleCallback<R, X> callback) throws X {
+        return ((DatabaseImpl) nzyme.getDatabase()).withReadHandle(callback);
+    }
+
+    public MonitoredNetworkSnapshot getMonitoredNetworkSnapshot(@Nullable UUID organizationId,
+                                                                @Nullable UUID tenantId) {
+        try {
+            return monitoredNetworkSnapshots.get(MonitoredNetworkSnapshotCacheKey.create(organizationId, tenantId));
+        } catch(Exception e) {
+            throw new RuntimeException("Could not fetch monitored network snapshot.", e);
+        }
+    }
+
+    /**
+     * Drops the compiled monitored networks and bandits on all nodes. Must be called after monitored networks or custom
+     * bandits were created, changed or deleted.
+     */
+    public void invalidateMonitoredNetworkSnapshots() {
+        // Rebuild right away on this node. The other nodes are notified through the message bus.
+        invalidateLocalMonitoredNetworkSnapshots();
+        nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                MessageType.INVALIDATE_CACHE,
+                Map.of("cache_type", "dot11_monitored_networks"),
+                false
+        ));
+    }
+
+    /**
+     * Drops the compiled monitored networks and bandits of this node only. Called when another node asks for it.
+     */
+    public void invalidateLocalMonitoredNetworkSnapshots() {
+        monitoredNetworkSnapshots.invalidateAll();
+    }
+
+    private MonitoredNetworkSnapshot buildMonitoredNetworkSnapshot(@Nullable UUID organizationId,
+                                                                   @Nullable UUID tenantId) {
+        // Collect all enabled monitored SSIDs and their attributes.
+        Map<String, PreLoadedMonitoredSSID> monitoredSSIDs = Maps.newHashMap();
+        for (MonitoredSSID s : findAllMonitoredSSIDs(organizationId, tenantId)) {
+            if (!s.isEnabled()) {
+                continue;
+            }
+
+            Map<String, PreLoadedMonitoredBSSID> bssids = Maps.newHashMap();
+            for (MonitoredBSSID b : findMonitoredBSSIDsOfMonitoredNetwork(s.id())) {
+                List<String> fingerprints = Lists.newArrayList();
+                for (MonitoredFingerprint f : findMonitoredFingerprintsOfMonitoredBSSID(b.id())) {
+                    fingerprints.add(f.fingerprint());
+                }
+
+                bssids.put(b.bssid(), PreLoadedMonitoredBSSID.create(b.bssid(), ImmutableList.copyOf(fingerprints)));
+            }
+
+            List<Integer> channels = Lists.newArrayList();
+            for (MonitoredChannel c : findMonitoredChannelsOfMonitoredNetwork(s.id())) {
+                channels.add((int) c.frequency());
+            }
+
+            List<String> securitySuites = Lists.newArrayList();
+            for (MonitoredSecuritySuite ss : findMonitoredSecuritySuitesOfMonitoredNetwork(s.id())) {
+                securitySuites.add(ss.securitySuite());
+            }
+
+            List<String> restrictedSubstrings = Lists.newArrayList();
+            for (RestrictedSSIDSubstring rss : findAllRestrictedSSIDSubstrings(s.id())) {
+                restrictedSubstrings.add(rss.substring());
+            }
+
+            monitoredSSIDs.put(s.ssid(), PreLoadedMonitoredSSID.create(
+                    s.id(),
+                    s.uuid(),
+                    s.ssid(),
+                    ImmutableMap.copyOf(bssids),
+                    ImmutableList.copyOf(channels),
+                    ImmutableList.copyOf(securitySuites),
+                    ImmutableList.copyOf(restrictedSubstrings),
+                    s.enabledUnexpectedBSSID(),
+                    s.enabledUnexpectedChannel(),
+                    s.enabledUnexpectedSecuritySuites(),
+                    s.enabledUnexpectedFingerprint(),
+                    s.enabledUnexpectedSignalTracks(),
+                    s.enabledSimilarLookingSSID(),
+                    s.enabledSSIDSubstring(),
+                    s.detectionConfigSimilarLookingSSIDThreshold()
+            ));
+        }
+
+        // Built-in and custom bandits, indexed by fingerprint.
+        List<Dot11BanditDescription> bandits = Lists.newArrayList(Dot11Bandits.BUILT_IN);
+        if (organizationId != null && tenantId != null) {
+            for (CustomBanditDescription bandit : findAllCustomBandits(organizationId, tenantId, Integer.MAX_VALUE, 0)) {
+                bandits.add(Dot11BanditDescription.create(
+                        bandit.uuid().toString(),
+                        true,
+                        bandit.name(),
+                        bandit.description(),
+                        findFingerprintsOfCustomBandit(bandit.id())
+                ));
+            }
+        }
+
+        ImmutableListMultimap.Builder<String, Dot11BanditDescription> banditsByFingerprint =
+                ImmutableListMultimap.builder();
+        for (Dot11BanditDescription bandit : bandits) {
+            if (bandit.fingerprints() == null) {
+                continue;
+            }
+
+            for (String fingerprint : new LinkedHashSet<>(bandit.fingerprints())) {
+                banditsByFingerprint.put(fingerprint, bandit);
+            }
+        }
+
+        return MonitoredNetworkSnapshot.create(ImmutableMap.copyOf(monitoredSSIDs), banditsByFingerprint.build());
     }
 
     public Dot11MacAddressMetadata getMacAddressMetadata(String macAddress, List<UUID> taps) {
@@ -153,7 +325,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DISTINCT(ssid) FROM dot11_ssids " +
                                 "WHERE tap_uuid IN (<taps>) ORDER BY ssid ASC")
                         .bindList("taps", taps)
@@ -167,7 +339,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DISTINCT(ssid) FROM dot11_ssids " +
                                 "WHERE tap_uuid IN (<taps>) AND created_at > :cutoff " +
                                 "ORDER BY ssid ASC")
@@ -179,21 +351,24 @@ public class Dot11 {
     }
 
     public Optional<BSSIDSummary> findBSSID(String bssid, int minutes, List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT b.bssid, AVG(b.signal_strength_average) AS signal_strength_average, " +
-                                "MIN(b.created_at) AS first_seen, MAX(b.created_at) AS last_seen, " +
-                                "SUM(b.hidden_ssid_frames) as hidden_ssid_frames, " +
-                                "ARRAY_AGG(DISTINCT(COALESCE(ssp.value, 'None'))) AS security_protocols, " +
+        return withReadHandle(handle ->
+                handle.createQuery("WITH t AS (" + BSSID_TOTALS_QUERY + ") " +
+                                "SELECT t.bssid, t.signal_strength_average, t.first_seen, t.last_seen, " +
+                                "t.hidden_ssid_frames, " +
+                                "ARRAY_AGG(DISTINCT(COALESCE(sspd.value, 'None'))) AS security_protocols, " +
                                 "ARRAY_AGG(DISTINCT(f.fingerprint)) AS fingerprints, " +
                                 "ARRAY_AGG(DISTINCT(s.ssid)) AS ssids, " +
-                                "ARRAY_AGG(DISTINCT(i.infrastructure_type)) AS infrastructure_types, " +
+                                "ARRAY_AGG(DISTINCT(itd.value)) AS infrastructure_types, " +
                                 "COUNT(DISTINCT(c.client_mac)) AS client_count " +
-                                "FROM dot11_bssids AS b " +
+                                "FROM t " +
+                                "JOIN dot11_bssids AS b ON b.bssid = t.bssid " +
                                 "LEFT JOIN dot11_ssids AS s ON b.id = s.bssid_id " +
                                 "LEFT JOIN dot11_fingerprints AS f ON b.id = f.bssid_id " +
-                                "LEFT JOIN dot11_infrastructure_types AS i on s.id = i.ssid_id " +
-                                "LEFT JOIN dot11_ssid_settings AS ssp on s.id = ssp.ssid_id " +
-                                "AND ssp.attribute = 'security_protocol' " +
+                                "LEFT JOIN (dot11_infrastructure_types AS i JOIN dot11_dictionary AS itd " +
+                                "ON i.infrastructure_type_id = itd.id) ON s.id = i.ssid_id " +
+                                "LEFT JOIN (dot11_ssid_settings AS ssp JOIN dot11_dictionary AS sspd " +
+                                "ON ssp.value_id = sspd.id AND sspd.attribute = 'security_protocol') " +
+                                "ON s.id = ssp.ssid_id " +
                                 "LEFT JOIN dot11_bssid_clients AS c on b.id = c.bssid_id " +
                                 "WHERE b.bssid = :bssid AND b.created_at > :cutoff AND b.tap_uuid IN (<taps>) " +
                                 "GROUP BY b.bssid")
@@ -213,13 +388,15 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT SUM(beacon_advertisements) AS beacons, " +
+        return withReadHandle(handle ->
+                histogramRollups.bindWatermarks(handle.createQuery("SELECT SUM(beacon_advertisements) AS beacons, " +
                                 "SUM(proberesp_advertisements) AS proberesponses, " +
-                                "DATE_TRUNC(:date_trunc, created_at) AS bucket FROM dot11_ssids " +
-                                "WHERE created_at >= :tr_from AND created_at <= :tr_to " +
+                                "DATE_TRUNC(:date_trunc, created_at) AS bucket " +
+                                "FROM " + histogramRollups.advertisementsSource(bucketing.type()) + " AS ssids " +
+                                "WHERE created_at >= DATE_TRUNC(:date_trunc, CAST(:tr_from AS timestamptz)) " +
+                                "AND created_at <= :tr_to " +
                                 "AND tap_uuid IN (<taps>) AND bssid = :bssid " +
-                                "GROUP BY bucket ORDER BY bucket DESC")
+                                "GROUP BY bucket ORDER BY bucket DESC"), bucketing.type())
                         .bind("tr_from", timeRange.from())
                         .bind("tr_to", timeRange.to())
                         .bind("date_trunc", bucketing.type().getDateTruncName())
@@ -236,7 +413,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT c.frequency, sum(c.stats_frames) AS frames, sum(c.stats_bytes) AS bytes " +
                                 "FROM dot11_ssids AS s " +
                                 "LEFT JOIN dot11_channels c on s.id = c.ssid_id " +
@@ -257,39 +434,88 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT b.bssid, AVG(b.signal_strength_average) AS signal_strength_average, " +
-                                "MIN(b.created_at) AS first_seen, MAX(b.created_at) AS last_seen, " +
-                                "SUM(b.hidden_ssid_frames) as hidden_ssid_frames, " +
-                                "ARRAY_AGG(DISTINCT(COALESCE(ssp.value, 'None'))) AS security_protocols, " +
+        if (isCoveredByBSSIDState(timeRange)) {
+            return findBSSIDsFromState(timeRange, taps);
+        }
+
+        return withReadHandle(handle ->
+                handle.createQuery("WITH t AS (" + BSSID_TOTALS_QUERY + ") " +
+                                "SELECT t.bssid, t.signal_strength_average, t.first_seen, t.last_seen, " +
+                                "t.hidden_ssid_frames, " +
+                                "ARRAY_AGG(DISTINCT(COALESCE(sspd.value, 'None'))) AS security_protocols, " +
                                 "ARRAY_AGG(DISTINCT(f.fingerprint)) AS fingerprints, " +
                                 "ARRAY_AGG(DISTINCT(s.ssid)) AS ssids, " +
-                                "ARRAY_AGG(DISTINCT(i.infrastructure_type)) AS infrastructure_types, " +
+                                "ARRAY_AGG(DISTINCT(itd.value)) AS infrastructure_types, " +
                                 "COUNT(DISTINCT(c.client_mac)) AS client_count " +
-                                "FROM dot11_bssids AS b " +
+                                "FROM t " +
+                                "JOIN dot11_bssids AS b ON b.bssid = t.bssid " +
                                 "LEFT JOIN dot11_ssids AS s ON b.id = s.bssid_id " +
                                 "LEFT JOIN dot11_fingerprints AS f ON b.id = f.bssid_id " +
-                                "LEFT JOIN dot11_infrastructure_types AS i on s.id = i.ssid_id " +
-                                "LEFT JOIN dot11_ssid_settings AS ssp on s.id = ssp.ssid_id " +
-                                "AND ssp.attribute = 'security_protocol' " +
+                                "LEFT JOIN (dot11_infrastructure_types AS i JOIN dot11_dictionary AS itd " +
+                                "ON i.infrastructure_type_id = itd.id) ON s.id = i.ssid_id " +
+                                "LEFT JOIN (dot11_ssid_settings AS ssp JOIN dot11_dictionary AS sspd " +
+                                "ON ssp.value_id = sspd.id AND sspd.attribute = 'security_protocol') " +
+                                "ON s.id = ssp.ssid_id " +
                                 "LEFT JOIN dot11_bssid_clients AS c on b.id = c.bssid_id " +
                                 "WHERE b.created_at >= :tr_from AND b.created_at <= :tr_to " +
                                 "AND b.tap_uuid IN (<taps>) " +
-                                "GROUP BY b.bssid")
+                                "GROUP BY t.bssid, t.signal_strength_average, t.first_seen, t.last_seen, " +
+                                "t.hidden_ssid_frames")
+                        .bind("tr_from", timeRange.from())
+                        .bind("tr_to", timeRange.to())
+                        .bindList("taps", taps)
+                        .mapTo(BSSIDSummary.class)
+                        .list()
+        );
+    }
+
+    /**
+     * Same as {@link #findBSSIDs(TimeRange, List)}, but reads SSIDs, fingerprints, security protocols, infrastructure
+     * types and clients from the current state of each BSSID instead of joining them for all reports in the time
+     * range. Signal strength, first/last seen and hidden SSID frames are aggregated from the history, like there.
+     */
+    private List<BSSIDSummary> findBSSIDsFromState(TimeRange timeRange, List<UUID> taps) {
+        return withReadHandle(handle ->
+                handle.createQuery("WITH t AS (" + BSSID_TOTALS_QUERY + ") " +
+                                "SELECT t.bssid, t.signal_strength_average, t.first_seen, t.last_seen, " +
+                                "t.hidden_ssid_frames, " +
+                                "nzyme_values_seen_since(jsonb_agg(s.security_protocols), :cutoff) AS security_protocols, " +
+                                "nzyme_values_seen_since(jsonb_agg(s.fingerprints), :cutoff) AS fingerprints, " +
+                                "nzyme_values_seen_since(jsonb_agg(s.ssids), :cutoff) AS ssids, " +
+                                "nzyme_values_seen_since(jsonb_agg(s.infrastructure_types), :cutoff) AS infrastructure_types, " +
+                                "CARDINALITY(nzyme_values_seen_since(jsonb_agg(s.clients), :cutoff)) AS client_count " +
+                                "FROM t " +
+                                "JOIN dot11_bssid_state AS s ON s.bssid = t.bssid " +
+                                "WHERE s.last_seen >= :tr_from AND s.tap_uuid IN (<taps>) " +
+                                "GROUP BY t.bssid, t.signal_strength_average, t.first_seen, t.last_seen, " +
+                                "t.hidden_ssid_frames")
                         .bind("tr_from", timeRange.from())
                         .bind("tr_to", timeRange.to())
+                        .bind("cutoff", timeRange.from().getMillis() / 1000)
                         .bindList("taps", taps)
                         .mapTo(BSSIDSummary.class)
                         .list()
         );
     }
 
+    /*
+     * The state table only knows what happened within the horizon and is always up to date, so it can only answer
+     * time ranges that start within the horizon and end now. Allow some slack for the time it takes taps to report.
+     */
+    static boolean isCoveredByBSSIDState(TimeRange timeRange) {
+        DateTime now = DateTime.now();
+
+        return !timeRange.isAllTime()
+                && timeRange.from().isAfter(now.minusHours(BSSID_STATE_HORIZON_HOURS))
+                && !timeRange.to().isBefore(now.minusMinutes(1));
+    }
+
     public boolean bssidExist(String bssid, TimeRange timeRange, List<UUID> taps) {
         if (taps.isEmpty()) {
             return false;
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT EXISTS (SELECT 1 FROM dot11_bssids " +
                                 "WHERE created_at >= :tr_from AND created_at <= :tr_to " +
                                 "AND tap_uuid IN (<taps>) " +
@@ -308,7 +534,7 @@ public class Dot11 {
             return false;
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT EXISTS (SELECT 1 FROM dot11_clients " +
                                 "WHERE created_at > :cutoff AND tap_uuid IN (<taps>) " +
                                 "AND client_mac = :client_mac)")
@@ -325,20 +551,23 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT s.ssid, c.frequency, MAX(s.created_at) AS last_seen, " +
-                                "ARRAY_AGG(DISTINCT(COALESCE(ssp.value, 'None'))) AS security_protocols, " +
-                                "ARRAY_AGG(DISTINCT(ssw.value)) AS is_wps, " +
-                                "ARRAY_AGG(DISTINCT(i.infrastructure_type)) AS infrastructure_types, " +
+                                "ARRAY_AGG(DISTINCT(COALESCE(sspd.value, 'None'))) AS security_protocols, " +
+                                "ARRAY_AGG(DISTINCT(sswd.value)) AS is_wps, " +
+                                "ARRAY_AGG(DISTINCT(itd.value)) AS infrastructure_types, " +
                                 "AVG(s.signal_strength_average) AS signal_strength_average, " +
                                 "SUM(c.stats_bytes) AS total_bytes, SUM(c.stats_frames) AS total_frames " +
                                 "FROM dot11_ssids AS s " +
                                 "LEFT JOIN dot11_channels AS c on s.id = c.ssid_id " +
-                                "LEFT JOIN dot11_infrastructure_types AS i on s.id = i.ssid_id " +
-                                "LEFT JOIN dot11_ssid_settings AS ssp on s.id = ssp.ssid_id " +
-                                "AND ssp.attribute = 'security_protocol' " +
-                                "LEFT JOIN dot11_ssid_settings AS ssw on s.id = ssw.ssid_id " +
-                                "AND ssw.attribute = 'has_wps' " +
+                                "LEFT JOIN (dot11_infrastructure_types AS i JOIN dot11_dictionary AS itd " +
+                                "ON i.infrastructure_type_id = itd.id) ON s.id = i.ssid_id " +
+                                "LEFT JOIN (dot11_ssid_settings AS ssp JOIN dot11_dictionary AS sspd " +
+                                "ON ssp.value_id = sspd.id AND sspd.attribute = 'security_protocol') " +
+                                "ON s.id = ssp.ssid_id " +
+                                "LEFT JOIN (dot11_ssid_settings AS ssw JOIN dot11_dictionary AS sswd " +
+                                "ON ssw.value_id = sswd.id AND sswd.attribute = 'has_wps') " +
+                                "ON s.id = ssw.ssid_id " +
                                 "WHERE s.created_at >= :tr_from AND s.created_at <= :tr_to " +
                                 "AND bssid = :bssid AND tap_uuid IN (<taps>) " +
                                 "GROUP BY s.ssid, c.frequency")
@@ -356,14 +585,14 @@ public class Dot11 {
             return Optional.empty();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT s.ssid, MAX(s.created_at) AS last_seen, " +
-                                "ARRAY_AGG(DISTINCT(COALESCE(ssp.value, 'None'))) AS security_protocols, " +
-                                "ARRAY_AGG(DISTINCT(sss.value)) AS security_suites, " +
-                                "ARRAY_AGG(DISTINCT(ssw.value)) AS is_wps, " +
+                                "ARRAY_AGG(DISTINCT(COALESCE(sspd.value, 'None'))) AS security_protocols, " +
+                                "ARRAY_AGG(DISTINCT(sssd.value)) AS security_suites, " +
+                                "ARRAY_AGG(DISTINCT(sswd.value)) AS is_wps, " +
                                 "ARRAY_AGG(DISTINCT(f.fingerprint)) AS fingerprints, " +
                                 "ARRAY_AGG(DISTINCT(r.rate)) AS rates, " +
-                                "ARRAY_AGG(DISTINCT(i.infrastructure_type)) " +
+                                "ARRAY_AGG(DISTINCT(itd.value)) " +
                                 "AS infrastructure_types, AVG(s.signal_strength_average) AS signal_strength_average, " +
                                 "ARRAY_AGG(DISTINCT(cl.client_mac)) AS access_point_clients, " +
                                 "ARRAY_AGG(DISTINCT(c.frequency)) AS frequencies, " +
@@ -371,16 +600,20 @@ public class Dot11 {
                                 "FROM dot11_ssids AS s " +
                                 "LEFT JOIN dot11_bssids AS b on s.bssid_id = b.id " +
                                 "LEFT JOIN dot11_channels AS c on s.id = c.ssid_id " +
-                                "LEFT JOIN dot11_infrastructure_types AS i on s.id = i.ssid_id " +
+                                "LEFT JOIN (dot11_infrastructure_types AS i JOIN dot11_dictionary AS itd " +
+                                "ON i.infrastructure_type_id = itd.id) ON s.id = i.ssid_id " +
                                 "LEFT JOIN dot11_fingerprints AS f on s.id = f.ssid_id " +
                                 "LEFT JOIN dot11_rates AS r on s.id = r.ssid_id " +
                                 "LEFT JOIN dot11_bssid_clients cl on b.id = cl.bssid_id " +
-                                "LEFT JOIN dot11_ssid_settings AS ssp on s.id = ssp.ssid_id " +
-                                "AND ssp.attribute = 'security_protocol' " +
-                                "LEFT JOIN dot11_ssid_settings AS sss on s.id = sss.ssid_id " +
-                                "AND sss.attribute = 'security_suite' " +
-                                "LEFT JOIN dot11_ssid_settings AS ssw on s.id = ssw.ssid_id " +
-                                "AND ssw.attribute = 'has_wps' " +
+                                "LEFT JOIN (dot11_ssid_settings AS ssp JOIN dot11_dictionary AS sspd " +
+                                "ON ssp.value_id = sspd.id AND sspd.attribute = 'security_protocol') " +
+                                "ON s.id = ssp.ssid_id " +
+                                "LEFT JOIN (dot11_ssid_settings AS sss JOIN dot11_dictionary AS sssd " +
+                                "ON sss.value_id = sssd.id AND sssd.attribute = 'security_suite') " +
+                                "ON s.id = sss.ssid_id " +
+                                "LEFT JOIN (dot11_ssid_settings AS ssw JOIN dot11_dictionary AS sswd " +
+                                "ON ssw.value_id = sswd.id AND sswd.attribute = 'has_wps') " +
+                                "ON s.id = ssw.ssid_id " +
                                 "WHERE s.created_at >= :tr_from AND s.created_at <= :tr_to " +
                                 "AND s.bssid = :bssid AND s.ssid = :ssid " +
                                 "AND s.tap_uuid IN (<taps>) " +
@@ -401,7 +634,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT COUNT(DISTINCT(b.bssid)) as bssid_count, " +
                                 "COUNT(DISTINCT(s.ssid)) as ssid_count, DATE_TRUNC(:date_trunc, b.created_at) as bucket " +
                                 "FROM dot11_bssids AS b " +
@@ -427,14 +660,16 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT SUM(beacon_advertisements) AS beacons, " +
+        return withReadHandle(handle ->
+                histogramRollups.bindWatermarks(handle.createQuery("SELECT SUM(beacon_advertisements) AS beacons, " +
                                 "SUM(proberesp_advertisements) AS proberesponses, " +
-                                "DATE_TRUNC(:date_trunc, created_at) AS bucket FROM dot11_ssids " +
-                                "WHERE created_at >= :tr_from AND created_at <= :tr_to " +
+                                "DATE_TRUNC(:date_trunc, created_at) AS bucket " +
+                                "FROM " + histogramRollups.advertisementsSource(bc.type()) + " AS ssids " +
+                                "WHERE created_at >= DATE_TRUNC(:date_trunc, CAST(:tr_from AS timestamptz)) " +
+                                "AND created_at <= :tr_to " +
                                 "AND tap_uuid IN (<taps>) " +
                                 "AND bssid = :bssid AND ssid = :ssid " +
-                                "GROUP BY bucket ORDER BY bucket DESC")
+                                "GROUP BY bucket ORDER BY bucket DESC"), bc.type())
                         .bind("tr_from", timeRange.from())
                         .bind("tr_to", timeRange.to())
                         .bind("date_trunc", bc.type().getDateTruncName())
@@ -454,7 +689,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT c.frequency, sum(c.stats_frames) AS frames, sum(c.stats_bytes) AS bytes " +
                                 "FROM dot11_ssids AS s " +
                                 "LEFT JOIN dot11_channels c on s.id = c.ssid_id " +
@@ -476,7 +711,7 @@ public class Dot11 {
                                                                           int frequency,
                                                                           TimeRange timeRange,
                                                                           UUID tapId) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DATE_TRUNC('minute', s.created_at) AS bucket, signal_strength, " +
                                 "SUM(frame_count) AS frame_count FROM dot11_ssids AS s " +
                                 "LEFT JOIN dot11_channel_histograms h on s.id = h.ssid_id " +
@@ -496,7 +731,7 @@ public class Dot11 {
     }
 
     public List<SignalTrackHistogramEntry> getBSSIDSignalStrengthWaterfall(String bssid, TimeRange timeRange, UUID tapId) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DATE_TRUNC('minute', s.created_at) AS bucket, signal_strength, " +
                                 "SUM(frame_count) AS frame_count FROM dot11_ssids AS s " +
                                 "LEFT JOIN dot11_channel_histograms h on s.id = h.ssid_id " +
@@ -585,7 +820,7 @@ public class Dot11 {
             return 0;
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT COUNT(DISTINCT(c.client_mac)) " +
                                 "FROM dot11_bssids AS b " +
                                 "LEFT JOIN dot11_bssid_clients c on b.id = c.bssid_id " +
@@ -609,7 +844,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT b.bssid AS bssid, c.client_mac AS client_mac, " +
                                 "MAX(b.created_at) AS last_seen " +
                                 "FROM dot11_bssids AS b " +
@@ -637,7 +872,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DISTINCT(b.bssid) AS bssid " +
                                 "FROM dot11_bssids AS b " +
                                 "WHERE b.created_at >= :tr_from AND b.created_at <= :tr_to " +
@@ -656,7 +891,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DISTINCT(s.ssid) " +
                                 "FROM dot11_clients AS c " +
                                 "LEFT JOIN dot11_client_probereq_ssids s on c.id = s.client_id " +
@@ -674,7 +909,7 @@ public class Dot11 {
             return 0;
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT COUNT(DISTINCT(c.client_mac)) " +
                                 "FROM dot11_clients AS c " +
                                 "LEFT JOIN dot11_client_probereq_ssids AS pr on c.id = pr.client_id " +
@@ -699,7 +934,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT c.client_mac, MAX(created_at) AS last_seen, " +
                                 "ARRAY_AGG(DISTINCT(pr.ssid)) AS probe_requests " +
                                 "FROM dot11_clients AS c " +
@@ -729,7 +964,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT b.bssid AS bssid, c.client_mac AS client_mac, " +
                                 "MAX(b.created_at) AS last_seen " +
                                 "FROM dot11_bssids AS b " +
@@ -754,7 +989,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT COUNT(DISTINCT(c.client_mac)) AS client_count, " +
                                 "DATE_TRUNC(:date_trunc, c.created_at) as bucket " +
                                 "FROM dot11_clients AS c " +
@@ -781,7 +1016,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT COUNT(DISTINCT(c.client_mac)) AS client_count, " +
                                 "DATE_TRUNC(:date_trunc, b.created_at) as bucket " +
                                 "FROM dot11_bssids AS b " +
@@ -804,7 +1039,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT b.bssid " +
                                 "FROM dot11_bssids AS b " +
                                 "LEFT JOIN dot11_bssid_clients c on b.id = c.bssid_id " +
@@ -823,7 +1058,7 @@ public class Dot11 {
             return Collections.emptyList();
         }
 
-        Optional<String[]> x = nzyme.getDatabase().withHandle(handle ->
+        Optional<String[]> x = withReadHandle(handle ->
                 handle.createQuery("SELECT ARRAY_AGG(DISTINCT(s.ssid)) " +
                                 "FROM dot11_ssids AS s " +
                                 "WHERE s.created_at > (NOW() - INTERVAL '3 days') AND " +
@@ -853,7 +1088,7 @@ public class Dot11 {
             return Optional.empty();
         }
 
-        Optional<FirstLastSeenTuple> connected = nzyme.getDatabase().withHandle(handle ->
+        Optional<FirstLastSeenTuple> connected = withReadHandle(handle ->
                 handle.createQuery("SELECT MAX(b.created_at) AS last_seen, MIN(b.created_at) AS first_seen " +
                                 "FROM dot11_bssids AS b " +
                                 "LEFT JOIN dot11_bssid_clients AS c on b.id = c.bssid_id " +
@@ -870,7 +1105,7 @@ public class Dot11 {
             connected = Optional.empty();
         }
 
-        Optional<String> currentlyConnectedBSSID = nzyme.getDatabase().withHandle(handle ->
+        Optional<String> currentlyConnectedBSSID = withReadHandle(handle ->
                 handle.createQuery("SELECT b.bssid " +
                                 "FROM dot11_bssids AS b " +
                                 "LEFT JOIN dot11_bssid_clients AS c on b.id = c.bssid_id " +
@@ -910,7 +1145,7 @@ public class Dot11 {
                         advertisedSSIDs
                 ));
             }
-            connectedHistogram = nzyme.getDatabase().withHandle(handle ->
+            connectedHistogram = withReadHandle(handle ->
                     handle.createQuery("SELECT DATE_TRUNC('minute', b.created_at) as bucket, " +
                                     "COALESCE(SUM(c.rx_frames) + SUM(c.tx_frames), 0) AS frames " +
                                     "FROM dot11_bssids AS b " +
@@ -930,7 +1165,7 @@ public class Dot11 {
             connectedHistogram = Collections.emptyList();
         }
 
-        Optional<FirstLastSeenTuple> disconnected = nzyme.getDatabase().withHandle(handle ->
+        Optional<FirstLastSeenTuple> disconnected = withReadHandle(handle ->
                 handle.createQuery("SELECT MAX(c.created_at) AS last_seen, MIN(c.created_at) AS first_seen " +
                                 "FROM dot11_clients AS c " +
                                 "WHERE c.client_mac = :client_mac AND c.tap_uuid IN (<taps>)")
@@ -950,7 +1185,7 @@ public class Dot11 {
         List<ClientActivityHistogramEntry> disconnectedHistogram;
         if (disconnected.isPresent()) {
             probeRequests = findProbeRequestsOfClient(clientMac, taps);
-            disconnectedHistogram = nzyme.getDatabase().withHandle(handle ->
+            disconnectedHistogram = withReadHandle(handle ->
                     handle.createQuery("SELECT DATE_TRUNC('minute', c.created_at) as bucket, " +
                                     "COALESCE(SUM(wildcard_probe_requests), 0) " +
                                     "+ COALESCE(SUM(pr.frame_count), 0) AS frames " +
@@ -1037,7 +1272,7 @@ public class Dot11 {
     public List<TapBasedSignalStrengthResult> findDisconnectedClientSignalStrengthPerTap(String clientMac,
                                                                                          TimeRange timeRange,
                                                                                          List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT c.tap_uuid AS tap_uuid, t.name AS tap_name, " +
                                 "AVG(c.signal_strength_average) AS signal_strength " +
                                 "FROM dot11_clients AS c " +
@@ -1057,7 +1292,7 @@ public class Dot11 {
     public List<TapBasedSignalStrengthResult> findBssidClientSignalStrengthPerTap(String clientMac,
                                                                                   TimeRange timeRange,
                                                                                   List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT b.tap_uuid AS tap_uuid, t.name AS tap_name, " +
                                 "AVG(c.signal_strength_average) AS signal_strength " +
                                 "FROM dot11_bssid_clients AS c " +
@@ -1078,7 +1313,7 @@ public class Dot11 {
     public List<ClientSignalStrengthResult> findDisconnectedClientSignalStrengthHistogram(String clientMac,
                                                                                           int minutes,
                                                                                           UUID tap) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT AVG(signal_strength_average) AS signal_strength, " +
                                 "DATE_TRUNC('minute', created_at) AS bucket " +
                                 "FROM dot11_clients " +
@@ -1095,7 +1330,7 @@ public class Dot11 {
     public List<ClientSignalStrengthResult> findBssidClientSignalStrengthHistogram(String clientMac,
                                                                                      int minutes,
                                                                                      UUID tap) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT AVG(c.signal_strength_average) AS signal_strength, " +
                                 "DATE_TRUNC('minute', b.created_at) AS bucket " +
                                 "FROM dot11_bssid_clients AS c " +
@@ -1116,7 +1351,7 @@ public class Dot11 {
                                                                                                                TimeRange timeRange,
                                                                                                                Bucketing.BucketingConfiguration bucketing,
                                                                                                                List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DATE_TRUNC('minute', c.created_at) AS bucket, " +
                                 "c.tap_uuid, t.name AS tap_name, AVG(c.signal_strength_average) AS signal_strength " +
                                 "FROM dot11_clients AS c LEFT JOIN taps AS t ON c.tap_uuid = t.uuid " +
@@ -1137,7 +1372,7 @@ public class Dot11 {
                                                                                                             TimeRange timeRange,
                                                                                                             Bucketing.BucketingConfiguration bucketing,
                                                                                                             List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DATE_TRUNC('minute', b.created_at) AS bucket, " +
                                 "b.tap_uuid, t.name AS tap_name, AVG(c.signal_strength_average) AS signal_strength " +
                                 "FROM dot11_bssid_clients AS c " +
@@ -1586,15 +1821,16 @@ public class Dot11 {
         List<DiscoHistogramEntry> senders;
         if (bssids != null) {
             // BSSID filter applied.
-            senders = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT SUM(senders.sent_frames) " +
+            senders = withReadHandle(handle ->
+                    histogramRollups.bindWatermarks(handle.createQuery("SELECT SUM(senders.sent_frames) " +
                                     "AS frame_count, DATE_TRUNC(:date_trunc, senders.created_at) AS bucket " +
-                                    "FROM dot11_disco_activity AS senders " +
+                                    "FROM " + histogramRollups.discoSendersSource(bucketing.type()) + " AS senders " +
                                     "WHERE senders.disco_type IN (<disco_types>) " +
                                     "AND senders.bssid IN (<bssids>) " +
-                                    "AND senders.created_at >= :tr_from AND senders.created_at <= :tr_to " +
+                                    "AND senders.created_at >= DATE_TRUNC(:date_trunc, CAST(:tr_from AS timestamptz)) " +
+                                    "AND senders.created_at <= :tr_to " +
                                     "AND senders.tap_uuid IN (<taps>) " +
-                                    "GROUP BY bucket ORDER BY bucket DESC")
+                                    "GROUP BY bucket ORDER BY bucket DESC"), bucketing.type())
                             .bind("tr_from", timeRange.from())
                             .bind("tr_to", timeRange.to())
                             .bind("date_trunc", bucketing.type().getDateTruncName())
@@ -1606,14 +1842,15 @@ public class Dot11 {
             );
         } else {
             // No BSSID filter.
-            senders = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT SUM(senders.sent_frames) " +
+            senders = withReadHandle(handle ->
+                    histogramRollups.bindWatermarks(handle.createQuery("SELECT SUM(senders.sent_frames) " +
                                     "AS frame_count, DATE_TRUNC(:date_trunc, senders.created_at) AS bucket " +
-                                    "FROM dot11_disco_activity AS senders " +
+                                    "FROM " + histogramRollups.discoSendersSource(bucketing.type()) + " AS senders " +
                                     "WHERE senders.disco_type IN (<disco_types>) " +
-                                    "AND senders.created_at >= :tr_from AND senders.created_at <= :tr_to " +
+                                    "AND senders.created_at >= DATE_TRUNC(:date_trunc, CAST(:tr_from AS timestamptz)) " +
+                                    "AND senders.created_at <= :tr_to " +
                                     "AND senders.tap_uuid IN (<taps>) " +
-                                    "GROUP BY bucket ORDER BY bucket DESC")
+                                    "GROUP BY bucket ORDER BY bucket DESC"), bucketing.type())
                             .bind("tr_from", timeRange.from())
                             .bind("tr_to", timeRange.to())
                             .bind("date_trunc", bucketing.type().getDateTruncName())
@@ -1627,17 +1864,16 @@ public class Dot11 {
         List<DiscoHistogramEntry> receivers;
         if (bssids != null) {
             // BSSID filter applied.
-            receivers = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT SUM(receivers.received_frames) " +
-                                    "AS frame_count, DATE_TRUNC(:date_trunc, senders.created_at) AS bucket " +
-                                    "FROM dot11_disco_activity_receivers AS receivers " +
-                                    "LEFT JOIN dot11_disco_activity AS senders " +
-                                    "ON receivers.disco_activity_id = senders.id " +
-                                    "WHERE senders.disco_type IN (<disco_types>) " +
+            receivers = withReadHandle(handle ->
+                    histogramRollups.bindWatermarks(handle.createQuery("SELECT SUM(receivers.received_frames) " +
+                                    "AS frame_count, DATE_TRUNC(:date_trunc, receivers.created_at) AS bucket " +
+                                    "FROM " + histogramRollups.discoReceiversSource(bucketing.type()) + " AS receivers " +
+                                    "WHERE receivers.disco_type IN (<disco_types>) " +
                                     "AND receivers.bssid IN (<bssids>) " +
-                                    "AND senders.created_at >= :tr_from AND senders.created_at <= :tr_to " +
-                                    "AND senders.tap_uuid IN (<taps>) " +
-                                    "GROUP BY bucket ORDER BY bucket DESC")
+                                    "AND receivers.created_at >= DATE_TRUNC(:date_trunc, CAST(:tr_from AS timestamptz)) " +
+                                    "AND receivers.created_at <= :tr_to " +
+                                    "AND receivers.tap_uuid IN (<taps>) " +
+                                    "GROUP BY bucket ORDER BY bucket DESC"), bucketing.type())
                             .bind("tr_from", timeRange.from())
                             .bind("tr_to", timeRange.to())
                             .bind("date_trunc", bucketing.type().getDateTruncName())
@@ -1704,7 +1940,7 @@ public class Dot11 {
 
         if (bssids != null) {
             // BSSID filter applied.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT senders.bssid, SUM(senders.sent_frames) AS frame_count " +
                                     "FROM dot11_disco_activity AS senders " +
                                     "LEFT JOIN dot11_disco_activity_receivers AS receivers " +
@@ -1725,7 +1961,7 @@ public class Dot11 {
             );
         } else {
             // No BSSID filter.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT bssid, SUM(sent_frames) AS frame_count " +
                                     "FROM dot11_disco_activity " +
                                     "WHERE created_at >= :tr_from AND created_at <= :tr_to " +
@@ -1754,7 +1990,7 @@ public class Dot11 {
 
         if (bssids != null) {
             // BSSID filter applied.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT COUNT(DISTINCT(senders.bssid)) " +
                                     "FROM dot11_disco_activity AS senders " +
                                     "LEFT JOIN dot11_disco_activity_receivers AS receivers " +
@@ -1771,7 +2007,7 @@ public class Dot11 {
             );
         } else {
             // No BSSID filter.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT COUNT(DISTINCT(bssid)) " +
                                     "FROM dot11_disco_activity " +
                                     "WHERE created_at >= :tr_from AND created_at <= :tr_to " +
@@ -1800,7 +2036,7 @@ public class Dot11 {
 
         if (bssids != null) {
             // BSSID filter applied.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT receivers.bssid, SUM(received_frames) AS frame_count " +
                                     "FROM dot11_disco_activity_receivers AS receivers " +
                                     "LEFT JOIN dot11_disco_activity AS senders " +
@@ -1821,7 +2057,7 @@ public class Dot11 {
             );
         } else {
             // No BSSID filter.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT receivers.bssid, SUM(received_frames) AS frame_count " +
                                     "FROM dot11_disco_activity_receivers AS receivers " +
                                     "LEFT JOIN dot11_disco_activity AS senders " +
@@ -1852,7 +2088,7 @@ public class Dot11 {
 
         if (bssids != null) {
             // BSSID filter applied.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT COUNT(DISTINCT(receivers.bssid)) " +
                                     "FROM dot11_disco_activity_receivers AS receivers " +
                                     "LEFT JOIN dot11_disco_activity AS senders " +
@@ -1869,7 +2105,7 @@ public class Dot11 {
             );
         } else {
             // No BSSID filter.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT COUNT(DISTINCT(receivers.bssid)) " +
                                     "FROM dot11_disco_activity_receivers AS receivers " +
                                     "LEFT JOIN dot11_disco_activity AS senders " +
@@ -1900,7 +2136,7 @@ public class Dot11 {
 
         if (bssids != null) {
             // BSSID filter applied.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT senders.bssid AS sender, receivers.bssid AS receiver, " +
                                     "SUM(receivers.received_frames) AS frame_count " +
                                     "FROM dot11_disco_activity AS senders " +
@@ -1923,7 +2159,7 @@ public class Dot11 {
             );
         } else {
             // No BSSID filter.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT senders.bssid AS sender, receivers.bssid AS receiver, " +
                                     "SUM(receivers.received_frames) AS frame_count " +
                                     "FROM dot11_disco_activity AS senders " +
@@ -1956,7 +2192,7 @@ public class Dot11 {
 
         if (bssids != null) {
             // BSSID filter applied.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT COUNT(DISTINCT(senders.bssid, receivers.bssid)) " +
                                     "FROM dot11_disco_activity AS senders " +
                                     "LEFT JOIN dot11_disco_activity_receivers AS receivers " +
@@ -1973,7 +2209,7 @@ public class Dot11 {
             );
         } else {
             // No BSSID filter.
-            return nzyme.getDatabase().withHandle(handle ->
+            return withReadHandle(handle ->
                     handle.createQuery("SELECT COUNT(DISTINCT(senders.bssid, receivers.bssid)) " +
                                     "FROM dot11_disco_activity AS senders " +
                                     "LEFT JOIN dot11_disco_activity_receivers AS receivers " +
@@ -2029,7 +2265,7 @@ public class Dot11 {
     }
 
     public List<String> findBSSIDsAdvertisingSSID(String ssid, List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DISTINCT(bssid) FROM dot11_ssids " +
                                 "WHERE ssid = :ssid AND tap_uuid IN (<taps>) " +
                                 "AND created_at >= (NOW() - INTERVAL '24 hours') " +
@@ -2042,7 +2278,7 @@ public class Dot11 {
     }
 
     public List<String> findFingerprintsOfBSSID(String bssid, List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DISTINCT(fp.fingerprint) FROM dot11_bssids AS b " +
                                 "LEFT JOIN public.dot11_fingerprints fp on b.id = fp.bssid_id " +
                                 "WHERE b.bssid = :bssid AND b.tap_uuid IN (<taps>) " +
@@ -2056,11 +2292,12 @@ public class Dot11 {
     }
 
     public List<String> findSecuritySuitesOfSSID(String ssid, List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT DISTINCT(sss.value) AS security_suites " +
+        return withReadHandle(handle ->
+                handle.createQuery("SELECT DISTINCT(sssd.value) AS security_suites " +
                                 "FROM dot11_ssids AS s " +
-                                "LEFT JOIN dot11_ssid_settings AS sss on s.id = sss.ssid_id " +
-                                "AND sss.attribute = 'security_suite' " +
+                                "LEFT JOIN (dot11_ssid_settings AS sss JOIN dot11_dictionary AS sssd " +
+                                "ON sss.value_id = sssd.id AND sssd.attribute = 'security_suite') " +
+                                "ON s.id = sss.ssid_id " +
                                 "WHERE s.ssid = :ssid AND s.tap_uuid IN (<taps>) " +
                                 "AND s.created_at >= (NOW() - INTERVAL '24 hours') " +
                                 "ORDER BY security_suites ASC")
@@ -2072,7 +2309,7 @@ public class Dot11 {
     }
 
     public List<Long> findChannelsOfSSID(String ssid, List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DISTINCT(c.frequency) FROM dot11_ssids AS s " +
                                 "LEFT JOIN dot11_channels AS c ON s.id = c.ssid_id " +
                                 "WHERE s.ssid = :ssid AND s.tap_uuid IN (<taps>) AND c.frequency IS NOT NULL " +
@@ -2088,7 +2325,7 @@ public class Dot11 {
     public List<TapBasedSignalStrengthResult> findBSSIDSignalStrengthPerTap(String bssid,
                                                                             TimeRange timeRange,
                                                                             List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT b.tap_uuid AS tap_uuid, t.name AS tap_name, " +
                                 "AVG(b.signal_strength_average) AS signal_strength " +
                                 "FROM dot11_bssids AS b " +
@@ -2109,7 +2346,7 @@ public class Dot11 {
                                                                                                   TimeRange timeRange,
                                                                                                   Bucketing.BucketingConfiguration bucketing,
                                                                                                   List<UUID> taps) {
-        return nzyme.getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT DATE_TRUNC('minute', b.created_at) AS bucket, " +
                                 "b.tap_uuid AS tap_uuid, t.name AS tap_name, " +
                                 "AVG(b.signal_strength_average) AS signal_strength " +
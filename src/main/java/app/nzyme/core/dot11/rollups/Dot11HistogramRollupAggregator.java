@@ -0,0 +1,30 @@
+package app.nzyme.core.dot11.rollups;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.periodicals.Periodical;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+public class Dot11HistogramRollupAggregator extends Periodical {
+
+    private static final Logger LOG = LogManager.getLogger(Dot11HistogramRollupAggregator.class);
+
+    private final NzymeNode nzyme;
+
+    public Dot11HistogramRollupAggregator(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    @Override
+    protected void execute() {
+        LOG.debug("Rolling up closed 802.11 histogram buckets.");
+
+        nzyme.getDot11().getHistogramRollups().rollUp();
+    }
+
+    @Override
+    public String getName() {
+        return "802.11 Histogram Rollup Aggregator";
+    }
+
+}
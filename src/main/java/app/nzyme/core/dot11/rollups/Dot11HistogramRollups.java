@@ -0,0 +1,329 @@
+package app.nzyme.core.dot11.rollups;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.util.Bucketing;
+import com.google.common.collect.Maps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.SqlStatement;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maintains hourly and daily rollups of 802.11 advertisement and disconnection histograms and builds the SQL sources
+ * that histogram queries read from. A source combines the coarsest rollup that matches the requested bucketing with
+ * finer rollups and raw rows for everything that has not been rolled up yet.
+ */
+public class Dot11HistogramRollups {
+
+    private static final Logger LOG = LogManager.getLogger(Dot11HistogramRollups.class);
+
+    // Closed hours that are aggregated again on every run to pick up late tap reports.
+    private static final int LATE_HOURS = 1;
+
+    // Limits the work of a single run when catching up on existing raw data.
+    private static final int MAX_HOURS_PER_RUN = 48;
+
+    private static final String ADVERTISEMENT_COLUMNS
+            = "tap_uuid, bssid, ssid, beacon_advertisements, proberesp_advertisements";
+    private static final String DISCO_SENDER_COLUMNS = "tap_uuid, disco_type, bssid, sent_frames";
+    private static final String DISCO_RECEIVER_COLUMNS = "tap_uuid, disco_type, bssid, received_frames";
+
+    private static final String RAW_DISCO_RECEIVERS = "SELECT s.tap_uuid, s.disco_type, r.bssid, r.received_frames, " +
+            "s.created_at FROM dot11_disco_activity_receivers AS r " +
+            "JOIN dot11_disco_activity AS s ON r.disco_activity_id = s.id";
+
+    private final NzymeNode nzyme;
+
+    public Dot11HistogramRollups(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    /**
+     * Source with the columns of dot11_ssids that histogram queries use.
+     */
+    public String advertisementsSource(Bucketing.Type bucketing) {
+        return buildSource(bucketing,
+                "dot11_advertisements",
+                ADVERTISEMENT_COLUMNS,
+                "SELECT " + ADVERTISEMENT_COLUMNS + ", created_at FROM dot11_ssids",
+                "created_at",
+                null);
+    }
+
+    /**
+     * Source with the columns of dot11_disco_activity that histogram queries use.
+     */
+    public String discoSendersSource(Bucketing.Type bucketing) {
+        return buildSource(bucketing,
+                "dot11_disco_activity",
+                DISCO_SENDER_COLUMNS,
+                "SELECT " + DISCO_SENDER_COLUMNS + ", created_at FROM dot11_disco_activity",
+                "created_at",
+                "sent_frames > 0");
+    }
+
+    /**
+     * Source of frames received by a BSSID, with the tap, disconnection type and time of the sending activity.
+     */
+    public String discoReceiversSource(Bucketing.Type bucketing) {
+        return buildSource(bucketing,
+                "dot11_disco_activity",
+                DISCO_RECEIVER_COLUMNS,
+                RAW_DISCO_RECEIVERS,
+                "s.created_at",
+                "received_frames > 0");
+    }
+
+    /**
+     * Binds the rollup watermarks that a source built for the same bucketing refers to.
+     */
+    public <T extends SqlStatement<T>> T bindWatermarks(T statement, Bucketing.Type bucketing) {
+        if (bucketing == Bucketing.Type.MINUTE) {
+            return statement;
+        }
+
+        // Read through the same handle, so that watermarks and rollups come from the same database.
+        Map<String, DateTime> watermarks = findWatermarks(statement.getHandle());
+        statement.bind("rollup_hour_until", getWatermark(watermarks, Bucketing.Type.HOUR));
+
+        if (bucketing == Bucketing.Type.DAY) {
+            statement.bind("rollup_day_until", getWatermark(watermarks, Bucketing.Type.DAY));
+        }
+
+        return statement;
+    }
+
+    /**
+     * Aggregates all closed hours and days that have not been rolled up yet.
+     */
+    public void rollUp() {
+        DateTime currentHour = DateTime.now().hourOfDay().roundFloorCopy();
+
+        Map<String, DateTime> watermarks = findWatermarks();
+        DateTime hourlyUntil = watermarks.get(Bucketing.Type.HOUR.getDateTruncName());
+
+        DateTime hour;
+        if (hourlyUntil != null) {
+            hour = hourlyUntil.minusHours(LATE_HOURS);
+        } else {
+            Optional<DateTime> oldest = findOldestRawData();
+            hour = oldest.isPresent() ? oldest.get().hourOfDay().roundFloorCopy() : currentHour;
+        }
+
+        int hours = 0;
+        while (hour.isBefore(currentHour) && hours < MAX_HOURS_PER_RUN) {
+            rollUpHour(hour);
+            hour = hour.plusHours(1);
+            hours++;
+        }
+
+        if (hourlyUntil == null && hours == 0) {
+            // Nothing to aggregate yet. Everything before now is rolled up.
+            setWatermark(Bucketing.Type.HOUR, currentHour);
+        }
+
+        hourlyUntil = findWatermarks().get(Bucketing.Type.HOUR.getDateTruncName());
+        if (hourlyUntil == null) {
+            return;
+        }
+
+        // Days are aggregated from the hourly rollup once all their hours are rolled up.
+        DateTime closedDaysUntil = hourlyUntil.withTimeAtStartOfDay();
+        DateTime dailyUntil = watermarks.get(Bucketing.Type.DAY.getDateTruncName());
+
+        DateTime day;
+        if (dailyUntil != null) {
+            day = dailyUntil.minusDays(1);
+        } else {
+            Optional<DateTime> oldest = findOldestHourlyBucket();
+            day = oldest.isPresent() ? oldest.get().withTimeAtStartOfDay() : closedDaysUntil;
+        }
+
+        while (day.isBefore(closedDaysUntil)) {
+            rollUpDay(day);
+            day = day.plusDays(1);
+        }
+
+        if (dailyUntil == null) {
+            setWatermark(Bucketing.Type.DAY, closedDaysUntil);
+        }
+
+        LOG.debug("Rolled up <{}> hours of 802.11 histograms. Hourly rollups until <{}>.", hours, hourlyUntil);
+    }
+
+    public void retentionClean(DateTime cutoff) {
+        nzyme.getDatabase().useHandle(handle -> {
+            for (String table : new String[]{"dot11_advertisements_hourly", "dot11_advertisements_daily",
+                    "dot11_disco_activity_hourly", "dot11_disco_activity_daily"}) {
+                handle.createUpdate("DELETE FROM " + table + " WHERE bucket < :cutoff")
+                        .bind("cutoff", cutoff)
+                        .execute();
+            }
+        });
+    }
+
+    private void rollUpHour(DateTime hour) {
+        DateTime to = hour.plusHours(1);
+
+        nzyme.getDatabase().useHandle(handle -> handle.useTransaction(tx -> {
+            tx.createUpdate("INSERT INTO dot11_advertisements_hourly(" + ADVERTISEMENT_COLUMNS + ", bucket) " +
+                            "SELECT tap_uuid, bssid, ssid, SUM(beacon_advertisements), " +
+                            "SUM(proberesp_advertisements), :bucket FROM dot11_ssids " +
+                            "WHERE created_at >= :from AND created_at < :to AND bssid IS NOT NULL " +
+                            "GROUP BY tap_uuid, bssid, ssid " +
+                            "ON CONFLICT(tap_uuid, bssid, ssid, bucket) DO UPDATE SET " +
+                            "beacon_advertisements = EXCLUDED.beacon_advertisements, " +
+                            "proberesp_advertisements = EXCLUDED.proberesp_advertisements")
+                    .bind("bucket", hour)
+                    .bind("from", hour)
+                    .bind("to", to)
+                    .execute();
+
+            // Senders and receivers of the same activity are counted separately per BSSID.
+            tx.createUpdate("INSERT INTO dot11_disco_activity_hourly(tap_uuid, disco_type, bssid, " +
+                            "sent_frames, received_frames, bucket) " +
+                            "SELECT tap_uuid, disco_type, bssid, SUM(sent_frames), SUM(received_frames), :bucket " +
+                            "FROM (SELECT tap_uuid, disco_type, bssid, sent_frames, 0 AS received_frames " +
+                            "FROM dot11_disco_activity WHERE created_at >= :from AND created_at < :to " +
+                            "UNION ALL " +
+                            "SELECT s.tap_uuid, s.disco_type, r.bssid, 0 AS sent_frames, r.received_frames " +
+                            "FROM dot11_disco_activity_receivers AS r " +
+                            "JOIN dot11_disco_activity AS s ON r.disco_activity_id = s.id " +
+                            "WHERE s.created_at >= :from AND s.created_at < :to) AS activity " +
+                            "GROUP BY tap_uuid, disco_type, bssid " +
+                            "ON CONFLICT(tap_uuid, bssid, disco_type, bucket) DO UPDATE SET " +
+                            "sent_frames = EXCLUDED.sent_frames, received_frames = EXCLUDED.received_frames")
+                    .bind("bucket", hour)
+                    .bind("from", hour)
+                    .bind("to", to)
+                    .execute();
+
+            writeWatermark(tx, Bucketing.Type.HOUR, to);
+        }));
+    }
+
+    private void rollUpDay(DateTime day) {
+        DateTime to = day.plusDays(1);
+
+        nzyme.getDatabase().useHandle(handle -> handle.useTransaction(tx -> {
+            tx.createUpdate("INSERT INTO dot11_advertisements_daily(" + ADVERTISEMENT_COLUMNS + ", bucket) " +
+                            "SELECT tap_uuid, bssid, ssid, SUM(beacon_advertisements), " +
+                            "SUM(proberesp_advertisements), :bucket FROM dot11_advertisements_hourly " +
+                            "WHERE bucket >= :from AND bucket < :to " +
+                            "GROUP BY tap_uuid, bssid, ssid " +
+                            "ON CONFLICT(tap_uuid, bssid, ssid, bucket) DO UPDATE SET " +
+                            "beacon_advertisements = EXCLUDED.beacon_advertisements, " +
+                            "proberesp_advertisements = EXCLUDED.proberesp_advertisements")
+                    .bind("bucket", day)
+                    .bind("from", day)
+                    .bind("to", to)
+                    .execute();
+
+            tx.createUpdate("INSERT INTO dot11_disco_activity_daily(tap_uuid, disco_type, bssid, " +
+                            "sent_frames, received_frames, bucket) " +
+                            "SELECT tap_uuid, disco_type, bssid, SUM(sent_frames), SUM(received_frames), :bucket " +
+                            "FROM dot11_disco_activity_hourly WHERE bucket >= :from AND bucket < :to " +
+                            "GROUP BY tap_uuid, disco_type, bssid " +
+                            "ON CONFLICT(tap_uuid, bssid, disco_type, bucket) DO UPDATE SET " +
+                            "sent_frames = EXCLUDED.sent_frames, received_frames = EXCLUDED.received_frames")
+                    .bind("bucket", day)
+                    .bind("from", day)
+                    .bind("to", to)
+                    .execute();
+
+            writeWatermark(tx, Bucketing.Type.DAY, to);
+        }));
+    }
+
+    private String buildSource(Bucketing.Type bucketing,
+                               String rollupPrefix,
+                               String columns,
+                               String rawQuery,
+                               String rawTimeColumn,
+                               String rollupCondition) {
+        String condition = rollupCondition == null ? "" : rollupCondition + " AND ";
+
+        switch (bucketing) {
+            case HOUR:
+                return "(SELECT " + columns + ", bucket AS created_at FROM " + rollupPrefix + "_hourly " +
+                        "WHERE " + condition + "bucket < :rollup_hour_until " +
+                        "UNION ALL " +
+                        rawQuery + " WHERE " + rawTimeColumn + " >= :rollup_hour_until)";
+            case DAY:
+                return "(SELECT " + columns + ", bucket AS created_at FROM " + rollupPrefix + "_daily " +
+                        "WHERE " + condition + "bucket < :rollup_day_until " +
+                        "UNION ALL " +
+                        "SELECT " + columns + ", bucket AS created_at FROM " + rollupPrefix + "_hourly " +
+                        "WHERE " + condition + "bucket >= :rollup_day_until AND bucket < :rollup_hour_until " +
+                        "UNION ALL " +
+                        rawQuery + " WHERE " + rawTimeColumn + " >= :rollup_hour_until)";
+            case MINUTE:
+            default:
+                return "(" + rawQuery + ")";
+        }
+    }
+
+    private Map<String, DateTime> findWatermarks() {
+        return nzyme.getDatabase().withHandle(this::findWatermarks);
+    }
+
+    private Map<String, DateTime> findWatermarks(Handle handle) {
+        List<Map.Entry<String, DateTime>> watermarks = handle
+                .createQuery("SELECT granularity, rolled_up_until FROM dot11_rollup_watermarks")
+                .map((rs, ctx) -> Maps.immutableEntry(
+                        rs.getString("granularity"),
+                        new DateTime(rs.getTimestamp("rolled_up_until"))
+                ))
+                .list();
+
+        Map<String, DateTime> result = Maps.newHashMap();
+        for (Map.Entry<String, DateTime> watermark : watermarks) {
+            result.put(watermark.getKey(), watermark.getValue());
+        }
+
+        return result;
+    }
+
+    private DateTime getWatermark(Map<String, DateTime> watermarks, Bucketing.Type granularity) {
+        // Without a watermark, nothing has been rolled up and everything is read from finer sources.
+        return watermarks.getOrDefault(granularity.getDateTruncName(), new DateTime(0));
+    }
+
+    private void setWatermark(Bucketing.Type granularity, DateTime until) {
+        nzyme.getDatabase().useHandle(handle -> writeWatermark(handle, granularity, until));
+    }
+
+    private void writeWatermark(Handle handle, Bucketing.Type granularity, DateTime until) {
+        // Never moves back, in case multiple nodes are rolling up at the same time.
+        handle.createUpdate("INSERT INTO dot11_rollup_watermarks(granularity, rolled_up_until) " +
+                        "VALUES(:granularity, :until) ON CONFLICT(granularity) DO UPDATE SET " +
+                        "rolled_up_until = GREATEST(dot11_rollup_watermarks.rolled_up_until, EXCLUDED.rolled_up_until)")
+                .bind("granularity", granularity.getDateTruncName())
+                .bind("until", until)
+                .execute();
+    }
+
+    private Optional<DateTime> findOldestRawData() {
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT LEAST((SELECT MIN(created_at) FROM dot11_ssids), " +
+                                "(SELECT MIN(created_at) FROM dot11_disco_activity))")
+                        .mapTo(DateTime.class)
+                        .findOne()
+        );
+    }
+
+    private Optional<DateTime> findOldestHourlyBucket() {
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT LEAST((SELECT MIN(bucket) FROM dot11_advertisements_hourly), " +
+                                "(SELECT MIN(bucket) FROM dot11_disco_activity_hourly))")
+                        .mapTo(DateTime.class)
+                        .findOne()
+        );
+    }
+
+}
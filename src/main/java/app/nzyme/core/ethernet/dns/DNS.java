@@ -1,9 +1,11 @@
 package app.nzyme.core.ethernet.dns;
 
+import app.nzyme.core.database.DatabaseImpl;
 import app.nzyme.core.ethernet.Ethernet;
 import app.nzyme.core.ethernet.dns.db.DNSPairSummary;
 import app.nzyme.core.ethernet.dns.db.DNSStatisticsBucket;
 import app.nzyme.core.ethernet.dns.db.DNSTrafficSummary;
+import org.jdbi.v3.core.HandleCallback;
 import org.joda.time.DateTime;
 
 import javax.annotation.Nullable;
@@ -19,12 +21,17 @@ public class DNS {
         this.ethernet = ethernet;
     }
 
+    // Queries on tap report data. Served by the read replica, if configured.
+    private <R, X extends Exception> R withReadHandle(HandleCallback<R, X> callback) throws X {
+        return ((DatabaseImpl) ethernet.getNzyme().getDatabase()).withReadHandle(callback);
+    }
+
     public List<DNSStatisticsBucket> getStatistics(int hours, List<UUID> taps) {
         if (taps.isEmpty()) {
             return Collections.emptyList();
         }
 
-        return ethernet.getNzyme().getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT date_trunc('MINUTE', created_at) AS bucket, " +
                                 "SUM(request_count) AS request_count, SUM(request_bytes) AS request_bytes, " +
                                 "SUM(response_count) AS response_count, SUM(response_bytes) AS response_bytes, " +
@@ -43,7 +50,7 @@ public class DNS {
             return DNSTrafficSummary.create(0,0,0);
         }
 
-        return ethernet.getNzyme().getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT (SUM(request_count)+SUM(response_count)) AS total_dns_packets, " +
                                 "(SUM(request_bytes)+SUM(response_bytes)) AS total_dns_traffic_bytes, " +
                                 "SUM(nxdomain_count) AS nxdomain_count " +
@@ -60,7 +67,7 @@ public class DNS {
             return Collections.emptyList();
         }
 
-        return ethernet.getNzyme().getDatabase().withHandle(handle ->
+        return withReadHandle(handle ->
                 handle.createQuery("SELECT server, SUM(count) AS request_count, COUNT(DISTINCT(ip)) AS client_count " +
                                 "FROM dns_pairs WHERE created_at > :created_at AND tap_uuid IN (<taps>) " +
                                 "GROUP BY server ORDER BY request_count DESC LIMIT :limit")
@@ -0,0 +1,23 @@
+package app.nzyme.core.ethernet.dns;
+
+import app.nzyme.plugin.RegistryKey;
+import app.nzyme.plugin.rest.configuration.ConfigurationEntryConstraint;
+
+import java.util.ArrayList;
+import java.util.Optional;
+
+public class DNSRegistryKeys {
+
+    // DNS tables are partitioned by hour. Each day of retention keeps another 24 partitions of every table around.
+    public static final int MAX_DNS_RETENTION_TIME_DAYS = 30;
+
+    public static final RegistryKey DNS_RETENTION_TIME_DAYS = RegistryKey.create(
+            "dns_retention_time_days",
+            Optional.of(new ArrayList<>() {{
+                add(ConfigurationEntryConstraint.createNumberRangeConstraint(1, MAX_DNS_RETENTION_TIME_DAYS));
+            }}),
+            Optional.of("1"),
+            false
+    );
+
+}
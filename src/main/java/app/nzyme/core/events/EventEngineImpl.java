@@ -1,6 +1,7 @@
 package app.nzyme.core.events;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.PageCursor;
 import app.nzyme.core.detection.alerts.DetectionType;
 import app.nzyme.core.events.actions.EventActionFactory;
 import app.nzyme.core.events.db.EventActionEntry;
@@ -155,7 +156,7 @@ public class EventEngineImpl implements EventEngine {
     public List<EventEntry> findAllEventsOfAllOrganizations(List<String> eventTypes, int limit, int offset) {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT * FROM events WHERE event_type IN (<event_types>) " +
-                                "ORDER BY created_at DESC LIMIT :limit OFFSET :offset")
+                                "ORDER BY created_at DESC, id DESC LIMIT :limit OFFSET :offset")
                         .bindList("event_types", eventTypes)
                         .bind("limit", limit)
                         .bind("offset", offset)
@@ -167,7 +168,7 @@ public class EventEngineImpl implements EventEngine {
     public List<EventEntry> findAllEventsOfOrganization(List<String> eventTypes, UUID organizationId, int limit, int offset) {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT * FROM events WHERE organization_id = :organization_id " +
-                                "AND event_type IN (<event_types>) ORDER BY created_at DESC " +
+                                "AND event_type IN (<event_types>) ORDER BY created_at DESC, id DESC " +
                                 "LIMIT :limit OFFSET :offset")
                         .bind("organization_id", organizationId)
                         .bindList("event_types", eventTypes)
@@ -178,6 +179,32 @@ public class EventEngineImpl implements EventEngine {
         );
     }
 
+    public List<EventEntry> findAllEventsOfAllOrganizations(List<String> eventTypes, int limit, PageCursor cursor) {
+        return nzyme.getDatabase().withHandle(handle ->
+                cursor.bind(handle.createQuery("SELECT * FROM events WHERE event_type IN (<event_types>) " +
+                                "AND " + PageCursor.condition("created_at") + " " +
+                                "ORDER BY created_at DESC, id DESC LIMIT :limit"))
+                        .bindList("event_types", eventTypes)
+                        .bind("limit", limit)
+                        .mapTo(EventEntry.class)
+                        .list()
+        );
+    }
+
+    public List<EventEntry> findAllEventsOfOrganization(List<String> eventTypes, UUID organizationId, int limit, PageCursor cursor) {
+        return nzyme.getDatabase().withHandle(handle ->
+                cursor.bind(handle.createQuery("SELECT * FROM events WHERE organization_id = :organization_id " +
+                                "AND event_type IN (<event_types>) " +
+                                "AND " + PageCursor.condition("created_at") + " " +
+                                "ORDER BY created_at DESC, id DESC LIMIT :limit"))
+                        .bind("organization_id", organizationId)
+                        .bindList("event_types", eventTypes)
+                        .bind("limit", limit)
+                        .mapTo(EventEntry.class)
+                        .list()
+        );
+    }
+
     public long countAllEventActionsOfSuperadministrators() {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT COUNT(*) FROM event_actions WHERE organization_id IS NULL")
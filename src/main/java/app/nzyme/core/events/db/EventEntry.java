@@ -9,6 +9,7 @@ import java.util.UUID;
 @AutoValue
 public abstract class EventEntry {
 
+    public abstract long id();
     public abstract UUID uuid();
     @Nullable
     public abstract UUID organizationId();
@@ -21,8 +22,9 @@ public abstract class EventEntry {
     public abstract String details();
     public abstract DateTime createdAt();
 
-    public static EventEntry create(UUID uuid, UUID organizationId, UUID tenantId, String eventType, String reference, String actionsFired, String details, DateTime createdAt) {
+    public static EventEntry create(long id, UUID uuid, UUID organizationId, UUID tenantId, String eventType, String reference, String actionsFired, String details, DateTime createdAt) {
         return builder()
+                .id(id)
                 .uuid(uuid)
                 .organizationId(organizationId)
                 .tenantId(tenantId)
@@ -40,6 +42,8 @@ public abstract class EventEntry {
 
     @AutoValue.Builder
     public abstract static class Builder {
+        public abstract Builder id(long id);
+
         public abstract Builder uuid(UUID uuid);
 
         public abstract Builder organizationId(UUID organizationId);
@@ -19,6 +19,7 @@ public class EventEntryMapper implements RowMapper<EventEntry> {
                 null : UUID.fromString(rs.getString("tenant_id"));
 
         return EventEntry.create(
+                rs.getLong("id"),
                 UUID.fromString(rs.getString("uuid")),
                 organizationID,
                 tenantId,
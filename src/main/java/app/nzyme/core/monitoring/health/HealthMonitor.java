@@ -1,6 +1,8 @@
 package app.nzyme.core.monitoring.health;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.configuration.node.DatabaseReplicaConfiguration;
+import app.nzyme.core.database.DatabaseImpl;
 import app.nzyme.core.monitoring.health.db.IndicatorStatus;
 import app.nzyme.core.monitoring.health.indicators.*;
 import com.google.common.collect.ImmutableList;
@@ -41,6 +43,8 @@ public class HealthMonitor {
                 .add(new NodeClockIndicator(nzyme.getNodeManager()))
                 .add(new CryptoSyncIndicator(nzyme.getCrypto()))
                 .add(new DatabaseClockIndicator(nzyme.getDatabase(), nzyme.getConfiguration().ntpServer()))
+                .add(new DatabaseReplicaLagIndicator((DatabaseImpl) nzyme.getDatabase(),
+                        nzyme.getConfiguration().databaseReplica().map(DatabaseReplicaConfiguration::maxLagSeconds).orElse(0)))
                 .add(new TapClockIndicator(nzyme.getTapManager()))
                 .add(new NodeOfflineIndicator(nzyme.getNodeManager()))
                 .add(new TapOfflineIndicator(nzyme.getTapManager()))
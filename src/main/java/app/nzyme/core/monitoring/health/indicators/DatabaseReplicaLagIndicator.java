@@ -0,0 +1,52 @@
+package app.nzyme.core.monitoring.health.indicators;
+
+import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.monitoring.health.Indicator;
+import app.nzyme.core.monitoring.health.db.IndicatorStatus;
+
+import java.util.Optional;
+
+public class DatabaseReplicaLagIndicator extends Indicator {
+
+    private final DatabaseImpl database;
+    private final int maxLagSeconds;
+
+    public DatabaseReplicaLagIndicator(DatabaseImpl database, int maxLagSeconds) {
+        this.database = database;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Override
+    protected IndicatorStatus doRun() {
+        if (!database.isReplicaConfigured()) {
+            return IndicatorStatus.green(this);
+        }
+
+        Optional<Long> lag = database.getReplicaLagSeconds();
+        if (lag.isEmpty()) {
+            return IndicatorStatus.unavailable(this);
+        }
+
+        // Read queries are sent to the primary database while the replica is lagging too far behind.
+        if (lag.get() > maxLagSeconds) {
+            return IndicatorStatus.red(this);
+        }
+
+        if (lag.get() > maxLagSeconds / 2) {
+            return IndicatorStatus.orange(this);
+        }
+
+        return IndicatorStatus.green(this);
+    }
+
+    @Override
+    public String getId() {
+        return "db_replica_lag";
+    }
+
+    @Override
+    public String getName() {
+        return "Database Replica Lag";
+    }
+
+}
@@ -0,0 +1,31 @@
+package app.nzyme.core.periodicals.database;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.periodicals.Periodical;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+public class PartitionCreator extends Periodical {
+
+    private static final Logger LOG = LogManager.getLogger(PartitionCreator.class);
+
+    private final NzymeNode nzyme;
+
+    public PartitionCreator(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    @Override
+    protected void execute() {
+        LOG.debug("Creating upcoming table partitions.");
+
+        ((DatabaseImpl) nzyme.getDatabase()).createPartitions();
+    }
+
+    @Override
+    public String getName() {
+        return "Partition Creator";
+    }
+
+}
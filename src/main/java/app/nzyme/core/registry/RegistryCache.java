@@ -0,0 +1,65 @@
+package app.nzyme.core.registry;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Node-wide cache of plain registry values, shared by all registry namespaces. Also remembers keys that have no value,
+ * because most lookups are for settings that were never changed from their default. Local writes update the cache
+ * directly and the {@link RegistryChangeMonitorImpl} invalidates keys changed by other nodes.
+ */
+public class RegistryCache {
+
+    // Namespaced key -> Value.
+    private final Map<String, Optional<String>> values;
+
+    // Increased on every change, so that a value loaded while the key changed is not cached.
+    private long generation = 0;
+
+    public RegistryCache() {
+        this.values = new ConcurrentHashMap<>();
+    }
+
+    public Optional<String> get(String namespacedKey, Supplier<Optional<String>> loader) {
+        Optional<String> value = values.get(namespacedKey);
+        if (value != null) {
+            return value;
+        }
+
+        long loadedAtGeneration;
+        synchronized (this) {
+            loadedAtGeneration = generation;
+        }
+
+        value = loader.get();
+
+        synchronized (this) {
+            if (generation == loadedAtGeneration) {
+                values.put(namespacedKey, value);
+            }
+        }
+
+        return value;
+    }
+
+    public synchronized void put(String namespacedKey, Optional<String> value) {
+        generation++;
+        values.put(namespacedKey, value);
+    }
+
+    public synchronized void invalidate(Collection<String> namespacedKeys) {
+        generation++;
+        for (String key : namespacedKeys) {
+            values.remove(key);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        values.clear();
+    }
+
+}
@@ -3,73 +3,122 @@ package app.nzyme.core.registry;
 import app.nzyme.core.NzymeNode;
 import app.nzyme.plugin.RegistryChangeMonitor;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Follows the registry_changes table, which a database trigger writes to on every change of a registry value. Each run
+ * only reads the changes after the last one it has seen, instead of comparing the whole registry.
+ */
 public class RegistryChangeMonitorImpl implements RegistryChangeMonitor {
 
     private static final Logger LOG = LogManager.getLogger(RegistryChangeMonitorImpl.class);
 
+    /*
+     * Change IDs are assigned when a write happens, not when it commits. A change can become visible after changes
+     * with higher IDs, so we always read this many IDs back and skip the ones we already processed.
+     */
+    private static final long CHANGE_ID_WINDOW = 100;
+
+    private static final int CHANGE_RETENTION_HOURS = 24;
+
     private final NzymeNode nzyme;
 
+    @Nullable
+    private final RegistryCache cache;
+
     private final Map<String, Runnable> subscribers;
 
-    private Map<String, String> snapshot = null;
+    private final Set<Long> recentlyProcessedChangeIds;
+
+    private Long lastSeenChangeId = null;
 
     public RegistryChangeMonitorImpl(NzymeNode nzyme) {
+        this(nzyme, null);
+    }
+
+    public RegistryChangeMonitorImpl(NzymeNode nzyme, @Nullable RegistryCache cache) {
         this.nzyme = nzyme;
+        this.cache = cache;
+        this.subscribers = Maps.newConcurrentMap();
+        this.recentlyProcessedChangeIds = Sets.newHashSet();
 
         Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
                         .setNameFormat("registry-change-processor-%d")
                         .build())
                 .scheduleAtFixedRate(this::processChanges, 0, 5, TimeUnit.SECONDS);
 
-        this.subscribers = Maps.newHashMap();
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat("registry-change-cleaner-%d")
+                        .setDaemon(true)
+                        .build())
+                .scheduleAtFixedRate(this::retentionCleanChanges, 1, 60, TimeUnit.MINUTES);
     }
 
     private void processChanges() {
-        if (snapshot == null) {
-            // First run. Fill image.
-            snapshot = takeSnapshot();
+        try {
+            if (lastSeenChangeId == null) {
+                // First run. Start after the latest changes. (No changes on first run)
+                List<Long> latest = nzyme.getDatabase().withHandle(handle ->
+                        handle.createQuery("SELECT id FROM registry_changes ORDER BY id DESC LIMIT :limit")
+                                .bind("limit", CHANGE_ID_WINDOW)
+                                .mapTo(Long.class)
+                                .list()
+                );
+
+                recentlyProcessedChangeIds.addAll(latest);
+                lastSeenChangeId = latest.isEmpty() ? 0 : latest.get(0);
+
+                // Values might have been cached before we started following changes.
+                if (cache != null) {
+                    cache.invalidateAll();
+                }
 
-            // Exit. (No changes on first run)
-            return;
-        }
+                return;
+            }
 
-        Map<String, String> previous = Maps.newHashMap(this.snapshot);
+            List<Map.Entry<Long, String>> changes = nzyme.getDatabase().withHandle(handle ->
+                    handle.createQuery("SELECT id, key FROM registry_changes WHERE id > :from ORDER BY id ASC")
+                            .bind("from", Math.max(0, lastSeenChangeId - CHANGE_ID_WINDOW))
+                            .map((rs, ctx) -> Maps.immutableEntry(rs.getLong("id"), rs.getString("key")))
+                            .list()
+            );
+
+            Set<String> changedKeys = Sets.newLinkedHashSet();
+            for (Map.Entry<Long, String> change : changes) {
+                if (recentlyProcessedChangeIds.add(change.getKey())) {
+                    changedKeys.add(change.getValue());
+                }
 
-        // Create new snapshot. Do this immediately to avoid missing changes that happen during processing.
-        this.snapshot = takeSnapshot();
+                lastSeenChangeId = Math.max(lastSeenChangeId, change.getKey());
+            }
 
-        Map<String, String> current = takeSnapshot();
+            recentlyProcessedChangeIds.removeIf(id -> id <= lastSeenChangeId - CHANGE_ID_WINDOW);
 
-        for (Map.Entry<String, String> entry : current.entrySet()) {
-            if (!previous.containsKey(entry.getKey())) {
-                // New entry.
-                LOG.info("Registry key [{}] now has a value. Notifying subscribers.", entry.getKey());
-                notifyChange(entry.getKey());
-            } else {
-                // Existing entry. Compare.
-                if (!entry.getValue().equals(previous.get(entry.getKey()))) {
-                    // Value changed.
-                    LOG.info("Registry key [{}] has a new value. Notifying subscribers.", entry.getKey());
-                    notifyChange(entry.getKey());
-                }
+            if (changedKeys.isEmpty()) {
+                return;
             }
-        }
 
-        for (Map.Entry<String, String> entry : previous.entrySet()) {
-            // Did a value disappear?
-            if (!current.containsKey(entry.getKey())) {
-                LOG.info("Registry key [{}] has disappeared. Notifying subscribers.", entry.getKey());
-                notifyChange(entry.getKey());
+            if (cache != null) {
+                cache.invalidate(changedKeys);
             }
+
+            for (String key : changedKeys) {
+                LOG.info("Registry key [{}] has changed. Notifying subscribers.", key);
+                notifyChange(key);
+            }
+        } catch (Exception e) {
+            LOG.error("Could not process registry changes.", e);
         }
     }
 
@@ -88,30 +137,16 @@ public class RegistryChangeMonitorImpl implements RegistryChangeMonitor {
         }
     }
 
-    private Map<String, String> takeSnapshot() {
-        List<RegistryEntry> entries = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT key, value FROM registry")
-                        .mapTo(RegistryEntry.class)
-                        .list()
-        );
-
-        List<RegistryEntry> encryptedEntries = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT key, value FROM registry_encrypted")
-                        .mapTo(RegistryEntry.class)
-                        .list()
-        );
-
-        Map<String, String> result = Maps.newHashMap();
-
-        for (RegistryEntry entry : entries) {
-            result.put(entry.key(), entry.value());
+    private void retentionCleanChanges() {
+        try {
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createUpdate("DELETE FROM registry_changes WHERE changed_at < :cutoff")
+                            .bind("cutoff", DateTime.now().minusHours(CHANGE_RETENTION_HOURS))
+                            .execute()
+            );
+        } catch (Exception e) {
+            LOG.error("Could not clean registry changes.", e);
         }
-
-        for (RegistryEntry entry : encryptedEntries) {
-            result.put(entry.key(), entry.value());
-        }
-
-        return result;
     }
 
     @Override
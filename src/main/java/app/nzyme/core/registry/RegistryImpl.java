@@ -19,14 +19,32 @@ public class RegistryImpl implements Registry {
     private final NzymeNode nzyme;
     private final String namespace;
 
+    @Nullable
+    private final RegistryCache cache;
 
     public RegistryImpl(NzymeNode nzyme, String namespace) {
+        this(nzyme, namespace, null);
+    }
+
+    /**
+     * Plain values are read from the passed cache. Encrypted values are never cached.
+     */
+    public RegistryImpl(NzymeNode nzyme, String namespace, @Nullable RegistryCache cache) {
         this.nzyme = nzyme;
         this.namespace = namespace;
+        this.cache = cache;
     }
 
     @Override
     public Optional<String> getValue(String key) {
+        if (cache == null) {
+            return loadValue(key);
+        }
+
+        return cache.get(buildNamespacedKey(namespace, key), () -> loadValue(key));
+    }
+
+    private Optional<String> loadValue(String key) {
         LOG.debug("Getting value for [{}] from registry.", buildNamespacedKey(namespace, key));
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT value FROM registry WHERE key = :key")
@@ -77,7 +95,8 @@ public class RegistryImpl implements Registry {
     public void setValue(String key, String value) {
         setValuePreflightChecks(key, value);
 
-        if (getValue(key).isPresent()) {
+        // Never decide based on a cached value. Another node might have deleted it.
+        if (loadValue(key).isPresent()) {
             // Update existing entry.
             LOG.debug("Updating existing value for key [{}] in registry.", buildNamespacedKey(namespace, key));
 
@@ -98,6 +117,10 @@ public class RegistryImpl implements Registry {
                             .execute()
             );
         }
+
+        if (cache != null) {
+            cache.put(buildNamespacedKey(namespace, key), Optional.of(value));
+        }
     }
 
     @Override
@@ -150,6 +173,10 @@ public class RegistryImpl implements Registry {
                         .bind("key", buildNamespacedKey(namespace, key))
                         .execute()
         );
+
+        if (cache != null) {
+            cache.put(buildNamespacedKey(namespace, key), Optional.empty());
+        }
     }
 
     private void setValuePreflightChecks(String key, String value) {
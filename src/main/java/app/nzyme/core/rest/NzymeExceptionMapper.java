@@ -18,6 +18,7 @@
 package app.nzyme.core.rest;
 
 import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
@@ -27,23 +28,40 @@ import org.glassfish.jersey.server.ParamException;
 
 import jakarta.ws.rs.core.Response;
 import java.security.InvalidParameterException;
+import java.sql.SQLException;
 
 @Provider
 public class NzymeExceptionMapper implements ExceptionMapper<Throwable> {
 
     private static final Logger LOG = LogManager.getLogger(NzymeExceptionMapper.class);
 
+    // PostgreSQL SQLSTATE of cancelled statements.
+    private static final String QUERY_CANCELED = "57014";
+
     @Override
     public Response toResponse(Throwable t) {
         if (t instanceof NotFoundException) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
+        // Explicitly rejected requests, for example a tap report that is too large.
+        if (t instanceof ClientErrorException) {
+            LOG.debug(t);
+            return ((ClientErrorException) t).getResponse();
+        }
+
         if (t instanceof ParamException || t instanceof IllegalArgumentException) {
             LOG.debug(t);
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
 
+        // Database query cancelled by the REST statement timeout.
+        if (isQueryCanceled(t)) {
+            LOG.warn("Database query of REST call was cancelled because it ran longer than the configured " +
+                    "statement timeout.", t);
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+        }
+
         // AutoValue JSON creation error. Swallow but also log because this is likely a programming problem.
         if (t instanceof ValueInstantiationException) {
             LOG.error(t);
@@ -55,4 +73,14 @@ public class NzymeExceptionMapper implements ExceptionMapper<Throwable> {
         return Response.serverError().build();
     }
 
+    private static boolean isQueryCanceled(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && QUERY_CANCELED.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.rest;
+
+import app.nzyme.core.rest.resources.taps.reports.StatusReport;
+import app.nzyme.core.rest.resources.taps.reports.protobuf.Dot11TablesReportDecoder;
+import app.nzyme.core.rest.resources.taps.reports.protobuf.ProtobufTapReports;
+import app.nzyme.core.rest.resources.taps.reports.protobuf.TapReports;
+import app.nzyme.core.rest.resources.taps.reports.tables.DNSTablesReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.Dot11TablesReport;
+import com.google.protobuf.InvalidProtocolBufferException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Reads tap reports sent as protobuf instead of JSON. Taps choose the format with the Content-Type header.
+ */
+@Provider
+@Consumes(ProtobufTapReportReader.APPLICATION_PROTOBUF)
+public class ProtobufTapReportReader implements MessageBodyReader<Object> {
+
+    public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == Dot11TablesReport.class || type == DNSTablesReport.class || type == StatusReport.class;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type,
+                           Type genericType,
+                           Annotation[] annotations,
+                           MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders,
+                           InputStream entityStream) throws IOException, WebApplicationException {
+        try {
+            if (type.equals(Dot11TablesReport.class)) {
+                return Dot11TablesReportDecoder.decode(entityStream);
+            }
+
+            if (type.equals(DNSTablesReport.class)) {
+                return ProtobufTapReports.toDNSTablesReport(TapReports.DNSTablesReport.parseFrom(entityStream));
+            }
+
+            if (type.equals(StatusReport.class)) {
+                return ProtobufTapReports.toStatusReport(TapReports.StatusReport.parseFrom(entityStream));
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Could not parse protobuf tap report.", e);
+        }
+
+        throw new IllegalArgumentException("Unsupported protobuf tap report type [" + type.getName() + "].");
+    }
+
+}
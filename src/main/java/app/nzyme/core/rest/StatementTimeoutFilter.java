@@ -0,0 +1,59 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.rest;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.RequestStatementTimeout;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+
+/**
+ * Cancels database queries of web interface and REST API requests that run longer than the configured statement
+ * timeout. Tap reports are not limited, because dropping a report loses data.
+ */
+@Provider
+@PreMatching
+public class StatementTimeoutFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private final int timeoutSeconds;
+
+    public StatementTimeoutFilter(NzymeNode nzyme) {
+        this.timeoutSeconds = nzyme.getConfiguration().databaseRestStatementTimeoutSeconds();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        if (timeoutSeconds > 0 && !request.getUriInfo().getPath().startsWith("api/taps/")) {
+            RequestStatementTimeout.begin(timeoutSeconds);
+        } else {
+            RequestStatementTimeout.end();
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        RequestStatementTimeout.end();
+    }
+
+}
@@ -2,18 +2,28 @@ package app.nzyme.core.rest.interceptors;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.util.MetricNames;
+import com.github.luben.zstd.ZstdInputStream;
+import com.google.common.io.CountingInputStream;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.ext.ReaderInterceptor;
 import jakarta.ws.rs.ext.ReaderInterceptorContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
 
+/**
+ * Decompresses tap reports sent with a Content-Encoding of gzip or zstd and records report sizes. Must run before
+ * Jersey's own content encoders, which would otherwise decompress gzip bodies without any size limit.
+ */
 public class TapTableSizeInterceptor implements ReaderInterceptor {
 
     private static final Logger LOG = LogManager.getLogger(TapTableSizeInterceptor.class);
@@ -21,30 +31,225 @@ public class TapTableSizeInterceptor implements ReaderInterceptor {
     @Context
     private UriInfo uriInfo;
 
-    private NzymeNode nzyme;
+    private final NzymeNode nzyme;
+    private final long maxSize;
 
     public TapTableSizeInterceptor(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.maxSize = nzyme.getConfiguration().tapReportMaxSizeMb() * 1024L * 1024L;
     }
 
     @Override
     public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
-        if (uriInfo.getPath().equals("api/taps/tables") || uriInfo.getPath().equals("api/taps/tables/")) {
-            // We do not want to consume the InputStream because we need it later in the resource of course. Copy it.
-            ByteArrayOutputStream cloner = new ByteArrayOutputStream();
-            context.getInputStream().transferTo(cloner);
+        String path = uriInfo.getPath();
+        if (!path.startsWith("api/taps/")) {
+            return context.proceed();
+        }
+
+        // Reject bodies that are too large before reading anything. A decompressed body is never smaller.
+        String contentLength = context.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > maxSize) {
+                    throw new ClientErrorException(Response.Status.REQUEST_ENTITY_TOO_LARGE);
+                }
+            } catch (NumberFormatException e) {
+                throw new ClientErrorException(Response.Status.BAD_REQUEST, e);
+            }
+        }
+
+        /*
+         * Count the bytes as the body is deserialized instead of buffering a copy of it. Jackson reads straight from
+         * the request stream, so the report is never held in memory as raw bytes, and reading stops at the size
+         * limit.
+         */
+        CountingInputStream compressed = new CountingInputStream(context.getInputStream());
+        String encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+
+        /*
+         * Track failures of the request stream and of the decompressor separately. A decompressor that fails while
+         * the request stream is fine was sent a broken body.
+         */
+        FailureTrackingInputStream source = new FailureTrackingInputStream(compressed);
+        FailureTrackingInputStream decoded;
+        try {
+            decoded = new FailureTrackingInputStream(decode(encoding, source));
+        } catch (IOException e) {
+            // Decompressors read the header of the body when they are created.
+            if (source.hasFailed()) {
+                throw e;
+            }
+
+            LOG.debug("Rejecting tap report at [{}]: Invalid [{}] encoding.", path, encoding, e);
+            throw new ClientErrorException(Response.Status.BAD_REQUEST, e);
+        }
 
-            int size = cloner.toByteArray().length;
-            LOG.debug("Tap table report size: {}", size);
+        SizeLimitedInputStream limited = new SizeLimitedInputStream(decoded, maxSize);
+        CountingInputStream decompressed = new CountingInputStream(limited);
+
+        // We decoded the body already.
+        context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+        context.setInputStream(decompressed);
+
+        try {
+            return context.proceed();
+        } catch (IOException | RuntimeException e) {
+            // Readers like Jackson wrap exceptions of the stream. Always answer with 413 if the limit was hit.
+            if (limited.isExceeded()) {
+                LOG.debug("Rejecting tap report at [{}]: Larger than <{}> bytes.", path, maxSize);
+                throw new ClientErrorException(Response.Status.REQUEST_ENTITY_TOO_LARGE, e);
+            }
+
+            // Empty, truncated or corrupted compressed body.
+            if (decoded.hasFailed() && !source.hasFailed()) {
+                LOG.debug("Rejecting tap report at [{}]: Invalid [{}] encoding.", path, encoding, e);
+                throw new ClientErrorException(Response.Status.BAD_REQUEST, e);
+            }
+
+            throw e;
+        } finally {
+            if (path.startsWith("api/taps/tables")) {
+                long compressedSize = compressed.getCount();
+                long size = decompressed.getCount();
+                LOG.debug("Tap table report size: {} (compressed: {}, encoding: {})", size, compressedSize, encoding);
+
+                nzyme.getMetrics().histogram(MetricNames.TAP_TABLE_REQUEST_SIZES).update(size);
+                nzyme.getNodeManager().recordTapReportSize(compressedSize, size);
+            }
+        }
+    }
+
+    private static InputStream decode(String encoding, InputStream in) throws IOException {
+        if (encoding == null) {
+            return in;
+        }
+
+        switch (encoding.trim().toLowerCase()) {
+            case "":
+            case "identity":
+                return in;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in);
+            case "zstd":
+                return new ZstdInputStream(in);
+            default:
+                throw new ClientErrorException(Response.Status.UNSUPPORTED_MEDIA_TYPE);
+        }
+    }
+
+    /**
+     * Remembers if reading from the wrapped stream ever failed.
+     */
+    private static final class FailureTrackingInputStream extends FilterInputStream {
+
+        private boolean failed = false;
+
+        FailureTrackingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
 
-            nzyme.getMetrics().histogram(MetricNames.TAP_TABLE_REQUEST_SIZES).update(size);
-            nzyme.getNodeManager().recordTapReportSize(size);
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            try {
+                return super.skip(n);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            try {
+                return super.available();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        boolean hasFailed() {
+            return failed;
+        }
+
+    }
+
+    /**
+     * Fails the request once more than the allowed number of bytes was read. Guards against small compressed
+     * bodies that decompress to huge reports.
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long maxSize;
+        private long read = 0;
+        private boolean exceeded = false;
+
+        SizeLimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+
+            return skipped;
+        }
+
+        boolean isExceeded() {
+            return exceeded;
+        }
 
-            // Stick another clone right back into the request context.
-            context.setInputStream(new ByteArrayInputStream(cloner.toByteArray()));
+        private void count(long n) {
+            read += n;
+            if (read > maxSize) {
+                exceeded = true;
+                throw new ClientErrorException(Response.Status.REQUEST_ENTITY_TOO_LARGE);
+            }
         }
 
-        return context.proceed();
     }
 
 }
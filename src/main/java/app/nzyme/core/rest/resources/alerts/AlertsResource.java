@@ -2,6 +2,7 @@ package app.nzyme.core.rest.resources.alerts;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.Subsystem;
+import app.nzyme.core.database.PageCursor;
 import app.nzyme.core.detection.alerts.DetectionAlertService;
 import app.nzyme.core.detection.alerts.DetectionType;
 import app.nzyme.core.detection.alerts.db.DetectionAlertAttributeEntry;
@@ -58,7 +59,8 @@ public class AlertsResource extends UserAuthenticatedResource {
     @RESTSecured(value = PermissionLevel.ANY, featurePermissions = { "alerts_view" })
     public Response findAll(@Context SecurityContext sc,
                             @QueryParam("limit") int limit,
-                            @QueryParam("offset") int offset) {
+                            @QueryParam("offset") int offset,
+                            @QueryParam("cursor") @Nullable String cursor) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
         if (limit > 250) {
@@ -66,12 +68,23 @@ public class AlertsResource extends UserAuthenticatedResource {
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
-        List<DetectionAlertEntry> alerts = nzyme.getDetectionAlertService().findAllAlerts(
-                authenticatedUser.getOrganizationId(),
-                authenticatedUser.getTenantId(),
-                limit,
-                offset
-        );
+        // Continuation tokens are much faster than an offset when paging deep into the alerts.
+        List<DetectionAlertEntry> alerts;
+        if (cursor == null) {
+            alerts = nzyme.getDetectionAlertService().findAllAlerts(
+                    authenticatedUser.getOrganizationId(),
+                    authenticatedUser.getTenantId(),
+                    limit,
+                    offset
+            );
+        } else {
+            alerts = nzyme.getDetectionAlertService().findAllAlerts(
+                    authenticatedUser.getOrganizationId(),
+                    authenticatedUser.getTenantId(),
+                    limit,
+                    PageCursor.decode(cursor)
+            );
+        }
 
         long total = nzyme.getDetectionAlertService().countAlerts(
                 authenticatedUser.getOrganizationId(),
@@ -86,7 +99,10 @@ public class AlertsResource extends UserAuthenticatedResource {
             responsesList.add(buildDetailsResponse(alert, attributes));
         }
 
-        return Response.ok(DetectionAlertListResponse.create(total, responsesList)).build();
+        String nextCursor = PageCursor.nextToken(nzyme.getDatabase(), "detection_alerts", "last_seen",
+                alerts, limit, a -> PageCursor.create(a.lastSeen(), a.id()));
+
+        return Response.ok(DetectionAlertListResponse.create(total, responsesList, nextCursor)).build();
     }
 
     @GET
@@ -349,6 +349,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
                 req.tenantId()
         );
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.status(Response.Status.CREATED).build();
     }
 
@@ -372,6 +374,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().deleteMonitoredSSID(ssid.id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -410,6 +414,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.status(Response.Status.CREATED).build();
     }
 
@@ -441,6 +447,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -486,6 +494,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.status(Response.Status.CREATED).build();
     }
 
@@ -518,6 +528,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -555,6 +567,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.status(Response.Status.CREATED).build();
     }
 
@@ -580,6 +594,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -618,6 +634,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.status(Response.Status.CREATED).build();
     }
 
@@ -643,6 +661,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -666,6 +686,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -689,6 +711,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -722,6 +746,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().bumpMonitoredSSIDUpdatedAt(ssid.get().id());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -896,6 +922,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
             }
         }
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok(Response.Status.CREATED).build();
     }
 
@@ -956,6 +984,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().setSimilarSSIDMonitorConfiguration(ssid.get().id(), (int) req.threshold());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -979,6 +1009,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().createRestrictedSSIDSubstring(ssid.get().id(), req.substring());
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.status(Response.Status.CREATED).build();
     }
 
@@ -1002,6 +1034,8 @@ public class Dot11MonitoredNetworksResource extends TapDataHandlingResource {
 
         nzyme.getDot11().deleteRestrictedSSIDSubstring(ssid.get().id(), substringUuid);
 
+        nzyme.getDot11().invalidateMonitoredNetworkSnapshots();
+
         return Response.ok().build();
     }
 
@@ -2,8 +2,12 @@ package app.nzyme.core.rest.resources.system;
 
 import app.nzyme.core.NzymeNode;
 import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.database.QueryStatistics;
 import app.nzyme.core.dot11.Dot11RegistryKeys;
+import app.nzyme.core.ethernet.dns.DNSRegistryKeys;
 import app.nzyme.core.rest.requests.RetentionTimeConfigurationUpdateRequest;
+import app.nzyme.core.rest.responses.system.DatabaseQueriesListResponse;
+import app.nzyme.core.rest.responses.system.DatabaseQueryResponse;
 import app.nzyme.core.rest.responses.system.DatabaseSummaryResponse;
 import app.nzyme.plugin.rest.configuration.ConfigurationEntryConstraintValidator;
 import app.nzyme.plugin.rest.configuration.ConfigurationEntryResponse;
@@ -14,13 +18,17 @@ import app.nzyme.plugin.rest.security.RESTSecured;
 import com.google.common.collect.Lists;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
+import java.util.List;
 import java.util.Map;
 
 @Path("/api/system/database")
@@ -44,6 +52,8 @@ public class DatabaseResource {
                 + db.getTableSize("dot11_fingerprints")
                 + db.getTableSize("dot11_ssids")
                 + db.getTableSize("dot11_infrastructure_types")
+                + db.getTableSize("dot11_ssid_settings")
+                + db.getTableSize("dot11_dictionary")
                 + db.getTableSize("dot11_bssid_clients")
                 + db.getTableSize("dot11_rates")
                 + db.getTableSize("dot11_clients")
@@ -68,11 +78,48 @@ public class DatabaseResource {
                 "retention-time"
         );
 
+        int dnsRetentionTime = Integer.parseInt(nzyme.getDatabaseCoreRegistry()
+                .getValue(DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.key())
+                .orElse(DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.defaultValue().orElse("MISSING"))
+        );
+
+        ConfigurationEntryResponse dnsRetentionTimeConfig = ConfigurationEntryResponse.create(
+                DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.key(),
+                "Retention Time (in days)",
+                dnsRetentionTime,
+                ConfigurationEntryValueType.NUMBER,
+                DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.defaultValue().orElse(null),
+                DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.requiresRestart(),
+                DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.constraints().orElse(Lists.newArrayList()),
+                "retention-time"
+        );
+
         return Response.ok(DatabaseSummaryResponse.create(
-                totalSize, ethernetSize, dot11Size, dot11RetentionTimeConfig
+                totalSize, ethernetSize, dot11Size, dot11RetentionTimeConfig, dnsRetentionTimeConfig
         )).build();
     }
 
+    @GET
+    @Path("/queries")
+    public Response queries(@QueryParam("limit") @DefaultValue("25") @Max(250) int limit) {
+        DatabaseImpl db = (DatabaseImpl) nzyme.getDatabase();
+
+        List<DatabaseQueryResponse> queries = Lists.newArrayList();
+        for (QueryStatistics query : db.getQueryMetrics().findTopStatements(limit)) {
+            queries.add(DatabaseQueryResponse.create(
+                    query.key(),
+                    query.statement(),
+                    query.count(),
+                    query.totalTime() / 1_000_000.0,
+                    query.meanTime() / 1_000_000.0,
+                    query.p99Time() / 1_000_000.0,
+                    query.maxTime() / 1_000_000.0
+            ));
+        }
+
+        return Response.ok(DatabaseQueriesListResponse.create(queries)).build();
+    }
+
     @PUT
     @Path("/retention")
     public Response updateRetentionTimeConfiguration(@Valid RetentionTimeConfigurationUpdateRequest ur) {
@@ -83,6 +130,11 @@ public class DatabaseResource {
                         return Response.status(422).build();
                     }
                     break;
+                case "dns_retention_time_days":
+                    if (!ConfigurationEntryConstraintValidator.checkConstraints(DNSRegistryKeys.DNS_RETENTION_TIME_DAYS, c)) {
+                        return Response.status(422).build();
+                    }
+                    break;
             }
 
             nzyme.getDatabaseCoreRegistry().setValue(c.getKey(), c.getValue().toString());
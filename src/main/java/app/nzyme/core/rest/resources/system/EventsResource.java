@@ -1,6 +1,7 @@
 package app.nzyme.core.rest.resources.system;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.PageCursor;
 import app.nzyme.core.events.EventEngineImpl;
 import app.nzyme.core.events.db.EventActionEntry;
 import app.nzyme.core.events.db.EventEntry;
@@ -51,12 +52,13 @@ public class EventsResource extends UserAuthenticatedResource {
     public Response findAllEvents(@Context SecurityContext sc,
                                   @QueryParam("limit") int limit,
                                   @QueryParam("offset") int offset,
+                                  @QueryParam("cursor") @Nullable String cursor,
                                   @QueryParam("event_types")String eventTypes,
                                   @QueryParam("organization_id") @Nullable UUID organizationId) {
         AuthenticatedUser authenticatedUser = getAuthenticatedUser(sc);
 
         if (Strings.isNullOrEmpty(eventTypes)) {
-            return Response.ok(EventsListResponse.create(0, Collections.emptyList())).build();
+            return Response.ok(EventsListResponse.create(0, Collections.emptyList(), null)).build();
         }
 
         // Check if user is allowed to access the requested org.
@@ -67,18 +69,23 @@ public class EventsResource extends UserAuthenticatedResource {
         }
 
         List<String> types = Splitter.on(",").splitToList(eventTypes);
+        EventEngineImpl eventEngine = (EventEngineImpl) nzyme.getEventEngine();
 
+        // Continuation tokens are much faster than an offset when paging deep into the events.
         List<EventEntry> events;
         long totalEvents;
         if (organizationId == null) {
             // Superadmin.
-            events = ((EventEngineImpl) nzyme.getEventEngine()).findAllEventsOfAllOrganizations(types, limit, offset);
-            totalEvents = ((EventEngineImpl) nzyme.getEventEngine()).countAllEventsOfAllOrganizations();
+            events = cursor == null
+                    ? eventEngine.findAllEventsOfAllOrganizations(types, limit, offset)
+                    : eventEngine.findAllEventsOfAllOrganizations(types, limit, PageCursor.decode(cursor));
+            totalEvents = eventEngine.countAllEventsOfAllOrganizations();
         } else {
             // Organization admin.
-            events = ((EventEngineImpl) nzyme.getEventEngine())
-                    .findAllEventsOfOrganization(types, organizationId, limit, offset);
-            totalEvents = ((EventEngineImpl) nzyme.getEventEngine()).countAllEventsOfOrganization(organizationId);
+            events = cursor == null
+                    ? eventEngine.findAllEventsOfOrganization(types, organizationId, limit, offset)
+                    : eventEngine.findAllEventsOfOrganization(types, organizationId, limit, PageCursor.decode(cursor));
+            totalEvents = eventEngine.countAllEventsOfOrganization(organizationId);
         }
 
         List<EventDetailsResponse> result = Lists.newArrayList();
@@ -92,7 +99,10 @@ public class EventsResource extends UserAuthenticatedResource {
             ));
         }
 
-        return Response.ok(EventsListResponse.create(totalEvents, result)).build();
+        String nextCursor = PageCursor.nextToken(nzyme.getDatabase(), "events", "created_at",
+                events, limit, e -> PageCursor.create(e.createdAt(), e.id()));
+
+        return Response.ok(EventsListResponse.create(totalEvents, result, nextCursor)).build();
     }
 
     @GET
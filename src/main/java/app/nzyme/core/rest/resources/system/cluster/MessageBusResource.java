@@ -1,6 +1,8 @@
 package app.nzyme.core.rest.resources.system.cluster;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.PageCursor;
+import app.nzyme.core.distributed.messaging.postgres.PostgresMessageBusImpl;
 import app.nzyme.core.rest.responses.distributed.MessageBusMessageListResponse;
 import app.nzyme.core.rest.responses.distributed.MessageBusMessageResponse;
 import app.nzyme.plugin.distributed.messaging.StoredMessage;
@@ -10,6 +12,7 @@ import com.google.common.collect.Lists;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -28,15 +31,24 @@ public class MessageBusResource {
 
     @GET
     @Path("messages")
-    public Response findMessages(@QueryParam("limit") int limit, @QueryParam("offset") int offset) {
+    public Response findMessages(@QueryParam("limit") int limit,
+                                 @QueryParam("offset") int offset,
+                                 @QueryParam("cursor") @Nullable String cursor) {
         if (limit > 250) {
             LOG.warn("Requested limit larger than 250. Not allowed.");
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
-        List<MessageBusMessageResponse> responseMessages = Lists.newArrayList();
+        // Continuation tokens are much faster than an offset when paging deep into the messages.
+        List<StoredMessage> messages;
+        if (cursor == null) {
+            messages = nzyme.getMessageBus().getAllMessages(limit, offset);
+        } else {
+            messages = ((PostgresMessageBusImpl) nzyme.getMessageBus()).getAllMessages(limit, PageCursor.decode(cursor));
+        }
 
-        for (StoredMessage message : nzyme.getMessageBus().getAllMessages(limit, offset)) {
+        List<MessageBusMessageResponse> responseMessages = Lists.newArrayList();
+        for (StoredMessage message : messages) {
             responseMessages.add(MessageBusMessageResponse.create(
                     message.id(),
                     message.sender(),
@@ -52,7 +64,10 @@ public class MessageBusResource {
 
         long count = nzyme.getMessageBus().getTotalMessageCount();
 
-        return Response.ok(MessageBusMessageListResponse.create(count, responseMessages)).build();
+        String nextCursor = PageCursor.nextToken(nzyme.getDatabase(), "message_bus_messages", "created_at",
+                messages, limit, m -> PageCursor.create(m.createdAt(), m.id()));
+
+        return Response.ok(MessageBusMessageListResponse.create(count, responseMessages, nextCursor)).build();
     }
 
     @PUT
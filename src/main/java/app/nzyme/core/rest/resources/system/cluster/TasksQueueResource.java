@@ -1,6 +1,8 @@
 package app.nzyme.core.rest.resources.system.cluster;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.PageCursor;
+import app.nzyme.core.distributed.tasksqueue.postgres.PostgresTasksQueueImpl;
 import app.nzyme.core.rest.responses.distributed.TasksQueueTaskResponse;
 import app.nzyme.core.rest.responses.distributed.TasksQueueTasksListResponse;
 import app.nzyme.plugin.distributed.tasksqueue.StoredTask;
@@ -10,6 +12,7 @@ import com.google.common.collect.Lists;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -28,14 +31,24 @@ public class TasksQueueResource {
 
     @GET
     @Path("/tasks")
-    public Response findTasks(@QueryParam("limit") int limit, @QueryParam("offset") int offset) {
+    public Response findTasks(@QueryParam("limit") int limit,
+                              @QueryParam("offset") int offset,
+                              @QueryParam("cursor") @Nullable String cursor) {
         if (limit > 250) {
             LOG.warn("Requested limit larger than 250. Not allowed.");
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
 
+        // Continuation tokens are much faster than an offset when paging deep into the tasks.
+        List<StoredTask> storedTasks;
+        if (cursor == null) {
+            storedTasks = nzyme.getTasksQueue().getAllTasks(limit, offset);
+        } else {
+            storedTasks = ((PostgresTasksQueueImpl) nzyme.getTasksQueue()).getAllTasks(limit, PageCursor.decode(cursor));
+        }
+
         List<TasksQueueTaskResponse> tasks = Lists.newArrayList();
-        for (StoredTask task : nzyme.getTasksQueue().getAllTasks(limit, offset)) {
+        for (StoredTask task : storedTasks) {
             tasks.add(TasksQueueTaskResponse.create(
                     task.id(),
                     task.sender(),
@@ -54,7 +67,10 @@ public class TasksQueueResource {
 
         long count = nzyme.getTasksQueue().getTotalTaskCount();
 
-        return Response.ok(TasksQueueTasksListResponse.create(count, tasks)).build();
+        String nextCursor = PageCursor.nextToken(nzyme.getDatabase(), "tasks_queue", "created_at",
+                storedTasks, limit, t -> PageCursor.create(t.createdAt(), t.id()));
+
+        return Response.ok(TasksQueueTasksListResponse.create(count, tasks, nextCursor)).build();
     }
 
     @PUT
@@ -29,6 +29,7 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
@@ -45,6 +46,11 @@ public class TablesResource {
 
     private static final Logger LOG = LogManager.getLogger(StatusResource.class);
 
+    /*
+     * Seconds a tap should wait before retrying a report that was rejected because the ingest queue is full.
+     */
+    private static final int RETRY_AFTER_SECONDS = 5;
+
     @Inject
     private NzymeNode nzyme;
 
@@ -54,9 +60,11 @@ public class TablesResource {
         UUID tapId = ((AuthenticatedTap) sc.getUserPrincipal()).getUuid();
 
         LOG.debug("Received 802.11 summary report from [{}]: {}", tapId, report);
-        nzyme.getTablesService().dot11().handleReport(tapId, DateTime.now(), report);
+        if (!nzyme.getTablesService().dot11Ingest().submit(tapId, DateTime.now(), report)) {
+            return tooManyRequests();
+        }
 
-        return Response.status(Response.Status.CREATED).build();
+        return Response.status(Response.Status.ACCEPTED).build();
     }
 
     @POST
@@ -75,9 +83,17 @@ public class TablesResource {
         UUID tapId = ((AuthenticatedTap) sc.getUserPrincipal()).getUuid();
 
         LOG.debug("Received DNS summary report from [{}]: {}", tapId, report);
-        nzyme.getTablesService().dns().handleReport(tapId, DateTime.now(), report);
+        if (!nzyme.getTablesService().dnsIngest().submit(tapId, DateTime.now(), report)) {
+            return tooManyRequests();
+        }
 
-        return Response.status(Response.Status.CREATED).build();
+        return Response.status(Response.Status.ACCEPTED).build();
+    }
+
+    private Response tooManyRequests() {
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
     }
 
 }
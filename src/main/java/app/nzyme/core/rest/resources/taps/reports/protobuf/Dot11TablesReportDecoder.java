@@ -0,0 +1,521 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.rest.resources.taps.reports.protobuf;
+
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a protobuf 802.11 table report straight into the report objects. Parsing into the generated message classes
+ * first and then converting them allocated every map entry and value twice, which made large protobuf reports more
+ * expensive to decode than JSON. Field numbers are the ones in tap_reports.proto.
+ *
+ * Fields are matched on their full tag, number and wire type, like the generated parser does. A field with the
+ * right number but an unexpected wire type is skipped as unknown instead of being read as something it is not.
+ */
+public class Dot11TablesReportDecoder {
+
+    // A zero length prefix or zero value. Reads as the default value of any message, string or varint.
+    private static final byte[] DEFAULT_VALUE = new byte[]{0};
+
+    private static final int VARINT = WireFormat.WIRETYPE_VARINT;
+    private static final int FIXED32 = WireFormat.WIRETYPE_FIXED32;
+    private static final int LEN = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(CodedInputStream in) throws IOException;
+    }
+
+    public static Dot11TablesReport decode(InputStream in) throws IOException {
+        return readTablesReport(CodedInputStream.newInstance(in));
+    }
+
+    public static Dot11TablesReport decode(byte[] data) throws IOException {
+        return readTablesReport(CodedInputStream.newInstance(data));
+    }
+
+    private static Dot11TablesReport readTablesReport(CodedInputStream in) throws IOException {
+        Map<String, Dot11BSSIDReport> bssids = Maps.newHashMap();
+        Map<String, Dot11ClientReport> clients = Maps.newHashMap();
+        Dot11DiscoReport disco = null;
+        List<Dot11AlertReport> alerts = Lists.newArrayList();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    readMapEntry(in, bssids, LEN, CodedInputStream::readStringRequireUtf8,
+                            LEN, i -> readMessage(i, Dot11TablesReportDecoder::readBSSID));
+                    break;
+                case 2 << 3 | LEN:
+                    readMapEntry(in, clients, LEN, CodedInputStream::readStringRequireUtf8,
+                            LEN, i -> readMessage(i, Dot11TablesReportDecoder::readClient));
+                    break;
+                case 3 << 3 | LEN:
+                    disco = readMessage(in, Dot11TablesReportDecoder::readDisco);
+                    break;
+                case 4 << 3 | LEN:
+                    // Rare and small. Not worth reading by hand.
+                    alerts.add(ProtobufTapReports.toAlertReport(
+                            in.readMessage(TapReports.Dot11AlertReport.parser(), ExtensionRegistryLite.getEmptyRegistry())
+                    ));
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        if (disco == null) {
+            disco = readDefault(i -> readMessage(i, Dot11TablesReportDecoder::readDisco));
+        }
+
+        return Dot11TablesReport.create(bssids, clients, disco, alerts);
+    }
+
+    private static Dot11BSSIDReport readBSSID(CodedInputStream in) throws IOException {
+        Map<String, Dot11AdvertisedNetworkReport> advertisedNetworks = Maps.newHashMap();
+        Map<String, Dot11ClientStatisticsReport> clients = Maps.newHashMap();
+        long hiddenSSIDFrames = 0;
+        Dot11SignalStrengthReport signalStrength = null;
+        List<String> fingerprints = Lists.newArrayList();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    readMapEntry(in, advertisedNetworks, LEN, CodedInputStream::readStringRequireUtf8,
+                            LEN, i -> readMessage(i, Dot11TablesReportDecoder::readAdvertisedNetwork));
+                    break;
+                case 2 << 3 | LEN:
+                    readMapEntry(in, clients, LEN, CodedInputStream::readStringRequireUtf8,
+                            LEN, i -> readMessage(i, Dot11TablesReportDecoder::readClientStatistics));
+                    break;
+                case 3 << 3 | VARINT:
+                    hiddenSSIDFrames = in.readInt64();
+                    break;
+                case 4 << 3 | LEN:
+                    signalStrength = readMessage(in, Dot11TablesReportDecoder::readSignalStrength);
+                    break;
+                case 5 << 3 | LEN:
+                    fingerprints.add(in.readStringRequireUtf8());
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11BSSIDReport.create(
+                advertisedNetworks,
+                clients,
+                hiddenSSIDFrames,
+                signalStrengthOrDefault(signalStrength),
+                fingerprints
+        );
+    }
+
+    private static Dot11ClientStatisticsReport readClientStatistics(CodedInputStream in) throws IOException {
+        long txFrames = 0;
+        long txBytes = 0;
+        long rxFrames = 0;
+        long rxBytes = 0;
+        Dot11SignalStrengthReport signalStrength = null;
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | VARINT:
+                    txFrames = in.readInt64();
+                    break;
+                case 2 << 3 | VARINT:
+                    txBytes = in.readInt64();
+                    break;
+                case 3 << 3 | VARINT:
+                    rxFrames = in.readInt64();
+                    break;
+                case 4 << 3 | VARINT:
+                    rxBytes = in.readInt64();
+                    break;
+                case 5 << 3 | LEN:
+                    signalStrength = readMessage(in, Dot11TablesReportDecoder::readSignalStrength);
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11ClientStatisticsReport.create(
+                txFrames, txBytes, rxFrames, rxBytes, signalStrengthOrDefault(signalStrength)
+        );
+    }
+
+    private static Dot11AdvertisedNetworkReport readAdvertisedNetwork(CodedInputStream in) throws IOException {
+        List<Dot11SecurityInformationReport> security = Lists.newArrayList();
+        List<String> fingerprints = Lists.newArrayList();
+        List<Float> rates = Lists.newArrayList();
+        List<Boolean> wps = Lists.newArrayList();
+        Dot11SignalStrengthReport signalStrength = null;
+        Map<Long, Map<Long, Long>> signalHistogram = Maps.newHashMap();
+        List<String> infrastructureTypes = Lists.newArrayList();
+        Map<Long, Map<String, Dot11ChannelStatisticsReport>> channelStatistics = Maps.newHashMap();
+        long beaconAdvertisements = 0;
+        long probeResponseAdvertisements = 0;
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    security.add(readMessage(in, Dot11TablesReportDecoder::readSecurityInformation));
+                    break;
+                case 2 << 3 | LEN:
+                    fingerprints.add(in.readStringRequireUtf8());
+                    break;
+                case 3 << 3 | LEN:
+                case 3 << 3 | FIXED32:
+                    readRepeated(in, tag, rates, CodedInputStream::readFloat);
+                    break;
+                case 4 << 3 | LEN:
+                case 4 << 3 | VARINT:
+                    readRepeated(in, tag, wps, CodedInputStream::readBool);
+                    break;
+                case 5 << 3 | LEN:
+                    signalStrength = readMessage(in, Dot11TablesReportDecoder::readSignalStrength);
+                    break;
+                case 6 << 3 | LEN:
+                    // Dot11SignalHistogramReport only wraps its map of counts.
+                    readMapEntry(in, signalHistogram, VARINT, CodedInputStream::readInt64,
+                            LEN, i -> readMessage(i, h -> {
+                        Map<Long, Long> counts = Maps.newHashMap();
+                        readWrappedMap(h, counts, VARINT, CodedInputStream::readInt64,
+                                VARINT, CodedInputStream::readInt64);
+                        return counts;
+                    }));
+                    break;
+                case 7 << 3 | LEN:
+                    infrastructureTypes.add(in.readStringRequireUtf8());
+                    break;
+                case 8 << 3 | LEN:
+                    // Dot11FrameTypeStatisticsReport only wraps its map of frame types.
+                    readMapEntry(in, channelStatistics, VARINT, CodedInputStream::readInt64,
+                            LEN, i -> readMessage(i, f -> {
+                        Map<String, Dot11ChannelStatisticsReport> frameTypes = Maps.newHashMap();
+                        readWrappedMap(f, frameTypes, LEN, CodedInputStream::readStringRequireUtf8,
+                                LEN, s -> readMessage(s, Dot11TablesReportDecoder::readChannelStatistics));
+                        return frameTypes;
+                    }));
+                    break;
+                case 9 << 3 | VARINT:
+                    beaconAdvertisements = in.readInt64();
+                    break;
+                case 10 << 3 | VARINT:
+                    probeResponseAdvertisements = in.readInt64();
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11AdvertisedNetworkReport.create(
+                security,
+                fingerprints,
+                rates,
+                wps,
+                signalStrengthOrDefault(signalStrength),
+                signalHistogram,
+                infrastructureTypes,
+                channelStatistics,
+                beaconAdvertisements,
+                probeResponseAdvertisements
+        );
+    }
+
+    private static Dot11SecurityInformationReport readSecurityInformation(CodedInputStream in) throws IOException {
+        List<String> protocols = Lists.newArrayList();
+        Dot11CipherSuitesReport suites = null;
+        String pmf = "";
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    protocols.add(in.readStringRequireUtf8());
+                    break;
+                case 2 << 3 | LEN:
+                    suites = readMessage(in, Dot11TablesReportDecoder::readCipherSuites);
+                    break;
+                case 3 << 3 | LEN:
+                    pmf = in.readStringRequireUtf8();
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        if (suites == null) {
+            suites = readDefault(i -> readMessage(i, Dot11TablesReportDecoder::readCipherSuites));
+        }
+
+        return Dot11SecurityInformationReport.create(protocols, suites, pmf);
+    }
+
+    private static Dot11CipherSuitesReport readCipherSuites(CodedInputStream in) throws IOException {
+        String groupCipher = "";
+        List<String> pairwiseCiphers = Lists.newArrayList();
+        List<String> keyManagementModes = Lists.newArrayList();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    groupCipher = in.readStringRequireUtf8();
+                    break;
+                case 2 << 3 | LEN:
+                    pairwiseCiphers.add(in.readStringRequireUtf8());
+                    break;
+                case 3 << 3 | LEN:
+                    keyManagementModes.add(in.readStringRequireUtf8());
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11CipherSuitesReport.create(groupCipher, pairwiseCiphers, keyManagementModes);
+    }
+
+    private static Dot11ChannelStatisticsReport readChannelStatistics(CodedInputStream in) throws IOException {
+        long bytes = 0;
+        long frames = 0;
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | VARINT:
+                    bytes = in.readInt64();
+                    break;
+                case 2 << 3 | VARINT:
+                    frames = in.readInt64();
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11ChannelStatisticsReport.create(bytes, frames);
+    }
+
+    private static Dot11ClientReport readClient(CodedInputStream in) throws IOException {
+        Map<String, Long> probeRequestSSIDs = Maps.newHashMap();
+        long wildcardProbeRequests = 0;
+        Dot11SignalStrengthReport signalStrength = null;
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    readMapEntry(in, probeRequestSSIDs, LEN, CodedInputStream::readStringRequireUtf8,
+                            VARINT, CodedInputStream::readInt64);
+                    break;
+                case 2 << 3 | VARINT:
+                    wildcardProbeRequests = in.readInt64();
+                    break;
+                case 3 << 3 | LEN:
+                    signalStrength = readMessage(in, Dot11TablesReportDecoder::readSignalStrength);
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11ClientReport.create(
+                probeRequestSSIDs, wildcardProbeRequests, signalStrengthOrDefault(signalStrength)
+        );
+    }
+
+    private static Dot11DiscoReport readDisco(CodedInputStream in) throws IOException {
+        Map<String, Dot11DiscoTransmitterReport> deauthentication = Maps.newHashMap();
+        Map<String, Dot11DiscoTransmitterReport> disassociation = Maps.newHashMap();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    readMapEntry(in, deauthentication, LEN, CodedInputStream::readStringRequireUtf8,
+                            LEN, i -> readMessage(i, Dot11TablesReportDecoder::readDiscoTransmitter));
+                    break;
+                case 2 << 3 | LEN:
+                    readMapEntry(in, disassociation, LEN, CodedInputStream::readStringRequireUtf8,
+                            LEN, i -> readMessage(i, Dot11TablesReportDecoder::readDiscoTransmitter));
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11DiscoReport.create(deauthentication, disassociation);
+    }
+
+    private static Dot11DiscoTransmitterReport readDiscoTransmitter(CodedInputStream in) throws IOException {
+        String bssid = "";
+        long sentFrames = 0;
+        Map<String, Long> receivers = Maps.newHashMap();
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | LEN:
+                    bssid = in.readStringRequireUtf8();
+                    break;
+                case 2 << 3 | VARINT:
+                    sentFrames = in.readInt64();
+                    break;
+                case 3 << 3 | LEN:
+                    readMapEntry(in, receivers, LEN, CodedInputStream::readStringRequireUtf8,
+                            VARINT, CodedInputStream::readInt64);
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11DiscoTransmitterReport.create(bssid, sentFrames, receivers);
+    }
+
+    private static Dot11SignalStrengthReport readSignalStrength(CodedInputStream in) throws IOException {
+        long min = 0;
+        long max = 0;
+        float average = 0;
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 | VARINT:
+                    min = in.readInt64();
+                    break;
+                case 2 << 3 | VARINT:
+                    max = in.readInt64();
+                    break;
+                case 3 << 3 | FIXED32:
+                    average = in.readFloat();
+                    break;
+                default:
+                    in.skipField(tag);
+            }
+        }
+
+        return Dot11SignalStrengthReport.create(min, max, average);
+    }
+
+    private static Dot11SignalStrengthReport signalStrengthOrDefault(Dot11SignalStrengthReport signalStrength) {
+        return signalStrength == null ? Dot11SignalStrengthReport.create(0, 0, 0) : signalStrength;
+    }
+
+    /**
+     * Reads a length-delimited message with the passed reader for its fields.
+     */
+    private static <T> T readMessage(CodedInputStream in, Reader<T> fields) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        T result = fields.read(in);
+        in.checkLastTagWas(0);
+        in.popLimit(limit);
+
+        return result;
+    }
+
+    /**
+     * Reads one entry of a map field. On the wire, this is a message with the key as field 1 and the value as field 2,
+     * written with the passed wire types.
+     */
+    private static <K, V> void readMapEntry(CodedInputStream in,
+                                            Map<K, V> map,
+                                            int keyWireType,
+                                            Reader<K> keyReader,
+                                            int valueWireType,
+                                            Reader<V> valueReader) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+
+        K key = null;
+        V value = null;
+
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (tag == (1 << 3 | keyWireType)) {
+                key = keyReader.read(in);
+            } else if (tag == (2 << 3 | valueWireType)) {
+                value = valueReader.read(in);
+            } else {
+                in.skipField(tag);
+            }
+        }
+
+        in.popLimit(limit);
+
+        map.put(
+                key == null ? readDefault(keyReader) : key,
+                value == null ? readDefault(valueReader) : value
+        );
+    }
+
+    /**
+     * Reads the fields of a message that only consists of a single map as field 1.
+     */
+    private static <K, V> void readWrappedMap(CodedInputStream in,
+                                              Map<K, V> map,
+                                              int keyWireType,
+                                              Reader<K> keyReader,
+                                              int valueWireType,
+                                              Reader<V> valueReader) throws IOException {
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (tag == (1 << 3 | LEN)) {
+                readMapEntry(in, map, keyWireType, keyReader, valueWireType, valueReader);
+            } else {
+                in.skipField(tag);
+            }
+        }
+    }
+
+    /**
+     * Reads a repeated scalar field, which proto3 writes packed by default but parsers must accept unpacked as well.
+     */
+    private static <T> void readRepeated(CodedInputStream in, int tag, List<T> list, Reader<T> reader) throws IOException {
+        if (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+            int limit = in.pushLimit(in.readRawVarint32());
+            while (in.getBytesUntilLimit() > 0) {
+                list.add(reader.read(in));
+            }
+            in.popLimit(limit);
+        } else {
+            list.add(reader.read(in));
+        }
+    }
+
+    private static <T> T readDefault(Reader<T> reader) throws IOException {
+        return reader.read(CodedInputStream.newInstance(DEFAULT_VALUE));
+    }
+
+}
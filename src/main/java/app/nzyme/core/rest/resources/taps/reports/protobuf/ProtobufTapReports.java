@@ -0,0 +1,167 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.rest.resources.taps.reports.protobuf;
+
+import app.nzyme.core.rest.resources.taps.reports.*;
+import app.nzyme.core.rest.resources.taps.reports.tables.*;
+import app.nzyme.core.rest.resources.taps.reports.tables.dns.DNSQueryLogReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dns.DNSResponseLogReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.Dot11AlertReport;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Converts protobuf tap reports into the same report objects that are deserialized from JSON, so the rest of the
+ * node does not care about the transport a tap used. 802.11 table reports are read by Dot11TablesReportDecoder.
+ */
+public class ProtobufTapReports {
+
+    public static StatusReport toStatusReport(TapReports.StatusReport r) {
+        return StatusReport.create(
+                r.getVersion(),
+                new DateTime(r.getTimestamp()),
+                toTotalWithAverage(r.getProcessedBytes()),
+                mapList(r.getBusesList(), ProtobufTapReports::toBusReport),
+                SystemMetrics.create(
+                        r.getSystemMetrics().getCpuLoad(),
+                        r.getSystemMetrics().getMemoryTotal(),
+                        r.getSystemMetrics().getMemoryFree()
+                ),
+                mapList(r.getCapturesList(), c -> CapturesReport.create(
+                        c.getCaptureType(),
+                        c.getInterfaceName(),
+                        c.getIsRunning(),
+                        c.getReceived(),
+                        c.getDroppedBuffer(),
+                        c.getDroppedInterface()
+                )),
+                Maps.newHashMap(r.getGaugesLongMap()),
+                mapValues(r.getTimersMap(), t -> TimersReport.create(t.getMean(), t.getP99()))
+        );
+    }
+
+    public static DNSTablesReport toDNSTablesReport(TapReports.DNSTablesReport r) {
+        return DNSTablesReport.create(
+                mapValues(r.getIpsMap(), ip -> DNSIPStatisticsReport.create(
+                        ip.getRequestCount(),
+                        ip.getRequestBytes(),
+                        ip.getResponseCount(),
+                        ip.getResponseBytes(),
+                        ip.getNxdomainCount()
+                )),
+                mapList(r.getNxdomainsList(), nx -> DNSNxDomainLogReport.create(
+                        nx.getIp(),
+                        nx.getServer(),
+                        nx.getQueryValue(),
+                        nx.getDataType(),
+                        new DateTime(nx.getTimestamp())
+                )),
+                mapList(r.getEntropyLogList(), e -> DNSEntropyLogReport.create(
+                        e.getLogType(),
+                        e.getEntropy(),
+                        e.getZscore(),
+                        e.getValue(),
+                        new DateTime(e.getTimestamp())
+                )),
+                mapValues(r.getPairsMap(), p -> Maps.newHashMap(p.getServersMap())),
+                mapList(r.getRetroQueriesList(), q -> DNSQueryLogReport.create(
+                        q.getIp(),
+                        q.getServer(),
+                        q.getSourceMac(),
+                        q.getDestinationMac(),
+                        q.getPort(),
+                        q.getQueryValue(),
+                        q.getDataType(),
+                        new DateTime(q.getTimestamp())
+                )),
+                mapList(r.getRetroResponsesList(), q -> DNSResponseLogReport.create(
+                        q.getIp(),
+                        q.getServer(),
+                        q.getSourceMac(),
+                        q.getDestinationMac(),
+                        q.getResponseValue(),
+                        q.getDataType(),
+                        new DateTime(q.getTimestamp())
+                ))
+        );
+    }
+
+    private static TotalWithAverage toTotalWithAverage(TapReports.TotalWithAverage t) {
+        return TotalWithAverage.create(t.getTotal(), t.getAverage());
+    }
+
+    private static BusReport toBusReport(TapReports.BusReport b) {
+        return BusReport.create(b.getName(), mapList(b.getChannelsList(), c -> ChannelReport.create(
+                c.getName(),
+                c.getCapacity(),
+                c.getWatermark(),
+                toTotalWithAverage(c.getErrors()),
+                toTotalWithAverage(c.getThroughputBytes()),
+                toTotalWithAverage(c.getThroughputMessages())
+        )));
+    }
+
+    static Dot11AlertReport toAlertReport(TapReports.Dot11AlertReport a) {
+        Map<String, Map<Dot11AlertReport.AlertAttributeType, Object>> attributes = Maps.newHashMap();
+        for (Map.Entry<String, TapReports.Dot11AlertAttributeReport> attr : a.getAttributesMap().entrySet()) {
+            Map<Dot11AlertReport.AlertAttributeType, Object> value = Maps.newHashMap();
+            switch (attr.getValue().getValueCase()) {
+                case NUMBER:
+                    value.put(Dot11AlertReport.AlertAttributeType.Number, attr.getValue().getNumber());
+                    break;
+                case STRING:
+                    value.put(Dot11AlertReport.AlertAttributeType.String, attr.getValue().getString());
+                    break;
+                case VALUE_NOT_SET:
+                    break;
+            }
+
+            attributes.put(attr.getKey(), value);
+        }
+
+        return Dot11AlertReport.create(
+                Dot11AlertReport.AlertType.valueOf(a.getAlertType()),
+                attributes,
+                a.getSignalStrength()
+        );
+    }
+
+    static <I, O> List<O> mapList(List<I> input, Function<I, O> f) {
+        List<O> result = Lists.newArrayListWithCapacity(input.size());
+        for (I i : input) {
+            result.add(f.apply(i));
+        }
+
+        return result;
+    }
+
+    static <K, I, O> Map<K, O> mapValues(Map<K, I> input, Function<I, O> f) {
+        Map<K, O> result = Maps.newHashMapWithExpectedSize(input.size());
+        for (Map.Entry<K, I> entry : input.entrySet()) {
+            result.put(entry.getKey(), f.apply(entry.getValue()));
+        }
+
+        return result;
+    }
+
+}
@@ -3,6 +3,7 @@ package app.nzyme.core.rest.responses.alerts;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 @AutoValue
@@ -14,10 +15,15 @@ public abstract class DetectionAlertListResponse {
     @JsonProperty("alerts")
     public abstract List<DetectionAlertDetailsResponse> alerts();
 
-    public static DetectionAlertListResponse create(long total, List<DetectionAlertDetailsResponse> alerts) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static DetectionAlertListResponse create(long total, List<DetectionAlertDetailsResponse> alerts, String nextCursor) {
         return builder()
                 .total(total)
                 .alerts(alerts)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -31,6 +37,8 @@ public abstract class DetectionAlertListResponse {
 
         public abstract Builder alerts(List<DetectionAlertDetailsResponse> alerts);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract DetectionAlertListResponse build();
     }
 }
@@ -3,6 +3,7 @@ package app.nzyme.core.rest.responses.distributed;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 @AutoValue
@@ -14,10 +15,15 @@ public abstract class MessageBusMessageListResponse {
     @JsonProperty("messages")
     public abstract List<MessageBusMessageResponse> messages();
 
-    public static MessageBusMessageListResponse create(long count, List<MessageBusMessageResponse> messages) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static MessageBusMessageListResponse create(long count, List<MessageBusMessageResponse> messages, String nextCursor) {
         return builder()
                 .count(count)
                 .messages(messages)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -31,6 +37,8 @@ public abstract class MessageBusMessageListResponse {
 
         public abstract Builder messages(List<MessageBusMessageResponse> messages);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract MessageBusMessageListResponse build();
     }
 
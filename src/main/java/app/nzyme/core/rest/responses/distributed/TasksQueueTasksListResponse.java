@@ -3,6 +3,7 @@ package app.nzyme.core.rest.responses.distributed;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 @AutoValue
@@ -14,10 +15,15 @@ public abstract class TasksQueueTasksListResponse {
     @JsonProperty("tasks")
     public abstract List<TasksQueueTaskResponse> tasks();
 
-    public static TasksQueueTasksListResponse create(long count, List<TasksQueueTaskResponse> tasks) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static TasksQueueTasksListResponse create(long count, List<TasksQueueTaskResponse> tasks, String nextCursor) {
         return builder()
                 .count(count)
                 .tasks(tasks)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -31,6 +37,8 @@ public abstract class TasksQueueTasksListResponse {
 
         public abstract Builder tasks(List<TasksQueueTaskResponse> tasks);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract TasksQueueTasksListResponse build();
     }
 
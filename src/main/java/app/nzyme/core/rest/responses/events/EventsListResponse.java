@@ -3,6 +3,7 @@ package app.nzyme.core.rest.responses.events;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 @AutoValue
@@ -14,10 +15,15 @@ public abstract class EventsListResponse {
     @JsonProperty("events")
     public abstract List<EventDetailsResponse> events();
 
-    public static EventsListResponse create(long count, List<EventDetailsResponse> events) {
+    @JsonProperty("next_cursor")
+    @Nullable
+    public abstract String nextCursor();
+
+    public static EventsListResponse create(long count, List<EventDetailsResponse> events, String nextCursor) {
         return builder()
                 .count(count)
                 .events(events)
+                .nextCursor(nextCursor)
                 .build();
     }
 
@@ -31,6 +37,8 @@ public abstract class EventsListResponse {
 
         public abstract Builder events(List<EventDetailsResponse> events);
 
+        public abstract Builder nextCursor(String nextCursor);
+
         public abstract EventsListResponse build();
     }
 }
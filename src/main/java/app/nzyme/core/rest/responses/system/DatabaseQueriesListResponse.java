@@ -0,0 +1,31 @@
+package app.nzyme.core.rest.responses.system;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+import java.util.List;
+
+@AutoValue
+public abstract class DatabaseQueriesListResponse {
+
+    @JsonProperty("queries")
+    public abstract List<DatabaseQueryResponse> queries();
+
+    public static DatabaseQueriesListResponse create(List<DatabaseQueryResponse> queries) {
+        return builder()
+                .queries(queries)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_DatabaseQueriesListResponse.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder queries(List<DatabaseQueryResponse> queries);
+
+        public abstract DatabaseQueriesListResponse build();
+    }
+
+}
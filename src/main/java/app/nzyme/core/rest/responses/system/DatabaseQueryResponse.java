@@ -0,0 +1,65 @@
+package app.nzyme.core.rest.responses.system;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+@AutoValue
+public abstract class DatabaseQueryResponse {
+
+    @JsonProperty("key")
+    public abstract String key();
+
+    @JsonProperty("statement")
+    public abstract String statement();
+
+    @JsonProperty("count")
+    public abstract long count();
+
+    @JsonProperty("total_time_ms")
+    public abstract double totalTimeMs();
+
+    @JsonProperty("mean_time_ms")
+    public abstract double meanTimeMs();
+
+    @JsonProperty("p99_time_ms")
+    public abstract double p99TimeMs();
+
+    @JsonProperty("max_time_ms")
+    public abstract double maxTimeMs();
+
+    public static DatabaseQueryResponse create(String key, String statement, long count, double totalTimeMs, double meanTimeMs, double p99TimeMs, double maxTimeMs) {
+        return builder()
+                .key(key)
+                .statement(statement)
+                .count(count)
+                .totalTimeMs(totalTimeMs)
+                .meanTimeMs(meanTimeMs)
+                .p99TimeMs(p99TimeMs)
+                .maxTimeMs(maxTimeMs)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_DatabaseQueryResponse.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder key(String key);
+
+        public abstract Builder statement(String statement);
+
+        public abstract Builder count(long count);
+
+        public abstract Builder totalTimeMs(double totalTimeMs);
+
+        public abstract Builder meanTimeMs(double meanTimeMs);
+
+        public abstract Builder p99TimeMs(double p99TimeMs);
+
+        public abstract Builder maxTimeMs(double maxTimeMs);
+
+        public abstract DatabaseQueryResponse build();
+    }
+
+}
@@ -19,12 +19,16 @@ public abstract class DatabaseSummaryResponse {
     @JsonProperty("dot11_retention_time_days")
     public abstract ConfigurationEntryResponse dot11RetentionTimeDays();
 
-    public static DatabaseSummaryResponse create(long totalSize, long ethernetSize, long dot11Size, ConfigurationEntryResponse dot11RetentionTimeDays) {
+    @JsonProperty("dns_retention_time_days")
+    public abstract ConfigurationEntryResponse dnsRetentionTimeDays();
+
+    public static DatabaseSummaryResponse create(long totalSize, long ethernetSize, long dot11Size, ConfigurationEntryResponse dot11RetentionTimeDays, ConfigurationEntryResponse dnsRetentionTimeDays) {
         return builder()
                 .totalSize(totalSize)
                 .ethernetSize(ethernetSize)
                 .dot11Size(dot11Size)
                 .dot11RetentionTimeDays(dot11RetentionTimeDays)
+                .dnsRetentionTimeDays(dnsRetentionTimeDays)
                 .build();
     }
 
@@ -42,6 +46,8 @@ public abstract class DatabaseSummaryResponse {
 
         public abstract Builder dot11RetentionTimeDays(ConfigurationEntryResponse dot11RetentionTimeDays);
 
+        public abstract Builder dnsRetentionTimeDays(ConfigurationEntryResponse dnsRetentionTimeDays);
+
         public abstract DatabaseSummaryResponse build();
     }
 }
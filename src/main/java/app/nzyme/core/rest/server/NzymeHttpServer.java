@@ -7,6 +7,8 @@ import app.nzyme.core.rest.CORSFilter;
 import app.nzyme.core.rest.NzymeExceptionMapper;
 import app.nzyme.core.rest.NzymeLeaderInjectionBinder;
 import app.nzyme.core.rest.ObjectMapperProvider;
+import app.nzyme.core.rest.ProtobufTapReportReader;
+import app.nzyme.core.rest.StatementTimeoutFilter;
 import app.nzyme.core.rest.authentication.PreMFAAuthenticationFilter;
 import app.nzyme.core.rest.authentication.PrometheusBasicAuthFilter;
 import app.nzyme.core.rest.authentication.RESTAuthenticationFilter;
@@ -39,6 +41,7 @@ import app.nzyme.core.rest.resources.taps.TapsResource;
 import app.nzyme.core.rest.resources.user.UserProfileResource;
 import app.nzyme.plugin.distributed.messaging.*;
 import com.fasterxml.jackson.jakarta.rs.json.JacksonJsonProvider;
+import jakarta.ws.rs.Priorities;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.glassfish.grizzly.http.CompressionConfig;
@@ -114,11 +117,14 @@ public class NzymeHttpServer {
         resourceConfig.register(new TapAuthenticationFilter(nzyme));
         resourceConfig.register(new PrometheusBasicAuthFilter(nzyme));
         resourceConfig.register(new CORSFilter());
+        resourceConfig.register(new StatementTimeoutFilter(nzyme));
         resourceConfig.register(new NzymeLeaderInjectionBinder(nzyme));
         resourceConfig.register(new ObjectMapperProvider());
         resourceConfig.register(new JacksonJsonProvider());
+        resourceConfig.register(new ProtobufTapReportReader());
         resourceConfig.register(new NzymeExceptionMapper());
-        resourceConfig.register(new TapTableSizeInterceptor(nzyme));
+        // Must run before the GZIP/Deflate content encoders registered below.
+        resourceConfig.register(new TapTableSizeInterceptor(nzyme), Priorities.ENTITY_CODER - 100);
         resourceConfig.register(MultiPartFeature.class);
 
         // Register REST API resources.
@@ -9,17 +9,24 @@ import app.nzyme.core.security.authentication.db.OrganizationEntry;
 import app.nzyme.core.security.authentication.db.TapPermissionEntry;
 import app.nzyme.core.security.authentication.db.TenantEntry;
 import app.nzyme.core.security.authentication.db.UserEntry;
+import app.nzyme.core.security.sessions.AuthenticatedSession;
 import app.nzyme.core.security.sessions.db.SessionEntry;
 import app.nzyme.core.security.sessions.db.SessionEntryWithUserDetails;
+import app.nzyme.plugin.distributed.messaging.ClusterMessage;
+import app.nzyme.plugin.distributed.messaging.MessageType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.BaseEncoding;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 
 import javax.annotation.Nullable;
@@ -27,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
@@ -34,20 +42,52 @@ public class AuthenticationService {
 
     private static final Logger LOG = LogManager.getLogger(AuthenticationService.class);
 
+    private static final int SESSION_CACHE_TTL_SECONDS = 15;
+    private static final int USER_ACTIVITY_FLUSH_INTERVAL_SECONDS = 5;
+
     public final NzymeNode nzyme;
 
+    private final TapSecretHasher tapSecretHasher;
+
+    // Tap secret hash -> Tap. Taps authenticate every request, so a verified secret is remembered for a short while.
+    private final Cache<String, TapPermissionEntry> tapsBySecretHash;
+
+    // Session ID -> Session. The web interface fires many parallel requests that all authenticate the same session.
+    private final Cache<String, AuthenticatedSession> sessions;
+
+    // User ID -> Last activity. Written to the database in intervals instead of on every request.
+    private final Map<UUID, UserActivity> pendingUserActivity;
+
     public AuthenticationService(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.tapSecretHasher = new TapSecretHasher(nzyme);
+        this.tapsBySecretHash = CacheBuilder.newBuilder()
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .maximumSize(10000)
+                .build();
+        this.sessions = CacheBuilder.newBuilder()
+                .expireAfterWrite(SESSION_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+                .maximumSize(10000)
+                .build();
+        this.pendingUserActivity = new ConcurrentHashMap<>();
     }
 
     public void initialize() {
         seedDatabase();
+        hashLegacyTapSecrets();
 
         Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder()
                         .setNameFormat("session-cleaner-%d")
                         .build()
         ).scheduleAtFixedRate(this::runSessionCleaning, 0, 30, TimeUnit.SECONDS);
+
+        Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("user-activity-writer-%d")
+                        .build()
+        ).scheduleAtFixedRate(this::flushUserActivity, USER_ACTIVITY_FLUSH_INTERVAL_SECONDS,
+                USER_ACTIVITY_FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     private void seedDatabase() {
@@ -76,6 +116,44 @@ public class AuthenticationService {
         );
     }
 
+    /*
+     * Taps created before secrets were hashed only have the encrypted secret. Computing the hash requires the
+     * cluster PGP key, so it can't be done in a database migration.
+     */
+    private void hashLegacyTapSecrets() {
+        List<TapPermissionEntry> taps = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT * FROM taps WHERE secret_hash IS NULL")
+                        .mapTo(TapPermissionEntry.class)
+                        .list()
+        );
+
+        if (taps.isEmpty()) {
+            return;
+        }
+
+        LOG.info("Hashing secrets of [{}] taps.", taps.size());
+
+        for (TapPermissionEntry tap : taps) {
+            String secret;
+            try {
+                secret = new String(
+                        nzyme.getCrypto().decryptWithClusterKey(BaseEncoding.base64().decode(tap.secret()))
+                );
+            } catch (Crypto.CryptoOperationException e) {
+                LOG.error("Could not decrypt secret of tap [{}]. Tap will not be able to authenticate.",
+                        tap.uuid(), e);
+                continue;
+            }
+
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createUpdate("UPDATE taps SET secret_hash = :secret_hash WHERE id = :id")
+                            .bind("secret_hash", tapSecretHasher.hash(secret))
+                            .bind("id", tap.id())
+                            .execute()
+            );
+        }
+    }
+
     public long countSuperAdministrators() {
         return nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT COUNT(*) FROM auth_users WHERE is_superadmin = true")
@@ -128,6 +206,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateSessionCacheOfCluster();
     }
 
     public OrganizationEntry createOrganization(String name, String description) {
@@ -313,6 +393,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateSessionCacheOfCluster();
     }
 
     public TenantEntry createTenant(UUID organizationId,
@@ -488,6 +570,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateSessionCacheOfCluster();
     }
 
     public void setUserTapPermissions(UUID userId, List<UUID> newPermissions) {
@@ -506,6 +590,8 @@ public class AuthenticationService {
                             .execute()
             );
         }
+
+        invalidateSessionCacheOfCluster();
     }
 
     public void setUserPermissions(UUID userId, List<String> permissions) {
@@ -524,6 +610,8 @@ public class AuthenticationService {
                             .execute()
             );
         }
+
+        invalidateSessionCacheOfCluster();
     }
 
     public UserEntry createUserOfTenant(UUID organizationId,
@@ -559,6 +647,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateSessionCacheOfCluster();
     }
 
     public void editUserPassword(UUID userId, PasswordHasher.GeneratedHashAndSalt password) {
@@ -581,6 +671,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateSessionCacheOfCluster();
     }
 
     public void resetMFAOfUser(UUID userId) {
@@ -801,6 +893,60 @@ public class AuthenticationService {
         );
     }
 
+    /**
+     * Returns a session with passed MFA, its user and the permissions of the user. Served from a short-lived cache
+     * that is invalidated on all nodes when sessions are deleted or users or their permissions change.
+     */
+    public Optional<AuthenticatedSession> findAuthenticatedSession(String sessionId) {
+        AuthenticatedSession cached = sessions.getIfPresent(sessionId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<SessionEntry> session = findSessionWithPassedMFABySessionId(sessionId);
+        if (session.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<UserEntry> user = findUserById(session.get().userId());
+        if (user.isEmpty()) {
+            LOG.error("Session referenced user that doesn't exist.");
+            return Optional.empty();
+        }
+
+        AuthenticatedSession authenticated = AuthenticatedSession.create(
+                session.get(),
+                user.get(),
+                findPermissionsOfUser(user.get().uuid()),
+                findTapPermissionsOfUser(user.get().uuid())
+        );
+
+        sessions.put(sessionId, authenticated);
+
+        return Optional.of(authenticated);
+    }
+
+    /**
+     * Returns a session only if it is currently in the cache, without falling back to the database.
+     */
+    public Optional<AuthenticatedSession> findCachedAuthenticatedSession(String sessionId) {
+        return Optional.ofNullable(sessions.getIfPresent(sessionId));
+    }
+
+    public void invalidateSessionCache() {
+        sessions.invalidateAll();
+    }
+
+    private void invalidateSessionCacheOfCluster() {
+        // Invalidate right away on this node. The other nodes are notified through the message bus.
+        invalidateSessionCache();
+        nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                MessageType.INVALIDATE_CACHE,
+                Map.of("cache_type", "auth_sessions"),
+                false
+        ));
+    }
+
     public void markSessionAsMFAValid(String sessionId) {
         nzyme.getDatabase().useHandle(handle ->
                 handle.createUpdate("UPDATE auth_sessions SET mfa_valid = true, mfa_requested_at = NULL " +
@@ -816,6 +962,8 @@ public class AuthenticationService {
                         .bind("id", id)
                         .execute()
         );
+
+        invalidateSessionCacheOfCluster();
     }
 
     public long countAllSessions() {
@@ -849,22 +997,53 @@ public class AuthenticationService {
         );
     }
 
+    /**
+     * Records the last activity of a user. It is written to the database by a background thread every few seconds,
+     * together with all other activity recorded since the last write, and only the latest activity of each user is
+     * written.
+     */
     public void updateLastUserActivity(UUID userId, String remoteIp, @Nullable GeoIpLookupResult remoteIpGeo) {
         String countryCode = remoteIpGeo != null && remoteIpGeo.geo() != null ? remoteIpGeo.geo().countryCode() : null;
         String city = remoteIpGeo != null && remoteIpGeo.geo() != null ? remoteIpGeo.geo().city() : null;
-        String asnName = remoteIpGeo != null && remoteIpGeo.asn() != null ? remoteIpGeo.asn().name() : null;;
+        String asnName = remoteIpGeo != null && remoteIpGeo.asn() != null ? remoteIpGeo.asn().name() : null;
 
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("UPDATE auth_users SET last_activity = NOW(), last_remote_ip = :remote_ip, " +
-                                "last_geo_country = :country_code, last_geo_city = :city, last_geo_asn = :asn " +
-                                "WHERE uuid = :user_id")
-                        .bind("remote_ip", remoteIp)
-                        .bind("country_code", countryCode)
-                        .bind("city", city)
-                        .bind("asn", asnName)
-                        .bind("user_id", userId)
-                        .execute()
-        );
+        pendingUserActivity.put(userId, new UserActivity(DateTime.now(), remoteIp, countryCode, city, asnName));
+    }
+
+    public void flushUserActivity() {
+        try {
+            if (pendingUserActivity.isEmpty()) {
+                return;
+            }
+
+            Map<UUID, UserActivity> activity = Maps.newHashMap();
+            for (UUID userId : pendingUserActivity.keySet()) {
+                UserActivity a = pendingUserActivity.remove(userId);
+                if (a != null) {
+                    activity.put(userId, a);
+                }
+            }
+
+            nzyme.getDatabase().useHandle(handle -> {
+                PreparedBatch batch = handle.prepareBatch("UPDATE auth_users SET last_activity = :last_activity, " +
+                        "last_remote_ip = :remote_ip, last_geo_country = :country_code, last_geo_city = :city, " +
+                        "last_geo_asn = :asn WHERE uuid = :user_id");
+
+                for (Map.Entry<UUID, UserActivity> a : activity.entrySet()) {
+                    batch.bind("last_activity", a.getValue().timestamp)
+                            .bind("remote_ip", a.getValue().remoteIp)
+                            .bind("country_code", a.getValue().countryCode)
+                            .bind("city", a.getValue().city)
+                            .bind("asn", a.getValue().asn)
+                            .bind("user_id", a.getKey())
+                            .add();
+                }
+
+                batch.execute();
+            });
+        } catch (Exception e) {
+            LOG.error("Could not write user activity.", e);
+        }
     }
 
     public void deleteAllSessionsOfUser(UUID userId) {
@@ -873,6 +1052,8 @@ public class AuthenticationService {
                         .bind("user_id", userId)
                         .execute()
         );
+
+        invalidateSessionCacheOfCluster();
     }
 
     public TapPermissionEntry createTap(UUID organizationId, UUID tenantId, String secret, String name, String description) {
@@ -883,14 +1064,15 @@ public class AuthenticationService {
             throw new RuntimeException("Could not encrypt tap secret.", e);
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("INSERT INTO taps(uuid, organization_id, tenant_id, secret, name, " +
+        TapPermissionEntry tap = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("INSERT INTO taps(uuid, organization_id, tenant_id, secret, secret_hash, name, " +
                                 "description, deleted, created_at, updated_at) VALUES(:uuid, :organization_id, :tenant_id, " +
-                                ":secret, :name, :description, false, :created_at, :updated_at) RETURNING *")
+                                ":secret, :secret_hash, :name, :description, false, :created_at, :updated_at) RETURNING *")
                         .bind("uuid", UUID.randomUUID())
                         .bind("organization_id", organizationId)
                         .bind("tenant_id", tenantId)
                         .bind("secret", encryptedSecret)
+                        .bind("secret_hash", tapSecretHasher.hash(secret))
                         .bind("name", name)
                         .bind("description", description)
                         .bind("created_at", DateTime.now())
@@ -898,6 +1080,10 @@ public class AuthenticationService {
                         .mapTo(TapPermissionEntry.class)
                         .one()
         );
+
+        nzyme.getTapManager().invalidateTapsOfCluster();
+
+        return tap;
     }
 
     public List<TapPermissionEntry> findAllTapsOfTenant(UUID organizationId, UUID tenantId) {
@@ -933,33 +1119,41 @@ public class AuthenticationService {
 
     public Optional<TapPermissionEntry> findTapBySecret(String secret) {
         /*
-         * We have to pull all taps here and then loop over them because the secret is encrypted, and we can't use
-         * a SELECT WHERE with a non-deterministic encryption like PGP.
+         * The encrypted secret can't be searched for because PGP encryption is non-deterministic. We look the tap
+         * up by the keyed hash of the secret instead.
          */
+        String secretHash = tapSecretHasher.hash(secret);
 
-        List<TapPermissionEntry> taps = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM taps")
+        TapPermissionEntry cached = tapsBySecretHash.getIfPresent(secretHash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<TapPermissionEntry> tap = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT * FROM taps WHERE secret_hash = :secret_hash")
+                        .bind("secret_hash", secretHash)
                         .mapTo(TapPermissionEntry.class)
-                        .list()
+                        .findFirst()
         );
 
-        for (TapPermissionEntry tap : taps) {
-            try {
-                String decryptedSecret = new String(
-                        nzyme.getCrypto().decryptWithClusterKey(
-                                BaseEncoding.base64().decode(tap.secret())
-                        )
-                );
+        // Only verified secrets are cached. Invalid secrets can't fill up the cache.
+        tap.ifPresent(t -> tapsBySecretHash.put(secretHash, t));
 
-                if (secret.equals(decryptedSecret)) {
-                    return Optional.of(tap);
-                }
-            } catch (Crypto.CryptoOperationException e) {
-                throw new RuntimeException("Could not decrypt tap key.", e);
-            }
-        }
+        return tap;
+    }
 
-        return Optional.empty();
+    public void invalidateTapSecretCache() {
+        tapsBySecretHash.invalidateAll();
+    }
+
+    private void invalidateTapSecretCacheOfCluster() {
+        // Invalidate right away on this node. The other nodes are notified through the message bus.
+        invalidateTapSecretCache();
+        nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                MessageType.INVALIDATE_CACHE,
+                Map.of("cache_type", "tap_secrets"),
+                false
+        ));
     }
 
     public void deleteTap(UUID organizationId, UUID tenantId, UUID tapId) {
@@ -977,6 +1171,10 @@ public class AuthenticationService {
                         .bind("uuid", tapId)
                         .execute()
         );
+
+        invalidateTapSecretCacheOfCluster();
+        nzyme.getTapManager().invalidateTapsOfCluster();
+        nzyme.getTapManager().removeStatusTimer(tapId);
     }
 
     public void editTap(UUID organizationId, UUID tenantId, UUID tapId, String name, String description) {
@@ -990,6 +1188,10 @@ public class AuthenticationService {
                         .bind("uuid", tapId)
                         .execute()
         );
+
+        // Cached taps carry the name.
+        invalidateTapSecretCacheOfCluster();
+        nzyme.getTapManager().invalidateTapsOfCluster();
     }
 
     public void cycleTapSecret(UUID organizationId, UUID tenantId, UUID tapId, String newSecret) {
@@ -1001,14 +1203,17 @@ public class AuthenticationService {
         }
 
         nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("UPDATE taps SET secret = :secret, updated_at = NOW() " +
+                handle.createUpdate("UPDATE taps SET secret = :secret, secret_hash = :secret_hash, updated_at = NOW() " +
                                 "WHERE organization_id = :organization_id AND tenant_id = :tenant_id AND uuid = :uuid")
                         .bind("secret", encryptedSecret)
+                        .bind("secret_hash", tapSecretHasher.hash(newSecret))
                         .bind("organization_id", organizationId)
                         .bind("tenant_id", tenantId)
                         .bind("uuid", tapId)
                         .execute()
         );
+
+        invalidateTapSecretCacheOfCluster();
     }
 
     public List<TenantLocationEntry> findAllTenantLocations(UUID organizationId, UUID tenantId, int limit, int offset) {
@@ -1249,6 +1454,8 @@ public class AuthenticationService {
                         .bind("y", y)
                         .execute()
         );
+
+        nzyme.getTapManager().invalidateTapsOfCluster();
     }
 
     public void removeTapFromFloor(long tapId, UUID locationId, UUID floorId) {
@@ -1261,6 +1468,8 @@ public class AuthenticationService {
                         .bind("floor_id", floorId)
                         .execute()
         );
+
+        nzyme.getTapManager().invalidateTapsOfCluster();
     }
 
     public void updateUpdatedAtOfTFloor(long floorId) {
@@ -1349,6 +1558,8 @@ public class AuthenticationService {
                                 .bindList("user_ids", sessionsToClean)
                                 .execute()
                 );
+
+                invalidateSessionCacheOfCluster();
             } catch(Exception e) {
                 LOG.error("Could not delete sessions marked for deletion.", e);
             }
@@ -1359,4 +1570,20 @@ public class AuthenticationService {
         return countTapsOfTenant(t) == 0 && countUsersOfTenant(t) == 0;
     }
 
+    private static final class UserActivity {
+        private final DateTime timestamp;
+        private final String remoteIp;
+        private final String countryCode;
+        private final String city;
+        private final String asn;
+
+        private UserActivity(DateTime timestamp, String remoteIp, String countryCode, String city, String asn) {
+            this.timestamp = timestamp;
+            this.remoteIp = remoteIp;
+            this.countryCode = countryCode;
+            this.city = city;
+            this.asn = asn;
+        }
+    }
+
 }
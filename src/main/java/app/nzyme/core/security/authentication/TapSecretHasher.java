@@ -0,0 +1,85 @@
+package app.nzyme.core.security.authentication;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.plugin.Registry;
+import app.nzyme.plugin.RegistryCryptoException;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Optional;
+
+/**
+ * Builds a keyed hash (HMAC-SHA256) of tap secrets. The encrypted secret cannot be searched for because PGP
+ * encryption is not deterministic, so the hash is stored next to it and a tap can be found by its secret without
+ * decrypting the secrets of all taps. The HMAC key is shared by all nodes through the encrypted registry.
+ */
+public class TapSecretHasher {
+
+    private static final Logger LOG = LogManager.getLogger(TapSecretHasher.class);
+
+    private static final String REGISTRY_KEY = "tap_secret_hmac_key";
+
+    // Arbitrary ID of the PostgreSQL advisory lock that guards key generation.
+    private static final long KEY_GENERATION_LOCK_ID = 7365628104L;
+
+    private final NzymeNode nzyme;
+
+    private byte[] key = null;
+
+    public TapSecretHasher(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    public String hash(String secret) {
+        return Hashing.hmacSha256(getKey())
+                .hashString(secret, StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    private synchronized byte[] getKey() {
+        if (key == null) {
+            key = loadOrGenerateKey();
+        }
+
+        return key;
+    }
+
+    private byte[] loadOrGenerateKey() {
+        Registry registry = nzyme.getDatabaseCoreRegistry();
+
+        return nzyme.getDatabase().withHandle(handle -> {
+            // Nodes that start at the same time must not each generate and store a different key.
+            handle.createQuery("SELECT 1 FROM pg_advisory_lock(:lock_id)")
+                    .bind("lock_id", KEY_GENERATION_LOCK_ID)
+                    .mapTo(Integer.class)
+                    .one();
+
+            try {
+                Optional<String> existing = registry.getEncryptedValue(REGISTRY_KEY);
+                if (existing.isPresent()) {
+                    return BaseEncoding.base64().decode(existing.get());
+                }
+
+                LOG.info("Generating new tap secret HMAC key.");
+
+                byte[] generated = new byte[32];
+                new SecureRandom().nextBytes(generated);
+                registry.setEncryptedValue(REGISTRY_KEY, BaseEncoding.base64().encode(generated));
+
+                return generated;
+            } catch (RegistryCryptoException e) {
+                throw new RuntimeException("Could not load tap secret HMAC key.", e);
+            } finally {
+                handle.createQuery("SELECT pg_advisory_unlock(:lock_id)")
+                        .bind("lock_id", KEY_GENERATION_LOCK_ID)
+                        .mapTo(Boolean.class)
+                        .one();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,47 @@
+package app.nzyme.core.security.sessions;
+
+import app.nzyme.core.security.authentication.db.UserEntry;
+import app.nzyme.core.security.sessions.db.SessionEntry;
+import com.google.auto.value.AutoValue;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A session with passed MFA and everything the REST authentication needs to know about its user. Cached for a short
+ * while so that parallel requests of the same browser do not each load it from the database again.
+ */
+@AutoValue
+public abstract class AuthenticatedSession {
+
+    public abstract SessionEntry session();
+    public abstract UserEntry user();
+    public abstract List<String> permissions();
+    public abstract List<UUID> tapPermissions();
+
+    public static AuthenticatedSession create(SessionEntry session, UserEntry user, List<String> permissions, List<UUID> tapPermissions) {
+        return builder()
+                .session(session)
+                .user(user)
+                .permissions(permissions)
+                .tapPermissions(tapPermissions)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_AuthenticatedSession.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder session(SessionEntry session);
+
+        public abstract Builder user(UserEntry user);
+
+        public abstract Builder permissions(List<String> permissions);
+
+        public abstract Builder tapPermissions(List<UUID> tapPermissions);
+
+        public abstract AuthenticatedSession build();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.tables;
+
+import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.util.MetricNames;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+
+import java.util.Optional;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Deletes old rows of a table in small chunks of primary key ranges instead of one huge DELETE, pausing between the
+ * chunks. This keeps transactions, cascading deletes and lock times short, so tap reports can still be written while
+ * a large backlog of old data is removed.
+ *
+ * Walks the table in ID order and stops at the first chunk that contains rows not older than the cutoff. IDs are
+ * assigned in insert order, so a few old rows that were written late can survive until the next run.
+ *
+ * Hourly partitioned tables are cleaned by dropping whole partitions instead.
+ */
+public class RetentionCleaner {
+
+    private static final Logger LOG = LogManager.getLogger(RetentionCleaner.class);
+
+    private static final long CHUNK_SIZE = 5000;
+    private static final long PAUSE_MS = 250;
+
+    // Log progress every this many chunks.
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private final DatabaseImpl database;
+    private final MetricRegistry metrics;
+
+    private volatile boolean cancelled = false;
+
+    public RetentionCleaner(DatabaseImpl database, MetricRegistry metrics) {
+        this.database = database;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Deletes all rows of the table that were created before the cutoff. The table must have a bigint primary key
+     * called "id" and a "created_at" column. Returns the number of deleted rows, which can be less than all old rows
+     * if cleaning was cancelled.
+     *
+     * Hourly partitioned tables are passed on to {@link #dropPartitionsBefore(String, DateTime)}. Rows of dropped
+     * partitions are not counted.
+     */
+    public long deleteOlderThan(String table, DateTime cutoff) {
+        if (DatabaseImpl.HOURLY_PARTITIONED_TABLES.contains(table)) {
+            dropPartitionsBefore(table, cutoff);
+            return 0;
+        }
+
+        Timer.Context timer = metrics.timer(name(MetricNames.RETENTION_CLEANING, table, "duration")).time();
+
+        long deleted = 0;
+        int chunks = 0;
+        try {
+            Optional<Long> lowest = database.withHandle(handle ->
+                    handle.createQuery("SELECT MIN(id) FROM " + table)
+                            .mapTo(Long.class)
+                            .findOne()
+            );
+            Optional<Long> highest = database.withHandle(handle ->
+                    handle.createQuery("SELECT MAX(id) FROM " + table)
+                            .mapTo(Long.class)
+                            .findOne()
+            );
+
+            if (lowest.isEmpty() || highest.isEmpty()) {
+                return 0;
+            }
+
+            for (long from = lowest.get(); from <= highest.get(); from += CHUNK_SIZE) {
+                if (cancelled) {
+                    LOG.info("Retention cleaning of table [{}] cancelled after deleting <{}> rows.", table, deleted);
+                    break;
+                }
+
+                long to = from + CHUNK_SIZE;
+                deleted += deleteChunk(table, cutoff, from, to);
+                chunks++;
+
+                if (chunks % PROGRESS_INTERVAL == 0) {
+                    LOG.info("Retention cleaning of table [{}]: Deleted <{}> rows so far.", table, deleted);
+                }
+
+                if (hasRowsInRange(table, from, to)) {
+                    // Reached rows that are still within the retention time.
+                    break;
+                }
+
+                Thread.sleep(PAUSE_MS);
+            }
+        } catch (InterruptedException e) {
+            LOG.info("Retention cleaning of table [{}] interrupted after deleting <{}> rows.", table, deleted);
+            Thread.currentThread().interrupt();
+        } finally {
+            long duration = timer.stop();
+            metrics.counter(name(MetricNames.RETENTION_CLEANING, table, "deleted-rows")).inc(deleted);
+
+            if (deleted > 0) {
+                LOG.info("Retention cleaning of table [{}]: Deleted <{}> rows in <{}> chunks and <{}ms>.",
+                        table, deleted, chunks, duration / 1_000_000);
+            }
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Drops all hourly partitions of a partitioned table that only hold rows created before the cutoff.
+     */
+    public int dropPartitionsBefore(String table, DateTime cutoff) {
+        try (Timer.Context ignored = metrics.timer(name(MetricNames.RETENTION_CLEANING, table, "duration")).time()) {
+            int dropped = database.dropPartitionsBefore(table, cutoff);
+            metrics.counter(name(MetricNames.RETENTION_CLEANING, table, "dropped-partitions")).inc(dropped);
+
+            return dropped;
+        }
+    }
+
+    /**
+     * Stops all running and future retention cleaning after the current chunk. Called on shutdown.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    private int deleteChunk(String table, DateTime cutoff, long from, long to) {
+        return database.withHandle(handle ->
+                handle.createUpdate("DELETE FROM " + table + " WHERE id >= :from AND id < :to AND created_at < :cutoff")
+                        .bind("from", from)
+                        .bind("to", to)
+                        .bind("cutoff", cutoff)
+                        .execute()
+        );
+    }
+
+    private boolean hasRowsInRange(String table, long from, long to) {
+        return database.withHandle(handle ->
+                handle.createQuery("SELECT EXISTS(SELECT 1 FROM " + table + " WHERE id >= :from AND id < :to)")
+                        .bind("from", from)
+                        .bind("to", to)
+                        .mapTo(Boolean.class)
+                        .one()
+        );
+    }
+
+}
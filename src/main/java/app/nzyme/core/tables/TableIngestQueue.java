@@ -0,0 +1,133 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.tables;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Bounded queue of tap table reports, processed by a fixed pool of workers. This decouples the HTTP worker threads
+ * from the database: A slow database fills the queue instead of blocking the REST API, and a full queue rejects new
+ * reports so callers can signal backpressure to the taps.
+ */
+public class TableIngestQueue<T> {
+
+    private static final Logger LOG = LogManager.getLogger(TableIngestQueue.class);
+
+    public interface Handler<T> {
+        void handle(UUID tapUuid, DateTime timestamp, T report);
+    }
+
+    private final String tableName;
+    private final Handler<T> handler;
+
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer waitTimer;
+    private final Counter rejections;
+
+    public TableIngestQueue(String tableName,
+                            int workers,
+                            int capacity,
+                            Handler<T> handler,
+                            MetricRegistry metrics,
+                            String depthMetricName,
+                            String waitTimerMetricName,
+                            String rejectionsMetricName) {
+        this.tableName = tableName;
+        this.handler = handler;
+
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                queue,
+                new ThreadFactoryBuilder()
+                        .setNameFormat("tables-" + tableName + "-ingest-%d")
+                        .setDaemon(true)
+                        .build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        metrics.register(depthMetricName, (Gauge<Integer>) queue::size);
+        this.waitTimer = metrics.timer(waitTimerMetricName);
+        this.rejections = metrics.counter(rejectionsMetricName);
+    }
+
+    /**
+     * Queues a report for processing.
+     *
+     * @return false if the queue is full and the report was rejected
+     */
+    public boolean submit(UUID tapUuid, DateTime timestamp, T report) {
+        long queuedAt = System.nanoTime();
+
+        try {
+            executor.execute(() -> {
+                waitTimer.update(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+
+                try {
+                    handler.handle(tapUuid, timestamp, report);
+                } catch (Exception e) {
+                    LOG.error("Could not process [{}] table report of tap [{}].", tableName, tapUuid, e);
+                }
+            });
+
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejections.inc();
+            LOG.debug("Rejected [{}] table report of tap [{}]. Ingest queue is full.", tableName, tapUuid);
+
+            return false;
+        }
+    }
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting new reports and waits for already queued reports to be processed.
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(timeout, unit)) {
+                LOG.warn("Dropping <{}> queued [{}] table reports on shutdown.",
+                        executor.shutdownNow().size(), tableName);
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
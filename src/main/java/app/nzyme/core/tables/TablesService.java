@@ -17,7 +17,12 @@
 
 package app.nzyme.core.tables;
 
+import app.nzyme.core.configuration.node.TableIngestConfiguration;
+import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.rest.resources.taps.reports.tables.DNSTablesReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.Dot11TablesReport;
 import app.nzyme.core.tables.dot11.Dot11Table;
+import app.nzyme.core.util.MetricNames;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import app.nzyme.core.NzymeNode;
@@ -37,14 +42,44 @@ public class TablesService {
 
     private final Map<String, DataTable> tables;
 
+    private final TableIngestQueue<Dot11TablesReport> dot11Ingest;
+    private final TableIngestQueue<DNSTablesReport> dnsIngest;
+
+    private final RetentionCleaner retentionCleaner;
+
     public TablesService(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.retentionCleaner = new RetentionCleaner((DatabaseImpl) nzyme.getDatabase(), nzyme.getMetrics());
 
         this.tables = new ImmutableMap.Builder<String, DataTable>()
                 .put("dns", new DNSTable(this))
                 .put("dot11", new Dot11Table(this))
                 .build();
 
+        TableIngestConfiguration dot11IngestConfig = nzyme.getConfiguration().dot11Ingest();
+        this.dot11Ingest = new TableIngestQueue<>(
+                "dot11",
+                dot11IngestConfig.workers(),
+                dot11IngestConfig.queueSize(),
+                dot11()::handleReport,
+                nzyme.getMetrics(),
+                MetricNames.DOT11_INGEST_QUEUE_DEPTH,
+                MetricNames.DOT11_INGEST_QUEUE_WAIT_TIMING,
+                MetricNames.DOT11_INGEST_QUEUE_REJECTIONS
+        );
+
+        TableIngestConfiguration dnsIngestConfig = nzyme.getConfiguration().dnsIngest();
+        this.dnsIngest = new TableIngestQueue<>(
+                "dns",
+                dnsIngestConfig.workers(),
+                dnsIngestConfig.queueSize(),
+                dns()::handleReport,
+                nzyme.getMetrics(),
+                MetricNames.DNS_INGEST_QUEUE_DEPTH,
+                MetricNames.DNS_INGEST_QUEUE_WAIT_TIMING,
+                MetricNames.DNS_INGEST_QUEUE_REJECTIONS
+        );
+
         Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder()
                         .setNameFormat("tables-cleaner-%d")
@@ -61,6 +96,25 @@ public class TablesService {
 
     }
 
+    public void shutdown() {
+        retentionCleaner.cancel();
+        dot11Ingest.shutdown(30, TimeUnit.SECONDS);
+        dnsIngest.shutdown(30, TimeUnit.SECONDS);
+        dot11().shutdown();
+    }
+
+    public RetentionCleaner getRetentionCleaner() {
+        return retentionCleaner;
+    }
+
+    public TableIngestQueue<Dot11TablesReport> dot11Ingest() {
+        return dot11Ingest;
+    }
+
+    public TableIngestQueue<DNSTablesReport> dnsIngest() {
+        return dnsIngest;
+    }
+
     public DNSTable dns() {
         return (DNSTable) tables.get("dns");
     }
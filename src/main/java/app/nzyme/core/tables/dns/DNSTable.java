@@ -17,105 +17,108 @@
 
 package app.nzyme.core.tables.dns;
 
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.BulkInsert;
+import app.nzyme.core.ethernet.dns.DNSRegistryKeys;
 import app.nzyme.core.rest.resources.taps.reports.tables.DNSIPStatisticsReport;
 import app.nzyme.core.rest.resources.taps.reports.tables.DNSNxDomainLogReport;
 import app.nzyme.core.rest.resources.taps.reports.tables.DNSTablesReport;
 import app.nzyme.core.tables.DataTable;
 import app.nzyme.core.tables.TablesService;
+import app.nzyme.core.util.MetricNames;
+import com.codahale.metrics.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 public class DNSTable implements DataTable {
 
+    private static final Logger LOG = LogManager.getLogger(DNSTable.class);
+
     private final TablesService tablesService;
+    private final boolean preaggregate;
+
+    private final Timer writeTimer;
 
     public DNSTable(TablesService tablesService) {
         this.tablesService = tablesService;
-    }
-
-    private void registerStatistics(UUID tapUuid,
-                                    String ip,
-                                    Long requestCount,
-                                    Long requestBytes,
-                                    Long responseCount,
-                                    Long responseBytes,
-                                    Long nxdomainCount,
-                                    DateTime timestamp) {
-
-        tablesService.getNzyme().getDatabase().useHandle(handle ->
-                handle.createUpdate("INSERT INTO dns_statistics(tap_uuid, ip, request_count, request_bytes, " +
-                            "response_count, response_bytes, nxdomain_count, created_at) VALUES(:tap_uuid, :ip, :request_count, " +
-                            ":request_bytes, :response_count, :response_bytes, :nxdomain_count, :created_at)")
-                        .bind("tap_uuid", tapUuid)
-                        .bind("ip", ip)
-                        .bind("request_count", requestCount)
-                        .bind("request_bytes", requestBytes)
-                        .bind("response_count", responseCount)
-                        .bind("response_bytes", responseBytes)
-                        .bind("nxdomain_count", nxdomainCount)
-                        .bind("created_at", timestamp)
-                        .execute()
-        );
+        this.preaggregate = tablesService.getNzyme().getConfiguration().dnsPreaggregate();
 
+        this.writeTimer = tablesService.getNzyme().getMetrics().timer(MetricNames.DNS_TABLE_WRITE_TIMING);
     }
 
-    private void registerNxdomainLog(UUID tapUuid,
-                                    String ip,
-                                    String server,
-                                    String queryValue,
-                                    String dataType,
-                                    DateTime timestamp) {
-        tablesService.getNzyme().getDatabase().useHandle(handle ->
-                handle.createUpdate("INSERT INTO dns_nxdomains_log(tap_uuid, ip, server, query_value, data_type, " +
-                                "created_at) VALUES(:tap_uuid, :ip, :server, :query_value, :data_type, :created_at)")
-                        .bind("tap_uuid", tapUuid)
-                        .bind("ip", ip)
-                        .bind("server", server)
-                        .bind("query_value", queryValue)
-                        .bind("data_type", dataType)
-                        .bind("created_at", timestamp)
-                        .execute()
-        );
-    }
+    public void handleReport(UUID tapUuid, DateTime timestamp, DNSTablesReport report) {
+        /*
+         * Statistics and pairs are summed up into existing rows of the same tap, client, server and timestamp. With
+         * pre-aggregation, all reports of a minute share the same timestamp and end up in a single row.
+         */
+        DateTime bucket = preaggregate ? timestamp.withSecondOfMinute(0).withMillisOfSecond(0) : timestamp;
+
+        try (Timer.Context ignored = writeTimer.time()) {
+            tablesService.getNzyme().getDatabase().useHandle(handle -> handle.useTransaction(tx -> {
+                writeStatistics(tx, tapUuid, bucket, report.ips());
+                writeNxdomainLog(tx, tapUuid, timestamp, report.nxdomains());
+                writePairs(tx, tapUuid, bucket, report.pairs());
+            }));
+        }
 
-    private void registerPair(UUID tapUuid, String ip, String server, long count, DateTime timestamp) {
-        tablesService.getNzyme().getDatabase().useHandle(handle ->
-                handle.createUpdate("INSERT INTO dns_pairs(tap_uuid, ip, server, count, created_at) " +
-                                "VALUES(:tap_uuid, :ip, :server, :count, :timestamp)")
-                        .bind("tap_uuid", tapUuid)
-                        .bind("ip", ip)
-                        .bind("server", server)
-                        .bind("count", count)
-                        .bind("timestamp", timestamp)
-                        .execute()
-        );
+        LOG.debug("Wrote DNS report of tap [{}]: <{}> IPs, <{}> NXDOMAINs, <{}> pair clients.",
+                tapUuid, report.ips().size(), report.nxdomains().size(), report.pairs().size());
     }
 
-    public void handleReport(UUID tapUuid, DateTime timestamp, DNSTablesReport report) {
-        for (Map.Entry<String, DNSIPStatisticsReport> x : report.ips().entrySet()) {
+    private void writeStatistics(Handle handle,
+                                 UUID tapUuid,
+                                 DateTime bucket,
+                                 Map<String, DNSIPStatisticsReport> ips) {
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO dns_statistics(tap_uuid, ip, request_count, " +
+                "request_bytes, response_count, response_bytes, nxdomain_count, created_at) VALUES(:tap_uuid, :ip, " +
+                ":request_count, :request_bytes, :response_count, :response_bytes, :nxdomain_count, :created_at) " +
+                "ON CONFLICT(tap_uuid, ip, created_at) DO UPDATE SET " +
+                "request_count = dns_statistics.request_count + EXCLUDED.request_count, " +
+                "request_bytes = dns_statistics.request_bytes + EXCLUDED.request_bytes, " +
+                "response_count = dns_statistics.response_count + EXCLUDED.response_count, " +
+                "response_bytes = dns_statistics.response_bytes + EXCLUDED.response_bytes, " +
+                "nxdomain_count = dns_statistics.nxdomain_count + EXCLUDED.nxdomain_count");
+
+        for (Map.Entry<String, DNSIPStatisticsReport> x : ips.entrySet()) {
             DNSIPStatisticsReport stats = x.getValue();
 
-            registerStatistics(
-                    tapUuid,
-                    x.getKey(),
-                    stats.requestCount(),
-                    stats.requestBytes(),
-                    stats.responseCount(),
-                    stats.responseBytes(),
-                    stats.nxDomainCount(),
-                    timestamp
-            );
+            batch.bind("tap_uuid", tapUuid)
+                    .bind("ip", x.getKey())
+                    .bind("request_count", stats.requestCount())
+                    .bind("request_bytes", stats.requestBytes())
+                    .bind("response_count", stats.responseCount())
+                    .bind("response_bytes", stats.responseBytes())
+                    .bind("nxdomain_count", stats.nxDomainCount())
+                    .bind("created_at", bucket)
+                    .add();
         }
 
-        for (DNSNxDomainLogReport nxdomain : report.nxdomains()) {
+        if (batch.size() > 0) {
+            batch.execute();
+        }
+    }
+
+    private void writeNxdomainLog(Handle handle,
+                                  UUID tapUuid,
+                                  DateTime timestamp,
+                                  List<DNSNxDomainLogReport> nxdomains) {
+        BulkInsert insert = BulkInsert.preparedBatch(handle, "dns_nxdomains_log",
+                "tap_uuid", "ip", "server", "query_value", "data_type", "created_at");
+
+        for (DNSNxDomainLogReport nxdomain : nxdomains) {
             if (nxdomain.dataType().equals("PTR")) {
                 // We are not interested in reverse lookup NXDOMAINs.
                 continue;
             }
 
-            registerNxdomainLog(
+            insert.add(
                     tapUuid,
                     nxdomain.ip(),
                     nxdomain.server(),
@@ -125,28 +128,52 @@ public class DNSTable implements DataTable {
             );
         }
 
-        for (Map.Entry<String, Map<String, Long>> pair : report.pairs().entrySet()) {
+        insert.execute();
+    }
+
+    private void writePairs(Handle handle, UUID tapUuid, DateTime bucket, Map<String, Map<String, Long>> pairs) {
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO dns_pairs(tap_uuid, ip, server, count, created_at) " +
+                "VALUES(:tap_uuid, :ip, :server, :count, :created_at) " +
+                "ON CONFLICT(tap_uuid, ip, server, created_at) DO UPDATE SET count = dns_pairs.count + EXCLUDED.count");
+
+        for (Map.Entry<String, Map<String, Long>> pair : pairs.entrySet()) {
             for (Map.Entry<String, Long> server : pair.getValue().entrySet()) {
-                registerPair(tapUuid, pair.getKey(), server.getKey(), server.getValue(), timestamp);
+                batch.bind("tap_uuid", tapUuid)
+                        .bind("ip", pair.getKey())
+                        .bind("server", server.getKey())
+                        .bind("count", server.getValue())
+                        .bind("created_at", bucket)
+                        .add();
             }
         }
 
+        if (batch.size() > 0) {
+            batch.execute();
+        }
     }
 
     @Override
     public void retentionClean() {
-        tablesService.getNzyme().getDatabase().useHandle(handle -> {
-            handle.createUpdate("DELETE FROM dns_statistics WHERE created_at < :created_at")
-                    .bind("created_at", DateTime.now().minusHours(24)) // TODO
-                    .execute();
-
-            handle.createUpdate("DELETE FROM dns_nxdomains_log WHERE created_at < :created_at")
-                    .bind("created_at", DateTime.now().minusHours(24)) // TODO
-                    .execute();
-
-            handle.createUpdate("DELETE FROM dns_pairs WHERE created_at < :created_at")
-                    .bind("created_at", DateTime.now().minusHours(24)) // TODO
-                    .execute();
-        });
+        NzymeNode nzyme = tablesService.getNzyme();
+        int dnsRetentionDays = Integer.parseInt(nzyme.getDatabaseCoreRegistry()
+                .getValue(DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.key())
+                .orElse(DNSRegistryKeys.DNS_RETENTION_TIME_DAYS.defaultValue().orElse("MISSING"))
+        );
+
+        // Values written before the retention time was capped could still be higher.
+        if (dnsRetentionDays > DNSRegistryKeys.MAX_DNS_RETENTION_TIME_DAYS) {
+            LOG.warn("DNS data retention of <{}> days exceeds maximum. Using <{}> days.",
+                    dnsRetentionDays, DNSRegistryKeys.MAX_DNS_RETENTION_TIME_DAYS);
+            dnsRetentionDays = DNSRegistryKeys.MAX_DNS_RETENTION_TIME_DAYS;
+        }
+
+        DateTime cutoff = DateTime.now().minusDays(dnsRetentionDays);
+
+        LOG.info("DNS data retention: <{}> days / Delete data older than <{}>.", dnsRetentionDays, cutoff);
+
+        for (String table : new String[]{"dns_statistics", "dns_nxdomains_log", "dns_pairs"}) {
+            int dropped = tablesService.getRetentionCleaner().dropPartitionsBefore(table, cutoff);
+            LOG.debug("Dropped <{}> partitions of table [{}] for retention.", dropped, table);
+        }
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.tables.dot11;
+
+import app.nzyme.core.NzymeNode;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns SSID attribute values, like security suites or infrastructure types, into the dot11_dictionary table.
+ * These values are almost the same in every report and report rows only reference them by ID. Values are never
+ * deleted, so the ID of a value can be cached for the lifetime of the node.
+ */
+public class Dot11Dictionary {
+
+    public static final String SECURITY_PROTOCOL = "security_protocol";
+    public static final String SECURITY_SUITE = "security_suite";
+    public static final String HAS_WPS = "has_wps";
+    public static final String INFRASTRUCTURE_TYPE = "infrastructure_type";
+
+    // Security protocol value of networks without encryption.
+    public static final String NO_SECURITY_PROTOCOL = "None";
+
+    private final NzymeNode nzyme;
+
+    // Attribute -> Value -> ID.
+    private final Map<String, Map<String, Integer>> ids;
+
+    public Dot11Dictionary(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+        this.ids = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the ID of a value, adding it to the dictionary if it is not in there yet. Values are added with their
+     * own connection and committed immediately, so an ID is never cached for a value that was rolled back.
+     */
+    public int getId(String attribute, String value) {
+        Map<String, Integer> values = ids.computeIfAbsent(attribute, a -> new ConcurrentHashMap<>());
+
+        Integer id = values.get(value);
+        if (id == null) {
+            id = intern(attribute, value);
+            values.put(value, id);
+        }
+
+        return id;
+    }
+
+    private int intern(String attribute, String value) {
+        return nzyme.getDatabase().withHandle(handle -> {
+            Optional<Integer> inserted = handle.createQuery("INSERT INTO dot11_dictionary(attribute, value) " +
+                            "VALUES(:attribute, :value) ON CONFLICT (attribute, value) DO NOTHING RETURNING id")
+                    .bind("attribute", attribute)
+                    .bind("value", value)
+                    .mapTo(Integer.class)
+                    .findOne();
+
+            // Another node or ingest worker added the same value first.
+            return inserted.orElseGet(() ->
+                    handle.createQuery("SELECT id FROM dot11_dictionary " +
+                                    "WHERE attribute = :attribute AND value = :value")
+                            .bind("attribute", attribute)
+                            .bind("value", value)
+                            .mapTo(Integer.class)
+                            .one()
+            );
+        });
+    }
+
+}
@@ -0,0 +1,60 @@
+package app.nzyme.core.tables.dot11;
+
+import app.nzyme.core.detection.alerts.DetectionType;
+import com.google.auto.value.AutoValue;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An alert found during 802.11 detection that is raised after the report was written.
+ */
+@AutoValue
+public abstract class Dot11PendingAlert {
+
+    @Nullable
+    public abstract UUID monitoredNetworkId();
+
+    public abstract DetectionType detectionType();
+    public abstract String details();
+    public abstract Map<String, String> attributes();
+    public abstract List<String> comparisonAttributeKeys();
+
+    @Nullable
+    public abstract Float signalStrength();
+
+    public static Dot11PendingAlert create(UUID monitoredNetworkId, DetectionType detectionType, String details, Map<String, String> attributes, List<String> comparisonAttributeKeys, Float signalStrength) {
+        return builder()
+                .monitoredNetworkId(monitoredNetworkId)
+                .detectionType(detectionType)
+                .details(details)
+                .attributes(attributes)
+                .comparisonAttributeKeys(comparisonAttributeKeys)
+                .signalStrength(signalStrength)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_Dot11PendingAlert.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder monitoredNetworkId(UUID monitoredNetworkId);
+
+        public abstract Builder detectionType(DetectionType detectionType);
+
+        public abstract Builder details(String details);
+
+        public abstract Builder attributes(Map<String, String> attributes);
+
+        public abstract Builder comparisonAttributeKeys(List<String> comparisonAttributeKeys);
+
+        public abstract Builder signalStrength(Float signalStrength);
+
+        public abstract Dot11PendingAlert build();
+    }
+
+}
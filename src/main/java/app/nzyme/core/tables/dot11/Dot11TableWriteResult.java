@@ -0,0 +1,58 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.tables.dot11;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.Map;
+
+@AutoValue
+public abstract class Dot11TableWriteResult {
+
+    public abstract Map<String, Integer> rowCounts();
+    public abstract long tookMs();
+
+    public int totalRows() {
+        int total = 0;
+        for (Integer count : rowCounts().values()) {
+            total += count;
+        }
+
+        return total;
+    }
+
+    public static Dot11TableWriteResult create(Map<String, Integer> rowCounts, long tookMs) {
+        return builder()
+                .rowCounts(rowCounts)
+                .tookMs(tookMs)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_Dot11TableWriteResult.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder rowCounts(Map<String, Integer> rowCounts);
+
+        public abstract Builder tookMs(long tookMs);
+
+        public abstract Dot11TableWriteResult build();
+    }
+}
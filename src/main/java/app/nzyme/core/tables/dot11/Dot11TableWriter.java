@@ -0,0 +1,688 @@
+/*
+ * This file is part of nzyme.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+
+package app.nzyme.core.tables.dot11;
+
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.BulkInsert;
+import app.nzyme.core.database.PreparedBatchBulkInsert;
+import app.nzyme.core.dot11.Dot11;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import app.nzyme.core.taps.Tap;
+import app.nzyme.core.util.MetricNames;
+import app.nzyme.core.util.Tools;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
+import org.joda.time.DateTime;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists a complete 802.11 table report in a single transaction. Every table is written in one bulk operation
+ * instead of one statement (and connection checkout) per row.
+ *
+ * In {@link Dot11WriteMode#BATCH} mode, rows are written as prepared batches and parent IDs are read back as the
+ * generated keys of each batch. In {@link Dot11WriteMode#COPY} mode, parent IDs are reserved from their sequences
+ * with one query per table and all rows are streamed using PostgreSQL COPY.
+ *
+ * If the report can't be written as a whole because of its data, each BSSID and client is written in its own
+ * transaction and broken entries are skipped. Other database errors are thrown.
+ */
+public class Dot11TableWriter {
+
+    private static final Logger LOG = LogManager.getLogger(Dot11TableWriter.class);
+
+    private final NzymeNode nzyme;
+    private final Dot11WriteMode mode;
+    private final ObjectMapper om;
+    private final Dot11Dictionary dictionary;
+
+    private final Timer writeTimer;
+    private final Histogram rowsHistogram;
+
+    public Dot11TableWriter(NzymeNode nzyme, Dot11WriteMode mode) {
+        this.nzyme = nzyme;
+        this.mode = mode;
+        this.om = new ObjectMapper();
+        this.dictionary = new Dot11Dictionary(nzyme);
+
+        this.writeTimer = nzyme.getMetrics().timer(MetricNames.DOT11_TABLE_WRITE_TIMING);
+        this.rowsHistogram = nzyme.getMetrics().histogram(MetricNames.DOT11_TABLE_WRITE_ROWS);
+    }
+
+    public Dot11TableWriteResult write(Tap tap, DateTime timestamp, Dot11TablesReport report) {
+        Map<String, Integer> rowCounts;
+        long tookNs;
+
+        Timer.Context timer = writeTimer.time();
+        try {
+            try {
+                rowCounts = writeInTransaction(tap, timestamp, report.bssids(), report.clients(), report.disco());
+            } catch (RuntimeException e) {
+                // Connection problems and timeouts would fail for every entry as well.
+                if (!isDataError(e)) {
+                    throw e;
+                }
+
+                LOG.warn("Could not write 802.11 report of tap [{}] in one transaction. Writing its entries " +
+                        "one by one.", tap.uuid(), e);
+                rowCounts = writeEntries(tap, timestamp, report);
+            }
+        } finally {
+            tookNs = timer.stop();
+        }
+
+        long tookMs = TimeUnit.NANOSECONDS.toMillis(tookNs);
+
+        Dot11TableWriteResult result = Dot11TableWriteResult.create(rowCounts, tookMs);
+        rowsHistogram.update(result.totalRows());
+
+        LOG.debug("Wrote <{}> rows of 802.11 report from tap [{}] in <{}ms> using [{}]: {}",
+                result.totalRows(), tap.uuid(), tookMs, mode, rowCounts);
+
+        return result;
+    }
+
+    private Map<String, Integer> writeInTransaction(Tap tap,
+                                                    DateTime timestamp,
+                                                    Map<String, Dot11BSSIDReport> bssids,
+                                                    Map<String, Dot11ClientReport> clients,
+                                                    Dot11DiscoReport disco) {
+        // Add new dictionary values before the transaction. They are committed separately.
+        internSSIDAttributes(bssids);
+
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.inTransaction(tx -> {
+                    Map<String, Integer> counts = Maps.newTreeMap();
+
+                    writeBSSIDs(tx, tap, timestamp, bssids, counts);
+                    writeBSSIDState(tx, tap, timestamp, bssids, counts);
+                    writeClients(tx, tap, timestamp, clients, counts);
+                    writeDisco(tx, tap, timestamp, disco, counts);
+
+                    return counts;
+                })
+        );
+    }
+
+    /*
+     * Fallback if the report could not be written as a whole. Every BSSID (with its SSIDs) and every client is
+     * written in its own transaction, so that one broken entry does not lose the rest of the report.
+     */
+    private Map<String, Integer> writeEntries(Tap tap, DateTime timestamp, Dot11TablesReport report) {
+        Map<String, Integer> counts = Maps.newTreeMap();
+        Dot11DiscoReport noDisco = Dot11DiscoReport.create(Maps.newHashMap(), Maps.newHashMap());
+
+        for (Map.Entry<String, Dot11BSSIDReport> bssid : report.bssids().entrySet()) {
+            try {
+                writeInTransaction(tap, timestamp, Map.of(bssid.getKey(), bssid.getValue()), Map.of(), noDisco)
+                        .forEach((table, rows) -> counts.merge(table, rows, Integer::sum));
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    throw e;
+                }
+
+                LOG.error("Could not write BSSID [{}] of tap [{}].", bssid.getKey(), tap.uuid(), e);
+            }
+        }
+
+        for (Map.Entry<String, Dot11ClientReport> client : report.clients().entrySet()) {
+            try {
+                writeInTransaction(tap, timestamp, Map.of(), Map.of(client.getKey(), client.getValue()), noDisco)
+                        .forEach((table, rows) -> counts.merge(table, rows, Integer::sum));
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    throw e;
+                }
+
+                LOG.error("Could not write client [{}] of tap [{}].", client.getKey(), tap.uuid(), e);
+            }
+        }
+
+        try {
+            writeInTransaction(tap, timestamp, Map.of(), Map.of(), report.disco())
+                    .forEach((table, rows) -> counts.merge(table, rows, Integer::sum));
+        } catch (RuntimeException e) {
+            if (!isDataError(e)) {
+                throw e;
+            }
+
+            LOG.error("Could not write disconnection activity of tap [{}].", tap.uuid(), e);
+        }
+
+        return counts;
+    }
+
+    /*
+     * Data exceptions (SQLSTATE class 22) and integrity constraint violations (class 23) are caused by the content of
+     * the report. Everything else, like connection problems or statement timeouts, is not.
+     */
+    static boolean isDataError(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    public Dot11WriteMode getMode() {
+        return mode;
+    }
+
+    private void writeBSSIDs(Handle handle,
+                             Tap tap,
+                             DateTime timestamp,
+                             Map<String, Dot11BSSIDReport> bssids,
+                             Map<String, Integer> counts) {
+        List<Map.Entry<String, Dot11BSSIDReport>> entries = Lists.newArrayList(bssids.entrySet());
+
+        List<Object[]> bssidRows = Lists.newArrayListWithCapacity(entries.size());
+        for (Map.Entry<String, Dot11BSSIDReport> entry : entries) {
+            Dot11BSSIDReport report = entry.getValue();
+            bssidRows.add(new Object[]{
+                    tap.uuid(),
+                    entry.getKey(),
+                    report.signalStrength().average(),
+                    report.signalStrength().max(),
+                    report.signalStrength().min(),
+                    report.hiddenSSIDFrames(),
+                    timestamp
+            });
+        }
+
+        List<Long> bssidIds = insertParents(handle, "dot11_bssids", new String[]{"tap_uuid", "bssid",
+                "signal_strength_average", "signal_strength_max", "signal_strength_min", "hidden_ssid_frames",
+                "created_at"}, bssidRows, counts);
+
+        BulkInsert fingerprints = bulkInsert(handle, "dot11_fingerprints", "fingerprint", "bssid_id");
+        BulkInsert clients = bulkInsert(handle, "dot11_bssid_clients", "bssid_id", "client_mac", "tx_frames",
+                "tx_bytes", "rx_frames", "rx_bytes", "signal_strength_average", "signal_strength_min",
+                "signal_strength_max");
+
+        // SSIDs in the same order as their rows, to match up the parent IDs.
+        List<Object[]> ssidRows = Lists.newArrayList();
+        List<Dot11AdvertisedNetworkReport> ssidReports = Lists.newArrayList();
+
+        for (int i = 0; i < entries.size(); i++) {
+            String bssid = entries.get(i).getKey();
+            Dot11BSSIDReport report = entries.get(i).getValue();
+            long bssidDatabaseId = bssidIds.get(i);
+
+            // BSSID Fingerprints.
+            for (String fingerprint : report.fingerprints()) {
+                fingerprints.add(fingerprint, bssidDatabaseId);
+            }
+
+            // BSSID Clients.
+            for (Map.Entry<String, Dot11ClientStatisticsReport> client : report.clients().entrySet()) {
+                String mac = client.getKey();
+                Dot11ClientStatisticsReport stats = client.getValue();
+
+                if (bssid.equals(mac)) {
+                    // Don't record BSSID itself.
+                    continue;
+                }
+
+                clients.add(
+                        bssidDatabaseId,
+                        mac,
+                        stats.txFrames(),
+                        stats.txBytes(),
+                        stats.rxFrames(),
+                        stats.rxBytes(),
+                        stats.signalStrength().average(),
+                        stats.signalStrength().average(),
+                        stats.signalStrength().average()
+                );
+            }
+
+            // SSIDs.
+            for (Map.Entry<String, Dot11AdvertisedNetworkReport> ssidEntry : report.advertisedNetworks().entrySet()) {
+                // Replace all non-printable characters.
+                String ssid = Tools.sanitizeSSID(ssidEntry.getKey());
+
+                /*
+                 * If all characters were sanitized away, this is a hidden SSID.
+                 * (some access points build hidden SSIDs this way)
+                 */
+                if (ssid.isEmpty()) {
+                    continue;
+                }
+
+                Dot11AdvertisedNetworkReport ssidReport = ssidEntry.getValue();
+
+                ssidRows.add(new Object[]{
+                        bssidDatabaseId,
+                        tap.uuid(),
+                        ssid,
+                        bssid,
+                        ssidReport.signalStrength().average(),
+                        ssidReport.signalStrength().max(),
+                        ssidReport.signalStrength().min(),
+                        ssidReport.beaconAdvertisements(),
+                        ssidReport.probeResponseAdvertisements(),
+                        timestamp
+                });
+                ssidReports.add(ssidReport);
+            }
+        }
+
+        execute(fingerprints, counts);
+        execute(clients, counts);
+
+        List<Long> ssidIds = insertParents(handle, "dot11_ssids", new String[]{"bssid_id", "tap_uuid", "ssid",
+                "bssid", "signal_strength_average", "signal_strength_max", "signal_strength_min",
+                "beacon_advertisements", "proberesp_advertisements", "created_at"}, ssidRows, counts);
+
+        writeSSIDAttributes(handle, ssidIds, ssidReports, counts);
+    }
+
+    /**
+     * Updates the current state of all reported BSSIDs. Lists like SSIDs or clients are stored as maps from each value
+     * to the time it was last seen. Values that were not seen within {@link Dot11#BSSID_STATE_HORIZON_HOURS} are
+     * dropped on every update.
+     */
+    private void writeBSSIDState(Handle handle,
+                                 Tap tap,
+                                 DateTime timestamp,
+                                 Map<String, Dot11BSSIDReport> bssids,
+                                 Map<String, Integer> counts) {
+        if (bssids.isEmpty()) {
+            return;
+        }
+
+        long seen = timestamp.getMillis() / 1000;
+        long cutoff = timestamp.minusHours(Dot11.BSSID_STATE_HORIZON_HOURS).getMillis() / 1000;
+
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO dot11_bssid_state AS s (tap_uuid, bssid, first_seen, " +
+                "last_seen, ssids, fingerprints, security_protocols, infrastructure_types, clients) " +
+                "VALUES(:tap_uuid, :bssid, :timestamp, :timestamp, CAST(:ssids AS jsonb), " +
+                "CAST(:fingerprints AS jsonb), CAST(:security_protocols AS jsonb), " +
+                "CAST(:infrastructure_types AS jsonb), CAST(:clients AS jsonb)) " +
+                "ON CONFLICT (tap_uuid, bssid) DO UPDATE SET " +
+                "first_seen = LEAST(s.first_seen, EXCLUDED.first_seen), " +
+                "last_seen = GREATEST(s.last_seen, EXCLUDED.last_seen), " +
+                "ssids = nzyme_merge_last_seen(s.ssids, EXCLUDED.ssids, :cutoff), " +
+                "fingerprints = nzyme_merge_last_seen(s.fingerprints, EXCLUDED.fingerprints, :cutoff), " +
+                "security_protocols = nzyme_merge_last_seen(s.security_protocols, EXCLUDED.security_protocols, :cutoff), " +
+                "infrastructure_types = nzyme_merge_last_seen(s.infrastructure_types, EXCLUDED.infrastructure_types, :cutoff), " +
+                "clients = nzyme_merge_last_seen(s.clients, EXCLUDED.clients, :cutoff)");
+
+        // Always lock rows in the same order, to not deadlock with a concurrently written report of the same tap.
+        for (Map.Entry<String, Dot11BSSIDReport> entry : new TreeMap<>(bssids).entrySet()) {
+            String bssid = entry.getKey();
+            Dot11BSSIDReport report = entry.getValue();
+
+            ObjectNode ssids = om.createObjectNode();
+            ObjectNode securityProtocols = om.createObjectNode();
+            ObjectNode infrastructureTypes = om.createObjectNode();
+            for (Map.Entry<String, Dot11AdvertisedNetworkReport> ssidEntry : report.advertisedNetworks().entrySet()) {
+                String ssid = Tools.sanitizeSSID(ssidEntry.getKey());
+                if (ssid.isEmpty()) {
+                    continue;
+                }
+
+                ssids.put(ssid, seen);
+
+                // Same as the history: An SSID without security information or protocols is unencrypted.
+                Dot11AdvertisedNetworkReport ssidReport = ssidEntry.getValue();
+                if (ssidReport.security().isEmpty()) {
+                    securityProtocols.put("None", seen);
+                }
+                for (Dot11SecurityInformationReport sec : ssidReport.security()) {
+                    if (sec.protocols().isEmpty()) {
+                        securityProtocols.put("None", seen);
+                    }
+                    for (String protocol : sec.protocols()) {
+                        securityProtocols.put(protocol, seen);
+                    }
+                }
+
+                for (String infrastructureType : ssidReport.infrastructureTypes()) {
+                    infrastructureTypes.put(infrastructureType.toLowerCase(), seen);
+                }
+            }
+
+            if (ssids.isEmpty()) {
+                securityProtocols.put("None", seen);
+            }
+
+            ObjectNode fingerprints = om.createObjectNode();
+            for (String fingerprint : report.fingerprints()) {
+                fingerprints.put(fingerprint, seen);
+            }
+
+            ObjectNode clients = om.createObjectNode();
+            for (String mac : report.clients().keySet()) {
+                if (!bssid.equals(mac)) {
+                    clients.put(mac, seen);
+                }
+            }
+
+            batch.bind("tap_uuid", tap.uuid())
+                    .bind("bssid", bssid)
+                    .bind("timestamp", timestamp)
+                    .bind("ssids", ssids.toString())
+                    .bind("fingerprints", fingerprints.toString())
+                    .bind("security_protocols", securityProtocols.toString())
+                    .bind("infrastructure_types", infrastructureTypes.toString())
+                    .bind("clients", clients.toString())
+                    .bind("cutoff", cutoff)
+                    .add();
+        }
+
+        batch.execute();
+        counts.merge("dot11_bssid_state", bssids.size(), Integer::sum);
+    }
+
+    private void writeSSIDAttributes(Handle handle,
+                                     List<Long> ssidIds,
+                                     List<Dot11AdvertisedNetworkReport> ssidReports,
+                                     Map<String, Integer> counts) {
+        BulkInsert settings = bulkInsert(handle, "dot11_ssid_settings", "ssid_id", "value_id");
+        BulkInsert fingerprints = bulkInsert(handle, "dot11_fingerprints", "fingerprint", "ssid_id");
+        BulkInsert rates = bulkInsert(handle, "dot11_rates", "rate", "ssid_id");
+        BulkInsert channels = bulkInsert(handle, "dot11_channels", "ssid_id", "frequency", "frame_type",
+                "stats_bytes", "stats_frames");
+        BulkInsert histograms = bulkInsert(handle, "dot11_channel_histograms", "ssid_id", "frequency",
+                "signal_strength", "frame_count");
+        BulkInsert infrastructureTypes = bulkInsert(handle, "dot11_infrastructure_types", "infrastructure_type_id",
+                "ssid_id");
+
+        for (int i = 0; i < ssidIds.size(); i++) {
+            long ssidDatabaseId = ssidIds.get(i);
+            Dot11AdvertisedNetworkReport ssidReport = ssidReports.get(i);
+
+            // WPS settings, security protocols and suites.
+            for (Map.Entry<String, String> setting : buildSSIDSettings(ssidReport)) {
+                settings.add(ssidDatabaseId, dictionary.getId(setting.getKey(), setting.getValue()));
+            }
+
+            // SSID Fingerprints.
+            for (String fingerprint : ssidReport.fingerprints()) {
+                fingerprints.add(fingerprint, ssidDatabaseId);
+            }
+
+            // SSID Rates.
+            for (Float rate : ssidReport.rates()) {
+                rates.add(rate, ssidDatabaseId);
+            }
+
+            // Channel Statistics.
+            for (Map.Entry<Long, Map<String, Dot11ChannelStatisticsReport>> cs : ssidReport.channelStatistics().entrySet()) {
+                long frequency = cs.getKey();
+                for (Map.Entry<String, Dot11ChannelStatisticsReport> ft : cs.getValue().entrySet()) {
+                    channels.add(
+                            ssidDatabaseId,
+                            frequency,
+                            ft.getKey().toLowerCase(),
+                            ft.getValue().bytes(),
+                            ft.getValue().frames()
+                    );
+                }
+            }
+
+            // Channel signal histogram.
+            for (Map.Entry<Long, Map<Long, Long>> channel : ssidReport.signalHistogram().entrySet()) {
+                long frequency = channel.getKey();
+                for (Map.Entry<Long, Long> histo : channel.getValue().entrySet()) {
+                    histograms.add(ssidDatabaseId, frequency, histo.getKey(), histo.getValue());
+                }
+            }
+
+            // Infrastructure Types.
+            for (String infrastructureType : ssidReport.infrastructureTypes()) {
+                infrastructureTypes.add(
+                        dictionary.getId(Dot11Dictionary.INFRASTRUCTURE_TYPE, infrastructureType.toLowerCase()),
+                        ssidDatabaseId
+                );
+            }
+        }
+
+        execute(settings, counts);
+        execute(fingerprints, counts);
+        execute(rates, counts);
+        execute(channels, counts);
+        execute(histograms, counts);
+        execute(infrastructureTypes, counts);
+    }
+
+    /**
+     * Returns all settings of an SSID as attribute and value pairs, in the form they are stored in the dictionary.
+     */
+    private List<Map.Entry<String, String>> buildSSIDSettings(Dot11AdvertisedNetworkReport ssidReport) {
+        List<Map.Entry<String, String>> settings = Lists.newArrayList();
+
+        for (boolean hasWps : ssidReport.wps()) {
+            settings.add(Maps.immutableEntry(Dot11Dictionary.HAS_WPS, String.valueOf(hasWps)));
+        }
+
+        for (Dot11SecurityInformationReport sec : ssidReport.security()) {
+            if (sec.protocols().isEmpty()) {
+                settings.add(Maps.immutableEntry(Dot11Dictionary.SECURITY_PROTOCOL, Dot11Dictionary.NO_SECURITY_PROTOCOL));
+            } else {
+                for (String protocol : sec.protocols()) {
+                    settings.add(Maps.immutableEntry(Dot11Dictionary.SECURITY_PROTOCOL, protocol));
+                }
+            }
+
+            Map<String, String> suiteMap = Maps.newHashMap();
+            suiteMap.put("group_cipher", sec.suites().groupCipher());
+            suiteMap.put("pairwise_ciphers", Joiner.on(",").join(sec.suites().pairwiseCiphers()));
+            suiteMap.put("key_management_modes", Joiner.on(",").join(sec.suites().keyManagementModes()));
+            suiteMap.put("pmf_mode", sec.pmf());
+
+            try {
+                settings.add(Maps.immutableEntry(Dot11Dictionary.SECURITY_SUITE, this.om.writeValueAsString(suiteMap)));
+            } catch (JsonProcessingException e) {
+                LOG.error("Could not serialize SSID security suites.", e);
+            }
+        }
+
+        return settings;
+    }
+
+    private void internSSIDAttributes(Map<String, Dot11BSSIDReport> bssids) {
+        for (Dot11BSSIDReport bssid : bssids.values()) {
+            for (Dot11AdvertisedNetworkReport ssidReport : bssid.advertisedNetworks().values()) {
+                for (Map.Entry<String, String> setting : buildSSIDSettings(ssidReport)) {
+                    dictionary.getId(setting.getKey(), setting.getValue());
+                }
+
+                for (String infrastructureType : ssidReport.infrastructureTypes()) {
+                    dictionary.getId(Dot11Dictionary.INFRASTRUCTURE_TYPE, infrastructureType.toLowerCase());
+                }
+            }
+        }
+    }
+
+    private void writeClients(Handle handle,
+                              Tap tap,
+                              DateTime timestamp,
+                              Map<String, Dot11ClientReport> clients,
+                              Map<String, Integer> counts) {
+        List<Map.Entry<String, Dot11ClientReport>> entries = Lists.newArrayList(clients.entrySet());
+
+        List<Object[]> clientRows = Lists.newArrayListWithCapacity(entries.size());
+        for (Map.Entry<String, Dot11ClientReport> entry : entries) {
+            Dot11ClientReport report = entry.getValue();
+            clientRows.add(new Object[]{
+                    tap.uuid(),
+                    entry.getKey(),
+                    report.wildcardProbeRequests(),
+                    report.signalStrength().average(),
+                    report.signalStrength().max(),
+                    report.signalStrength().min(),
+                    timestamp
+            });
+        }
+
+        List<Long> clientIds = insertParents(handle, "dot11_clients", new String[]{"tap_uuid", "client_mac",
+                "wildcard_probe_requests", "signal_strength_average", "signal_strength_max", "signal_strength_min",
+                "created_at"}, clientRows, counts);
+
+        BulkInsert probeRequests = bulkInsert(handle, "dot11_client_probereq_ssids", "client_id", "ssid",
+                "frame_count", "tap_uuid");
+
+        for (int i = 0; i < entries.size(); i++) {
+            for (Map.Entry<String, Long> pr : entries.get(i).getValue().probeRequestSSIDs().entrySet()) {
+                probeRequests.add(clientIds.get(i), pr.getKey(), pr.getValue(), tap.uuid());
+            }
+        }
+
+        execute(probeRequests, counts);
+    }
+
+    private void writeDisco(Handle handle,
+                            Tap tap,
+                            DateTime timestamp,
+                            Dot11DiscoReport disco,
+                            Map<String, Integer> counts) {
+        List<Dot11DiscoTransmitterReport> transmitters = Lists.newArrayList();
+        List<Object[]> activityRows = Lists.newArrayList();
+
+        for (Dot11DiscoTransmitterReport report : disco.deauthentication().values()) {
+            activityRows.add(buildDiscoActivityRow(tap, timestamp, Dot11.DiscoType.DEAUTHENTICATION, report));
+            transmitters.add(report);
+        }
+
+        for (Dot11DiscoTransmitterReport report : disco.disassociation().values()) {
+            activityRows.add(buildDiscoActivityRow(tap, timestamp, Dot11.DiscoType.DISASSOCIATION, report));
+            transmitters.add(report);
+        }
+
+        List<Long> activityIds = insertParents(handle, "dot11_disco_activity", new String[]{"tap_uuid",
+                "disco_type", "bssid", "sent_frames", "created_at"}, activityRows, counts);
+
+        BulkInsert receivers = bulkInsert(handle, "dot11_disco_activity_receivers", "disco_activity_id", "bssid",
+                "received_frames");
+
+        for (int i = 0; i < transmitters.size(); i++) {
+            for (Map.Entry<String, Long> receiver : transmitters.get(i).receivers().entrySet()) {
+                receivers.add(activityIds.get(i), receiver.getKey(), receiver.getValue());
+            }
+        }
+
+        execute(receivers, counts);
+    }
+
+    private Object[] buildDiscoActivityRow(Tap tap,
+                                           DateTime timestamp,
+                                           Dot11.DiscoType discoType,
+                                           Dot11DiscoTransmitterReport report) {
+        return new Object[]{
+                tap.uuid(),
+                discoType.getNumber(),
+                report.bssid(),
+                report.sentFrames(),
+                timestamp
+        };
+    }
+
+    private BulkInsert bulkInsert(Handle handle, String table, String... columns) {
+        switch (mode) {
+            case COPY:
+                return BulkInsert.copy(handle, table, columns);
+            case BATCH:
+            default:
+                return BulkInsert.preparedBatch(handle, table, columns);
+        }
+    }
+
+    /**
+     * Inserts rows that other rows reference and returns their IDs in the order of the passed rows.
+     */
+    private List<Long> insertParents(Handle handle,
+                                     String table,
+                                     String[] columns,
+                                     List<Object[]> rows,
+                                     Map<String, Integer> counts) {
+        if (rows.isEmpty()) {
+            return Lists.newArrayList();
+        }
+
+        List<Long> ids;
+        switch (mode) {
+            case COPY:
+                ids = handle.createQuery("SELECT nextval(pg_get_serial_sequence(:table, 'id')) " +
+                                "FROM generate_series(1, :count)")
+                        .bind("table", table)
+                        .bind("count", rows.size())
+                        .mapTo(Long.class)
+                        .list();
+
+                String[] columnsWithId = new String[columns.length + 1];
+                columnsWithId[0] = "id";
+                System.arraycopy(columns, 0, columnsWithId, 1, columns.length);
+
+                BulkInsert insert = BulkInsert.copy(handle, table, columnsWithId);
+                for (int i = 0; i < rows.size(); i++) {
+                    Object[] row = new Object[columnsWithId.length];
+                    row[0] = ids.get(i);
+                    System.arraycopy(rows.get(i), 0, row, 1, columns.length);
+
+                    insert.add(row);
+                }
+
+                execute(insert, counts);
+                break;
+            case BATCH:
+            default:
+                PreparedBatchBulkInsert batch = new PreparedBatchBulkInsert(handle, table, columns);
+                for (Object[] row : rows) {
+                    batch.add(row);
+                }
+
+                /*
+                 * PostgreSQL returns the generated keys of a batch in the order the rows were added. We rely on that
+                 * to match IDs back to their rows.
+                 */
+                ids = batch.executeReturningIds("id");
+                counts.merge(table, ids.size(), Integer::sum);
+        }
+
+        return ids;
+    }
+
+    private static void execute(BulkInsert insert, Map<String, Integer> counts) {
+        int rows = insert.execute();
+
+        if (rows > 0) {
+            counts.merge(insert.getTable(), rows, Integer::sum);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package app.nzyme.core.tables.dot11.monitoring;
+
+import app.nzyme.core.dot11.bandits.Dot11BanditDescription;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+
+/**
+ * Immutable view of all enabled monitored networks and bandits of a tenant, compiled once and shared by all
+ * 802.11 report processing until the monitoring configuration changes.
+ */
+@AutoValue
+public abstract class MonitoredNetworkSnapshot {
+
+    // Enabled monitored networks by SSID.
+    public abstract ImmutableMap<String, PreLoadedMonitoredSSID> monitoredSSIDs();
+
+    // Built-in and custom bandits by each of their fingerprints.
+    public abstract ImmutableListMultimap<String, Dot11BanditDescription> banditsByFingerprint();
+
+    public boolean isMonitoredSSID(String ssid) {
+        return monitoredSSIDs().containsKey(ssid);
+    }
+
+    public List<Dot11BanditDescription> findBanditsWithFingerprint(String fingerprint) {
+        return banditsByFingerprint().get(fingerprint);
+    }
+
+    public static MonitoredNetworkSnapshot create(ImmutableMap<String, PreLoadedMonitoredSSID> monitoredSSIDs,
+                                                  ImmutableListMultimap<String, Dot11BanditDescription> banditsByFingerprint) {
+        return builder()
+                .monitoredSSIDs(monitoredSSIDs)
+                .banditsByFingerprint(banditsByFingerprint)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new AutoValue_MonitoredNetworkSnapshot.Builder();
+    }
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract Builder monitoredSSIDs(ImmutableMap<String, PreLoadedMonitoredSSID> monitoredSSIDs);
+
+        public abstract Builder banditsByFingerprint(ImmutableListMultimap<String, Dot11BanditDescription> banditsByFingerprint);
+
+        public abstract MonitoredNetworkSnapshot build();
+    }
+
+}
@@ -0,0 +1,199 @@
+package app.nzyme.core.taps;
+
+import app.nzyme.core.NzymeNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-memory copy of all taps, with indexes by organization, tenant and floor. Taps are looked up for every report they
+ * send and in loops of the monitors, but there are only a few of them and they rarely change.
+ *
+ * The status fields of a tap change with every status report. The node that received a report updates the tap here,
+ * but the other nodes only see it after their next reload.
+ *
+ * UUIDs that were looked up in the database but don't exist are remembered until the next reload, so that unknown
+ * taps don't cause a database query for every lookup.
+ */
+public class TapCache {
+
+    private static final int MAX_AGE_SECONDS = 10;
+
+    private final NzymeNode nzyme;
+
+    private volatile Snapshot snapshot = null;
+
+    // Increased whenever the snapshot is replaced, so that a tap read before it was deleted is not added back.
+    private long generation = 0;
+
+    public TapCache(NzymeNode nzyme) {
+        this.nzyme = nzyme;
+    }
+
+    public Optional<Tap> findByUUID(UUID uuid) {
+        return Optional.ofNullable(getSnapshot().byUUID.get(uuid));
+    }
+
+    public List<Tap> findAll() {
+        return Lists.newArrayList(getSnapshot().byUUID.values());
+    }
+
+    public List<Tap> findAllOfOrganization(UUID organizationId) {
+        return Lists.newArrayList(getSnapshot().byOrganization.get(organizationId));
+    }
+
+    public List<Tap> findAllOfTenant(UUID organizationId, UUID tenantId) {
+        return Lists.newArrayList(getSnapshot().byTenant.get(Maps.immutableEntry(organizationId, tenantId)));
+    }
+
+    public List<Tap> findAllOnFloor(UUID locationId, UUID floorId) {
+        return Lists.newArrayList(getSnapshot().byFloor.get(TapManager.TapPositionKey.create(locationId, floorId)));
+    }
+
+    /**
+     * Returns true if the UUID was looked up in the database after the last reload and no tap was found.
+     */
+    public boolean isKnownMissing(UUID uuid) {
+        return getSnapshot().missing.contains(uuid);
+    }
+
+    /**
+     * The current generation. Must be read before reading a tap from the database, and passed to {@link #refresh}
+     * or {@link #markMissing} with the result.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Replaces a tap with a version that was just read from the database, or adds it if it is not known yet. Ignored
+     * if the cache was invalidated or reloaded since the given generation, because the tap might have been deleted
+     * in the meantime.
+     */
+    public synchronized void refresh(Tap tap, long loadedAtGeneration) {
+        Snapshot current = snapshot;
+        if (current == null || generation != loadedAtGeneration) {
+            return;
+        }
+
+        List<Tap> taps = Lists.newArrayList();
+        for (Tap existing : current.byUUID.values()) {
+            if (!existing.uuid().equals(tap.uuid())) {
+                taps.add(existing);
+            }
+        }
+        taps.add(tap);
+
+        Set<UUID> missing = Sets.newHashSet(current.missing);
+        missing.remove(tap.uuid());
+
+        snapshot = new Snapshot(taps, missing, current.loadedAt);
+    }
+
+    /**
+     * Remembers that there is no tap with the given UUID. Ignored if the cache was invalidated or reloaded since the
+     * given generation, because the tap might have been created in the meantime.
+     */
+    public synchronized void markMissing(UUID uuid, long loadedAtGeneration) {
+        Snapshot current = snapshot;
+        if (current == null || generation != loadedAtGeneration) {
+            return;
+        }
+
+        Set<UUID> missing = Sets.newHashSet(current.missing);
+        missing.add(uuid);
+
+        snapshot = new Snapshot(Lists.newArrayList(current.byUUID.values()), missing, current.loadedAt);
+    }
+
+    /*
+     * Synchronized with loading, so that a load that started before a tap changed can't replace the invalidation
+     * with outdated taps.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.isExpired()) {
+                List<Tap> taps = nzyme.getDatabase().withHandle(handle ->
+                        handle.createQuery("SELECT * FROM taps")
+                                .mapTo(Tap.class)
+                                .list()
+                );
+
+                current = new Snapshot(taps, ImmutableSet.of(), DateTime.now());
+                snapshot = current;
+                generation++;
+            }
+
+            return current;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final DateTime loadedAt;
+        private final Map<UUID, Tap> byUUID;
+        private final ImmutableListMultimap<UUID, Tap> byOrganization;
+        private final ImmutableListMultimap<Map.Entry<UUID, UUID>, Tap> byTenant;
+        private final ImmutableListMultimap<TapManager.TapPositionKey, Tap> byFloor;
+        private final Set<UUID> missing;
+
+        private Snapshot(List<Tap> taps, Set<UUID> missing, DateTime loadedAt) {
+            this.loadedAt = loadedAt;
+            this.missing = ImmutableSet.copyOf(missing);
+
+            ImmutableMap.Builder<UUID, Tap> byUUID = ImmutableMap.builder();
+            ImmutableListMultimap.Builder<UUID, Tap> byOrganization = ImmutableListMultimap.builder();
+            ImmutableListMultimap.Builder<Map.Entry<UUID, UUID>, Tap> byTenant = ImmutableListMultimap.builder();
+            ImmutableListMultimap.Builder<TapManager.TapPositionKey, Tap> byFloor = ImmutableListMultimap.builder();
+
+            for (Tap tap : ImmutableList.copyOf(taps)) {
+                byUUID.put(tap.uuid(), tap);
+
+                if (tap.organizationId() != null) {
+                    byOrganization.put(tap.organizationId(), tap);
+
+                    if (tap.tenantId() != null) {
+                        byTenant.put(Maps.immutableEntry(tap.organizationId(), tap.tenantId()), tap);
+                    }
+                }
+
+                if (tap.locationId() != null && tap.floorId() != null) {
+                    byFloor.put(TapManager.TapPositionKey.create(tap.locationId(), tap.floorId()), tap);
+                }
+            }
+
+            this.byUUID = byUUID.build();
+            this.byOrganization = byOrganization.build();
+            this.byTenant = byTenant.build();
+            this.byFloor = byFloor.build();
+        }
+
+        private boolean isExpired() {
+            return loadedAt.isBefore(DateTime.now().minusSeconds(MAX_AGE_SECONDS));
+        }
+
+    }
+
+}
@@ -1,18 +1,29 @@
 package app.nzyme.core.taps;
 
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.BulkInsert;
+import app.nzyme.core.database.DatabaseImpl;
 import app.nzyme.core.dot11.db.TapBasedSignalStrengthResult;
 import app.nzyme.core.floorplans.db.TenantLocationFloorEntry;
 import app.nzyme.core.rest.authentication.AuthenticatedUser;
 import app.nzyme.core.rest.resources.taps.reports.*;
+import app.nzyme.core.security.sessions.AuthenticatedSession;
 import app.nzyme.core.taps.db.metrics.*;
+import app.nzyme.core.util.MetricNames;
+import app.nzyme.plugin.distributed.messaging.ClusterMessage;
+import app.nzyme.plugin.distributed.messaging.MessageType;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import jakarta.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.joda.time.DateTime;
 
 import java.util.*;
@@ -25,26 +36,39 @@ public class TapManager {
 
     private final NzymeNode nzyme;
 
+    private final TapCache taps;
+
     public TapManager(NzymeNode nzyme) {
         this.nzyme = nzyme;
+        this.taps = new TapCache(nzyme);
+    }
 
+    public void initialize() {
         Executors.newSingleThreadScheduledExecutor(
                 new ThreadFactoryBuilder()
                         .setNameFormat("taps-cleaner-%d")
                         .setDaemon(true)
                         .build()
-        ).scheduleAtFixedRate(this::retentionCleanMetrics, 0, 5, TimeUnit.MINUTES);
+        ).scheduleAtFixedRate(() -> {
+            retentionCleanMetrics();
+            removeStatusTimersOfDeletedTaps();
+        }, 0, 5, TimeUnit.MINUTES);
     }
 
     public void registerTapStatus(StatusReport report, String remoteAddress, UUID tapUUID) {
         LOG.debug("Registering report from tap [{}].", tapUUID);
 
-        nzyme.getDatabase().useHandle(handle ->
-                handle.createUpdate("UPDATE taps SET version = :version, clock = :clock, " +
+        Timer timer = nzyme.getMetrics().timer(statusTimerName(tapUUID));
+        try (Timer.Context ignored = timer.time()) {
+            // The tap could be deleted while the report is written. Don't add it back to the cache in that case.
+            long generation = taps.getGeneration();
+
+            Optional<Tap> updatedTap = nzyme.getDatabase().withHandle(handle -> handle.inTransaction(tx -> {
+                Optional<Tap> tap = tx.createQuery("UPDATE taps SET version = :version, clock = :clock, " +
                                 "processed_bytes_total = :processed_bytes_total, " +
                                 "processed_bytes_average = :processed_bytes_average, memory_total = :memory_total, " +
                                 "memory_free = :memory_free, memory_used = :memory_used, cpu_load = :cpu_load, " +
-                                "remote_address = :remote_address, last_report = NOW() WHERE uuid = :uuid")
+                                "remote_address = :remote_address, last_report = NOW() WHERE uuid = :uuid RETURNING *")
                         .bind("version", report.version())
                         .bind("clock", report.timestamp())
                         .bind("processed_bytes_total", report.processedBytes().total())
@@ -55,54 +79,70 @@ public class TapManager {
                         .bind("cpu_load", report.systemMetrics().cpuLoad())
                         .bind("remote_address", remoteAddress)
                         .bind("uuid", tapUUID)
-                        .execute()
-        );
+                        .mapTo(Tap.class)
+                        .findOne();
 
-        // Register captures.
-        for (CapturesReport capture : report.captures()) {
-            long captureCount = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT COUNT(*) AS count FROM tap_captures " +
-                                    "WHERE interface = :interface AND tap_uuid = :tap_uuid")
-                            .bind("interface", capture.interfaceName())
-                            .bind("tap_uuid",  tapUUID)
-                            .mapTo(Long.class)
-                            .one()
-            );
+                BulkInsert gauges = BulkInsert.multiRow(tx, "tap_metrics_gauges",
+                        "tap_uuid", "metric_name", "metric_value", "created_at");
 
-            if (captureCount == 0) {
-                nzyme.getDatabase().withHandle(handle ->
-                    handle.createUpdate("INSERT INTO tap_captures(tap_uuid, interface, capture_type, is_running, " +
-                            "received, dropped_buffer, dropped_interface, updated_at, created_at) VALUES(:tap_uuid, " +
-                            ":interface, :capture_type, :is_running, :received, :dropped_buffer, :dropped_interface, " +
-                            "NOW(), NOW())")
-                            .bind("tap_uuid", tapUUID)
-                            .bind("interface", capture.interfaceName())
-                            .bind("capture_type", capture.captureType())
-                            .bind("is_running", capture.isRunning())
-                            .bind("received", capture.received())
-                            .bind("dropped_buffer", capture.droppedBuffer())
-                            .bind("dropped_interface", capture.droppedInterface())
-                            .execute()
-                );
-            } else {
-                nzyme.getDatabase().withHandle(handle ->
-                        handle.createUpdate("UPDATE tap_captures SET capture_type = :capture_type, " +
-                                "is_running = :is_running, received = :received, dropped_buffer = :dropped_buffer, " +
-                                "dropped_interface = :dropped_interface, updated_at = NOW() " +
-                                "WHERE tap_uuid = :tap_uuid AND interface = :interface")
-                                .bind("capture_type", capture.captureType())
-                                .bind("is_running", capture.isRunning())
-                                .bind("received", capture.received())
-                                .bind("dropped_buffer", capture.droppedBuffer())
-                                .bind("dropped_interface", capture.droppedInterface())
-                                .bind("tap_uuid", tapUUID)
-                                .bind("interface", capture.interfaceName())
-                                .execute()
-                );
-            }
+                registerCaptures(tx, gauges, tapUUID, report);
+                registerBuses(tx, gauges, tapUUID, report);
+
+                // Gauges.
+                for (Map.Entry<String, Long> metric : report.gaugesLong().entrySet()) {
+                    writeGauge(gauges, tapUUID, metric.getKey(), metric.getValue(), report.timestamp());
+                }
+
+                // Additional metrics.
+                writeGauge(gauges, tapUUID, "system.captures.throughput_bit_sec", report.processedBytes().average()*8/10, report.timestamp());
+                writeGauge(gauges, tapUUID, "os.memory.bytes_used", report.systemMetrics().memoryTotal()-report.systemMetrics().memoryFree(), report.timestamp());
+                writeGauge(gauges, tapUUID, "os.cpu.load.percent", report.systemMetrics().cpuLoad(), report.timestamp());
+
+                gauges.execute();
+
+                // Timers.
+                BulkInsert timers = BulkInsert.multiRow(tx, "tap_metrics_timers",
+                        "tap_uuid", "metric_name", "mean", "p99", "created_at");
+                DateTime now = DateTime.now();
+                for (Map.Entry<String, TimersReport> t : report.timers().entrySet()) {
+                    timers.add(tapUUID, t.getKey(), t.getValue().mean(), t.getValue().p99(), now);
+                }
+
+                timers.execute();
+
+                return tap;
+            }));
+
+            updatedTap.ifPresent(tap -> taps.refresh(tap, generation));
+        }
+    }
+
+    private void registerCaptures(Handle handle, BulkInsert gauges, UUID tapUUID, StatusReport report) {
+        if (report.captures().isEmpty()) {
+            return;
+        }
+
+        PreparedBatch batch = handle.prepareBatch("INSERT INTO tap_captures(tap_uuid, interface, capture_type, " +
+                "is_running, received, dropped_buffer, dropped_interface, updated_at, created_at) VALUES(:tap_uuid, " +
+                ":interface, :capture_type, :is_running, :received, :dropped_buffer, :dropped_interface, " +
+                "NOW(), NOW()) ON CONFLICT(tap_uuid, interface) DO UPDATE SET " +
+                "capture_type = EXCLUDED.capture_type, is_running = EXCLUDED.is_running, " +
+                "received = EXCLUDED.received, dropped_buffer = EXCLUDED.dropped_buffer, " +
+                "dropped_interface = EXCLUDED.dropped_interface, updated_at = NOW()");
+
+        for (CapturesReport capture : report.captures()) {
+            batch.bind("tap_uuid", tapUUID)
+                    .bind("interface", capture.interfaceName())
+                    .bind("capture_type", capture.captureType())
+                    .bind("is_running", capture.isRunning())
+                    .bind("received", capture.received())
+                    .bind("dropped_buffer", capture.droppedBuffer())
+                    .bind("dropped_interface", capture.droppedInterface())
+                    .add();
 
             // Capture metrics.
             writeGauge(
+                    gauges,
                     tapUUID,
                     "captures." + capture.interfaceName().toLowerCase() + ".received",
                     capture.received(),
@@ -110,6 +150,7 @@ public class TapManager {
             );
 
             writeGauge(
+                    gauges,
                     tapUUID,
                     "captures." + capture.interfaceName().toLowerCase() + ".dropped_if",
                     capture.droppedInterface(),
@@ -117,6 +158,7 @@ public class TapManager {
             );
 
             writeGauge(
+                    gauges,
                     tapUUID,
                     "captures." + capture.interfaceName().toLowerCase() + ".dropped_buffer",
                     capture.droppedBuffer(),
@@ -124,99 +166,49 @@ public class TapManager {
             );
         }
 
-        // Register buses.
-        for (BusReport bus : report.buses()) {
-            long busCount = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT COUNT(*) AS count FROM tap_buses " +
-                                    "WHERE tap_uuid = :tap_uuid AND name = :name")
-                            .bind("tap_uuid", tapUUID)
-                            .bind("name", bus.name())
-                            .mapTo(Long.class)
-                            .one()
-            );
+        batch.execute();
+    }
 
-            if (busCount == 0) {
-                nzyme.getDatabase().useHandle(handle ->
-                        handle.createUpdate("INSERT INTO tap_buses(tap_uuid, name, created_at, updated_at) " +
-                                        "VALUES(:tap_uuid, :name, NOW(), NOW())")
-                                .bind("tap_uuid", tapUUID)
-                                .bind("name", bus.name())
-                                .execute()
-                );
-            } else {
-                nzyme.getDatabase().useHandle(handle ->
-                        handle.createUpdate("UPDATE tap_buses SET updated_at = NOW() " +
-                                        "WHERE tap_uuid = :tap_uuid AND name = :name")
-                                .bind("tap_uuid", tapUUID)
-                                .bind("name", bus.name())
-                                .execute()
-                );
-            }
+    private void registerBuses(Handle handle, BulkInsert gauges, UUID tapUUID, StatusReport report) {
+        PreparedBatch channels = handle.prepareBatch("INSERT INTO bus_channels(name, bus_id, capacity, watermark, " +
+                "errors_total, errors_average, throughput_bytes_total, throughput_bytes_average, " +
+                "throughput_messages_total, throughput_messages_average, created_at, updated_at) " +
+                "VALUES(:name, :bus_id, :capacity, :watermark, :errors_total, :errors_average, " +
+                ":throughput_bytes_total, :throughput_bytes_average, :throughput_messages_total, " +
+                ":throughput_messages_average, NOW(), NOW()) ON CONFLICT(bus_id, name) DO UPDATE SET " +
+                "capacity = EXCLUDED.capacity, watermark = EXCLUDED.watermark, " +
+                "errors_total = EXCLUDED.errors_total, errors_average = EXCLUDED.errors_average, " +
+                "throughput_bytes_total = EXCLUDED.throughput_bytes_total, " +
+                "throughput_bytes_average = EXCLUDED.throughput_bytes_average, " +
+                "throughput_messages_total = EXCLUDED.throughput_messages_total, " +
+                "throughput_messages_average = EXCLUDED.throughput_messages_average, updated_at = NOW()");
 
-            Long busId = nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT id FROM tap_buses WHERE tap_uuid = :tap_uuid AND name = :name")
-                            .bind("tap_uuid", tapUUID)
-                            .bind("name", bus.name())
-                            .mapTo(Long.class)
-                            .one()
-            );
+        for (BusReport bus : report.buses()) {
+            long busId = handle.createQuery("INSERT INTO tap_buses(tap_uuid, name, created_at, updated_at) " +
+                            "VALUES(:tap_uuid, :name, NOW(), NOW()) " +
+                            "ON CONFLICT(tap_uuid, name) DO UPDATE SET updated_at = NOW() RETURNING id")
+                    .bind("tap_uuid", tapUUID)
+                    .bind("name", bus.name())
+                    .mapTo(Long.class)
+                    .one();
 
             // Register bus channels.
             for (ChannelReport channel : bus.channels()) {
-                long channelCount = nzyme.getDatabase().withHandle(handle ->
-                        handle.createQuery("SELECT COUNT(*) AS count FROM bus_channels " +
-                                        "WHERE bus_id = :bus_id AND name = :channel_name")
-                                .bind("bus_id", busId)
-                                .bind("channel_name", channel.name())
-                                .mapTo(Long.class)
-                                .one()
-                );
-
-                if (channelCount == 0) {
-                    nzyme.getDatabase().withHandle(handle ->
-                            handle.createUpdate("INSERT INTO bus_channels(name, bus_id, capacity, watermark, errors_total, " +
-                                            "errors_average, throughput_bytes_total, throughput_bytes_average, " +
-                                            "throughput_messages_total, throughput_messages_average, created_at, updated_at) " +
-                                            "VALUES(:name, :bus_id, :capacity, :watermark, :errors_total, :errors_average, " +
-                                            ":throughput_bytes_total, :throughput_bytes_average, :throughput_messages_total, " +
-                                            ":throughput_messages_average, NOW(), NOW())")
-                                    .bind("name", channel.name())
-                                    .bind("bus_id", busId)
-                                    .bind("capacity", channel.capacity())
-                                    .bind("watermark", channel.watermark())
-                                    .bind("errors_total", channel.errors().total())
-                                    .bind("errors_average", channel.errors().average())
-                                    .bind("throughput_bytes_total", channel.throughputBytes().total())
-                                    .bind("throughput_bytes_average", channel.throughputBytes().average())
-                                    .bind("throughput_messages_total", channel.throughputMessages().total())
-                                    .bind("throughput_messages_average", channel.throughputMessages().average())
-                                    .execute()
-                    );
-                } else {
-                    nzyme.getDatabase().withHandle(handle ->
-                            handle.createUpdate("UPDATE bus_channels SET capacity = :capacity, watermark = :watermark, " +
-                                            "errors_total = :errors_total, errors_average = :errors_average, " +
-                                            "throughput_bytes_total = :throughput_bytes_total, " +
-                                            "throughput_bytes_average = :throughput_bytes_average, " +
-                                            "throughput_messages_total = :throughput_messages_total, " +
-                                            "throughput_messages_average = :throughput_messages_average, " +
-                                            "updated_at = NOW() WHERE bus_id = :bus_id AND name = :name")
-                                    .bind("name", channel.name())
-                                    .bind("bus_id", busId)
-                                    .bind("capacity", channel.capacity())
-                                    .bind("watermark", channel.watermark())
-                                    .bind("errors_total", channel.errors().total())
-                                    .bind("errors_average", channel.errors().average())
-                                    .bind("throughput_bytes_total", channel.throughputBytes().total())
-                                    .bind("throughput_bytes_average", channel.throughputBytes().average())
-                                    .bind("throughput_messages_total", channel.throughputMessages().total())
-                                    .bind("throughput_messages_average", channel.throughputMessages().average())
-                                    .execute()
-                    );
-                }
+                channels.bind("name", channel.name())
+                        .bind("bus_id", busId)
+                        .bind("capacity", channel.capacity())
+                        .bind("watermark", channel.watermark())
+                        .bind("errors_total", channel.errors().total())
+                        .bind("errors_average", channel.errors().average())
+                        .bind("throughput_bytes_total", channel.throughputBytes().total())
+                        .bind("throughput_bytes_average", channel.throughputBytes().average())
+                        .bind("throughput_messages_total", channel.throughputMessages().total())
+                        .bind("throughput_messages_average", channel.throughputMessages().average())
+                        .add();
 
                 // Capture metrics.
                 writeGauge(
+                        gauges,
                         tapUUID,
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".usage",
                         channel.watermark(),
@@ -224,6 +216,7 @@ public class TapManager {
                 );
 
                 writeGauge(
+                        gauges,
                         tapUUID,
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".usage_percent",
                         channel.watermark() > 0 ? channel.watermark()*100/channel.capacity() : 0,
@@ -231,6 +224,7 @@ public class TapManager {
                 );
 
                 writeGauge(
+                        gauges,
                         tapUUID,
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".throughput_messages",
                         channel.throughputMessages().average()/10,
@@ -238,6 +232,7 @@ public class TapManager {
                 );
 
                 writeGauge(
+                        gauges,
                         tapUUID,
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".throughput_bytes",
                         channel.throughputBytes().average()/10,
@@ -245,6 +240,7 @@ public class TapManager {
                 );
 
                 writeGauge(
+                        gauges,
                         tapUUID,
                         "channels." + bus.name().toLowerCase() + "." + channel.name().toLowerCase() + ".errors",
                         channel.errors().average()/10,
@@ -253,64 +249,48 @@ public class TapManager {
             }
         }
 
-        // Gauges.
-        for (Map.Entry<String, Long> metric : report.gaugesLong().entrySet()) {
-            writeGauge(tapUUID, metric.getKey(), metric.getValue(), report.timestamp());
-        }
-
-        // Timers.
-        for (Map.Entry<String, TimersReport> timer : report.timers().entrySet()) {
-            writeTimer(tapUUID, timer.getKey(), timer.getValue().mean(), timer.getValue().p99(), report.timestamp());
+        if (channels.size() > 0) {
+            channels.execute();
         }
+    }
 
-
-        // Additional metrics.
-        writeGauge(tapUUID, "system.captures.throughput_bit_sec", report.processedBytes().average()*8/10, report.timestamp());
-        writeGauge(tapUUID, "os.memory.bytes_used", report.systemMetrics().memoryTotal()-report.systemMetrics().memoryFree(), report.timestamp());
-        writeGauge(tapUUID, "os.cpu.load.percent", report.systemMetrics().cpuLoad(), report.timestamp());
+    private void writeGauge(BulkInsert gauges, UUID tapUUID, String metricName, double metricValue, DateTime timestamp) {
+        gauges.add(tapUUID, metricName, metricValue, timestamp);
     }
 
-    private void writeGauge(UUID tapUUID, String metricName, Long metricValue, DateTime timestamp) {
-        writeGauge(tapUUID, metricName, metricValue.doubleValue(), timestamp);
+    /**
+     * Removes the status timer of a deleted tap from the metric registry of this node. Other nodes remove it with
+     * their next metrics cleaning.
+     */
+    public void removeStatusTimer(UUID tapUUID) {
+        nzyme.getMetrics().remove(statusTimerName(tapUUID));
     }
 
-    private void writeGauge(UUID tapUUID, String metricName, Double metricValue, DateTime timestamp) {
-        nzyme.getDatabase().withHandle(handle ->
-                handle.createUpdate("INSERT INTO tap_metrics_gauges(tap_uuid, metric_name, metric_value, created_at) " +
-                                "VALUES(:tap_uuid, :metric_name, :metric_value, :timestamp)")
-                        .bind("tap_uuid", tapUUID)
-                        .bind("metric_name", metricName)
-                        .bind("metric_value", metricValue)
-                        .bind("timestamp", timestamp)
-                        .execute()
+    /*
+     * Status timers are registered per tap on the node that received the status. A tap that was deleted on another
+     * node would keep its timer here forever.
+     */
+    void removeStatusTimersOfDeletedTaps() {
+        Set<String> timerNames = Sets.newHashSet();
+        for (Tap tap : taps.findAll()) {
+            timerNames.add(statusTimerName(tap.uuid()));
+        }
+
+        nzyme.getMetrics().removeMatching((name, metric) ->
+                name.startsWith(MetricNames.TAP_STATUS_TIMING + ".") && !timerNames.contains(name)
         );
     }
 
-    private void writeTimer(UUID tapUUID, String metricName, double mean, double p99, DateTime timestamp) {
-        nzyme.getDatabase().withHandle(handle ->
-                handle.createUpdate("INSERT INTO tap_metrics_timers(tap_uuid, metric_name, mean, p99, created_at) " +
-                                "VALUES(:tap_uuid, :metric_name, :mean, :p99, NOW())")
-                        .bind("tap_uuid", tapUUID)
-                        .bind("metric_name", metricName)
-                        .bind("mean", mean)
-                        .bind("p99", p99)
-                        .bind("timestamp", timestamp)
-                        .execute()
-        );
+    static String statusTimerName(UUID tapUUID) {
+        return MetricRegistry.name(MetricNames.TAP_STATUS_TIMING, tapUUID.toString());
     }
 
     private void retentionCleanMetrics() {
-        nzyme.getDatabase().useHandle(handle -> {
-            handle.createUpdate("DELETE FROM tap_metrics_gauges WHERE created_at < :created_at")
-                    .bind("created_at", DateTime.now().minusHours(24))
-                    .execute();
-        });
-
-        nzyme.getDatabase().useHandle(handle -> {
-            handle.createUpdate("DELETE FROM tap_metrics_timers WHERE created_at < :created_at")
-                    .bind("created_at", DateTime.now().minusHours(24))
-                    .execute();
-        });
+        DatabaseImpl database = (DatabaseImpl) nzyme.getDatabase();
+        DateTime cutoff = DateTime.now().minusHours(24);
+
+        database.dropPartitionsBefore("tap_metrics_gauges", cutoff);
+        database.dropPartitionsBefore("tap_metrics_timers", cutoff);
     }
 
 
@@ -319,91 +299,53 @@ public class TapManager {
             return Collections.emptyList();
         }
 
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM taps WHERE uuid IN (<ids>) " +
-                                "ORDER BY name ASC")
-                        .bindList("ids", tapIds)
-                        .mapTo(Tap.class)
-                        .list()
-        );
+        List<Tap> result = Lists.newArrayList();
+        for (UUID tapId : Sets.newHashSet(tapIds)) {
+            taps.findByUUID(tapId).ifPresent(result::add);
+        }
+
+        result.sort(Comparator.comparing(Tap::name));
+
+        return result;
     }
 
     public List<Tap> findAllTapsOfAllUsers() {
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM taps")
-                        .mapTo(Tap.class)
-                        .list()
-        );
+        return taps.findAll();
     }
 
     public List<Tap> findAllTapsOfOrganization(UUID organizationUUID) {
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM taps WHERE organization_id = :organization_uuid")
-                        .bind("organization_uuid", organizationUUID)
-                        .mapTo(Tap.class)
-                        .list()
-        );
+        return taps.findAllOfOrganization(organizationUUID);
     }
 
     public List<Tap> findAllTapsOfTenant(UUID organizationUUID, UUID tenantUUID) {
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM taps WHERE organization_id = :organization_uuid " +
-                                "AND tenant_id = :tenant_uuid")
-                        .bind("organization_uuid", organizationUUID)
-                        .bind("tenant_uuid", tenantUUID)
-                        .mapTo(Tap.class)
-                        .list()
-        );
+        return taps.findAllOfTenant(organizationUUID, tenantUUID);
     }
 
     public List<Tap> findAllTapsOnFloor(UUID organizationUUID, UUID tenantUUID, UUID locationUUID, UUID floorUUID) {
-        if (organizationUUID == null && tenantUUID == null) {
-            return nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT * FROM taps " +
-                                    "WHERE location_uuid = :location_uuid AND floor_uuid = :floor_uuid")
-                            .bind("location_uuid", locationUUID)
-                            .bind("floor_uuid", floorUUID)
-                            .mapTo(Tap.class)
-                            .list()
-            );
-        }
-
-        if (organizationUUID != null && tenantUUID == null) {
-            // Org Admin.
-            return nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT * FROM taps WHERE organization_id = :organization_uuid " +
-                                    "AND location_uuid = :location_uuid AND floor_uuid = :floor_uuid")
-                            .bind("organization_uuid", organizationUUID)
-                            .bind("location_uuid", locationUUID)
-                            .bind("floor_uuid", floorUUID)
-                            .mapTo(Tap.class)
-                            .list()
-            );
+        List<Tap> result = Lists.newArrayList();
+        for (Tap tap : taps.findAllOnFloor(locationUUID, floorUUID)) {
+            if (organizationUUID == null && tenantUUID == null) {
+                // Super Admin.
+                result.add(tap);
+            } else if (organizationUUID != null && tenantUUID == null) {
+                // Org Admin.
+                if (organizationUUID.equals(tap.organizationId())) {
+                    result.add(tap);
+                }
+            } else {
+                // Tenant user.
+                if (Objects.equals(organizationUUID, tap.organizationId()) && tenantUUID.equals(tap.tenantId())) {
+                    result.add(tap);
+                }
+            }
         }
 
-        // Tenant user.
-        return nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT * FROM taps WHERE organization_id = :organization_uuid " +
-                                "AND tenant_id = :tenant_uuid AND location_uuid = :location_uuid " +
-                                "AND floor_uuid = :floor_uuid")
-                        .bind("organization_uuid", organizationUUID)
-                        .bind("tenant_uuid", tenantUUID)
-                        .bind("location_uuid", locationUUID)
-                        .bind("floor_uuid", floorUUID)
-                        .mapTo(Tap.class)
-                        .list()
-        );
+        return result;
     }
 
     public List<UUID> allTapUUIDsAccessibleByUser(AuthenticatedUser user) {
-        List<UUID> allTaps = nzyme.getDatabase().withHandle(handle ->
-                handle.createQuery("SELECT uuid FROM taps")
-                        .mapTo(UUID.class)
-                        .list()
-        );
-
         if (user.isSuperAdministrator()) {
-            return allTaps;
+            return tapUUIDs(findAllTapsOfAllUsers());
         }
 
         if (user.isOrganizationAdministrator()) {
@@ -411,12 +353,7 @@ public class TapManager {
                 throw new RuntimeException("NULL organization ID.");
             }
 
-            return nzyme.getDatabase().withHandle(handle ->
-                    handle.createQuery("SELECT uuid FROM taps WHERE organization_id = :organization_id")
-                            .bind("organization_id", user.getOrganizationId())
-                            .mapTo(UUID.class)
-                            .list()
-            );
+            return tapUUIDs(findAllTapsOfOrganization(user.getOrganizationId()));
         }
 
         // User is tenant user, check that it has required fields.
@@ -425,19 +362,14 @@ public class TapManager {
         }
 
         // Get taps from user permissions.
-        List<UUID> tapPermissions = nzyme.getAuthenticationService().findTapPermissionsOfUser(user.getUserId());
+        List<UUID> tapPermissions = nzyme.getAuthenticationService().findCachedAuthenticatedSession(user.getSessionId())
+                .map(AuthenticatedSession::tapPermissions)
+                .orElseGet(() -> nzyme.getAuthenticationService().findTapPermissionsOfUser(user.getUserId()));
 
         if (tapPermissions.isEmpty()) {
             // User has no specific tap permissions. Check if all taps are allowed.
             if (user.accessAllTenantTaps) {
-                return nzyme.getDatabase().withHandle(handle ->
-                        handle.createQuery("SELECT uuid FROM taps " +
-                                        "WHERE organization_id = :organization_id AND tenant_id = :tenant_id")
-                                .bind("organization_id", user.getOrganizationId())
-                                .bind("tenant_id", user.getTenantId())
-                                .mapTo(UUID.class)
-                                .list()
-                );
+                return tapUUIDs(findAllTapsOfTenant(user.getOrganizationId(), user.getTenantId()));
             } else {
                 // User is not allowed to use all taps and has no specific tap permissions.
                 return Collections.emptyList();
@@ -446,7 +378,7 @@ public class TapManager {
             // Return only specifically allowed taps.
             List<UUID> validatedTaps = Lists.newArrayList();
             for (UUID permission : tapPermissions) {
-                if (allTaps.contains(permission)) {
+                if (taps.findByUUID(permission).isPresent()) {
                     validatedTaps.add(permission);
                 }
             }
@@ -456,33 +388,66 @@ public class TapManager {
     }
 
     public List<UUID> allTapUUIDsAccessibleByScope(@Nullable UUID organizationId, @Nullable UUID tenantId) {
-        List<Tap> taps = Lists.newArrayList();
         if (organizationId == null && tenantId == null) {
             // Super Admin.
-            taps = findAllTapsOfAllUsers();
+            return tapUUIDs(findAllTapsOfAllUsers());
         } else if (organizationId != null && tenantId == null) {
             // Organization Admin.
-            taps = findAllTapsOfOrganization(organizationId);
+            return tapUUIDs(findAllTapsOfOrganization(organizationId));
         } else {
             // Tenant User.
-            taps = findAllTapsOfTenant(organizationId, tenantId);
-        }
-
-        List<UUID> tapUUIDs = Lists.newArrayList();
-        for (Tap tap : taps) {
-            tapUUIDs.add(tap.uuid());
+            return tapUUIDs(findAllTapsOfTenant(organizationId, tenantId));
         }
-
-        return tapUUIDs;
     }
 
     public Optional<Tap> findTap(UUID uuid) {
-        return nzyme.getDatabase().withHandle(handle ->
+        Optional<Tap> cached = taps.findByUUID(uuid);
+        if (cached.isPresent() || taps.isKnownMissing(uuid)) {
+            return cached;
+        }
+
+        // The tap might have been created on another node after the cache was loaded.
+        long generation = taps.getGeneration();
+        Optional<Tap> tap = nzyme.getDatabase().withHandle(handle ->
                 handle.createQuery("SELECT * FROM taps WHERE uuid = :uuid")
                         .bind("uuid", uuid)
                         .mapTo(Tap.class)
                         .findOne()
         );
+
+        if (tap.isPresent()) {
+            taps.refresh(tap.get(), generation);
+        } else {
+            taps.markMissing(uuid, generation);
+        }
+
+        return tap;
+    }
+
+    /**
+     * Drops the cached taps of this node. Must be called after taps were created, changed or deleted.
+     */
+    public void invalidateTaps() {
+        taps.invalidate();
+    }
+
+    public void invalidateTapsOfCluster() {
+        invalidateTaps();
+
+        nzyme.getMessageBus().sendToAllOnlineNodes(ClusterMessage.create(
+                MessageType.INVALIDATE_CACHE,
+                Map.of("cache_type", "taps"),
+                false
+        ));
+    }
+
+    private static List<UUID> tapUUIDs(List<Tap> taps) {
+        List<UUID> uuids = Lists.newArrayList();
+        for (Tap tap : taps) {
+            uuids.add(tap.uuid());
+        }
+
+        return uuids;
     }
 
     public List<TapMetricsGauge> findGaugesOfTap(UUID tapUUID) {
@@ -24,6 +24,12 @@ import app.nzyme.core.integrations.geoip.GeoIpService;
 import app.nzyme.core.ouis.OUIManager;
 import app.nzyme.core.rest.interceptors.TapTableSizeInterceptor;
 import app.nzyme.core.security.authentication.PasswordHasher;
+import app.nzyme.core.tables.RetentionCleaner;
+import app.nzyme.core.tables.TableIngestQueue;
+import app.nzyme.core.tables.dns.DNSTable;
+import app.nzyme.core.tables.dot11.Dot11Table;
+import app.nzyme.core.tables.dot11.Dot11TableWriter;
+import app.nzyme.core.taps.TapManager;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
@@ -31,6 +37,11 @@ public class MetricNames {
 
     public static final String OUI_LOOKUP_TIMING = name(OUIManager.class, "lookup-timing");
     public static final String DATABASE_SIZE = name(DatabaseImpl.class, "size");
+    public static final String DATABASE_POOL = name(DatabaseImpl.class, "connections");
+    public static final String DATABASE_REPLICA_POOL = name(DatabaseImpl.class, "replica-connections");
+    public static final String DATABASE_REPLICA_LAG = name(DatabaseImpl.class, "replica-lag");
+    public static final String DATABASE_QUERIES = name(DatabaseImpl.class, "queries");
+    public static final String RETENTION_CLEANING = name(RetentionCleaner.class, "tables");
     public static final String GEOIP_CACHE_SIZE = name(GeoIpService.class, "cache-size");
     public static final String PGP_ENCRYPTION_TIMING = name(Crypto.class, "encryption-timing");
     public static final String PGP_DECRYPTION_TIMING = name(Crypto.class, "decryption-timing");
@@ -38,5 +49,18 @@ public class MetricNames {
     public static final String TAP_TABLE_REQUEST_SIZES = name(TapTableSizeInterceptor.class, "request_size");
     public static final String CONTEXT_MAC_CACHE_SIZE = name(ContextService.class, "mac-cache-size");
     public static final String CONTEXT_MAC_LOOKUP_TIMING = name(ContextService.class, "mac-lookup-timing");
+    public static final String TAP_STATUS_TIMING = name(TapManager.class, "status-timing");
+    public static final String DOT11_TABLE_WRITE_TIMING = name(Dot11TableWriter.class, "write-timing");
+    public static final String DOT11_TABLE_WRITE_ROWS = name(Dot11TableWriter.class, "write-rows");
+    public static final String DOT11_TABLE_DETECTION_TIMING = name(Dot11Table.class, "detection-timing");
+    public static final String DOT11_TABLE_DETECTION_FAILURES = name(Dot11Table.class, "detection-failures");
+    public static final String DOT11_TABLE_ALERT_TIMING = name(Dot11Table.class, "alert-timing");
+    public static final String DOT11_INGEST_QUEUE_DEPTH = name(TableIngestQueue.class, "dot11", "queue-depth");
+    public static final String DOT11_INGEST_QUEUE_WAIT_TIMING = name(TableIngestQueue.class, "dot11", "wait-timing");
+    public static final String DOT11_INGEST_QUEUE_REJECTIONS = name(TableIngestQueue.class, "dot11", "rejections");
+    public static final String DNS_TABLE_WRITE_TIMING = name(DNSTable.class, "write-timing");
+    public static final String DNS_INGEST_QUEUE_DEPTH = name(TableIngestQueue.class, "dns", "queue-depth");
+    public static final String DNS_INGEST_QUEUE_WAIT_TIMING = name(TableIngestQueue.class, "dns", "wait-timing");
+    public static final String DNS_INGEST_QUEUE_REJECTIONS = name(TableIngestQueue.class, "dns", "rejections");
 
 }
@@ -20,6 +20,7 @@ package app.nzyme.core.configuration;
 import app.nzyme.core.configuration.node.NodeConfiguration;
 import app.nzyme.core.ResourcesAccessingTest;
 import app.nzyme.core.configuration.node.NodeConfigurationLoader;
+import app.nzyme.core.tables.dot11.Dot11WriteMode;
 import org.testng.annotations.Test;
 
 import java.io.File;
@@ -49,6 +50,12 @@ public class NzymeNodeConfigurationLoaderTest extends ResourcesAccessingTest {
         assertTrue(c.fetchOuis());
         assertTrue(c.versionchecksEnabled());
         assertEquals(c.restListenUri(), URI.create("https://127.0.0.1:23900/"));
+        assertEquals(c.dot11WriteMode(), Dot11WriteMode.BATCH);
+        assertFalse(c.dnsPreaggregate());
+        assertEquals(c.databasePool().maximumPoolSize(), 20);
+        assertEquals(c.databasePool().connectionTimeoutMs(), 30000);
+        assertFalse(c.databaseReplica().isPresent());
+        assertEquals(c.databaseRestStatementTimeoutSeconds(), 60);
     }
 
     @Test(expectedExceptions = IncompleteConfigurationException.class)
@@ -188,6 +188,33 @@ public class CryptoPGPTest {
         crypto.decryptWithClusterKey(encrypted);
     }
 
+    @Test
+    public void testDecryptionUsesReplacedKeysAfterInvalidation() throws Crypto.CryptoInitializationException, Crypto.CryptoOperationException, IOException {
+        Path privatePath = Paths.get(CryptoTestUtils.CRYPTO_TEST_FOLDER.toString(), Crypto.PGP_PRIVATE_KEY_FILE_NAME);
+        Path publicPath = Paths.get(CryptoTestUtils.CRYPTO_TEST_FOLDER.toString(), Crypto.PGP_PUBLIC_KEY_FILE_NAME);
+
+        NzymeNode mockNzyme = new MockNzyme();
+        Crypto crypto = new Crypto(mockNzyme);
+        crypto.initialize(false);
+
+        byte[] value = "IT IS A SECRET.".getBytes();
+        byte[] encryptedWithOldKey = crypto.encryptWithClusterKey(value);
+
+        // Replace the key files like a PGP key sync from another node would.
+        Crypto other = new Crypto(mockNzyme);
+        CryptoTestUtils.cleanDB();
+        privatePath.toFile().delete();
+        publicPath.toFile().delete();
+        other.initialize(false);
+
+        // Keys are held in memory until invalidated.
+        assertEquals(crypto.decryptWithClusterKey(encryptedWithOldKey), value);
+
+        crypto.invalidateClusterPGPKeys();
+        byte[] encryptedWithNewKey = other.encryptWithClusterKey(value);
+        assertEquals(crypto.decryptWithClusterKey(encryptedWithNewKey), value);
+    }
+
     @Test
     public void testGenerateSelfSignedTLSCertificate() throws Crypto.CryptoOperationException, IOException, InterruptedException {
         Crypto crypto = new Crypto(new MockNzyme());
@@ -0,0 +1,118 @@
+package app.nzyme.core.database;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class BulkInsertTest {
+
+    @Test
+    public void testCopyFormatsTimestampsInUTC() {
+        DateTime timestamp = new DateTime(2023, 6, 1, 10, 15, 30, 123, DateTimeZone.forOffsetHoursMinutes(5, 30));
+
+        assertEquals(CopyBulkInsert.formatTimestamp(timestamp), "2023-06-01 04:45:30.123+00:00");
+    }
+
+    @Test
+    public void testCopyTimestampRoundTrip() {
+        NzymeNode nzyme = new MockNzyme();
+        DateTime timestamp = new DateTime(2023, 6, 1, 10, 15, 30, 123, DateTimeZone.forOffsetHours(-7));
+
+        DateTime read = nzyme.getDatabase().withHandle(handle -> handle.inTransaction(tx -> {
+            tx.execute("CREATE TEMPORARY TABLE bulk_insert_test(value text, created_at timestamp with time zone) " +
+                    "ON COMMIT DROP");
+
+            BulkInsert insert = BulkInsert.copy(tx, "bulk_insert_test", "value", "created_at");
+            insert.add("a\ttab", timestamp);
+            assertEquals(insert.execute(), 1);
+
+            return tx.createQuery("SELECT created_at FROM bulk_insert_test WHERE value = :value")
+                    .bind("value", "a\ttab")
+                    .mapTo(DateTime.class)
+                    .one();
+        }));
+
+        assertEquals(read.getMillis(), timestamp.getMillis());
+    }
+
+    @Test
+    public void testCopyWritesRowsLargerThanOneChunk() {
+        NzymeNode nzyme = new MockNzyme();
+
+        // Multi-byte characters that end up split at chunk borders.
+        String value = "ä€\\\n".repeat(1000);
+        int rows = (CopyBulkInsert.CHUNK_SIZE * 3) / value.length() + 1;
+
+        List<String> read = nzyme.getDatabase().withHandle(handle -> handle.inTransaction(tx -> {
+            tx.execute("CREATE TEMPORARY TABLE bulk_insert_test(id integer, value text) ON COMMIT DROP");
+
+            BulkInsert insert = BulkInsert.copy(tx, "bulk_insert_test", "id", "value");
+            for (int i = 0; i < rows; i++) {
+                insert.add(i, value);
+            }
+            assertEquals(insert.execute(), rows);
+
+            return tx.createQuery("SELECT value FROM bulk_insert_test ORDER BY id")
+                    .mapTo(String.class)
+                    .list();
+        }));
+
+        assertEquals(read.size(), rows);
+        for (String s : read) {
+            assertEquals(s, value);
+        }
+    }
+
+    @Test
+    public void testMultiRowBuildsSingleStatement() {
+        MultiRowBulkInsert insert = new MultiRowBulkInsert(null, "bulk_insert_test", "value", "created_at");
+
+        assertEquals(insert.buildStatement(1), "INSERT INTO bulk_insert_test(value, created_at) VALUES (?, ?)");
+        assertEquals(insert.buildStatement(3),
+                "INSERT INTO bulk_insert_test(value, created_at) VALUES (?, ?), (?, ?), (?, ?)");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMultiRowRejectsWrongNumberOfValues() {
+        BulkInsert.multiRow(null, "bulk_insert_test", "value", "created_at").add("a");
+    }
+
+    @Test
+    public void testMultiRowWithoutRowsDoesNotExecute() {
+        // No handle. Executing a statement would fail.
+        assertEquals(BulkInsert.multiRow(null, "bulk_insert_test", "value", "created_at").execute(), 0);
+    }
+
+    @Test
+    public void testMultiRowSplitsAtParameterLimit() {
+        NzymeNode nzyme = new MockNzyme();
+
+        // Two columns allow 32767 rows per statement.
+        int rows = 40000;
+
+        long count = nzyme.getDatabase().withHandle(handle -> handle.inTransaction(tx -> {
+            tx.execute("CREATE TEMPORARY TABLE bulk_insert_test(value text, number bigint) ON COMMIT DROP");
+
+            BulkInsert insert = BulkInsert.multiRow(tx, "bulk_insert_test", "value", "number");
+            for (int i = 0; i < rows; i++) {
+                insert.add("row-" + i, (long) i);
+            }
+
+            assertEquals(insert.size(), rows);
+            assertEquals(insert.execute(), rows);
+
+            return tx.createQuery("SELECT COUNT(DISTINCT number) FROM bulk_insert_test")
+                    .mapTo(Long.class)
+                    .one();
+        }));
+
+        assertEquals(count, rows);
+    }
+
+}
@@ -2,13 +2,32 @@ package app.nzyme.core.database;
 
 import app.nzyme.core.MockNzyme;
 import app.nzyme.core.NzymeNode;
+import app.nzyme.core.configuration.node.DatabaseReplicaConfiguration;
+import app.nzyme.core.configuration.node.NodeConfiguration;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import java.util.Optional;
+import java.util.UUID;
+
 import static org.testng.Assert.*;
 
 public class DatabaseImplTest {
 
+    private final UUID tapUUID = UUID.randomUUID();
+
+    @AfterMethod
+    public void clean() {
+        new MockNzyme().getDatabase().useHandle(handle -> {
+            handle.createUpdate("DELETE FROM tap_metrics_gauges WHERE tap_uuid = :tap_uuid")
+                    .bind("tap_uuid", tapUUID)
+                    .execute();
+            handle.execute("DROP TABLE IF EXISTS tap_metrics_gauges_p2100010112");
+        });
+    }
+
     @Test
     public void testGetTotalSize() {
         NzymeNode nzyme = new MockNzyme();
@@ -23,4 +42,97 @@ public class DatabaseImplTest {
         assertTrue(nzyme.getDatabase().getDatabaseClock().isAfter(DateTime.now().minusHours(1)));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testUnreachableReplicaDoesNotFailStartup() throws Exception {
+        NodeConfiguration configuration = new MockNzyme().getConfiguration().toBuilder()
+                .databaseReplica(Optional.of(DatabaseReplicaConfiguration.create("postgresql://localhost:1/nzyme", 10)))
+                .build();
+
+        DatabaseImpl database = new DatabaseImpl(configuration);
+        try {
+            database.initializeAndMigrate();
+
+            assertTrue(database.isReplicaConfigured());
+            assertFalse(database.getReplicaLagSeconds().isPresent());
+
+            // Reads go to the primary while the replica can't be reached.
+            long result = database.withReadHandle(handle ->
+                    handle.createQuery("SELECT 1").mapTo(Long.class).one()
+            );
+            assertEquals(result, 1L);
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    public void testRowsOutsideOfPartitionsGoToDefaultPartition() {
+        DatabaseImpl database = (DatabaseImpl) new MockNzyme().getDatabase();
+        DateTime past = new DateTime(2000, 1, 1, 12, 30, DateTimeZone.UTC);
+        DateTime future = new DateTime(2100, 1, 1, 12, 30, DateTimeZone.UTC);
+
+        insertGauge(database, past);
+        insertGauge(database, future);
+
+        assertEquals(findPartitionOfGauge(database, past), "tap_metrics_gauges_default");
+        assertEquals(findPartitionOfGauge(database, future), "tap_metrics_gauges_default");
+    }
+
+    @Test
+    public void testCreatingPartitionMovesRowsOutOfDefaultPartition() {
+        DatabaseImpl database = (DatabaseImpl) new MockNzyme().getDatabase();
+        DateTime future = new DateTime(2100, 1, 1, 12, 30, DateTimeZone.UTC);
+
+        insertGauge(database, future);
+
+        int created = database.withHandle(handle ->
+                handle.createQuery("SELECT nzyme_create_hourly_partitions('tap_metrics_gauges', :from_time, 1)")
+                        .bind("from_time", future)
+                        .mapTo(Integer.class)
+                        .one()
+        );
+
+        assertEquals(created, 1);
+        assertEquals(findPartitionOfGauge(database, future), "tap_metrics_gauges_p2100010112");
+    }
+
+    @Test
+    public void testDroppingPartitionsCleansDefaultPartition() {
+        DatabaseImpl database = (DatabaseImpl) new MockNzyme().getDatabase();
+        DateTime past = new DateTime(2000, 1, 1, 12, 30, DateTimeZone.UTC);
+
+        insertGauge(database, past);
+        database.dropPartitionsBefore("tap_metrics_gauges", past.plusHours(1));
+
+        long count = database.withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM tap_metrics_gauges WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tapUUID)
+                        .mapTo(Long.class)
+                        .one()
+        );
+
+        assertEquals(count, 0);
+    }
+
+    private void insertGauge(DatabaseImpl database, DateTime createdAt) {
+        database.useHandle(handle ->
+                handle.createUpdate("INSERT INTO tap_metrics_gauges(tap_uuid, metric_name, metric_value, created_at) " +
+                                "VALUES(:tap_uuid, 'test', 1, :created_at)")
+                        .bind("tap_uuid", tapUUID)
+                        .bind("created_at", createdAt)
+                        .execute()
+        );
+    }
+
+    private String findPartitionOfGauge(DatabaseImpl database, DateTime createdAt) {
+        return database.withHandle(handle ->
+                handle.createQuery("SELECT tableoid::regclass::text FROM tap_metrics_gauges " +
+                                "WHERE tap_uuid = :tap_uuid AND created_at = :created_at")
+                        .bind("tap_uuid", tapUUID)
+                        .bind("created_at", createdAt)
+                        .mapTo(String.class)
+                        .one()
+        );
+    }
+
+}
@@ -0,0 +1,164 @@
+package app.nzyme.core.database;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.plugin.Database;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.jdbi.v3.core.statement.Query;
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class PageCursorTest {
+
+    // Only the database tests create a table.
+    private boolean tableCreated = false;
+
+    @AfterMethod
+    public void clean() {
+        if (tableCreated) {
+            new MockNzyme().getDatabase().useHandle(handle -> handle.execute("DROP TABLE IF EXISTS page_cursor_test"));
+            tableCreated = false;
+        }
+    }
+
+    @Test
+    public void testEncodeAndDecode() {
+        PageCursor cursor = PageCursor.create(1700000000123456L, 9001);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(decoded.timestampMicros(), 1700000000123456L);
+        assertEquals(decoded.id(), 9001);
+    }
+
+    @Test
+    public void testCreateFromDateTime() {
+        assertEquals(PageCursor.create(new DateTime(1700000000123L), 1).timestampMicros(), 1700000000123000L);
+    }
+
+    @Test
+    public void testToMicros() {
+        Timestamp timestamp = new Timestamp(1700000000123L);
+        timestamp.setNanos(123456789);
+
+        assertEquals(PageCursor.toMicros(timestamp), 1700000000123456L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDecodeRejectsGarbage() {
+        PageCursor.decode("not a cursor!");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDecodeRejectsInvalidContent() {
+        PageCursor.decode(PageCursor.create(DateTime.now(), 1).encode() + "AAAA");
+    }
+
+    @Test
+    public void testNoNextTokenForLastPage() {
+        List<Long> page = ImmutableList.of(5L, 4L, 3L);
+
+        // The database is only used if there is a next page.
+        assertNull(PageCursor.nextToken(null, "page_cursor_test", "created_at",
+                ImmutableList.<Long>of(), 3, id -> PageCursor.create(DateTime.now(), id)));
+        assertNull(PageCursor.nextToken(null, "page_cursor_test", "created_at",
+                page, 10, id -> PageCursor.create(DateTime.now(), id)));
+    }
+
+    @Test
+    public void testPagesThroughRowsOfSameMillisecond() {
+        Database database = createTable();
+        database.useHandle(handle -> handle.execute("INSERT INTO page_cursor_test(created_at) VALUES " +
+                "('2023-06-01 10:00:00.000100+00'), ('2023-06-01 10:00:00.000900+00'), " +
+                "('2023-06-01 10:00:00.000500+00'), ('2023-06-01 10:00:00.000500+00'), " +
+                "('2023-06-01 09:59:59.999999+00')"));
+
+        assertEquals(pageThrough(database, 2), ImmutableList.of(2L, 4L, 3L, 1L, 5L));
+    }
+
+    @Test
+    public void testChangedTimestampDoesNotMoveCursor() {
+        Database database = createTable();
+        database.useHandle(handle -> handle.execute("INSERT INTO page_cursor_test(created_at) VALUES " +
+                "('2023-06-01 10:00:04+00'), ('2023-06-01 10:00:03+00'), ('2023-06-01 10:00:02+00'), " +
+                "('2023-06-01 10:00:01+00')"));
+
+        List<Row> first = findPage(database, 2, null);
+        String token = PageCursor.nextToken(database, "page_cursor_test", "created_at",
+                first, 2, r -> PageCursor.create(r.createdAt, r.id));
+
+        // The last row of the first page is updated while the client is paging.
+        database.useHandle(handle -> handle.execute("UPDATE page_cursor_test SET created_at = NOW() WHERE id = 2"));
+
+        List<Row> second = findPage(database, 2, PageCursor.decode(token));
+        assertEquals(second.size(), 2);
+        assertEquals(second.get(0).id, 3);
+        assertEquals(second.get(1).id, 4);
+    }
+
+    private Database createTable() {
+        Database database = new MockNzyme().getDatabase();
+        database.useHandle(handle -> {
+            handle.execute("DROP TABLE IF EXISTS page_cursor_test");
+            handle.execute("CREATE TABLE page_cursor_test(id bigserial PRIMARY KEY, " +
+                    "created_at timestamp with time zone NOT NULL)");
+        });
+        tableCreated = true;
+
+        return database;
+    }
+
+    private List<Long> pageThrough(Database database, int limit) {
+        List<Long> ids = Lists.newArrayList();
+
+        PageCursor cursor = null;
+        while (true) {
+            List<Row> page = findPage(database, limit, cursor);
+            for (Row row : page) {
+                ids.add(row.id);
+            }
+
+            String token = PageCursor.nextToken(database, "page_cursor_test", "created_at",
+                    page, limit, r -> PageCursor.create(r.createdAt, r.id));
+            if (token == null) {
+                return ids;
+            }
+
+            cursor = PageCursor.decode(token);
+        }
+    }
+
+    private List<Row> findPage(Database database, int limit, PageCursor cursor) {
+        String after = cursor == null ? "" : "WHERE " + PageCursor.condition("created_at") + " ";
+
+        return database.withHandle(handle -> {
+            Query query = handle.createQuery("SELECT id, created_at FROM page_cursor_test " + after +
+                            "ORDER BY created_at DESC, id DESC LIMIT :limit")
+                    .bind("limit", limit);
+
+            if (cursor != null) {
+                cursor.bind(query);
+            }
+
+            return query.map((rs, ctx) -> new Row(rs.getLong("id"), new DateTime(rs.getTimestamp("created_at"))))
+                    .list();
+        });
+    }
+
+    private static final class Row {
+        private final long id;
+        private final DateTime createdAt;
+
+        private Row(long id, DateTime createdAt) {
+            this.id = id;
+            this.createdAt = createdAt;
+        }
+    }
+
+}
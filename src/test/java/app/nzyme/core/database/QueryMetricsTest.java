@@ -0,0 +1,37 @@
+package app.nzyme.core.database;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class QueryMetricsTest {
+
+    @Test
+    public void testNormalizeCollapsesWhitespace() {
+        assertEquals(
+                QueryMetrics.normalize("SELECT *\n    FROM dot11_bssids\n\tWHERE id = ?  "),
+                "SELECT * FROM dot11_bssids WHERE id = ?"
+        );
+    }
+
+    @Test
+    public void testNormalizeCollapsesParameterLists() {
+        assertEquals(
+                QueryMetrics.normalize("SELECT * FROM taps WHERE uuid IN (?, ?, ?) AND created_at > ?"),
+                QueryMetrics.normalize("SELECT * FROM taps WHERE uuid IN (?) AND created_at > ?")
+        );
+    }
+
+    @Test
+    public void testNormalizeCollapsesMultiRowInserts() {
+        assertEquals(
+                QueryMetrics.normalize("INSERT INTO dns_pairs(a, b) VALUES (?, ?), (?, ?), (?, ?)"),
+                "INSERT INTO dns_pairs(a, b) VALUES (?)"
+        );
+        assertEquals(
+                QueryMetrics.normalize("INSERT INTO dns_pairs(a, b) VALUES (?, ?)"),
+                "INSERT INTO dns_pairs(a, b) VALUES (?)"
+        );
+    }
+
+}
@@ -0,0 +1,85 @@
+package app.nzyme.core.database.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+
+/**
+ * Summary of the output of EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) for one statement.
+ */
+public class QueryPlan {
+
+    private final double planningTimeMs;
+    private final double executionTimeMs;
+    private final long sharedHitBlocks;
+    private final long sharedReadBlocks;
+    private final Set<String> sequentialScans;
+    private final JsonNode plan;
+
+    private QueryPlan(double planningTimeMs,
+                      double executionTimeMs,
+                      long sharedHitBlocks,
+                      long sharedReadBlocks,
+                      Set<String> sequentialScans,
+                      JsonNode plan) {
+        this.planningTimeMs = planningTimeMs;
+        this.executionTimeMs = executionTimeMs;
+        this.sharedHitBlocks = sharedHitBlocks;
+        this.sharedReadBlocks = sharedReadBlocks;
+        this.sequentialScans = sequentialScans;
+        this.plan = plan;
+    }
+
+    public static QueryPlan parse(JsonNode explain) {
+        JsonNode root = explain.get(0);
+        JsonNode plan = root.get("Plan");
+
+        Set<String> sequentialScans = Sets.newTreeSet();
+        collectSequentialScans(plan, sequentialScans);
+
+        return new QueryPlan(
+                root.path("Planning Time").asDouble(),
+                root.path("Execution Time").asDouble(),
+                plan.path("Shared Hit Blocks").asLong(),
+                plan.path("Shared Read Blocks").asLong(),
+                sequentialScans,
+                plan
+        );
+    }
+
+    private static void collectSequentialScans(JsonNode node, Set<String> sequentialScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            sequentialScans.add(node.path("Relation Name").asText());
+        }
+
+        for (JsonNode child : node.path("Plans")) {
+            collectSequentialScans(child, sequentialScans);
+        }
+    }
+
+    public double getPlanningTimeMs() {
+        return planningTimeMs;
+    }
+
+    public double getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+
+    public long getSharedHitBlocks() {
+        return sharedHitBlocks;
+    }
+
+    public long getSharedReadBlocks() {
+        return sharedReadBlocks;
+    }
+
+    public Set<String> getSequentialScans() {
+        return sequentialScans;
+    }
+
+    public JsonNode getPlan() {
+        return plan;
+    }
+
+}
@@ -0,0 +1,500 @@
+package app.nzyme.core.database.benchmark;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.database.DatabaseImpl;
+import app.nzyme.core.database.OrderDirection;
+import app.nzyme.core.dot11.Dot11;
+import app.nzyme.core.ethernet.dns.DNS;
+import app.nzyme.core.rest.authentication.AuthenticatedUser;
+import app.nzyme.core.rest.resources.taps.reports.tables.DNSIPStatisticsReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.DNSTablesReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import app.nzyme.core.security.authentication.db.OrganizationEntry;
+import app.nzyme.core.security.authentication.db.TenantEntry;
+import app.nzyme.core.taps.Tap;
+import app.nzyme.core.tables.dot11.Dot11TableWriter;
+import app.nzyme.core.tables.dot11.Dot11WriteMode;
+import app.nzyme.core.util.Bucketing;
+import app.nzyme.core.util.TimeRange;
+import app.nzyme.core.util.TimeRangeFactory;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.UniformReservoir;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Runs all {@link Dot11} and {@link DNS} queries on tap report data against a synthetic data set, written through the
+ * regular ingest path, and records latency percentiles and the EXPLAIN (ANALYZE, BUFFERS) plan of every statement.
+ * Queries on configuration, like monitored networks or bandits, are not included. Not part of the regular test run:
+ *
+ * mvn test -Pbenchmarks -Dskip.web.build=true -Dbenchmark.bssids=250 -Dbenchmark.minutes=120
+ *
+ * The report is written to target/benchmarks/query-plans.json. Keep a report of a known good state and pass it as
+ * -Dbenchmark.baseline=path/to/report.json to fail on queries that became slower by more than -Dbenchmark.tolerance
+ * (default 1.5, as factor of the median) or that sequentially scan tables they did not scan in the baseline. Compare
+ * baselines recorded with the same data set size on the same machine only.
+ */
+public class QueryPlanBenchmarkTest {
+
+    private static final Logger LOG = LogManager.getLogger(QueryPlanBenchmarkTest.class);
+
+    private static final int BSSIDS = Integer.getInteger("benchmark.bssids", 250);
+    private static final int SSIDS_PER_BSSID = 3;
+    private static final int CLIENTS_PER_BSSID = 5;
+    private static final int DISCONNECTED_CLIENTS = Integer.getInteger("benchmark.clients", 500);
+    private static final int DNS_IPS = 50;
+    private static final int MINUTES = Integer.getInteger("benchmark.minutes", 120);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 25);
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("benchmark.tolerance", "1.5"));
+    private static final String REPORT = System.getProperty("benchmark.report", "target/benchmarks/query-plans.json");
+    private static final String BASELINE = System.getProperty("benchmark.baseline");
+
+    // Slowdowns below this are mostly noise, even if above the tolerance.
+    private static final double MIN_REGRESSION_MS = 5;
+
+    private static final String BSSID = mac(0xA0, 1);
+    private static final String SSID = "network-1-0";
+    private static final String CLIENT = mac(0xB0, CLIENTS_PER_BSSID + 1);
+    private static final String DISCONNECTED_CLIENT = mac(0xC0, 1);
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @Test(groups = "benchmark")
+    public void benchmarkQueries() throws IOException {
+        NzymeNode nzyme = new MockNzyme();
+        DatabaseImpl database = (DatabaseImpl) nzyme.getDatabase();
+        database.addStatementCustomizer(new QueryPlanRecorder());
+
+        OrganizationEntry org = nzyme.getAuthenticationService()
+                .createOrganization("benchmark org", "benchmark org");
+        TenantEntry tenant = nzyme.getAuthenticationService()
+                .createTenant(org.uuid(), "benchmark tenant", "benchmark tenant", 720, 15, 5);
+        UUID tapUuid = nzyme.getAuthenticationService()
+                .createTap(org.uuid(), tenant.uuid(), RandomStringUtils.random(64, true, true),
+                        "benchmark tap", "benchmark tap")
+                .uuid();
+
+        try {
+            seed(nzyme, tapUuid, org.uuid(), tenant.uuid());
+
+            ObjectNode report = om.createObjectNode();
+            report.put("bssids", BSSIDS);
+            report.put("minutes", MINUTES);
+            report.put("iterations", ITERATIONS);
+
+            ObjectNode results = report.putObject("queries");
+            for (Map.Entry<String, Runnable> query : buildQueries(nzyme, tapUuid, org.uuid(), tenant.uuid()).entrySet()) {
+                results.set(query.getKey(), run(nzyme, query.getKey(), query.getValue()));
+            }
+
+            File file = new File(REPORT);
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            om.writerWithDefaultPrettyPrinter().writeValue(file, report);
+            LOG.info("Wrote query benchmark report to [{}].", file.getAbsolutePath());
+
+            if (BASELINE != null) {
+                List<String> regressions = compare(om.readTree(new File(BASELINE)).path("queries"), results);
+                assertTrue(regressions.isEmpty(), "Query regressions:\n" + Joiner.on("\n").join(regressions));
+            }
+        } finally {
+            clean(nzyme, tapUuid, org.uuid(), tenant.uuid());
+        }
+    }
+
+    private ObjectNode run(NzymeNode nzyme, String name, Runnable query) {
+        // Warm up caches.
+        query.run();
+
+        Histogram latencies = new Histogram(new UniformReservoir(ITERATIONS));
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.run();
+            latencies.update(System.nanoTime() - start);
+        }
+
+        // Record the statements of one more execution to explain them.
+        QueryPlanRecorder.start();
+        List<String> statements;
+        try {
+            query.run();
+        } finally {
+            statements = QueryPlanRecorder.stop();
+        }
+
+        Snapshot snapshot = latencies.getSnapshot();
+        ObjectNode result = om.createObjectNode();
+        result.put("p50_ms", toMs(snapshot.getMedian()));
+        result.put("p95_ms", toMs(snapshot.get95thPercentile()));
+        result.put("p99_ms", toMs(snapshot.get99thPercentile()));
+        result.put("max_ms", toMs(snapshot.getMax()));
+
+        Set<String> sequentialScans = Sets.newTreeSet();
+        ArrayNode plans = result.putArray("statements");
+        for (String sql : statements) {
+            ObjectNode statement = plans.addObject();
+            statement.put("sql", sql);
+
+            try {
+                String explain = nzyme.getDatabase().withHandle(handle ->
+                        handle.createQuery("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql)
+                                .mapTo(String.class)
+                                .one()
+                );
+                QueryPlan plan = QueryPlan.parse(om.readTree(explain));
+
+                statement.put("planning_time_ms", plan.getPlanningTimeMs());
+                statement.put("execution_time_ms", plan.getExecutionTimeMs());
+                statement.put("shared_hit_blocks", plan.getSharedHitBlocks());
+                statement.put("shared_read_blocks", plan.getSharedReadBlocks());
+                statement.set("plan", plan.getPlan());
+                sequentialScans.addAll(plan.getSequentialScans());
+            } catch (Exception e) {
+                // Some rendered parameters, like arrays, cannot always be parsed back. Keep the timings anyway.
+                LOG.warn("Could not explain statement of query [{}].", name, e);
+                statement.put("error", e.getMessage());
+            }
+        }
+
+        ArrayNode scans = result.putArray("sequential_scans");
+        sequentialScans.forEach(scans::add);
+
+        LOG.info("[{}]: p50 <{}ms>, p95 <{}ms>, p99 <{}ms>, max <{}ms>, <{}> statements, sequential scans on {}.",
+                name, result.get("p50_ms"), result.get("p95_ms"), result.get("p99_ms"), result.get("max_ms"),
+                statements.size(), sequentialScans);
+
+        return result;
+    }
+
+    private List<String> compare(JsonNode baseline, ObjectNode results) {
+        List<String> regressions = Lists.newArrayList();
+
+        Iterator<Map.Entry<String, JsonNode>> it = results.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> result = it.next();
+            JsonNode base = baseline.get(result.getKey());
+            if (base == null) {
+                continue;
+            }
+
+            double p50 = result.getValue().get("p50_ms").asDouble();
+            double baseP50 = base.get("p50_ms").asDouble();
+            if (p50 > baseP50 * TOLERANCE && p50 - baseP50 > MIN_REGRESSION_MS) {
+                regressions.add(String.format("[%s]: median went from %.2fms to %.2fms.",
+                        result.getKey(), baseP50, p50));
+            }
+
+            Set<String> baseScans = Sets.newHashSet();
+            base.path("sequential_scans").forEach(scan -> baseScans.add(scan.asText()));
+            for (JsonNode scan : result.getValue().get("sequential_scans")) {
+                if (!baseScans.contains(scan.asText())) {
+                    regressions.add(String.format("[%s]: new sequential scan on [%s].",
+                            result.getKey(), scan.asText()));
+                }
+            }
+        }
+
+        return regressions;
+    }
+
+    private Map<String, Runnable> buildQueries(NzymeNode nzyme, UUID tapUuid, UUID organizationId, UUID tenantId) {
+        Dot11 dot11 = nzyme.getDot11();
+        DNS dns = nzyme.getEthernet().dns();
+        List<UUID> taps = ImmutableList.of(tapUuid);
+        AuthenticatedUser user = new AuthenticatedUser(UUID.randomUUID(), "benchmark", "benchmark@example.org",
+                DateTime.now(), organizationId, tenantId, false, false, true);
+
+        Map<String, Runnable> q = Maps.newLinkedHashMap();
+
+        q.put("getMacAddressMetadata", () -> dot11.getMacAddressMetadata(BSSID, taps));
+        q.put("findAllSSIDNames", () -> dot11.findAllSSIDNames(taps));
+        q.put("findAllRecentSSIDNames", () -> dot11.findAllRecentSSIDNames(taps, 15));
+        q.put("findBSSID", () -> dot11.findBSSID(BSSID, 15, taps));
+        timeRanged(q, "getBSSIDAdvertisementHistogram", tr ->
+                dot11.getBSSIDAdvertisementHistogram(BSSID, tr, Bucketing.getConfig(tr), taps));
+        timeRanged(q, "getBSSIDChannelUsageHistogram", tr -> dot11.getBSSIDChannelUsageHistogram(BSSID, tr, taps));
+        timeRanged(q, "findBSSIDs", tr -> dot11.findBSSIDs(tr, taps));
+        timeRanged(q, "bssidExist", tr -> dot11.bssidExist(BSSID, tr, taps));
+        q.put("clientExist", () -> dot11.clientExist(CLIENT, 15, taps));
+        timeRanged(q, "findSSIDsOfBSSID", tr -> dot11.findSSIDsOfBSSID(tr, BSSID, taps));
+        timeRanged(q, "findSSIDDetails", tr -> dot11.findSSIDDetails(tr, BSSID, SSID, taps));
+        timeRanged(q, "getBSSIDAndSSIDCountHistogram", tr ->
+                dot11.getBSSIDAndSSIDCountHistogram(tr, Bucketing.getConfig(tr), taps));
+        timeRanged(q, "getSSIDAdvertisementHistogram", tr ->
+                dot11.getSSIDAdvertisementHistogram(BSSID, SSID, tr, Bucketing.getConfig(tr), taps));
+        timeRanged(q, "getSSIDChannelUsageHistogram", tr -> dot11.getSSIDChannelUsageHistogram(BSSID, SSID, tr, taps));
+        timeRanged(q, "getSSIDSignalStrengthWaterfall", tr ->
+                dot11.getSSIDSignalStrengthWaterfall(BSSID, SSID, 2412, tr, tapUuid));
+        timeRanged(q, "getBSSIDSignalStrengthWaterfall", tr -> dot11.getBSSIDSignalStrengthWaterfall(BSSID, tr, tapUuid));
+        timeRanged(q, "countBSSIDClients", tr -> dot11.countBSSIDClients(tr, taps));
+        timeRanged(q, "findBSSIDClients", tr -> dot11.findBSSIDClients(tr, taps, 25, 0,
+                Dot11.ClientOrderColumn.LAST_SEEN, OrderDirection.DESC));
+        timeRanged(q, "findMacAddressesOfAllBSSIDClients", tr -> dot11.findMacAddressesOfAllBSSIDClients(tr, taps));
+        q.put("findProbeRequestsOfClient", () -> dot11.findProbeRequestsOfClient(DISCONNECTED_CLIENT, taps));
+        timeRanged(q, "countClients", tr -> dot11.countClients(tr, taps));
+        timeRanged(q, "findClients", tr -> dot11.findClients(tr, taps, ImmutableList.of(CLIENT), 25, 0,
+                Dot11.ClientOrderColumn.LAST_SEEN, OrderDirection.DESC));
+        q.put("findClientsOfBSSID", () -> dot11.findClientsOfBSSID(BSSID, 15, taps));
+        timeRanged(q, "getDisconnectedClientHistogram", tr ->
+                dot11.getDisconnectedClientHistogram(tr, Bucketing.getConfig(tr), taps, ImmutableList.of(CLIENT)));
+        timeRanged(q, "getConnectedClientHistogram", tr ->
+                dot11.getConnectedClientHistogram(tr, Bucketing.getConfig(tr), taps));
+        q.put("findBSSIDsClientWasConnectedTo", () -> dot11.findBSSIDsClientWasConnectedTo(CLIENT, taps));
+        q.put("findSSIDsAdvertisedByBSSID", () -> dot11.findSSIDsAdvertisedByBSSID(BSSID, taps));
+        q.put("findMergedConnectedOrDisconnectedClient", () ->
+                dot11.findMergedConnectedOrDisconnectedClient(CLIENT, taps, user));
+        timeRanged(q, "findDisconnectedClientSignalStrengthPerTap", tr ->
+                dot11.findDisconnectedClientSignalStrengthPerTap(DISCONNECTED_CLIENT, tr, taps));
+        timeRanged(q, "findBssidClientSignalStrengthPerTap", tr ->
+                dot11.findBssidClientSignalStrengthPerTap(CLIENT, tr, taps));
+        q.put("findDisconnectedClientSignalStrengthHistogram", () ->
+                dot11.findDisconnectedClientSignalStrengthHistogram(DISCONNECTED_CLIENT, 15, tapUuid));
+        q.put("findBssidClientSignalStrengthHistogram", () ->
+                dot11.findBssidClientSignalStrengthHistogram(CLIENT, 15, tapUuid));
+        timeRanged(q, "getDisconnectedClientSignalStrengthPerTapHistogram", tr ->
+                dot11.getDisconnectedClientSignalStrengthPerTapHistogram(DISCONNECTED_CLIENT, tr,
+                        Bucketing.getConfig(tr), taps));
+        timeRanged(q, "getConnectedClientSignalStrengthPerTapHistogram", tr ->
+                dot11.getConnectedClientSignalStrengthPerTapHistogram(CLIENT, tr, Bucketing.getConfig(tr), taps));
+        timeRanged(q, "getDiscoHistogram", tr -> dot11.getDiscoHistogram(Dot11.DiscoType.DEAUTHENTICATION, tr,
+                Bucketing.getConfig(tr), taps, null));
+        timeRanged(q, "getDiscoHistogramOfTap", tr -> dot11.getDiscoHistogram(Dot11.DiscoType.DEAUTHENTICATION, tr,
+                Bucketing.getConfig(tr), tapUuid, null));
+        timeRanged(q, "getDiscoTopSenders", tr -> dot11.getDiscoTopSenders(tr, 25, 0, taps, null));
+        timeRanged(q, "countDiscoTopSenders", tr -> dot11.countDiscoTopSenders(tr, taps, null));
+        timeRanged(q, "getDiscoTopReceivers", tr -> dot11.getDiscoTopReceivers(tr, 25, 0, taps, null));
+        timeRanged(q, "countDiscoTopReceivers", tr -> dot11.countDiscoTopReceivers(tr, taps, null));
+        timeRanged(q, "getDiscoTopPairs", tr -> dot11.getDiscoTopPairs(tr, 25, 0, taps, null));
+        timeRanged(q, "countDiscoTopPairs", tr -> dot11.countDiscoTopPairs(tr, taps, null));
+        q.put("findBSSIDsAdvertisingSSID", () -> dot11.findBSSIDsAdvertisingSSID(SSID, taps));
+        q.put("findFingerprintsOfBSSID", () -> dot11.findFingerprintsOfBSSID(BSSID, taps));
+        q.put("findSecuritySuitesOfSSID", () -> dot11.findSecuritySuitesOfSSID(SSID, taps));
+        q.put("findChannelsOfSSID", () -> dot11.findChannelsOfSSID(SSID, taps));
+        timeRanged(q, "findBSSIDSignalStrengthPerTap", tr -> dot11.findBSSIDSignalStrengthPerTap(BSSID, tr, taps));
+        timeRanged(q, "getBSSIDSignalStrengthPerTapHistogram", tr ->
+                dot11.getBSSIDSignalStrengthPerTapHistogram(BSSID, tr, Bucketing.getConfig(tr), taps));
+
+        int hours = (int) Math.ceil(MINUTES / 60.0);
+        q.put("dns.getStatistics[1h]", () -> dns.getStatistics(1, taps));
+        q.put("dns.getStatistics[" + hours + "h]", () -> dns.getStatistics(hours, taps));
+        q.put("dns.getTrafficSummary[1h]", () -> dns.getTrafficSummary(1, taps));
+        q.put("dns.getTrafficSummary[" + hours + "h]", () -> dns.getTrafficSummary(hours, taps));
+        q.put("dns.getPairSummary[1h]", () -> dns.getPairSummary(1, 25, taps));
+        q.put("dns.getPairSummary[" + hours + "h]", () -> dns.getPairSummary(hours, 25, taps));
+
+        return q;
+    }
+
+    /*
+     * Runs queries on time ranges twice: On the default range of the web interface and on the whole data set.
+     */
+    private static void timeRanged(Map<String, Runnable> queries, String name, Consumer<TimeRange> query) {
+        queries.put(name + "[15m]", () -> query.accept(TimeRangeFactory.fifteenMinutes()));
+        queries.put(name + "[" + MINUTES + "m]", () -> {
+            DateTime now = DateTime.now();
+            query.accept(TimeRange.create(now.minusMinutes(MINUTES), now, false));
+        });
+    }
+
+    private void seed(NzymeNode nzyme, UUID tapUuid, UUID organizationId, UUID tenantId) {
+        DateTime now = DateTime.now();
+        DateTime first = now.minusMinutes(MINUTES);
+
+        // The regular partition maintenance only creates partitions from the current hour on.
+        for (String table : DatabaseImpl.HOURLY_PARTITIONED_TABLES) {
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createQuery("SELECT nzyme_create_hourly_partitions(:table, :from, :hours)")
+                            .bind("table", table)
+                            .bind("from", first)
+                            .bind("hours", MINUTES / 60 + 2)
+                            .mapTo(Integer.class)
+                            .one()
+            );
+        }
+
+        Tap tap = Tap.builder()
+                .id(1)
+                .uuid(tapUuid)
+                .name("benchmark tap")
+                .description("benchmark tap")
+                .createdAt(first)
+                .updatedAt(first)
+                .organizationId(organizationId)
+                .tenantId(tenantId)
+                .remoteAddress("127.0.0.1")
+                .build();
+
+        Dot11TableWriter writer = new Dot11TableWriter(nzyme, Dot11WriteMode.COPY);
+        long started = System.currentTimeMillis();
+        for (int minute = 0; minute < MINUTES; minute++) {
+            DateTime timestamp = first.plusMinutes(minute);
+
+            writer.write(tap, timestamp, buildDot11Report(minute));
+            nzyme.getTablesService().dns().handleReport(tapUuid, timestamp, buildDNSReport(minute));
+        }
+
+        nzyme.getDot11().getHistogramRollups().rollUp();
+
+        LOG.info("Seeded <{}> minutes of reports with <{}> BSSIDs in <{}ms>.",
+                MINUTES, BSSIDS, System.currentTimeMillis() - started);
+    }
+
+    private void clean(NzymeNode nzyme, UUID tapUuid, UUID organizationId, UUID tenantId) {
+        for (String table : ImmutableList.of("dot11_disco_activity", "dot11_clients", "dot11_bssids",
+                "dot11_bssid_state", "dns_statistics", "dns_pairs", "dns_nxdomains_log")) {
+            nzyme.getDatabase().useHandle(handle ->
+                    handle.createUpdate("DELETE FROM " + table + " WHERE tap_uuid = :tap_uuid")
+                            .bind("tap_uuid", tapUuid)
+                            .execute()
+            );
+        }
+
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM taps WHERE uuid = :uuid")
+                .bind("uuid", tapUuid)
+                .execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM auth_tenants WHERE uuid = :uuid")
+                .bind("uuid", tenantId)
+                .execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM auth_organizations WHERE uuid = :uuid")
+                .bind("uuid", organizationId)
+                .execute());
+    }
+
+    /*
+     * All BSSIDs are reported every minute. Their SSIDs rotate every hour and some clients come and go, so that
+     * DISTINCT and GROUP BY queries have more than one value to work with.
+     */
+    private Dot11TablesReport buildDot11Report(int minute) {
+        Map<String, Dot11BSSIDReport> bssids = Maps.newHashMap();
+        for (int i = 0; i < BSSIDS; i++) {
+            Map<String, Dot11AdvertisedNetworkReport> networks = Maps.newHashMap();
+            for (int s = 0; s < SSIDS_PER_BSSID; s++) {
+                String ssid = s == 0 ? "network-" + i + "-0" : "network-" + i + "-" + s + "-" + (minute / 60);
+                networks.put(ssid, buildNetwork());
+            }
+
+            Map<String, Dot11ClientStatisticsReport> clients = Maps.newHashMap();
+            for (int c = 0; c < CLIENTS_PER_BSSID; c++) {
+                if (c > 0 && (minute + c) % CLIENTS_PER_BSSID == 0) {
+                    continue;
+                }
+
+                clients.put(mac(0xB0, i * CLIENTS_PER_BSSID + c),
+                        Dot11ClientStatisticsReport.create(100, 9000, 120, 12000, signal()));
+            }
+
+            bssids.put(mac(0xA0, i), Dot11BSSIDReport.create(
+                    networks, clients, i % 10 == 0 ? 5 : 0, signal(), Lists.newArrayList("fp-" + i)
+            ));
+        }
+
+        Map<String, Dot11ClientReport> clients = Maps.newHashMap();
+        for (int i = 0; i < DISCONNECTED_CLIENTS; i++) {
+            Map<String, Long> probeRequests = Maps.newHashMap();
+            probeRequests.put("probed-" + (i % 50), 5L);
+
+            clients.put(mac(0xC0, i), Dot11ClientReport.create(probeRequests, 3, signal()));
+        }
+
+        Map<String, Dot11DiscoTransmitterReport> deauth = Maps.newHashMap();
+        for (int t = 0; t < 10; t++) {
+            Map<String, Long> receivers = Maps.newHashMap();
+            receivers.put(mac(0xD1, t), 10L);
+            receivers.put(mac(0xA0, t), 20L);
+            deauth.put(mac(0xD0, t), Dot11DiscoTransmitterReport.create(mac(0xD0, t), 30, receivers));
+        }
+
+        return Dot11TablesReport.create(
+                bssids, clients, Dot11DiscoReport.create(deauth, Maps.newHashMap()), Lists.newArrayList()
+        );
+    }
+
+    private Dot11AdvertisedNetworkReport buildNetwork() {
+        Map<Long, Map<Long, Long>> histogram = Maps.newHashMap();
+        Map<Long, Long> histogramValues = Maps.newHashMap();
+        for (long signal = -80; signal < -40; signal += 5) {
+            histogramValues.put(signal, 10L);
+        }
+        histogram.put(2412L, histogramValues);
+
+        Map<Long, Map<String, Dot11ChannelStatisticsReport>> channelStatistics = Maps.newHashMap();
+        Map<String, Dot11ChannelStatisticsReport> frameTypes = Maps.newHashMap();
+        frameTypes.put("Beacon", Dot11ChannelStatisticsReport.create(5000, 50));
+        frameTypes.put("ProbeResponse", Dot11ChannelStatisticsReport.create(1000, 10));
+        channelStatistics.put(2412L, frameTypes);
+
+        return Dot11AdvertisedNetworkReport.create(
+                ImmutableList.of(
+                        Dot11SecurityInformationReport.create(
+                                Lists.newArrayList("WPA2"),
+                                Dot11CipherSuitesReport.create(
+                                        "CCMP",
+                                        Lists.newArrayList("CCMP"),
+                                        Lists.newArrayList("PSK")
+                                ),
+                                "Optional"
+                        )
+                ),
+                Lists.newArrayList("fingerprint"),
+                Lists.newArrayList(1.0F, 2.0F, 5.5F, 11.0F),
+                Lists.newArrayList(false),
+                signal(),
+                histogram,
+                Lists.newArrayList("Infrastructure"),
+                channelStatistics,
+                100,
+                10
+        );
+    }
+
+    private DNSTablesReport buildDNSReport(int minute) {
+        Map<String, DNSIPStatisticsReport> ips = Maps.newHashMap();
+        Map<String, Map<String, Long>> pairs = Maps.newHashMap();
+        for (int i = 0; i < DNS_IPS; i++) {
+            String ip = "10.0." + (i / 250) + "." + (i % 250 + 1);
+            ips.put(ip, DNSIPStatisticsReport.create(50L, 5000L, 50L, 9000L, (long) (minute % 3)));
+
+            Map<String, Long> servers = Maps.newHashMap();
+            servers.put("192.168.0." + (i % 4 + 1), 25L);
+            pairs.put(ip, servers);
+        }
+
+        return DNSTablesReport.create(
+                ips, Lists.newArrayList(), Lists.newArrayList(), pairs, Lists.newArrayList(), Lists.newArrayList()
+        );
+    }
+
+    private static Dot11SignalStrengthReport signal() {
+        return Dot11SignalStrengthReport.create(-80, -40, -60.5F);
+    }
+
+    private static double toMs(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static String mac(int prefix, int i) {
+        return String.format("%02X:00:00:00:%02X:%02X", prefix, (i >> 8) & 0xFF, i & 0xFF);
+    }
+
+}
@@ -0,0 +1,47 @@
+package app.nzyme.core.database.benchmark;
+
+import com.google.common.collect.Lists;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.StatementCustomizer;
+import org.postgresql.PGStatement;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Records all queries the current thread executes between {@link #start()} and {@link #stop()}, with their bind
+ * parameters rendered into the SQL by the PostgreSQL driver, so they can be run again with EXPLAIN.
+ */
+public class QueryPlanRecorder implements StatementCustomizer {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    public static void start() {
+        RECORDED.set(Lists.newArrayList());
+    }
+
+    public static List<String> stop() {
+        List<String> recorded = RECORDED.get();
+        RECORDED.remove();
+
+        return recorded == null ? Lists.newArrayList() : recorded;
+    }
+
+    @Override
+    public void beforeExecution(PreparedStatement stmt, StatementContext ctx) throws SQLException {
+        List<String> recorded = RECORDED.get();
+        if (recorded == null) {
+            return;
+        }
+
+        // The pool wraps statements. Only the driver statement renders its parameters in toString().
+        String sql = stmt.unwrap(PGStatement.class).toString().trim();
+        String verb = sql.length() >= 6 ? sql.substring(0, 6).toUpperCase() : sql.toUpperCase();
+
+        if (verb.startsWith("SELECT") || verb.startsWith("WITH")) {
+            recorded.add(sql);
+        }
+    }
+
+}
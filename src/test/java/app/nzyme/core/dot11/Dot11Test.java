@@ -0,0 +1,279 @@
+package app.nzyme.core.dot11;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.dot11.db.BSSIDSummary;
+import app.nzyme.core.dot11.db.monitoring.MonitoredSSID;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import app.nzyme.core.tables.dot11.Dot11TableWriter;
+import app.nzyme.core.tables.dot11.Dot11WriteMode;
+import app.nzyme.core.tables.dot11.monitoring.MonitoredNetworkSnapshot;
+import app.nzyme.core.taps.Tap;
+import app.nzyme.core.util.TimeRange;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class Dot11Test {
+
+    private final UUID organizationId = UUID.randomUUID();
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID tapUUID = UUID.randomUUID();
+
+    private static final String BSSID = "A0:00:00:00:00:01";
+
+    @AfterMethod
+    public void clean() {
+        NzymeNode nzyme = new MockNzyme();
+
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("DELETE FROM dot11_monitored_networks WHERE organization_id = :organization_id")
+                        .bind("organization_id", organizationId)
+                        .execute()
+        );
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("DELETE FROM dot11_bssid_state WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tapUUID)
+                        .execute()
+        );
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("DELETE FROM dot11_bssids WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tapUUID)
+                        .execute()
+        );
+    }
+
+    @Test
+    public void testMonitoredNetworkSnapshotIsCachedUntilInvalidated() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11 dot11 = new Dot11(nzyme);
+
+        createEnabledMonitoredSSID(dot11, "first");
+        MonitoredNetworkSnapshot snapshot = dot11.getMonitoredNetworkSnapshot(organizationId, tenantId);
+        assertTrue(snapshot.isMonitoredSSID("first"));
+
+        createEnabledMonitoredSSID(dot11, "second");
+        assertSame(dot11.getMonitoredNetworkSnapshot(organizationId, tenantId), snapshot);
+        assertFalse(dot11.getMonitoredNetworkSnapshot(organizationId, tenantId).isMonitoredSSID("second"));
+
+        dot11.invalidateMonitoredNetworkSnapshots();
+        snapshot = dot11.getMonitoredNetworkSnapshot(organizationId, tenantId);
+        assertTrue(snapshot.isMonitoredSSID("first"));
+        assertTrue(snapshot.isMonitoredSSID("second"));
+    }
+
+    @Test
+    public void testLocalInvalidationRebuildsSnapshot() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11 dot11 = new Dot11(nzyme);
+
+        assertTrue(dot11.getMonitoredNetworkSnapshot(organizationId, tenantId).monitoredSSIDs().isEmpty());
+
+        createEnabledMonitoredSSID(dot11, "first");
+        dot11.invalidateLocalMonitoredNetworkSnapshots();
+
+        assertTrue(dot11.getMonitoredNetworkSnapshot(organizationId, tenantId).isMonitoredSSID("first"));
+    }
+
+    @Test
+    public void testDisabledMonitoredNetworksAreNotInSnapshot() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11 dot11 = new Dot11(nzyme);
+
+        createEnabledMonitoredSSID(dot11, "first");
+        assertTrue(dot11.getMonitoredNetworkSnapshot(organizationId, tenantId).isMonitoredSSID("first"));
+
+        long id = dot11.findAllMonitoredSSIDs(organizationId, tenantId).get(0).id();
+        dot11.setMonitoredSSIDEnabledState(id, false);
+        dot11.invalidateMonitoredNetworkSnapshots();
+
+        assertFalse(dot11.getMonitoredNetworkSnapshot(organizationId, tenantId).isMonitoredSSID("first"));
+    }
+
+    @Test
+    public void testRecentTimeRangesAreCoveredByBSSIDState() {
+        DateTime now = DateTime.now();
+
+        assertTrue(Dot11.isCoveredByBSSIDState(TimeRange.create(now.minusMinutes(15), now, false)));
+        assertTrue(Dot11.isCoveredByBSSIDState(TimeRange.create(now.minusHours(23), now, false)));
+    }
+
+    @Test
+    public void testTimeRangesBeyondHorizonAreNotCoveredByBSSIDState() {
+        DateTime now = DateTime.now();
+
+        assertFalse(Dot11.isCoveredByBSSIDState(TimeRange.create(now.minusHours(25), now, false)));
+        assertFalse(Dot11.isCoveredByBSSIDState(TimeRange.create(now.minusDays(30), now, true)));
+    }
+
+    @Test
+    public void testTimeRangesEndingInThePastAreNotCoveredByBSSIDState() {
+        DateTime now = DateTime.now();
+
+        assertFalse(Dot11.isCoveredByBSSIDState(TimeRange.create(now.minusHours(3), now.minusHours(2), false)));
+    }
+
+    @Test
+    public void testFindBSSIDsFromStateOnlyReturnsValuesSeenInTimeRange() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11 dot11 = new Dot11(nzyme);
+        DateTime now = DateTime.now();
+
+        writeReport(nzyme, now.minusHours(2), "old");
+        writeReport(nzyme, now.minusMinutes(5), "new");
+
+        List<BSSIDSummary> lastHour = dot11.findBSSIDs(
+                TimeRange.create(now.minusHours(1), now, false), List.of(tapUUID));
+        assertEquals(lastHour.size(), 1);
+        assertEquals(lastHour.get(0).bssid(), BSSID);
+        assertEquals(lastHour.get(0).ssids(), List.of("new"));
+        assertEquals(lastHour.get(0).firstSeen().getMillis() / 1000, now.minusMinutes(5).getMillis() / 1000);
+
+        List<BSSIDSummary> lastThreeHours = dot11.findBSSIDs(
+                TimeRange.create(now.minusHours(3), now, false), List.of(tapUUID));
+        assertEquals(lastThreeHours.size(), 1);
+        assertEquals(sorted(lastThreeHours.get(0).ssids()), List.of("new", "old"));
+        assertEquals(lastThreeHours.get(0).firstSeen().getMillis() / 1000, now.minusHours(2).getMillis() / 1000);
+    }
+
+    @Test
+    public void testFindBSSIDsFallsBackToHistoryForPastTimeRanges() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11 dot11 = new Dot11(nzyme);
+        DateTime now = DateTime.now();
+
+        writeReport(nzyme, now.minusHours(2), "old");
+        writeReport(nzyme, now.minusMinutes(5), "new");
+
+        // The state only knows when a value was last seen and can't tell that "new" was not seen in this range.
+        List<BSSIDSummary> bssids = dot11.findBSSIDs(
+                TimeRange.create(now.minusHours(3), now.minusHours(1), false), List.of(tapUUID));
+        assertEquals(bssids.size(), 1);
+        assertEquals(bssids.get(0).ssids(), List.of("old"));
+        assertEquals(bssids.get(0).lastSeen().getMillis() / 1000, now.minusHours(2).getMillis() / 1000);
+    }
+
+    @Test
+    public void testFindBSSIDsFromStateMatchesHistory() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11 dot11 = new Dot11(nzyme);
+        DateTime now = DateTime.now();
+
+        // Several SSIDs and fingerprints per report, so that joins would repeat the rows of a report.
+        writeReport(nzyme, now.minusMinutes(30), -70, 10, "first", "second");
+        writeReport(nzyme, now.minusMinutes(20), -50, 5, "second", "third");
+
+        TimeRange timeRange = TimeRange.create(now.minusHours(1), now, false);
+        assertTrue(Dot11.isCoveredByBSSIDState(timeRange));
+        BSSIDSummary fromState = dot11.findBSSIDs(timeRange, List.of(tapUUID)).get(0);
+
+        // Ends more than a minute ago and is answered from the history tables.
+        TimeRange pastTimeRange = TimeRange.create(now.minusHours(1), now.minusMinutes(10), false);
+        assertFalse(Dot11.isCoveredByBSSIDState(pastTimeRange));
+        BSSIDSummary fromHistory = dot11.findBSSIDs(pastTimeRange, List.of(tapUUID)).get(0);
+
+        assertEquals(fromState.firstSeen().getMillis() / 1000, fromHistory.firstSeen().getMillis() / 1000);
+        assertEquals(fromState.lastSeen().getMillis() / 1000, fromHistory.lastSeen().getMillis() / 1000);
+        assertEquals(fromState.signalStrengthAverage(), -60.0F, 0.01);
+        assertEquals(fromHistory.signalStrengthAverage(), -60.0F, 0.01);
+        assertEquals(fromState.hiddenSSIDFrames(), 15);
+        assertEquals(fromHistory.hiddenSSIDFrames(), 15);
+        assertEquals(fromState.clientCount(), fromHistory.clientCount());
+        assertEquals(sorted(fromState.ssids()), sorted(fromHistory.ssids()));
+        assertEquals(sorted(fromState.securityProtocols()), sorted(fromHistory.securityProtocols()));
+        assertEquals(sorted(fromState.fingerprints()), sorted(fromHistory.fingerprints()));
+        assertEquals(sorted(fromState.infrastructureTypes()), sorted(fromHistory.infrastructureTypes()));
+    }
+
+    private void createEnabledMonitoredSSID(Dot11 dot11, String ssid) {
+        dot11.createMonitoredSSID(ssid, organizationId, tenantId);
+
+        for (MonitoredSSID s : dot11.findAllMonitoredSSIDs(organizationId, tenantId)) {
+            if (s.ssid().equals(ssid)) {
+                dot11.setMonitoredSSIDEnabledState(s.id(), true);
+            }
+        }
+    }
+
+    private void writeReport(NzymeNode nzyme, DateTime timestamp, String ssid) {
+        writeReport(nzyme, timestamp, -60.5F, 0, ssid);
+    }
+
+    private void writeReport(NzymeNode nzyme,
+                             DateTime timestamp,
+                             float signalStrengthAverage,
+                             long hiddenSSIDFrames,
+                             String... ssids) {
+        Map<String, Dot11AdvertisedNetworkReport> networks = Maps.newHashMap();
+        for (String ssid : ssids) {
+            networks.put(ssid, buildNetwork());
+        }
+
+        Map<String, Dot11BSSIDReport> bssids = Maps.newHashMap();
+        bssids.put(BSSID, Dot11BSSIDReport.create(
+                networks,
+                Maps.newHashMap(),
+                hiddenSSIDFrames,
+                Dot11SignalStrengthReport.create(-80, -40, signalStrengthAverage),
+                Lists.newArrayList("fp-1", "fp-2")
+        ));
+
+        new Dot11TableWriter(nzyme, Dot11WriteMode.BATCH).write(buildTap(), timestamp, Dot11TablesReport.create(
+                bssids, Maps.newHashMap(), Dot11DiscoReport.create(Maps.newHashMap(), Maps.newHashMap()),
+                Lists.newArrayList()
+        ));
+    }
+
+    private List<String> sorted(List<String> values) {
+        List<String> result = Lists.newArrayList(values);
+        result.sort(String::compareTo);
+        return result;
+    }
+
+    private Tap buildTap() {
+        return Tap.builder()
+                .id(1)
+                .uuid(tapUUID)
+                .name("test tap")
+                .description("test tap")
+                .createdAt(DateTime.now())
+                .updatedAt(DateTime.now())
+                .organizationId(organizationId)
+                .tenantId(tenantId)
+                .remoteAddress("127.0.0.1")
+                .build();
+    }
+
+    private Dot11AdvertisedNetworkReport buildNetwork() {
+        return Dot11AdvertisedNetworkReport.create(
+                ImmutableList.of(Dot11SecurityInformationReport.create(
+                        Lists.newArrayList("WPA2-PSK"),
+                        Dot11CipherSuitesReport.create("CCMP", Lists.newArrayList("CCMP"), Lists.newArrayList("PSK")),
+                        "Disabled"
+                )),
+                Lists.newArrayList("fingerprint"),
+                Lists.newArrayList(1.0F, 2.0F),
+                Lists.newArrayList(false),
+                signal(),
+                Maps.newHashMap(),
+                Lists.newArrayList("Infrastructure"),
+                Maps.newHashMap(),
+                100,
+                10
+        );
+    }
+
+    private Dot11SignalStrengthReport signal() {
+        return Dot11SignalStrengthReport.create(-80, -40, -60.5F);
+    }
+
+}
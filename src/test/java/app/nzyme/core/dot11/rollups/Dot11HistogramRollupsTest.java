@@ -0,0 +1,201 @@
+package app.nzyme.core.dot11.rollups;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import app.nzyme.core.tables.dot11.Dot11TableWriter;
+import app.nzyme.core.tables.dot11.Dot11WriteMode;
+import app.nzyme.core.taps.Tap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class Dot11HistogramRollupsTest {
+
+    private static final String BSSID = "A0:00:00:00:00:01";
+
+    @BeforeMethod
+    public void clean() {
+        NzymeNode nzyme = new MockNzyme();
+
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_rollup_watermarks").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_advertisements_hourly").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_advertisements_daily").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_disco_activity_hourly").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_disco_activity_daily").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_disco_activity_receivers").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_disco_activity").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_client_probereq_ssids").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_clients").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_ssid_settings").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_fingerprints").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_rates").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_channels").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_channel_histograms").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_infrastructure_types").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_ssids").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_bssid_clients").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_bssids").execute());
+    }
+
+    @Test
+    public void testRollUpAdvancesWatermarksToCurrentHour() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11HistogramRollups rollups = new Dot11HistogramRollups(nzyme);
+        Tap tap = buildTap();
+        DateTime currentHour = DateTime.now().hourOfDay().roundFloorCopy();
+        DateTime hour = currentHour.minusHours(3);
+
+        writeReport(nzyme, tap, hour.plusMinutes(10));
+        rollups.rollUp();
+
+        assertEquals(findWatermark(nzyme, "hour").getMillis(), currentHour.getMillis());
+        assertEquals(findWatermark(nzyme, "day").getMillis(), currentHour.withTimeAtStartOfDay().getMillis());
+        assertEquals(findHourlyBeaconAdvertisements(nzyme, tap, hour), 100L);
+    }
+
+    @Test
+    public void testRollUpWithoutDataOnlySetsWatermark() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11HistogramRollups rollups = new Dot11HistogramRollups(nzyme);
+
+        rollups.rollUp();
+
+        assertEquals(findWatermark(nzyme, "hour").getMillis(),
+                DateTime.now().hourOfDay().roundFloorCopy().getMillis());
+        long rows = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM dot11_advertisements_hourly")
+                        .mapTo(Long.class)
+                        .one()
+        );
+        assertEquals(rows, 0L);
+    }
+
+    @Test
+    public void testRepeatedRollUpsDoNotCountTwice() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11HistogramRollups rollups = new Dot11HistogramRollups(nzyme);
+        Tap tap = buildTap();
+        DateTime hour = DateTime.now().hourOfDay().roundFloorCopy().minusHours(3);
+
+        writeReport(nzyme, tap, hour.plusMinutes(10));
+        rollups.rollUp();
+        rollups.rollUp();
+        rollups.rollUp();
+
+        assertEquals(findHourlyBeaconAdvertisements(nzyme, tap, hour), 100L);
+        assertEquals(countHourlyRows(nzyme, tap), 1L);
+    }
+
+    @Test
+    public void testRollUpPicksUpLateReportsOfLastClosedHour() {
+        NzymeNode nzyme = new MockNzyme();
+        Dot11HistogramRollups rollups = new Dot11HistogramRollups(nzyme);
+        Tap tap = buildTap();
+        DateTime hour = DateTime.now().hourOfDay().roundFloorCopy().minusHours(1);
+
+        writeReport(nzyme, tap, hour.plusMinutes(10));
+        rollups.rollUp();
+        assertEquals(findHourlyBeaconAdvertisements(nzyme, tap, hour), 100L);
+
+        // Arrives after the hour was rolled up.
+        writeReport(nzyme, tap, hour.plusMinutes(20));
+        rollups.rollUp();
+
+        assertEquals(findHourlyBeaconAdvertisements(nzyme, tap, hour), 200L);
+        assertEquals(countHourlyRows(nzyme, tap), 1L);
+    }
+
+    private void writeReport(NzymeNode nzyme, Tap tap, DateTime timestamp) {
+        Map<String, Dot11AdvertisedNetworkReport> networks = Maps.newHashMap();
+        networks.put("network", buildNetwork());
+
+        Map<String, Dot11BSSIDReport> bssids = Maps.newHashMap();
+        bssids.put(BSSID, Dot11BSSIDReport.create(
+                networks, Maps.newHashMap(), 0, signal(), Lists.newArrayList("fp")
+        ));
+
+        new Dot11TableWriter(nzyme, Dot11WriteMode.BATCH).write(tap, timestamp, Dot11TablesReport.create(
+                bssids, Maps.newHashMap(), Dot11DiscoReport.create(Maps.newHashMap(), Maps.newHashMap()),
+                Lists.newArrayList()
+        ));
+    }
+
+    private DateTime findWatermark(NzymeNode nzyme, String granularity) {
+        return nzyme.getDatabase().withHandle(handle ->
+                new DateTime(handle.createQuery("SELECT rolled_up_until FROM dot11_rollup_watermarks " +
+                                "WHERE granularity = :granularity")
+                        .bind("granularity", granularity)
+                        .mapTo(Timestamp.class)
+                        .one())
+        );
+    }
+
+    private long findHourlyBeaconAdvertisements(NzymeNode nzyme, Tap tap, DateTime bucket) {
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT beacon_advertisements FROM dot11_advertisements_hourly " +
+                                "WHERE tap_uuid = :tap_uuid AND bssid = :bssid AND bucket = :bucket")
+                        .bind("tap_uuid", tap.uuid())
+                        .bind("bssid", BSSID)
+                        .bind("bucket", bucket)
+                        .mapTo(Long.class)
+                        .one()
+        );
+    }
+
+    private long countHourlyRows(NzymeNode nzyme, Tap tap) {
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM dot11_advertisements_hourly WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tap.uuid())
+                        .mapTo(Long.class)
+                        .one()
+        );
+    }
+
+    private Tap buildTap() {
+        return Tap.builder()
+                .id(1)
+                .uuid(UUID.randomUUID())
+                .name("test tap")
+                .description("test tap")
+                .createdAt(DateTime.now())
+                .updatedAt(DateTime.now())
+                .organizationId(UUID.randomUUID())
+                .tenantId(UUID.randomUUID())
+                .remoteAddress("127.0.0.1")
+                .build();
+    }
+
+    private Dot11AdvertisedNetworkReport buildNetwork() {
+        return Dot11AdvertisedNetworkReport.create(
+                ImmutableList.of(Dot11SecurityInformationReport.create(
+                        Lists.newArrayList(),
+                        Dot11CipherSuitesReport.create("None", Lists.newArrayList(), Lists.newArrayList()),
+                        "Disabled"
+                )),
+                Lists.newArrayList("fingerprint"),
+                Lists.newArrayList(1.0F, 2.0F),
+                Lists.newArrayList(false),
+                signal(),
+                Maps.newHashMap(),
+                Lists.newArrayList("Infrastructure"),
+                Maps.newHashMap(),
+                100,
+                10
+        );
+    }
+
+    private Dot11SignalStrengthReport signal() {
+        return Dot11SignalStrengthReport.create(-80, -40, -60.5F);
+    }
+
+}
@@ -10,6 +10,7 @@ import org.testng.annotations.Test;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.Random;
 
 import static org.testng.Assert.*;
@@ -97,6 +98,42 @@ public class RegistryImplTest {
         assertEquals(r.getValueOrNull("foo"), "bar2");
     }
 
+    @Test
+    public void testCachedValue() {
+        NzymeNode nzyme = new MockNzyme();
+        RegistryCache cache = new RegistryCache();
+        Registry r = new RegistryImpl(nzyme, "test", cache);
+
+        assertTrue(r.getValue("foo").isEmpty());
+
+        r.setValue("foo", "bar");
+        assertEquals(r.getValue("foo").get(), "bar");
+
+        r.setValue("foo", "bar2");
+        assertEquals(r.getValue("foo").get(), "bar2");
+        assertEquals(new RegistryImpl(nzyme, "test", cache).getValue("foo").get(), "bar2");
+
+        r.deleteValue("foo");
+        assertTrue(r.getValue("foo").isEmpty());
+    }
+
+    @Test
+    public void testCachedValueIsReadAgainAfterInvalidation() {
+        NzymeNode nzyme = new MockNzyme();
+        RegistryCache cache = new RegistryCache();
+        Registry cached = new RegistryImpl(nzyme, "test", cache);
+        Registry uncached = new RegistryImpl(nzyme, "test");
+
+        assertTrue(cached.getValue("foo").isEmpty());
+
+        // Like a change made by another node.
+        uncached.setValue("foo", "bar");
+        assertTrue(cached.getValue("foo").isEmpty());
+
+        cache.invalidate(Collections.singletonList(RegistryImpl.buildNamespacedKey("test", "foo")));
+        assertEquals(cached.getValue("foo").get(), "bar");
+    }
+
     @Test
     public void testUpdatedEncryptedValue() throws RegistryCryptoException {
         NzymeNode nzyme = new MockNzyme();
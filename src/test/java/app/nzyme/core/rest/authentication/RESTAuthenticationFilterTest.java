@@ -33,6 +33,26 @@ public class RESTAuthenticationFilterTest extends RESTAuthenticationFilterTestBa
         assertFalse(ctx.aborted);
     }
 
+    @Test
+    public void testFilterRejectsCachedSessionAfterLogout() throws IOException {
+        NzymeNode nzyme = new MockNzyme();
+        RESTAuthenticationFilter f = new RESTAuthenticationFilter(nzyme);
+
+        UserEntry user = createUser("lennart@example.org", "456456456456");
+        String sessionId = createSession(user.uuid(), true);
+
+        // Authenticate once to get the session into the cache.
+        MockHeaderContainerRequest ctx = new MockHeaderContainerRequest("Bearer " + sessionId);
+        f.filter(ctx);
+        assertFalse(ctx.aborted);
+
+        nzyme.getAuthenticationService().deleteAllSessionsOfUser(user.uuid());
+
+        ctx = new MockHeaderContainerRequest("Bearer " + sessionId);
+        f.filter(ctx);
+        assertTrue(ctx.aborted);
+    }
+
     @Test
     public void testFilterRejectsSessionWithoutPassedMFA() throws IOException {
         NzymeNode nzyme = new MockNzyme();
@@ -82,6 +82,32 @@ public class TapAuthenticationFilterTest {
         assertTrue(ctx.aborted);
     }
 
+    @Test
+    public void testFilterRejectsSecretAfterCycling() throws IOException {
+        NzymeNode nzyme = new MockNzyme();
+
+        String oldSecret = buildTap(nzyme);
+
+        TapAuthenticationFilter f = new TapAuthenticationFilter(nzyme);
+
+        // Authenticate once to get the tap into the cache.
+        MockHeaderContainerRequest ctx = new MockHeaderContainerRequest("Bearer " + oldSecret);
+        f.filter(ctx);
+        assertFalse(ctx.aborted);
+
+        TapPermissionEntry tap = nzyme.getAuthenticationService().findTapBySecret(oldSecret).get();
+        String newSecret = RandomStringUtils.random(64, true, true);
+        nzyme.getAuthenticationService().cycleTapSecret(tap.organizationId(), tap.tenantId(), tap.uuid(), newSecret);
+
+        ctx = new MockHeaderContainerRequest("Bearer " + oldSecret);
+        f.filter(ctx);
+        assertTrue(ctx.aborted);
+
+        ctx = new MockHeaderContainerRequest("Bearer " + newSecret);
+        f.filter(ctx);
+        assertFalse(ctx.aborted);
+    }
+
     @Test
     public void testFilterRejectsEmptySecret() throws IOException {
         NzymeNode nzyme = new MockNzyme();
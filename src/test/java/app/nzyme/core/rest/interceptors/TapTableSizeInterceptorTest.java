@@ -0,0 +1,313 @@
+package app.nzyme.core.rest.interceptors;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.util.MetricNames;
+import com.github.luben.zstd.ZstdOutputStream;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.*;
+
+public class TapTableSizeInterceptorTest {
+
+    private static final String REPORT = "{\"bssids\": {}, \"clients\": {}, \"alerts\": [], \"padding\": \""
+            + "a".repeat(4096) + "\"}";
+
+    /*
+     * Minimal request context. Proceeding reads the whole body like a MessageBodyReader would.
+     */
+    private static class Request {
+        final MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+        InputStream body;
+        boolean wrapReadErrors = false;
+
+        ReaderInterceptorContext context() {
+            return (ReaderInterceptorContext) Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class[]{ReaderInterceptorContext.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getHeaders":
+                                return headers;
+                            case "getInputStream":
+                                return body;
+                            case "setInputStream":
+                                body = (InputStream) args[0];
+                                return null;
+                            case "proceed":
+                                try {
+                                    return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                                } catch (RuntimeException e) {
+                                    if (wrapReadErrors) {
+                                        // Like Jackson, which wraps exceptions thrown while reading.
+                                        throw new IOException("Could not read body.", e);
+                                    }
+                                    throw e;
+                                }
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+            );
+        }
+    }
+
+    private TapTableSizeInterceptor buildInterceptor(NzymeNode nzyme, String path) throws Exception {
+        TapTableSizeInterceptor interceptor = new TapTableSizeInterceptor(nzyme);
+
+        UriInfo uriInfo = (UriInfo) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{UriInfo.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getPath")) {
+                        return path;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+
+        Field field = TapTableSizeInterceptor.class.getDeclaredField("uriInfo");
+        field.setAccessible(true);
+        field.set(interceptor, uriInfo);
+
+        return interceptor;
+    }
+
+    private Request buildRequest(String encoding, byte[] body) {
+        Request request = new Request();
+        if (encoding != null) {
+            request.headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        request.body = new ByteArrayInputStream(body);
+
+        return request;
+    }
+
+    private byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+
+        return out.toByteArray();
+    }
+
+    private byte[] zstd(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream zstd = new ZstdOutputStream(out)) {
+            zstd.write(data);
+        }
+
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testUncompressed() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+        Request request = buildRequest(null, REPORT.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(interceptor.aroundReadFrom(request.context()), REPORT);
+        assertEquals(nzyme.getMetrics().histogram(MetricNames.TAP_TABLE_REQUEST_SIZES).getSnapshot().getMax(),
+                REPORT.length());
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+        Request request = buildRequest("gzip", gzip(REPORT.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(interceptor.aroundReadFrom(request.context()), REPORT);
+        assertFalse(request.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(nzyme.getMetrics().histogram(MetricNames.TAP_TABLE_REQUEST_SIZES).getSnapshot().getMax(),
+                REPORT.length());
+    }
+
+    @Test
+    public void testZstd() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dns/summary");
+        Request request = buildRequest("zstd", zstd(REPORT.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(interceptor.aroundReadFrom(request.context()), REPORT);
+    }
+
+    @Test
+    public void testNonTapPathIsNotTouched() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/system/authentication/session");
+        byte[] compressed = gzip(REPORT.getBytes(StandardCharsets.UTF_8));
+        Request request = buildRequest("gzip", compressed);
+
+        interceptor.aroundReadFrom(request.context());
+
+        assertTrue(request.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testUnknownEncodingIsRejected() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+        Request request = buildRequest("br", REPORT.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            interceptor.aroundReadFrom(request.context());
+            fail("Expected exception.");
+        } catch (ClientErrorException e) {
+            assertEquals(e.getResponse().getStatus(), 415);
+        }
+    }
+
+    @Test
+    public void testDecompressionBombIsRejected() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+
+        // One byte more than the configured limit, but tiny when compressed.
+        int limit = nzyme.getConfiguration().tapReportMaxSizeMb() * 1024 * 1024;
+        byte[] bomb = gzip(new byte[limit + 1]);
+        assertTrue(bomb.length < limit / 100);
+
+        Request request = buildRequest("gzip", bomb);
+
+        try {
+            interceptor.aroundReadFrom(request.context());
+            fail("Expected exception.");
+        } catch (ClientErrorException e) {
+            assertEquals(e.getResponse().getStatus(), 413);
+        }
+    }
+
+    @Test
+    public void testOversizedBodyIsRejectedBeforeReading() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+
+        long limit = nzyme.getConfiguration().tapReportMaxSizeMb() * 1024L * 1024L;
+        Request request = new Request();
+        request.headers.putSingle(HttpHeaders.CONTENT_LENGTH, String.valueOf(limit + 1));
+        request.body = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("Body must not be read.");
+            }
+        };
+
+        try {
+            interceptor.aroundReadFrom(request.context());
+            fail("Expected exception.");
+        } catch (ClientErrorException e) {
+            assertEquals(e.getResponse().getStatus(), 413);
+        }
+    }
+
+    @Test
+    public void testOversizedBodyIsRejectedIfReaderWrapsError() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+
+        int limit = nzyme.getConfiguration().tapReportMaxSizeMb() * 1024 * 1024;
+        Request request = buildRequest(null, new byte[limit + 1]);
+        request.wrapReadErrors = true;
+
+        try {
+            interceptor.aroundReadFrom(request.context());
+            fail("Expected exception.");
+        } catch (ClientErrorException e) {
+            assertEquals(e.getResponse().getStatus(), 413);
+        }
+    }
+
+    @Test
+    public void testEmptyGzipBodyIsRejected() throws Exception {
+        assertBadRequest("gzip", new byte[0]);
+    }
+
+    @Test
+    public void testInvalidGzipHeaderIsRejected() throws Exception {
+        assertBadRequest("gzip", REPORT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTruncatedGzipBodyIsRejected() throws Exception {
+        byte[] compressed = gzip(REPORT.getBytes(StandardCharsets.UTF_8));
+
+        assertBadRequest("gzip", Arrays.copyOf(compressed, compressed.length / 2));
+    }
+
+    @Test
+    public void testCorruptedGzipBodyIsRejected() throws Exception {
+        byte[] compressed = gzip(REPORT.getBytes(StandardCharsets.UTF_8));
+
+        // Keep the header intact and break the compressed data and checksum.
+        for (int i = 20; i < compressed.length; i++) {
+            compressed[i] = (byte) ~compressed[i];
+        }
+
+        assertBadRequest("gzip", compressed);
+    }
+
+    @Test
+    public void testInvalidZstdBodyIsRejected() throws Exception {
+        assertBadRequest("zstd", REPORT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTruncatedZstdBodyIsRejected() throws Exception {
+        byte[] compressed = zstd(REPORT.getBytes(StandardCharsets.UTF_8));
+
+        assertBadRequest("zstd", Arrays.copyOf(compressed, compressed.length / 2));
+    }
+
+    @Test
+    public void testRequestStreamErrorsAreNotRejectedAsBadRequest() throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+        Request request = buildRequest("gzip", new byte[0]);
+        request.body = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset.");
+            }
+        };
+
+        try {
+            interceptor.aroundReadFrom(request.context());
+            fail("Expected exception.");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "Connection reset.");
+        }
+    }
+
+    private void assertBadRequest(String encoding, byte[] body) throws Exception {
+        NzymeNode nzyme = new MockNzyme();
+        TapTableSizeInterceptor interceptor = buildInterceptor(nzyme, "api/taps/tables/dot11/summary");
+        Request request = buildRequest(encoding, body);
+
+        try {
+            interceptor.aroundReadFrom(request.context());
+            fail("Expected exception.");
+        } catch (ClientErrorException e) {
+            assertEquals(e.getResponse().getStatus(), 400);
+        }
+    }
+
+}
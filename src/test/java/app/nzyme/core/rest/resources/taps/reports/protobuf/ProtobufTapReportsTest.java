@@ -0,0 +1,602 @@
+package app.nzyme.core.rest.resources.taps.reports.protobuf;
+
+import app.nzyme.core.rest.ObjectMapperProvider;
+import app.nzyme.core.rest.resources.taps.reports.StatusReport;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.UnknownFieldSet;
+import com.google.protobuf.WireFormat;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static app.nzyme.core.rest.resources.taps.reports.protobuf.ProtobufTapReports.mapList;
+import static app.nzyme.core.rest.resources.taps.reports.protobuf.ProtobufTapReports.mapValues;
+import static org.testng.Assert.*;
+
+public class ProtobufTapReportsTest {
+
+    private static final Logger LOG = LogManager.getLogger(ProtobufTapReportsTest.class);
+
+    private static final int BENCHMARK_ROUNDS = 50;
+
+    /*
+     * Wrapper messages that only exist because protobuf has no nested maps. Their JSON form is the bare map.
+     */
+    private static final Set<String> INLINED_MESSAGES = ImmutableSet.of(
+            "Dot11SignalHistogramReport", "Dot11FrameTypeStatisticsReport", "DNSPairsReport"
+    );
+
+    private final ObjectMapper om = new ObjectMapperProvider().getContext(ObjectMapper.class);
+
+    @Test
+    public void testDot11ProtobufMatchesJson() throws IOException {
+        TapReports.Dot11TablesReport proto = buildDot11Report(10, 5);
+
+        Dot11TablesReport fromJson = om.readValue(toJson(proto), Dot11TablesReport.class);
+        Dot11TablesReport fromProtobuf = toDot11TablesReport(
+                TapReports.Dot11TablesReport.parseFrom(proto.toByteArray())
+        );
+
+        assertEquals(fromProtobuf, fromJson);
+    }
+
+    @Test
+    public void testDot11DecoderMatchesJson() throws IOException {
+        TapReports.Dot11TablesReport proto = buildDot11Report(10, 5);
+
+        Dot11TablesReport fromJson = om.readValue(toJson(proto), Dot11TablesReport.class);
+
+        assertEquals(Dot11TablesReportDecoder.decode(proto.toByteArray()), fromJson);
+        assertEquals(Dot11TablesReportDecoder.decode(new ByteArrayInputStream(proto.toByteArray())), fromJson);
+    }
+
+    @Test
+    public void testDot11DecoderFillsDefaults() throws IOException {
+        // No disco, no signal strengths and no cipher suites. Empty messages are not written at all.
+        TapReports.Dot11TablesReport proto = TapReports.Dot11TablesReport.newBuilder()
+                .putBssids("00:11:22:33:44:55", TapReports.Dot11BSSIDReport.newBuilder()
+                        .putAdvertisedNetworks("", TapReports.Dot11AdvertisedNetworkReport.newBuilder()
+                                .addSecurity(TapReports.Dot11SecurityInformationReport.getDefaultInstance())
+                                .build())
+                        .putClients("00:11:22:33:44:66", TapReports.Dot11ClientStatisticsReport.getDefaultInstance())
+                        .build())
+                .putClients("00:11:22:33:44:77", TapReports.Dot11ClientReport.newBuilder()
+                        .putProbeRequestSsids("", 0L)
+                        .build())
+                .addAlerts(TapReports.Dot11AlertReport.newBuilder()
+                        .setAlertType("PwnagotchiDetected")
+                        .putAttributes("name", TapReports.Dot11AlertAttributeReport.newBuilder()
+                                .setString("pwnagotchi").build())
+                        .build())
+                .build();
+
+        assertEquals(
+                Dot11TablesReportDecoder.decode(proto.toByteArray()),
+                toDot11TablesReport(proto)
+        );
+    }
+
+    @Test
+    public void testDot11DecoderAcceptsUnpackedRepeatedFields() throws IOException {
+        ByteArrayOutputStream network = new ByteArrayOutputStream();
+        CodedOutputStream n = CodedOutputStream.newInstance(network);
+        n.writeFloat(3, 1.0F);
+        n.writeFloat(3, 5.5F);
+        n.writeBool(4, true);
+        n.flush();
+
+        byte[] bssid = wrap(1, "network", network.toByteArray());
+        byte[] report = wrap(1, "00:11:22:33:44:55", bssid);
+
+        Dot11AdvertisedNetworkReport decoded = Dot11TablesReportDecoder.decode(report)
+                .bssids().get("00:11:22:33:44:55")
+                .advertisedNetworks().get("network");
+
+        assertEquals(decoded.rates(), Lists.newArrayList(1.0F, 5.5F));
+        assertEquals(decoded.wps(), Lists.newArrayList(true));
+    }
+
+    @Test
+    public void testDot11DecoderMatchesGeneratedParserOnEveryField() throws IOException {
+        byte[] report = new ReportFiller(false).fill().toByteArray();
+
+        assertEquals(
+                Dot11TablesReportDecoder.decode(report),
+                toDot11TablesReport(TapReports.Dot11TablesReport.parseFrom(report))
+        );
+    }
+
+    @Test
+    public void testDot11DecoderSkipsFieldsWithUnexpectedWireType() throws IOException {
+        byte[] report = new ReportFiller(true).fill().toByteArray();
+        Dot11TablesReport decoded = Dot11TablesReportDecoder.decode(report);
+
+        assertEquals(decoded, toDot11TablesReport(TapReports.Dot11TablesReport.parseFrom(report)));
+        assertEquals(decoded, Dot11TablesReportDecoder.decode(new ReportFiller(false).fill().toByteArray()));
+    }
+
+    @Test
+    public void testDot11DecoderSkipsScalarWithUnexpectedWireType() throws IOException {
+        ByteArrayOutputStream bssid = new ByteArrayOutputStream();
+        CodedOutputStream b = CodedOutputStream.newInstance(bssid);
+        b.writeInt64(3, 5L);
+        b.writeString(3, "not a varint");
+        b.flush();
+
+        byte[] report = wrap(1, "00:11:22:33:44:55", bssid.toByteArray());
+        Dot11TablesReport decoded = Dot11TablesReportDecoder.decode(report);
+
+        assertEquals(decoded.bssids().get("00:11:22:33:44:55").hiddenSSIDFrames(), 5L);
+        assertEquals(decoded, toDot11TablesReport(TapReports.Dot11TablesReport.parseFrom(report)));
+    }
+
+    @Test
+    public void testDot11DecoderSkipsMapKeyWithUnexpectedWireType() throws IOException {
+        ByteArrayOutputStream ssid = new ByteArrayOutputStream();
+        CodedOutputStream e = CodedOutputStream.newInstance(ssid);
+        e.writeInt64(1, 7L);
+        e.writeInt64(2, 5L);
+        e.flush();
+
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        CodedOutputStream c = CodedOutputStream.newInstance(client);
+        c.writeByteArray(1, ssid.toByteArray());
+        c.flush();
+
+        byte[] report = wrap(2, "00:11:22:33:44:77", client.toByteArray());
+        Dot11TablesReport decoded = Dot11TablesReportDecoder.decode(report);
+
+        assertEquals(decoded.clients().get("00:11:22:33:44:77").probeRequestSSIDs(), Map.of("", 5L));
+        assertEquals(decoded, toDot11TablesReport(TapReports.Dot11TablesReport.parseFrom(report)));
+    }
+
+    @Test(expectedExceptions = InvalidProtocolBufferException.class)
+    public void testDot11DecoderRejectsTruncatedReport() throws IOException {
+        byte[] report = buildDot11Report(2, 2).toByteArray();
+
+        Dot11TablesReportDecoder.decode(Arrays.copyOf(report, report.length / 2));
+    }
+
+    @Test
+    public void testDot11AlertAttributes() throws IOException {
+        TapReports.Dot11TablesReport proto = TapReports.Dot11TablesReport.newBuilder()
+                .setDisco(TapReports.Dot11DiscoReport.getDefaultInstance())
+                .addAlerts(TapReports.Dot11AlertReport.newBuilder()
+                        .setAlertType("PwnagotchiDetected")
+                        .setSignalStrength(-50)
+                        .putAttributes("pwnd_run", TapReports.Dot11AlertAttributeReport.newBuilder()
+                                .setNumber(5).build())
+                        .putAttributes("name", TapReports.Dot11AlertAttributeReport.newBuilder()
+                                .setString("pwnagotchi").build())
+                        .build())
+                .build();
+
+        Dot11AlertReport alert = Dot11TablesReportDecoder.decode(proto.toByteArray()).alerts().get(0);
+
+        assertEquals(alert.alertType(), Dot11AlertReport.AlertType.PwnagotchiDetected);
+        assertEquals(alert.signalStrength(), Long.valueOf(-50));
+        assertEquals(alert.attributes().get("pwnd_run").get(Dot11AlertReport.AlertAttributeType.Number), 5L);
+        assertEquals(alert.attributes().get("name").get(Dot11AlertReport.AlertAttributeType.String), "pwnagotchi");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDot11UnknownAlertTypeIsRejected() throws IOException {
+        Dot11TablesReportDecoder.decode(TapReports.Dot11TablesReport.newBuilder()
+                .setDisco(TapReports.Dot11DiscoReport.getDefaultInstance())
+                .addAlerts(TapReports.Dot11AlertReport.newBuilder().setAlertType("Foo").build())
+                .build()
+                .toByteArray());
+    }
+
+    @Test
+    public void testStatusReport() {
+        StatusReport status = ProtobufTapReports.toStatusReport(TapReports.StatusReport.newBuilder()
+                .setVersion("2.0.0")
+                .setTimestamp(1700000000000L)
+                .setProcessedBytes(TapReports.TotalWithAverage.newBuilder().setTotal(100).setAverage(10))
+                .addBuses(TapReports.BusReport.newBuilder()
+                        .setName("ethernet")
+                        .addChannels(TapReports.ChannelReport.newBuilder().setName("dns").setCapacity(512)))
+                .setSystemMetrics(TapReports.SystemMetrics.newBuilder().setCpuLoad(0.5).setMemoryTotal(1024))
+                .putGaugesLong("foo", 5L)
+                .putTimers("bar", TapReports.TimersReport.newBuilder().setMean(1.5).setP99(3.0).build())
+                .build());
+
+        assertEquals(status.version(), "2.0.0");
+        assertEquals(status.timestamp().getMillis(), 1700000000000L);
+        assertEquals(status.processedBytes().total(), Long.valueOf(100));
+        assertEquals(status.buses().get(0).channels().get(0).capacity(), Long.valueOf(512));
+        assertEquals(status.systemMetrics().memoryTotal(), Long.valueOf(1024));
+        assertEquals(status.gaugesLong().get("foo"), Long.valueOf(5));
+        assertEquals(status.timers().get("bar").p99(), 3.0);
+    }
+
+    /*
+     * Not an exact benchmark but gives an idea of the relative decode cost of both transports for the same report.
+     * Look for the log output. Run with the "benchmarks" profile.
+     */
+    @Test(groups = "benchmark")
+    public void benchmarkJsonAndProtobufDecoding() throws IOException {
+        TapReports.Dot11TablesReport proto = buildDot11Report(200, 500);
+        byte[] json = toJson(proto).getBytes();
+        byte[] protobuf = proto.toByteArray();
+
+        // Warm up.
+        for (int i = 0; i < 5; i++) {
+            om.readValue(json, Dot11TablesReport.class);
+            Dot11TablesReportDecoder.decode(protobuf);
+        }
+
+        long jsonStart = System.nanoTime();
+        long jsonAllocStart = allocatedBytes();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            om.readValue(json, Dot11TablesReport.class);
+        }
+        long jsonAlloc = (allocatedBytes() - jsonAllocStart) / BENCHMARK_ROUNDS;
+        long jsonMicros = (System.nanoTime() - jsonStart) / 1000 / BENCHMARK_ROUNDS;
+
+        long protobufStart = System.nanoTime();
+        long protobufAllocStart = allocatedBytes();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            Dot11TablesReportDecoder.decode(protobuf);
+        }
+        long protobufAlloc = (allocatedBytes() - protobufAllocStart) / BENCHMARK_ROUNDS;
+        long protobufMicros = (System.nanoTime() - protobufStart) / 1000 / BENCHMARK_ROUNDS;
+
+        LOG.info("JSON: <{}> bytes, <{}us> and <{}> allocated bytes per decode.",
+                json.length, jsonMicros, jsonAlloc);
+        LOG.info("Protobuf: <{}> bytes, <{}us> and <{}> allocated bytes per decode.",
+                protobuf.length, protobufMicros, protobufAlloc);
+
+        assertTrue(protobuf.length < json.length);
+        assertTrue(protobufAlloc < jsonAlloc);
+    }
+
+    private TapReports.Dot11TablesReport buildDot11Report(int bssidCount, int clientCount) {
+        TapReports.Dot11TablesReport.Builder report = TapReports.Dot11TablesReport.newBuilder();
+
+        for (int i = 0; i < bssidCount; i++) {
+            TapReports.Dot11BSSIDReport.Builder bssid = TapReports.Dot11BSSIDReport.newBuilder()
+                    .setHiddenSsidFrames(i)
+                    .setSignalStrength(signal())
+                    .addFingerprints("fp-" + i);
+
+            for (int s = 0; s < 3; s++) {
+                bssid.putAdvertisedNetworks("network-" + i + "-" + s, buildNetwork());
+            }
+
+            for (int c = 0; c < 5; c++) {
+                bssid.putClients(mac(0xB0, i * 5 + c), TapReports.Dot11ClientStatisticsReport.newBuilder()
+                        .setTxFrames(100)
+                        .setTxBytes(9000)
+                        .setRxFrames(120)
+                        .setRxBytes(12000)
+                        .setSignalStrength(signal())
+                        .build());
+            }
+
+            report.putBssids(mac(0xA0, i), bssid.build());
+        }
+
+        for (int i = 0; i < clientCount; i++) {
+            report.putClients(mac(0xC0, i), TapReports.Dot11ClientReport.newBuilder()
+                    .putProbeRequestSsids("probed-" + i, 5L)
+                    .putProbeRequestSsids("home-" + i, 2L)
+                    .setWildcardProbeRequests(3)
+                    .setSignalStrength(signal())
+                    .build());
+        }
+
+        report.setDisco(TapReports.Dot11DiscoReport.newBuilder()
+                .putDeauth(mac(0xD0, 1), TapReports.Dot11DiscoTransmitterReport.newBuilder()
+                        .setBssid(mac(0xD0, 1))
+                        .setSentFrames(30)
+                        .putReceivers(mac(0xD1, 1), 10L)
+                        .putReceivers(mac(0xD1, 2), 20L)
+                        .build())
+                .build());
+
+        return report.build();
+    }
+
+    private TapReports.Dot11AdvertisedNetworkReport buildNetwork() {
+        TapReports.Dot11SignalHistogramReport.Builder histogram = TapReports.Dot11SignalHistogramReport.newBuilder();
+        for (long signal = -80; signal < -40; signal += 5) {
+            histogram.putCounts(signal, 10L);
+        }
+
+        return TapReports.Dot11AdvertisedNetworkReport.newBuilder()
+                .addSecurity(TapReports.Dot11SecurityInformationReport.newBuilder()
+                        .addProtocols("WPA2")
+                        .setSuites(TapReports.Dot11CipherSuitesReport.newBuilder()
+                                .setGroupCipher("CCMP")
+                                .addPairwiseCiphers("CCMP")
+                                .addKeyManagementModes("PSK"))
+                        .setPmf("Optional"))
+                .addFingerprints("fingerprint")
+                .addRates(1.0F).addRates(2.0F).addRates(5.5F).addRates(11.0F)
+                .addWps(false)
+                .setSignalStrength(signal())
+                .putSignalHistogram(2412L, histogram.build())
+                .addInfrastructureTypes("Infrastructure")
+                .putChannelStatistics(2412L, TapReports.Dot11FrameTypeStatisticsReport.newBuilder()
+                        .putFrameTypes("Beacon", TapReports.Dot11ChannelStatisticsReport.newBuilder()
+                                .setBytes(5000).setFrames(50).build())
+                        .putFrameTypes("ProbeResponse", TapReports.Dot11ChannelStatisticsReport.newBuilder()
+                                .setBytes(1000).setFrames(10).build())
+                        .build())
+                .setBeaconAdvertisements(100)
+                .setProberespAdvertisements(10)
+                .build();
+    }
+
+    private TapReports.Dot11SignalStrengthReport signal() {
+        return TapReports.Dot11SignalStrengthReport.newBuilder().setMin(-80).setMax(-40).setAverage(-60.5F).build();
+    }
+
+    private String mac(int prefix, int i) {
+        return String.format("%02X:00:00:00:%02X:%02X", prefix, (i >> 8) & 0xFF, i & 0xFF);
+    }
+
+    private long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /*
+     * Writes a single entry of a map field with a string key. The value is an already encoded message.
+     */
+    private byte[] wrap(int field, String key, byte[] value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CodedOutputStream o = CodedOutputStream.newInstance(out);
+        o.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        o.writeUInt32NoTag(CodedOutputStream.computeStringSize(1, key)
+                + CodedOutputStream.computeByteArraySize(2, value));
+        o.writeString(1, key);
+        o.writeByteArray(2, value);
+        o.flush();
+
+        return out.toByteArray();
+    }
+
+    /*
+     * Reference conversion from the generated message classes, which the decoder has to match.
+     */
+    private Dot11TablesReport toDot11TablesReport(TapReports.Dot11TablesReport r) {
+        return Dot11TablesReport.create(
+                mapValues(r.getBssidsMap(), this::toBSSIDReport),
+                mapValues(r.getClientsMap(), c -> Dot11ClientReport.create(
+                        Maps.newHashMap(c.getProbeRequestSsidsMap()),
+                        c.getWildcardProbeRequests(),
+                        toSignalStrength(c.getSignalStrength())
+                )),
+                Dot11DiscoReport.create(
+                        mapValues(r.getDisco().getDeauthMap(), this::toDiscoTransmitterReport),
+                        mapValues(r.getDisco().getDisassocMap(), this::toDiscoTransmitterReport)
+                ),
+                mapList(r.getAlertsList(), ProtobufTapReports::toAlertReport)
+        );
+    }
+
+    private Dot11BSSIDReport toBSSIDReport(TapReports.Dot11BSSIDReport b) {
+        return Dot11BSSIDReport.create(
+                mapValues(b.getAdvertisedNetworksMap(), this::toAdvertisedNetworkReport),
+                mapValues(b.getClientsMap(), c -> Dot11ClientStatisticsReport.create(
+                        c.getTxFrames(),
+                        c.getTxBytes(),
+                        c.getRxFrames(),
+                        c.getRxBytes(),
+                        toSignalStrength(c.getSignalStrength())
+                )),
+                b.getHiddenSsidFrames(),
+                toSignalStrength(b.getSignalStrength()),
+                Lists.newArrayList(b.getFingerprintsList())
+        );
+    }
+
+    private Dot11AdvertisedNetworkReport toAdvertisedNetworkReport(TapReports.Dot11AdvertisedNetworkReport n) {
+        return Dot11AdvertisedNetworkReport.create(
+                mapList(n.getSecurityList(), s -> Dot11SecurityInformationReport.create(
+                        Lists.newArrayList(s.getProtocolsList()),
+                        Dot11CipherSuitesReport.create(
+                                s.getSuites().getGroupCipher(),
+                                Lists.newArrayList(s.getSuites().getPairwiseCiphersList()),
+                                Lists.newArrayList(s.getSuites().getKeyManagementModesList())
+                        ),
+                        s.getPmf()
+                )),
+                Lists.newArrayList(n.getFingerprintsList()),
+                Lists.newArrayList(n.getRatesList()),
+                Lists.newArrayList(n.getWpsList()),
+                toSignalStrength(n.getSignalStrength()),
+                mapValues(n.getSignalHistogramMap(), h -> Maps.newHashMap(h.getCountsMap())),
+                Lists.newArrayList(n.getInfrastructureTypesList()),
+                mapValues(n.getChannelStatisticsMap(), ft -> mapValues(ft.getFrameTypesMap(),
+                        s -> Dot11ChannelStatisticsReport.create(s.getBytes(), s.getFrames()))),
+                n.getBeaconAdvertisements(),
+                n.getProberespAdvertisements()
+        );
+    }
+
+    private Dot11DiscoTransmitterReport toDiscoTransmitterReport(TapReports.Dot11DiscoTransmitterReport t) {
+        return Dot11DiscoTransmitterReport.create(
+                t.getBssid(),
+                t.getSentFrames(),
+                Maps.newHashMap(t.getReceiversMap())
+        );
+    }
+
+    private Dot11SignalStrengthReport toSignalStrength(TapReports.Dot11SignalStrengthReport s) {
+        return Dot11SignalStrengthReport.create(s.getMin(), s.getMax(), s.getAverage());
+    }
+
+    /*
+     * Builds a report with every field of every message in the schema set, repeated fields and maps twice. Values are
+     * all different, so a field read into the wrong place shows up. Optionally adds a copy of every field with the
+     * same number but a different wire type, which parsers have to skip as unknown.
+     */
+    private static class ReportFiller {
+
+        private final boolean mismatchedWireTypes;
+        private long next = 1;
+
+        ReportFiller(boolean mismatchedWireTypes) {
+            this.mismatchedWireTypes = mismatchedWireTypes;
+        }
+
+        TapReports.Dot11TablesReport fill() {
+            TapReports.Dot11TablesReport.Builder report = TapReports.Dot11TablesReport.newBuilder();
+            fill(report);
+
+            // Alert types are parsed into an enum.
+            for (TapReports.Dot11AlertReport.Builder alert : report.getAlertsBuilderList()) {
+                alert.setAlertType("PwnagotchiDetected");
+            }
+
+            return report.build();
+        }
+
+        private void fill(Message.Builder builder) {
+            Descriptors.Descriptor type = builder.getDescriptorForType();
+            UnknownFieldSet.Builder unknown = UnknownFieldSet.newBuilder();
+
+            for (Descriptors.FieldDescriptor field : type.getFields()) {
+                if (field.getContainingOneof() != null && builder.hasOneof(field.getContainingOneof())) {
+                    continue;
+                }
+
+                if (field.isRepeated()) {
+                    builder.addRepeatedField(field, value(builder, field));
+                    builder.addRepeatedField(field, value(builder, field));
+                } else {
+                    builder.setField(field, value(builder, field));
+                }
+
+                if (mismatchedWireTypes && !type.getOptions().getMapEntry()) {
+                    unknown.addField(field.getNumber(), mismatched(field));
+                }
+            }
+
+            if (mismatchedWireTypes && !type.getOptions().getMapEntry()) {
+                builder.setUnknownFields(unknown.build());
+            }
+        }
+
+        private Object value(Message.Builder builder, Descriptors.FieldDescriptor field) {
+            long value = next++;
+
+            switch (field.getJavaType()) {
+                case LONG:
+                    return value;
+                case FLOAT:
+                    return value + 0.5F;
+                case BOOLEAN:
+                    return value % 2 == 0;
+                case STRING:
+                    return "value-" + value;
+                case MESSAGE:
+                    Message.Builder message = builder.newBuilderForField(field);
+                    fill(message);
+                    return message.build();
+                default:
+                    throw new IllegalArgumentException("Unexpected field type: " + field.getJavaType());
+            }
+        }
+
+        private UnknownFieldSet.Field mismatched(Descriptors.FieldDescriptor field) {
+            // Repeated scalars are accepted packed or not, so only a wire type neither of those uses is wrong.
+            if (field.isPackable()) {
+                return UnknownFieldSet.Field.newBuilder().addFixed64(-1L).build();
+            }
+
+            if (field.getLiteType().getWireType() == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                return UnknownFieldSet.Field.newBuilder().addVarint(-1L).build();
+            }
+
+            return UnknownFieldSet.Field.newBuilder()
+                    .addLengthDelimited(ByteString.copyFromUtf8("mismatched"))
+                    .build();
+        }
+
+    }
+
+    /*
+     * Writes a protobuf report in the JSON format taps send. Field names in the schema match the JSON property names.
+     */
+    private String toJson(Message message) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator g = om.getFactory().createGenerator(out)) {
+            writeMessage(g, message);
+        }
+
+        return out.toString();
+    }
+
+    private void writeMessage(JsonGenerator g, Message message) throws IOException {
+        List<Descriptors.FieldDescriptor> fields = message.getDescriptorForType().getFields();
+
+        if (INLINED_MESSAGES.contains(message.getDescriptorForType().getName())) {
+            writeField(g, fields.get(0), message.getField(fields.get(0)));
+            return;
+        }
+
+        g.writeStartObject();
+        for (Descriptors.FieldDescriptor field : fields) {
+            g.writeFieldName(field.getName());
+            writeField(g, field, message.getField(field));
+        }
+        g.writeEndObject();
+    }
+
+    private void writeField(JsonGenerator g, Descriptors.FieldDescriptor field, Object value) throws IOException {
+        if (field.isMapField()) {
+            Descriptors.FieldDescriptor keyField = field.getMessageType().findFieldByName("key");
+            Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByName("value");
+
+            g.writeStartObject();
+            for (Object entry : (List<?>) value) {
+                Message m = (Message) entry;
+                g.writeFieldName(m.getField(keyField).toString());
+                writeValue(g, valueField, m.getField(valueField));
+            }
+            g.writeEndObject();
+        } else if (field.isRepeated()) {
+            g.writeStartArray();
+            for (Object item : (List<?>) value) {
+                writeValue(g, field, item);
+            }
+            g.writeEndArray();
+        } else {
+            writeValue(g, field, value);
+        }
+    }
+
+    private void writeValue(JsonGenerator g, Descriptors.FieldDescriptor field, Object value) throws IOException {
+        if (field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE) {
+            writeMessage(g, (Message) value);
+        } else {
+            g.writeObject(value);
+        }
+    }
+
+}
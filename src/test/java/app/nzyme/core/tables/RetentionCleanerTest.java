@@ -0,0 +1,117 @@
+package app.nzyme.core.tables;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.database.DatabaseImpl;
+import com.codahale.metrics.MetricRegistry;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class RetentionCleanerTest {
+
+    private final UUID tapUUID = UUID.randomUUID();
+
+    @BeforeMethod
+    public void createTable() {
+        new MockNzyme().getDatabase().useHandle(handle ->
+                handle.execute("CREATE TABLE IF NOT EXISTS retention_cleaner_test(id bigserial PRIMARY KEY, " +
+                        "created_at timestamp with time zone NOT NULL)")
+        );
+    }
+
+    @AfterMethod
+    public void clean() {
+        new MockNzyme().getDatabase().useHandle(handle -> {
+            handle.execute("DROP TABLE IF EXISTS retention_cleaner_test");
+            handle.createUpdate("DELETE FROM tap_metrics_gauges WHERE tap_uuid = :tap_uuid")
+                    .bind("tap_uuid", tapUUID)
+                    .execute();
+        });
+    }
+
+    @Test
+    public void testDeletesOnlyRowsOlderThanCutoff() {
+        DatabaseImpl database = (DatabaseImpl) new MockNzyme().getDatabase();
+        RetentionCleaner cleaner = new RetentionCleaner(database, new MetricRegistry());
+
+        // Spans multiple chunks.
+        insertRows(database, 12000, DateTime.now().minusDays(10));
+        insertRows(database, 10, DateTime.now());
+
+        assertEquals(cleaner.deleteOlderThan("retention_cleaner_test", DateTime.now().minusDays(1)), 12000);
+        assertEquals(countRows(database), 10);
+    }
+
+    @Test
+    public void testEmptyTable() {
+        DatabaseImpl database = (DatabaseImpl) new MockNzyme().getDatabase();
+        RetentionCleaner cleaner = new RetentionCleaner(database, new MetricRegistry());
+
+        assertEquals(cleaner.deleteOlderThan("retention_cleaner_test", DateTime.now()), 0);
+    }
+
+    @Test
+    public void testCancelledCleanerDeletesNothing() {
+        DatabaseImpl database = (DatabaseImpl) new MockNzyme().getDatabase();
+        RetentionCleaner cleaner = new RetentionCleaner(database, new MetricRegistry());
+
+        insertRows(database, 100, DateTime.now().minusDays(10));
+        cleaner.cancel();
+
+        assertEquals(cleaner.deleteOlderThan("retention_cleaner_test", DateTime.now().minusDays(1)), 0);
+        assertEquals(countRows(database), 100);
+    }
+
+    @Test
+    public void testPartitionedTablesDropPartitions() {
+        DatabaseImpl database = (DatabaseImpl) new MockNzyme().getDatabase();
+        MetricRegistry metrics = new MetricRegistry();
+        RetentionCleaner cleaner = new RetentionCleaner(database, metrics);
+        DateTime createdAt = new DateTime(2000, 1, 1, 12, 30, DateTimeZone.UTC);
+
+        database.useHandle(handle ->
+                handle.createUpdate("INSERT INTO tap_metrics_gauges(tap_uuid, metric_name, metric_value, created_at) " +
+                                "VALUES(:tap_uuid, 'test', 1, :created_at)")
+                        .bind("tap_uuid", tapUUID)
+                        .bind("created_at", createdAt)
+                        .execute()
+        );
+
+        cleaner.deleteOlderThan("tap_metrics_gauges", createdAt.plusHours(1));
+
+        long count = database.withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM tap_metrics_gauges WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tapUUID)
+                        .mapTo(Long.class)
+                        .one()
+        );
+
+        assertEquals(count, 0);
+        assertTrue(metrics.getCounters().keySet().stream().anyMatch(n -> n.endsWith("dropped-partitions")));
+    }
+
+    private void insertRows(DatabaseImpl database, int count, DateTime createdAt) {
+        database.useHandle(handle ->
+                handle.createUpdate("INSERT INTO retention_cleaner_test(created_at) " +
+                                "SELECT :created_at FROM generate_series(1, :count)")
+                        .bind("created_at", createdAt)
+                        .bind("count", count)
+                        .execute()
+        );
+    }
+
+    private long countRows(DatabaseImpl database) {
+        return database.withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM retention_cleaner_test")
+                        .mapTo(Long.class)
+                        .one()
+        );
+    }
+
+}
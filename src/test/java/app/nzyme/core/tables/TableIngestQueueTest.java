@@ -0,0 +1,94 @@
+package app.nzyme.core.tables;
+
+import com.codahale.metrics.MetricRegistry;
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class TableIngestQueueTest {
+
+    private TableIngestQueue<String> buildQueue(MetricRegistry metrics,
+                                                int capacity,
+                                                TableIngestQueue.Handler<String> handler) {
+        return new TableIngestQueue<>("test", 1, capacity, handler, metrics, "depth", "wait", "rejections");
+    }
+
+    @Test
+    public void testProcessesSubmittedReports() throws InterruptedException {
+        MetricRegistry metrics = new MetricRegistry();
+        AtomicInteger processed = new AtomicInteger(0);
+        CountDownLatch done = new CountDownLatch(10);
+
+        TableIngestQueue<String> queue = buildQueue(metrics, 10, (tapUuid, timestamp, report) -> {
+            processed.incrementAndGet();
+            done.countDown();
+        });
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.submit(UUID.randomUUID(), DateTime.now(), "report-" + i));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(processed.get(), 10);
+        assertEquals(metrics.timer("wait").getCount(), 10);
+        assertEquals(metrics.counter("rejections").getCount(), 0);
+    }
+
+    @Test
+    public void testRejectsWhenFull() throws InterruptedException {
+        MetricRegistry metrics = new MetricRegistry();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TableIngestQueue<String> queue = buildQueue(metrics, 2, (tapUuid, timestamp, report) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Occupies the only worker.
+        assertTrue(queue.submit(UUID.randomUUID(), DateTime.now(), "a"));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // Fills the queue.
+        assertTrue(queue.submit(UUID.randomUUID(), DateTime.now(), "b"));
+        assertTrue(queue.submit(UUID.randomUUID(), DateTime.now(), "c"));
+        assertEquals(queue.getDepth(), 2);
+        assertEquals(metrics.getGauges().get("depth").getValue(), 2);
+
+        assertFalse(queue.submit(UUID.randomUUID(), DateTime.now(), "d"));
+        assertEquals(metrics.counter("rejections").getCount(), 1);
+
+        release.countDown();
+        queue.shutdown(10, TimeUnit.SECONDS);
+        assertEquals(queue.getDepth(), 0);
+    }
+
+    @Test
+    public void testHandlerFailureDoesNotStopWorker() throws InterruptedException {
+        MetricRegistry metrics = new MetricRegistry();
+        CountDownLatch done = new CountDownLatch(1);
+
+        TableIngestQueue<String> queue = buildQueue(metrics, 10, (tapUuid, timestamp, report) -> {
+            if (report.equals("bad")) {
+                throw new RuntimeException("test");
+            }
+            done.countDown();
+        });
+
+        assertTrue(queue.submit(UUID.randomUUID(), DateTime.now(), "bad"));
+        assertTrue(queue.submit(UUID.randomUUID(), DateTime.now(), "good"));
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+}
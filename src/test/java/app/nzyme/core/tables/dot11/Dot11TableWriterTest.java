@@ -0,0 +1,391 @@
+package app.nzyme.core.tables.dot11;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import app.nzyme.core.rest.resources.taps.reports.tables.dot11.*;
+import app.nzyme.core.taps.Tap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class Dot11TableWriterTest {
+
+    private static final Logger LOG = LogManager.getLogger(Dot11TableWriterTest.class);
+
+    private static final int BENCHMARK_ROUNDS = 10;
+
+    @BeforeMethod
+    public void clean() {
+        NzymeNode nzyme = new MockNzyme();
+
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_disco_activity_receivers").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_disco_activity").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_client_probereq_ssids").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_clients").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_ssid_settings").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_fingerprints").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_rates").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_channels").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_channel_histograms").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_infrastructure_types").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_ssids").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_bssid_clients").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_bssids").execute());
+        nzyme.getDatabase().useHandle(handle -> handle.createUpdate("DELETE FROM dot11_bssid_state").execute());
+    }
+
+    @Test
+    public void testBatchAndCopyWriteSameRows() {
+        NzymeNode nzyme = new MockNzyme();
+        Tap tap = buildTap();
+        Dot11TablesReport report = buildReport(25, 3, 50);
+
+        Dot11TableWriteResult batch = new Dot11TableWriter(nzyme, Dot11WriteMode.BATCH)
+                .write(tap, DateTime.now(), report);
+        Dot11TableWriteResult copy = new Dot11TableWriter(nzyme, Dot11WriteMode.COPY)
+                .write(tap, DateTime.now(), report);
+
+        assertTrue(batch.totalRows() > 0);
+        assertEquals(copy.rowCounts(), batch.rowCounts());
+    }
+
+    @Test
+    public void testCopyWritesParentRelations() {
+        NzymeNode nzyme = new MockNzyme();
+        Tap tap = buildTap();
+
+        new Dot11TableWriter(nzyme, Dot11WriteMode.COPY).write(tap, DateTime.now(), buildReport(5, 2, 5));
+
+        long orphans = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM dot11_channel_histograms h " +
+                                "LEFT JOIN dot11_ssids s ON s.id = h.ssid_id WHERE s.id IS NULL")
+                        .mapTo(Long.class)
+                        .one()
+        );
+
+        long ssids = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM dot11_ssids s " +
+                                "JOIN dot11_bssids b ON b.id = s.bssid_id WHERE b.tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tap.uuid())
+                        .mapTo(Long.class)
+                        .one()
+        );
+
+        assertEquals(orphans, 0);
+        assertEquals(ssids, 10);
+    }
+
+    @Test
+    public void testSanitizedAwaySSIDsAreSkipped() {
+        NzymeNode nzyme = new MockNzyme();
+        Tap tap = buildTap();
+
+        Map<String, Dot11AdvertisedNetworkReport> networks = Maps.newHashMap();
+        networks.put("\u0000\u0000", buildNetwork());
+
+        Map<String, Dot11BSSIDReport> bssids = Maps.newHashMap();
+        bssids.put("00:11:22:33:44:55", Dot11BSSIDReport.create(
+                networks, Maps.newHashMap(), 10, signal(), Lists.newArrayList()
+        ));
+
+        Dot11TablesReport report = Dot11TablesReport.create(
+                bssids, Maps.newHashMap(), Dot11DiscoReport.create(Maps.newHashMap(), Maps.newHashMap()),
+                Lists.newArrayList()
+        );
+
+        for (Dot11WriteMode mode : Dot11WriteMode.values()) {
+            Dot11TableWriteResult result = new Dot11TableWriter(nzyme, mode).write(tap, DateTime.now(), report);
+
+            assertEquals(result.rowCounts().get("dot11_bssids"), Integer.valueOf(1));
+            assertNull(result.rowCounts().get("dot11_ssids"));
+        }
+    }
+
+    @Test
+    public void testBrokenBSSIDDoesNotLoseRestOfReport() {
+        NzymeNode nzyme = new MockNzyme();
+        Tap tap = buildTap();
+
+        Map<String, Dot11AdvertisedNetworkReport> networks = Maps.newHashMap();
+        networks.put("network", buildNetwork());
+
+        Map<String, Dot11BSSIDReport> bssids = Maps.newHashMap();
+        bssids.put("00:11:22:33:44:55", Dot11BSSIDReport.create(
+                networks, Maps.newHashMap(), 0, signal(), Lists.newArrayList()
+        ));
+        // Longer than the BSSID column. Fails in the database.
+        bssids.put("00:11:22:33:44:55:66:77", Dot11BSSIDReport.create(
+                networks, Maps.newHashMap(), 0, signal(), Lists.newArrayList()
+        ));
+
+        Dot11TablesReport report = Dot11TablesReport.create(
+                bssids, Maps.newHashMap(), Dot11DiscoReport.create(Maps.newHashMap(), Maps.newHashMap()),
+                Lists.newArrayList()
+        );
+
+        for (Dot11WriteMode mode : Dot11WriteMode.values()) {
+            Dot11TableWriteResult result = new Dot11TableWriter(nzyme, mode).write(tap, DateTime.now(), report);
+
+            assertEquals(result.rowCounts().get("dot11_bssids"), Integer.valueOf(1));
+            assertEquals(result.rowCounts().get("dot11_ssids"), Integer.valueOf(1));
+        }
+
+        long written = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM dot11_bssids WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tap.uuid())
+                        .mapTo(Long.class)
+                        .one()
+        );
+
+        assertEquals(written, Dot11WriteMode.values().length);
+    }
+
+    @Test
+    public void testOnlyDataErrorsAreWrittenEntryByEntry() {
+        // Wrapped like the exceptions thrown by JDBI.
+        assertTrue(Dot11TableWriter.isDataError(new RuntimeException(new SQLException("value too long", "22001"))));
+        assertTrue(Dot11TableWriter.isDataError(new RuntimeException(new SQLException("duplicate key", "23505"))));
+
+        assertFalse(Dot11TableWriter.isDataError(new RuntimeException(new SQLException("connection failure", "08006"))));
+        assertFalse(Dot11TableWriter.isDataError(new RuntimeException(new SQLException("canceled", "57014"))));
+        assertFalse(Dot11TableWriter.isDataError(new RuntimeException(new SQLException("no state"))));
+        assertFalse(Dot11TableWriter.isDataError(new IllegalStateException()));
+    }
+
+    @Test
+    public void testSSIDAttributesAreDictionaryEncoded() {
+        NzymeNode nzyme = new MockNzyme();
+        Tap tap = buildTap();
+        Dot11TablesReport report = buildReport(5, 2, 5);
+
+        for (Dot11WriteMode mode : Dot11WriteMode.values()) {
+            new Dot11TableWriter(nzyme, mode).write(tap, DateTime.now(), report);
+        }
+
+        List<String> protocols = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT DISTINCT(d.value) FROM dot11_ssid_settings AS s " +
+                                "JOIN dot11_dictionary AS d ON s.value_id = d.id " +
+                                "WHERE d.attribute = 'security_protocol' ORDER BY d.value")
+                        .mapTo(String.class)
+                        .list()
+        );
+
+        long infrastructureTypes = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT COUNT(*) FROM dot11_dictionary WHERE attribute = 'infrastructure_type'")
+                        .mapTo(Long.class)
+                        .one()
+        );
+
+        assertEquals(protocols, Lists.newArrayList("None", "WPA2"));
+        assertEquals(infrastructureTypes, 1);
+    }
+
+    @Test
+    public void testMergeLastSeenKeepsLatestTimeOfEachValue() {
+        NzymeNode nzyme = new MockNzyme();
+
+        String merged = mergeLastSeen(nzyme, "{\"a\": 100, \"b\": 150}", "{\"a\": 120, \"c\": 130}", 0);
+
+        assertEquals(merged, "{\"a\": 120, \"b\": 150, \"c\": 130}");
+    }
+
+    @Test
+    public void testMergeLastSeenDoesNotMoveBackInTime() {
+        NzymeNode nzyme = new MockNzyme();
+
+        // A late report must not replace a newer time.
+        assertEquals(mergeLastSeen(nzyme, "{\"a\": 200}", "{\"a\": 100}", 0), "{\"a\": 200}");
+    }
+
+    @Test
+    public void testMergeLastSeenDropsValuesBeforeCutoff() {
+        NzymeNode nzyme = new MockNzyme();
+
+        assertEquals(mergeLastSeen(nzyme, "{\"a\": 100, \"b\": 150}", "{\"c\": 200}", 150),
+                "{\"b\": 150, \"c\": 200}");
+        assertEquals(mergeLastSeen(nzyme, "{\"a\": 100}", "{}", 150), "{}");
+    }
+
+    @Test
+    public void testBSSIDStateKeepsValuesOfEarlierReports() {
+        NzymeNode nzyme = new MockNzyme();
+        Tap tap = buildTap();
+        DateTime first = DateTime.now().minusMinutes(10);
+        DateTime second = DateTime.now().minusMinutes(5);
+
+        Dot11TableWriter writer = new Dot11TableWriter(nzyme, Dot11WriteMode.BATCH);
+        writer.write(tap, first, buildReport(1, 2, 0));
+        writer.write(tap, second, buildReport(1, 1, 0));
+
+        Map<String, Object> state = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT first_seen, last_seen, ssids->>'network-0-0' AS network_0, " +
+                                "ssids->>'network-0-1' AS network_1 FROM dot11_bssid_state WHERE tap_uuid = :tap_uuid")
+                        .bind("tap_uuid", tap.uuid())
+                        .mapToMap()
+                        .one()
+        );
+
+        assertEquals(((Timestamp) state.get("first_seen")).getTime() / 1000, first.getMillis() / 1000);
+        assertEquals(((Timestamp) state.get("last_seen")).getTime() / 1000, second.getMillis() / 1000);
+        assertEquals(Long.parseLong((String) state.get("network_0")), second.getMillis() / 1000);
+        assertEquals(Long.parseLong((String) state.get("network_1")), first.getMillis() / 1000);
+    }
+
+    /*
+     * Not an exact benchmark but gives an idea of the relative performance of both write modes against a real
+     * database. Look for the log output. Run with the "benchmarks" profile.
+     */
+    @Test(groups = "benchmark")
+    public void benchmarkWriteModes() {
+        NzymeNode nzyme = new MockNzyme();
+        Tap tap = buildTap();
+        Dot11TablesReport report = buildReport(100, 3, 250);
+
+        for (Dot11WriteMode mode : Dot11WriteMode.values()) {
+            Dot11TableWriter writer = new Dot11TableWriter(nzyme, mode);
+
+            // Warm up.
+            writer.write(tap, DateTime.now(), report);
+
+            long total = 0;
+            int rows = 0;
+            for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+                Dot11TableWriteResult result = writer.write(tap, DateTime.now(), report);
+                total += result.tookMs();
+                rows = result.totalRows();
+            }
+
+            LOG.info("Write mode [{}]: <{}> rows per report, average <{}ms> per report over <{}> rounds.",
+                    mode, rows, total / BENCHMARK_ROUNDS, BENCHMARK_ROUNDS);
+        }
+    }
+
+    private Tap buildTap() {
+        return Tap.builder()
+                .id(1)
+                .uuid(UUID.randomUUID())
+                .name("test tap")
+                .description("test tap")
+                .createdAt(DateTime.now())
+                .updatedAt(DateTime.now())
+                .organizationId(UUID.randomUUID())
+                .tenantId(UUID.randomUUID())
+                .remoteAddress("127.0.0.1")
+                .build();
+    }
+
+    private Dot11TablesReport buildReport(int bssidCount, int ssidsPerBSSID, int clientCount) {
+        Map<String, Dot11BSSIDReport> bssids = Maps.newHashMap();
+        for (int i = 0; i < bssidCount; i++) {
+            Map<String, Dot11AdvertisedNetworkReport> networks = Maps.newHashMap();
+            for (int s = 0; s < ssidsPerBSSID; s++) {
+                networks.put("network-" + i + "-" + s, buildNetwork());
+            }
+
+            Map<String, Dot11ClientStatisticsReport> clients = Maps.newHashMap();
+            for (int c = 0; c < 5; c++) {
+                clients.put(mac(0xB0, i * 5 + c), Dot11ClientStatisticsReport.create(100, 9000, 120, 12000, signal()));
+            }
+
+            bssids.put(mac(0xA0, i), Dot11BSSIDReport.create(
+                    networks, clients, 0, signal(), Lists.newArrayList("fp-" + i)
+            ));
+        }
+
+        Map<String, Dot11ClientReport> clients = Maps.newHashMap();
+        for (int i = 0; i < clientCount; i++) {
+            Map<String, Long> probeRequests = Maps.newHashMap();
+            probeRequests.put("probed-" + i, 5L);
+            probeRequests.put("home\tnetwork\\" + i, 2L);
+
+            clients.put(mac(0xC0, i), Dot11ClientReport.create(probeRequests, 3, signal()));
+        }
+
+        Map<String, Dot11DiscoTransmitterReport> deauth = Maps.newHashMap();
+        Map<String, Long> receivers = Maps.newHashMap();
+        receivers.put(mac(0xD1, 1), 10L);
+        receivers.put(mac(0xD1, 2), 20L);
+        deauth.put(mac(0xD0, 1), Dot11DiscoTransmitterReport.create(mac(0xD0, 1), 30, receivers));
+
+        return Dot11TablesReport.create(
+                bssids, clients, Dot11DiscoReport.create(deauth, Maps.newHashMap()), Lists.newArrayList()
+        );
+    }
+
+    private Dot11AdvertisedNetworkReport buildNetwork() {
+        Map<Long, Map<Long, Long>> histogram = Maps.newHashMap();
+        Map<Long, Long> histogramValues = Maps.newHashMap();
+        for (long signal = -80; signal < -40; signal += 5) {
+            histogramValues.put(signal, 10L);
+        }
+        histogram.put(2412L, histogramValues);
+
+        Map<Long, Map<String, Dot11ChannelStatisticsReport>> channelStatistics = Maps.newHashMap();
+        Map<String, Dot11ChannelStatisticsReport> frameTypes = Maps.newHashMap();
+        frameTypes.put("Beacon", Dot11ChannelStatisticsReport.create(5000, 50));
+        frameTypes.put("ProbeResponse", Dot11ChannelStatisticsReport.create(1000, 10));
+        channelStatistics.put(2412L, frameTypes);
+
+        return Dot11AdvertisedNetworkReport.create(
+                ImmutableList.of(
+                        Dot11SecurityInformationReport.create(
+                                Lists.newArrayList(),
+                                Dot11CipherSuitesReport.create("None", Lists.newArrayList(), Lists.newArrayList()),
+                                "Disabled"
+                        ),
+                        Dot11SecurityInformationReport.create(
+                                Lists.newArrayList("WPA2"),
+                                Dot11CipherSuitesReport.create(
+                                        "CCMP",
+                                        Lists.newArrayList("CCMP"),
+                                        Lists.newArrayList("PSK")
+                                ),
+                                "Optional"
+                        )
+                ),
+                Lists.newArrayList("fingerprint"),
+                Lists.newArrayList(1.0F, 2.0F, 5.5F, 11.0F),
+                Lists.newArrayList(false),
+                signal(),
+                histogram,
+                Lists.newArrayList("Infrastructure"),
+                channelStatistics,
+                100,
+                10
+        );
+    }
+
+    private Dot11SignalStrengthReport signal() {
+        return Dot11SignalStrengthReport.create(-80, -40, -60.5F);
+    }
+
+    private String mac(int prefix, int i) {
+        return String.format("%02X:00:00:00:%02X:%02X", prefix, (i >> 8) & 0xFF, i & 0xFF);
+    }
+
+    private String mergeLastSeen(NzymeNode nzyme, String current, String updated, long cutoff) {
+        return nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("SELECT CAST(nzyme_merge_last_seen(CAST(:current AS jsonb), " +
+                                "CAST(:updated AS jsonb), :cutoff) AS text)")
+                        .bind("current", current)
+                        .bind("updated", updated)
+                        .bind("cutoff", cutoff)
+                        .mapTo(String.class)
+                        .one()
+        );
+    }
+
+}
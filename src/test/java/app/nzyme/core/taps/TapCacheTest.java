@@ -0,0 +1,218 @@
+package app.nzyme.core.taps;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import com.google.common.collect.Sets;
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class TapCacheTest {
+
+    private final UUID organizationId = UUID.randomUUID();
+    private final UUID tenantId = UUID.randomUUID();
+
+    @AfterMethod
+    public void clean() {
+        new MockNzyme().getDatabase().useHandle(handle ->
+                handle.createUpdate("DELETE FROM taps WHERE organization_id = :organization_id")
+                        .bind("organization_id", organizationId)
+                        .execute()
+        );
+    }
+
+    @Test
+    public void testFindByUUID() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID tap = createTap(nzyme, tenantId, null, null);
+
+        Optional<Tap> result = cache.findByUUID(tap);
+        assertTrue(result.isPresent());
+        assertEquals(result.get().uuid(), tap);
+        assertEquals(result.get().name(), "tap-" + tap);
+
+        assertFalse(cache.findByUUID(UUID.randomUUID()).isPresent());
+    }
+
+    @Test
+    public void testFindAllOfOrganizationAndTenant() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID otherTenantId = UUID.randomUUID();
+        UUID first = createTap(nzyme, tenantId, null, null);
+        UUID second = createTap(nzyme, tenantId, null, null);
+        UUID third = createTap(nzyme, otherTenantId, null, null);
+
+        assertEquals(uuids(cache.findAllOfOrganization(organizationId)), Set.of(first, second, third));
+        assertEquals(uuids(cache.findAllOfTenant(organizationId, tenantId)), Set.of(first, second));
+        assertEquals(uuids(cache.findAllOfTenant(organizationId, otherTenantId)), Set.of(third));
+        assertTrue(cache.findAllOfTenant(organizationId, UUID.randomUUID()).isEmpty());
+        assertTrue(cache.findAllOfOrganization(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    public void testFindAllOnFloor() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID locationId = UUID.randomUUID();
+        UUID floorId = UUID.randomUUID();
+        UUID otherFloorId = UUID.randomUUID();
+        UUID first = createTap(nzyme, tenantId, locationId, floorId);
+        UUID second = createTap(nzyme, tenantId, locationId, otherFloorId);
+        createTap(nzyme, tenantId, null, null);
+
+        assertEquals(uuids(cache.findAllOnFloor(locationId, floorId)), Set.of(first));
+        assertEquals(uuids(cache.findAllOnFloor(locationId, otherFloorId)), Set.of(second));
+        assertTrue(cache.findAllOnFloor(UUID.randomUUID(), floorId).isEmpty());
+    }
+
+    @Test
+    public void testInvalidateReloadsTaps() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID first = createTap(nzyme, tenantId, null, null);
+
+        assertEquals(uuids(cache.findAllOfOrganization(organizationId)), Set.of(first));
+
+        // Not in the loaded snapshot yet.
+        UUID second = createTap(nzyme, tenantId, null, null);
+        assertFalse(cache.findByUUID(second).isPresent());
+
+        cache.invalidate();
+        assertTrue(cache.findByUUID(second).isPresent());
+        assertEquals(uuids(cache.findAllOfOrganization(organizationId)), Set.of(first, second));
+    }
+
+    @Test
+    public void testRefreshReplacesTap() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID tap = createTap(nzyme, tenantId, null, null);
+
+        assertTrue(cache.findByUUID(tap).isPresent());
+
+        long generation = cache.getGeneration();
+        Tap updated = nzyme.getDatabase().withHandle(handle ->
+                handle.createQuery("UPDATE taps SET remote_address = '192.168.0.1' WHERE uuid = :uuid RETURNING *")
+                        .bind("uuid", tap)
+                        .mapTo(Tap.class)
+                        .one()
+        );
+        cache.refresh(updated, generation);
+
+        assertEquals(cache.findByUUID(tap).orElseThrow().remoteAddress(), "192.168.0.1");
+        assertEquals(cache.findAllOfTenant(organizationId, tenantId).get(0).remoteAddress(), "192.168.0.1");
+    }
+
+    @Test
+    public void testRefreshDoesNotAddBackDeletedTap() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID tap = createTap(nzyme, tenantId, null, null);
+        Tap cached = cache.findByUUID(tap).orElseThrow();
+
+        // A status report reads the tap while it is deleted.
+        long generation = cache.getGeneration();
+        deleteTap(nzyme, tap);
+        cache.invalidate();
+        cache.refresh(cached, generation);
+
+        assertFalse(cache.findByUUID(tap).isPresent());
+        assertTrue(cache.findAllOfOrganization(organizationId).isEmpty());
+    }
+
+    @Test
+    public void testMissingTapsAreRememberedUntilInvalidation() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID unknown = UUID.randomUUID();
+
+        assertFalse(cache.isKnownMissing(unknown));
+        cache.markMissing(unknown, cache.getGeneration());
+        assertTrue(cache.isKnownMissing(unknown));
+
+        cache.invalidate();
+        assertFalse(cache.isKnownMissing(unknown));
+    }
+
+    @Test
+    public void testMissingTapIsNotRememberedIfCacheChanged() {
+        NzymeNode nzyme = new MockNzyme();
+        TapCache cache = new TapCache(nzyme);
+        UUID unknown = UUID.randomUUID();
+
+        long generation = cache.getGeneration();
+        cache.invalidate();
+        cache.markMissing(unknown, generation);
+
+        assertFalse(cache.isKnownMissing(unknown));
+    }
+
+    @Test
+    public void testFindTapCachesUnknownTaps() {
+        NzymeNode nzyme = new MockNzyme();
+        TapManager tapManager = new TapManager(nzyme);
+        UUID tap = UUID.randomUUID();
+
+        assertFalse(tapManager.findTap(tap).isPresent());
+
+        // Created without invalidating, so the missing tap is still remembered.
+        createTap(nzyme, tap, tenantId, null, null);
+        assertFalse(tapManager.findTap(tap).isPresent());
+
+        tapManager.invalidateTaps();
+        assertTrue(tapManager.findTap(tap).isPresent());
+    }
+
+    private UUID createTap(NzymeNode nzyme, UUID tenantId, UUID locationId, UUID floorId) {
+        UUID uuid = UUID.randomUUID();
+        createTap(nzyme, uuid, tenantId, locationId, floorId);
+        return uuid;
+    }
+
+    private void createTap(NzymeNode nzyme, UUID uuid, UUID tenantId, UUID locationId, UUID floorId) {
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("INSERT INTO taps(uuid, organization_id, tenant_id, secret, secret_hash, name, " +
+                                "description, deleted, location_uuid, floor_uuid, created_at, updated_at) " +
+                                "VALUES(:uuid, :organization_id, :tenant_id, :secret, :secret_hash, :name, " +
+                                ":description, false, :location_uuid, :floor_uuid, :created_at, :updated_at)")
+                        .bind("uuid", uuid)
+                        .bind("organization_id", organizationId)
+                        .bind("tenant_id", tenantId)
+                        .bind("secret", uuid.toString())
+                        .bind("secret_hash", uuid.toString())
+                        .bind("name", "tap-" + uuid)
+                        .bind("description", "test tap")
+                        .bind("location_uuid", locationId)
+                        .bind("floor_uuid", floorId)
+                        .bind("created_at", DateTime.now())
+                        .bind("updated_at", DateTime.now())
+                        .execute()
+        );
+    }
+
+    private void deleteTap(NzymeNode nzyme, UUID uuid) {
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("DELETE FROM taps WHERE uuid = :uuid")
+                        .bind("uuid", uuid)
+                        .execute()
+        );
+    }
+
+    private Set<UUID> uuids(List<Tap> taps) {
+        Set<UUID> result = Sets.newHashSet();
+        for (Tap tap : taps) {
+            result.add(tap.uuid());
+        }
+        return result;
+    }
+
+}
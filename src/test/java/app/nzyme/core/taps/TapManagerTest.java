@@ -0,0 +1,73 @@
+package app.nzyme.core.taps;
+
+import app.nzyme.core.MockNzyme;
+import app.nzyme.core.NzymeNode;
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+public class TapManagerTest {
+
+    private final UUID organizationId = UUID.randomUUID();
+
+    @AfterMethod
+    public void clean() {
+        new MockNzyme().getDatabase().useHandle(handle ->
+                handle.createUpdate("DELETE FROM taps WHERE organization_id = :organization_id")
+                        .bind("organization_id", organizationId)
+                        .execute()
+        );
+    }
+
+    @Test
+    public void testRemoveStatusTimer() {
+        NzymeNode nzyme = new MockNzyme();
+        TapManager tapManager = new TapManager(nzyme);
+        UUID tap = UUID.randomUUID();
+
+        nzyme.getMetrics().timer(TapManager.statusTimerName(tap));
+        tapManager.removeStatusTimer(tap);
+
+        assertFalse(nzyme.getMetrics().getTimers().containsKey(TapManager.statusTimerName(tap)));
+    }
+
+    @Test
+    public void testStatusTimersOfDeletedTapsAreRemoved() {
+        NzymeNode nzyme = new MockNzyme();
+        TapManager tapManager = new TapManager(nzyme);
+        UUID existing = createTap(nzyme);
+        UUID deleted = UUID.randomUUID();
+
+        nzyme.getMetrics().timer(TapManager.statusTimerName(existing));
+        nzyme.getMetrics().timer(TapManager.statusTimerName(deleted));
+        tapManager.removeStatusTimersOfDeletedTaps();
+
+        assertTrue(nzyme.getMetrics().getTimers().containsKey(TapManager.statusTimerName(existing)));
+        assertFalse(nzyme.getMetrics().getTimers().containsKey(TapManager.statusTimerName(deleted)));
+    }
+
+    private UUID createTap(NzymeNode nzyme) {
+        UUID uuid = UUID.randomUUID();
+        nzyme.getDatabase().useHandle(handle ->
+                handle.createUpdate("INSERT INTO taps(uuid, organization_id, tenant_id, secret, secret_hash, name, " +
+                                "description, deleted, created_at, updated_at) VALUES(:uuid, :organization_id, " +
+                                ":tenant_id, :secret, :secret_hash, :name, 'test tap', false, :created_at, :updated_at)")
+                        .bind("uuid", uuid)
+                        .bind("organization_id", organizationId)
+                        .bind("tenant_id", UUID.randomUUID())
+                        .bind("secret", uuid.toString())
+                        .bind("secret_hash", uuid.toString())
+                        .bind("name", "tap-" + uuid)
+                        .bind("created_at", DateTime.now())
+                        .bind("updated_at", DateTime.now())
+                        .execute()
+        );
+
+        return uuid;
+    }
+
+}
@@ -50,6 +50,20 @@ function RetentionTimesConfiguration() {
                                   dbUpdateCallback={systemService.updateRetentionTimes} />
             </td>
           </tr>
+          <tr>
+            <td>DNS Data Retention</td>
+            <td>
+              <ConfigurationValue value={configuration.dns_retention_time_days.value}
+                                  configKey={configuration.dns_retention_time_days.key}
+                                  required={true} /> days
+            </td>
+            <td>
+              <ConfigurationModal config={configuration.dns_retention_time_days}
+                                  setGlobalConfig={setConfiguration}
+                                  setLocalRevision={setLocalRevision}
+                                  dbUpdateCallback={systemService.updateRetentionTimes} />
+            </td>
+          </tr>
           </tbody>
         </table>
       </React.Fragment>
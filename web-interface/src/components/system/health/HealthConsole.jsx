@@ -34,6 +34,7 @@ function HealthConsole(props) {
             <Indicator indicator={indicators.tasks_queue_task_failure} name="Task Failure" />
             <Indicator indicator={indicators.message_bus_message_failure} name="Message Failure" />
             <Indicator indicator={indicators.message_bus_message_stuck} name="Message Stuck" />
+            <Indicator indicator={indicators.db_replica_lag} name="DB Replica Lag" />
           </div>
 
           <div style={{clear: "both"}} />